@@ -0,0 +1,78 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.es;
+
+import com.alibaba.fastjson.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sirius.db.mixing.EntityDescriptor;
+import sirius.db.mixing.Mapping;
+import sirius.db.mixing.MixingBenchmark;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast entities are created from synthetic Elasticsearch search hits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ElasticMaterializationBenchmark extends MixingBenchmark {
+
+    private EntityDescriptor descriptor;
+    private JSONObject[] hits;
+
+    /**
+     * Creates the synthetic search hits for {@link ElasticTestEntity}.
+     */
+    @Setup
+    public void setup() {
+        ensureStarted();
+        descriptor = getDescriptor(ElasticTestEntity.class);
+
+        hits = new JSONObject[NUMBER_OF_ROWS];
+        for (int row = 0; row < NUMBER_OF_ROWS; row++) {
+            JSONObject source = new JSONObject();
+            source.put(columnOf(ElasticTestEntity.FIRSTNAME), "firstname-" + row);
+            source.put(columnOf(ElasticTestEntity.LASTNAME), "lastname-" + row);
+            source.put(columnOf(ElasticTestEntity.AGE), row % 100);
+            hits[row] = new JSONObject().fluentPut(Elastic.ID_FIELD, String.valueOf(row)).fluentPut("_source", source);
+        }
+    }
+
+    private String columnOf(Mapping mapping) {
+        return descriptor.getProperty(mapping).getPropertyName();
+    }
+
+    @Benchmark
+    public void makeEntities(Blackhole blackhole) {
+        for (JSONObject hit : hits) {
+            blackhole.consume(Elastic.make(descriptor, hit));
+        }
+    }
+
+    @Benchmark
+    public void makeReadOnlyEntities(Blackhole blackhole) {
+        for (JSONObject hit : hits) {
+            blackhole.consume(Elastic.make(descriptor, hit, true));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.jdbc;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sirius.db.mixing.EntityDescriptor;
+import sirius.db.mixing.MaterializationPlan;
+import sirius.db.mixing.MixingBenchmark;
+import sirius.db.mixing.Property;
+import sirius.kernel.commons.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast entities are created from synthetic JDBC rows.
+ * <p>
+ * This mimics the {@link ResultSetMaterializer}: the plan is resolved once per result and each row is then read by
+ * the index of its columns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SQLMaterializationBenchmark extends MixingBenchmark {
+
+    private MaterializationPlan plan;
+    private Object[][] rows;
+
+    /**
+     * Creates the synthetic rows for {@link DataTypesEntity}, which covers most of the common property types.
+     */
+    @Setup
+    public void setup() {
+        ensureStarted();
+        EntityDescriptor descriptor = getDescriptor(DataTypesEntity.class);
+
+        List<String> columns = new ArrayList<>();
+        descriptor.getProperties().forEach(property -> columns.add(property.getPropertyName()));
+        plan = descriptor.getMaterializationPlan(null).resolve(columns::indexOf);
+
+        List<Property> properties = new ArrayList<>(descriptor.getProperties());
+        rows = new Object[NUMBER_OF_ROWS][];
+        for (int row = 0; row < NUMBER_OF_ROWS; row++) {
+            rows[row] = new Object[properties.size()];
+            for (int column = 0; column < properties.size(); column++) {
+                rows[row][column] = createJDBCValue(properties.get(column), row);
+            }
+        }
+    }
+
+    @Benchmark
+    public void makeEntities(Blackhole blackhole) throws Exception {
+        for (Object[] row : rows) {
+            blackhole.consume(plan.makeByIndex(OMA.class, index -> Value.of(row[index])));
+        }
+    }
+
+    @Benchmark
+    public void makeReadOnlyEntities(Blackhole blackhole) throws Exception {
+        MaterializationPlan readOnlyPlan = plan.asReadOnly();
+        for (Object[] row : rows) {
+            blackhole.consume(readOnlyPlan.makeByIndex(OMA.class, index -> Value.of(row[index])));
+        }
+    }
+}
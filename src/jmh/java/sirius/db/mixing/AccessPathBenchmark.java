@@ -0,0 +1,84 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sirius.db.jdbc.TestEntityWithComposite;
+import sirius.db.jdbc.TestEntityWithMixin;
+
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading and writing properties which are stored in composites or mixins.
+ * <p>
+ * For each entity, the most deeply nested property is used, so that the whole {@link AccessPath} is traversed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AccessPathBenchmark extends MixingBenchmark {
+
+    private TestEntityWithComposite entityWithComposite;
+    private Property compositeProperty;
+    private TestEntityWithMixin entityWithMixin;
+    private Property mixinProperty;
+
+    @Setup
+    public void setup() {
+        ensureStarted();
+        entityWithComposite = new TestEntityWithComposite();
+        compositeProperty = findDeepestStringProperty(getDescriptor(TestEntityWithComposite.class));
+        compositeProperty.setValue(entityWithComposite, "value");
+
+        entityWithMixin = new TestEntityWithMixin();
+        mixinProperty = findDeepestStringProperty(getDescriptor(TestEntityWithMixin.class));
+        mixinProperty.setValue(entityWithMixin, "value");
+    }
+
+    private Property findDeepestStringProperty(EntityDescriptor descriptor) {
+        return descriptor.getProperties()
+                         .stream()
+                         .filter(property -> property.getField().getType() == String.class)
+                         .max(Comparator.comparingInt(property -> property.getName().split("_").length))
+                         .orElseThrow();
+    }
+
+    @Benchmark
+    public Object readCompositeProperty() {
+        return compositeProperty.getValue(entityWithComposite);
+    }
+
+    @Benchmark
+    public void writeCompositeProperty() {
+        compositeProperty.setValue(entityWithComposite, "value");
+    }
+
+    @Benchmark
+    public Object readMixinProperty() {
+        return mixinProperty.getValue(entityWithMixin);
+    }
+
+    @Benchmark
+    public void writeMixinProperty() {
+        mixinProperty.setValue(entityWithMixin, "value");
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sirius.db.jdbc.DataTypesEntity;
+import sirius.db.jdbc.OMA;
+import sirius.kernel.commons.Value;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast an entity determines which of its properties have been changed since it was loaded.
+ * <p>
+ * This is performed for each update, as only changed properties are written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DirtyCheckingBenchmark extends MixingBenchmark {
+
+    private DataTypesEntity unchangedEntity;
+    private DataTypesEntity changedEntity;
+    private Property changedProperty;
+
+    /**
+     * Loads two entities from a synthetic row and modifies the last string property of one of them.
+     * <p>
+     * As the properties are checked in order, the modified entity represents almost the worst case.
+     *
+     * @throws Exception in case the entities cannot be created
+     */
+    @Setup
+    public void setup() throws Exception {
+        ensureStarted();
+        EntityDescriptor descriptor = getDescriptor(DataTypesEntity.class);
+
+        Map<String, Object> row = new HashMap<>();
+        for (Property property : descriptor.getProperties()) {
+            row.put(property.getPropertyName(), createJDBCValue(property, 1));
+            if (property.getField().getType() == String.class) {
+                changedProperty = property;
+            }
+        }
+
+        MaterializationPlan plan = descriptor.getMaterializationPlan(null);
+        unchangedEntity = (DataTypesEntity) plan.make(OMA.class, column -> Value.of(row.get(column)));
+        changedEntity = (DataTypesEntity) plan.make(OMA.class, column -> Value.of(row.get(column)));
+        changedProperty.setValue(changedEntity, "changed");
+    }
+
+    @Benchmark
+    public boolean checkUnchangedEntity() {
+        return unchangedEntity.isAnyMappingChanged();
+    }
+
+    @Benchmark
+    public boolean checkChangedEntity() {
+        return changedEntity.isAnyMappingChanged();
+    }
+
+    @Benchmark
+    public boolean checkSingleProperty() {
+        return changedEntity.getDescriptor().isChanged(changedEntity, changedProperty);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import sirius.kernel.Setup;
+import sirius.kernel.Sirius;
+import sirius.kernel.commons.Amount;
+import sirius.kernel.di.Injector;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Provides the common setup of all micro benchmarks of the mixing framework.
+ * <p>
+ * The benchmarks are part of the <tt>benchmarks</tt> profile and can be executed via
+ * <tt>mvn -P benchmarks test-compile exec:exec</tt>. A subset can be selected by passing a regular expression, e.g.
+ * <tt>-Djmh.args="QueryCompilerBenchmark"</tt>, which also accepts all other JMH options.
+ * <p>
+ * The framework is started using <tt>benchmark.conf</tt> instead of <tt>test.conf</tt>, so that no database is
+ * configured or required. The entities of the test sources are used, which are filled with synthetic rows,
+ * documents and search hits. As these are derived from the row number only, each run processes the same data.
+ */
+public abstract class MixingBenchmark {
+
+    /**
+     * Contains the number of synthetic rows used per invocation by the materialization benchmarks.
+     */
+    public static final int NUMBER_OF_ROWS = 1000;
+
+    private static boolean started;
+
+    /**
+     * Starts the framework unless it is already running in this JVM.
+     */
+    protected static synchronized void ensureStarted() {
+        if (started) {
+            return;
+        }
+
+        Sirius.start(new Setup(Setup.Mode.TEST, MixingBenchmark.class.getClassLoader()) {
+            @Override
+            public Config loadTestConfig() {
+                return ConfigFactory.parseResources(MixingBenchmark.class.getClassLoader(), "benchmark.conf");
+            }
+        });
+        started = true;
+    }
+
+    /**
+     * Returns the descriptor of the given entity type.
+     *
+     * @param type the entity type to fetch the descriptor for
+     * @return the descriptor of the given type
+     */
+    protected static EntityDescriptor getDescriptor(Class<?> type) {
+        return Injector.context().getPart(Mixing.class).getDescriptor(type);
+    }
+
+    /**
+     * Creates a synthetic value for the given property as it would be returned by a JDBC driver.
+     *
+     * @param property the property to create a value for
+     * @param row      the number of the row, which is used to vary the values
+     * @return a value matching the type of the given property or <tt>null</tt> if the type is not supported
+     */
+    protected static Object createJDBCValue(Property property, int row) {
+        Field field = property.getField();
+        Class<?> type = field.getType();
+        if (type == String.class) {
+            return property.getName() + "-" + row;
+        }
+        if (type == Long.class || type == long.class) {
+            return (long) row;
+        }
+        if (type == Integer.class || type == int.class) {
+            return row;
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return row % 2 == 0;
+        }
+        if (type == Amount.class) {
+            return BigDecimal.valueOf(row, 2);
+        }
+        if (type == LocalDate.class) {
+            return Date.valueOf(LocalDate.of(2020, 1, 1).plusDays(row % 365));
+        }
+        if (type == LocalTime.class) {
+            return Time.valueOf(LocalTime.of(row % 24, row % 60));
+        }
+        if (type == LocalDateTime.class) {
+            return Timestamp.valueOf(LocalDateTime.of(2020, 1, 1, 0, 0).plusMinutes(row));
+        }
+        if (type.isEnum()) {
+            Object[] constants = type.getEnumConstants();
+            return ((Enum<?>) constants[row % constants.length]).name();
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing.query;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sirius.db.jdbc.OMA;
+import sirius.db.jdbc.SmartQuery;
+import sirius.db.jdbc.TestEntity;
+import sirius.db.jdbc.constraints.SQLConstraint;
+import sirius.db.jdbc.constraints.SQLQueryCompiler;
+import sirius.db.mixing.EntityDescriptor;
+import sirius.db.mixing.MixingBenchmark;
+import sirius.db.mongo.MangoTestEntity;
+import sirius.db.mongo.QueryBuilder;
+import sirius.db.mongo.constraints.MongoConstraint;
+import sirius.db.mongo.constraints.MongoQueryCompiler;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast query strings (as entered by a user) are compiled into constraints and SQL.
+ * <p>
+ * The compilers are invoked directly, as {@link sirius.db.mixing.query.constraints.FilterFactory#queryString}
+ * caches compiled query strings. The cached path is measured separately.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class QueryCompilerBenchmark extends MixingBenchmark {
+
+    private static final String QUERY = "firstname:john lastname:doe -age:42 smith OR (miller AND jones)";
+
+    private EntityDescriptor sqlDescriptor;
+    private List<QueryField> sqlFields;
+    private EntityDescriptor mongoDescriptor;
+    private List<QueryField> mongoFields;
+
+    @Setup
+    public void setup() {
+        ensureStarted();
+        sqlDescriptor = getDescriptor(TestEntity.class);
+        sqlFields = List.of(QueryField.contains(TestEntity.FIRSTNAME), QueryField.startsWith(TestEntity.LASTNAME));
+        mongoDescriptor = getDescriptor(MangoTestEntity.class);
+        mongoFields = List.of(QueryField.contains(MangoTestEntity.FIRSTNAME),
+                              QueryField.startsWith(MangoTestEntity.LASTNAME));
+    }
+
+    @Benchmark
+    public SQLConstraint compileSQLConstraint() {
+        return new SQLQueryCompiler(OMA.FILTERS, sqlDescriptor, QUERY, sqlFields).compile();
+    }
+
+    @Benchmark
+    public String compileSQL() {
+        SmartQuery.Compiler compiler = new SmartQuery.Compiler(sqlDescriptor);
+        new SQLQueryCompiler(OMA.FILTERS, sqlDescriptor, QUERY, sqlFields).compile().appendSQL(compiler);
+        return compiler.toString();
+    }
+
+    @Benchmark
+    public SQLConstraint compileCachedSQLConstraint() {
+        return OMA.FILTERS.queryString(sqlDescriptor, QUERY, sqlFields);
+    }
+
+    @Benchmark
+    public MongoConstraint compileMongoConstraint() {
+        return new MongoQueryCompiler(QueryBuilder.FILTERS, mongoDescriptor, QUERY, mongoFields).compile();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mongo;
+
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sirius.db.mixing.EntityDescriptor;
+import sirius.db.mixing.Mapping;
+import sirius.db.mixing.MixingBenchmark;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast entities are created from synthetic MongoDB documents.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MangoMaterializationBenchmark extends MixingBenchmark {
+
+    private EntityDescriptor descriptor;
+    private Doc[] documents;
+
+    /**
+     * Creates the synthetic documents for {@link MangoTestEntity}.
+     */
+    @Setup
+    public void setup() {
+        ensureStarted();
+        descriptor = getDescriptor(MangoTestEntity.class);
+
+        documents = new Doc[NUMBER_OF_ROWS];
+        for (int row = 0; row < NUMBER_OF_ROWS; row++) {
+            LocalDateTime birthday = LocalDateTime.of(1980, 1, 1, 0, 0).plusDays(row);
+            Document document = new Document();
+            document.put(columnOf(MongoEntity.ID), String.valueOf(row));
+            document.put(columnOf(MangoTestEntity.FIRSTNAME), "firstname-" + row);
+            document.put(columnOf(MangoTestEntity.LASTNAME), "lastname-" + row);
+            document.put(columnOf(MangoTestEntity.AGE), row % 100);
+            document.put(columnOf(MangoTestEntity.COOL), row % 2 == 0);
+            document.put(columnOf(MangoTestEntity.BIRTHDAY), Date.from(birthday.toInstant(ZoneOffset.UTC)));
+            document.put(columnOf(MangoTestEntity.SUPER_POWERS), Arrays.asList("flying", "x-ray", "power-" + row));
+            documents[row] = new Doc(document);
+        }
+    }
+
+    private String columnOf(Mapping mapping) {
+        return descriptor.getProperty(mapping).getPropertyName();
+    }
+
+    @Benchmark
+    public void makeEntities(Blackhole blackhole) {
+        for (Doc document : documents) {
+            blackhole.consume(Mango.make(descriptor, document));
+        }
+    }
+
+    @Benchmark
+    public void makeReadOnlyEntities(Blackhole blackhole) {
+        for (Doc document : documents) {
+            blackhole.consume(Mango.make(descriptor, document, true));
+        }
+    }
+}
@@ -137,8 +137,18 @@ public class BulkContext implements Closeable {
         }
     }
 
+    /**
+     * Builds the metadata of a bulk command for the given entity.
+     * <p>
+     * Note that this assigns a new ID to the entity if it is still new.
+     *
+     * @param entity the entity to write
+     * @param force  <tt>true</tt> to disable optimistic locking, <tt>false</tt> otherwise
+     * @param ed     the descriptor of the entity
+     * @return the metadata to use for a bulk command
+     */
     @Nonnull
-    private JSONObject builtMetadata(ElasticEntity entity, boolean force, EntityDescriptor ed) {
+    protected static JSONObject builtMetadata(ElasticEntity entity, boolean force, EntityDescriptor ed) {
         JSONObject meta = new JSONObject();
 
         if (!force && !entity.isNew() && ed.isVersioned()) {
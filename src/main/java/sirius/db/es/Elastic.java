@@ -8,6 +8,7 @@
 
 package sirius.db.es;
 
+import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import org.apache.http.HttpHost;
 import org.elasticsearch.client.Request;
@@ -21,7 +22,10 @@ import sirius.db.mixing.BaseMapper;
 import sirius.db.mixing.ContextInfo;
 import sirius.db.mixing.EntityDescriptor;
 import sirius.db.mixing.Mapping;
+import sirius.db.mixing.MaterializationPlan;
+import sirius.db.mixing.OptimisticLockException;
 import sirius.db.mixing.Property;
+import sirius.db.mixing.SessionOperation;
 import sirius.kernel.async.ExecutionPoint;
 import sirius.kernel.async.Future;
 import sirius.kernel.commons.Explain;
@@ -40,6 +44,7 @@ import sirius.kernel.settings.PortMapper;
 
 import javax.annotation.Nullable;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.HashMap;
@@ -76,7 +81,16 @@ public class Elastic extends BaseMapper<ElasticEntity, ElasticConstraint, Elasti
     private static final String RESPONSE_PRIMARY_TERM = "_primary_term";
     private static final String RESPONSE_SEQ_NO = "_seq_no";
     private static final String RESPONSE_FOUND = "found";
+    private static final String RESPONSE_DOCS = "docs";
     private static final String RESPONSE_SOURCE = "_source";
+    private static final String RESPONSE_DELETED = "deleted";
+    private static final String RESPONSE_ITEMS = "items";
+    private static final String RESPONSE_ERROR = "error";
+    private static final String RESPONSE_STATUS = "status";
+    private static final String RESPONSE_REASON = "reason";
+    private static final int HTTP_STATUS_CONFLICT = 409;
+    private static final String KEY_QUERY = "query";
+    private static final int MAX_IDS_IN_WARNINGS = 10;
 
     /**
      * Contains the name of the ID field used by Elasticsearch
@@ -326,12 +340,10 @@ public class Elastic extends BaseMapper<ElasticEntity, ElasticConstraint, Elasti
      * @return <tt>true</tt> if at least on property has changed, <tt>false</tt> otherwise
      */
     protected boolean toJSON(EntityDescriptor ed, ElasticEntity entity, JSONObject data) {
-        boolean changed = false;
         for (Property p : ed.getProperties()) {
             data.put(p.getPropertyName(), p.getValueForDatasource(Elastic.class, entity));
-            changed |= ed.isChanged(entity, p);
         }
-        return changed;
+        return ed.isAnyPropertyChanged(entity);
     }
 
     /**
@@ -521,6 +533,74 @@ public class Elastic extends BaseMapper<ElasticEntity, ElasticConstraint, Elasti
                                    determineSeqNo(force, entityDescriptor, entity));
     }
 
+    /**
+     * Performs the given operations as a single request against the bulk API.
+     * <p>
+     * The response contains a result per command, therefore a version conflict can be reported for each entity.
+     * The commands are sent in the order in which the operations were queued. Note however, that Elasticsearch only
+     * guarantees this order for commands which target the same shard.
+     *
+     * @param operations the operations to perform
+     */
+    @Override
+    protected void executeWrites(List<SessionOperation<ElasticEntity>> operations) {
+        List<JSONObject> commands = new ArrayList<>();
+        List<SessionOperation<ElasticEntity>> writtenOperations = new ArrayList<>();
+        for (SessionOperation<ElasticEntity> operation : operations) {
+            ElasticEntity entity = operation.getEntity();
+            EntityDescriptor entityDescriptor = entity.getDescriptor();
+            if (operation.getType() == SessionOperation.Type.DELETE) {
+                commands.add(new JSONObject().fluentPut(BulkContext.COMMAND_DELETE,
+                                                        BulkContext.builtMetadata(entity, false, entityDescriptor)));
+            } else {
+                JSONObject data = new JSONObject();
+                if (!toJSON(entityDescriptor, entity, data) && operation.getType() == SessionOperation.Type.UPDATE) {
+                    // Updates without any changes are skipped entirely...
+                    operation.markWritten();
+                    continue;
+                }
+                commands.add(new JSONObject().fluentPut(BulkContext.COMMAND_INDEX,
+                                                        BulkContext.builtMetadata(entity, false, entityDescriptor)));
+                commands.add(data);
+            }
+            writtenOperations.add(operation);
+        }
+
+        if (commands.isEmpty()) {
+            return;
+        }
+
+        JSONArray items = getLowLevelClient().bulk(commands).getJSONArray(RESPONSE_ITEMS);
+        for (int i = 0; i < writtenOperations.size(); i++) {
+            JSONObject item = items.getJSONObject(i);
+            completeBulkWrite(writtenOperations.get(i), (JSONObject) item.values().iterator().next());
+        }
+    }
+
+    private void completeBulkWrite(SessionOperation<ElasticEntity> operation, JSONObject result) {
+        ElasticEntity entity = operation.getEntity();
+        JSONObject error = result.getJSONObject(RESPONSE_ERROR);
+        int status = result.getIntValue(RESPONSE_STATUS);
+        if (status == HTTP_STATUS_CONFLICT) {
+            operation.fail(new OptimisticLockException(error == null ? null : error.getString(RESPONSE_REASON),
+                                                       null));
+        } else if (error != null) {
+            operation.fail(Exceptions.handle()
+                                     .to(LOG)
+                                     .withSystemErrorMessage("Failed to write %s (%s): %s",
+                                                             entity,
+                                                             entity.getId(),
+                                                             error.getString(RESPONSE_REASON))
+                                     .handle());
+        } else {
+            if (operation.getType() != SessionOperation.Type.DELETE && entity.getDescriptor().isVersioned()) {
+                entity.setPrimaryTerm(result.getLong(RESPONSE_PRIMARY_TERM));
+                entity.setSeqNo(result.getLong(RESPONSE_SEQ_NO));
+            }
+            operation.markWritten();
+        }
+    }
+
     /**
      * Creates a new instance of the given entity type for the given data.
      *
@@ -529,11 +609,27 @@ public class Elastic extends BaseMapper<ElasticEntity, ElasticConstraint, Elasti
      * @return a new entity based on the given data
      */
     protected static ElasticEntity make(EntityDescriptor ed, JSONObject obj) {
+        return make(ed, obj, false);
+    }
+
+    /**
+     * Creates a new instance of the given entity type for the given data.
+     *
+     * @param ed       the descriptor of the entity type
+     * @param obj      the JSON data to transform
+     * @param readOnly determines if a {@link sirius.db.mixing.BaseEntity#isReadOnly() read-only} entity is created
+     * @return a new entity based on the given data
+     */
+    protected static ElasticEntity make(EntityDescriptor ed, JSONObject obj, boolean readOnly) {
         String id = obj.getString(ID_FIELD);
 
         try {
             JSONObject source = obj.getJSONObject(RESPONSE_SOURCE);
-            ElasticEntity result = (ElasticEntity) ed.make(Elastic.class, null, key -> Value.of(source.get(key)));
+            MaterializationPlan plan = ed.getMaterializationPlan(null);
+            if (readOnly) {
+                plan = plan.asReadOnly();
+            }
+            ElasticEntity result = (ElasticEntity) plan.make(Elastic.class, key -> Value.of(source.get(key)));
             result.setSearchHit(obj);
             result.setId(id);
 
@@ -579,6 +675,32 @@ public class Elastic extends BaseMapper<ElasticEntity, ElasticConstraint, Elasti
         return Optional.of(result);
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    protected <E extends ElasticEntity> List<E> findEntities(List<Object> ids,
+                                                             EntityDescriptor entityDescriptor,
+                                                             Function<String, Value> context) throws Exception {
+        JSONObject response = getLowLevelClient().mget(determineReadAlias(entityDescriptor),
+                                                       ids.stream().map(Object::toString).toList(),
+                                                       determineRoutingForFind(describeIds(ids),
+                                                                               entityDescriptor,
+                                                                               context));
+        List<E> result = new ArrayList<>(ids.size());
+        JSONArray docs = response.getJSONArray(RESPONSE_DOCS);
+        if (docs == null) {
+            return result;
+        }
+
+        for (int i = 0; i < docs.size(); i++) {
+            JSONObject doc = docs.getJSONObject(i);
+            if (Boolean.TRUE.equals(doc.getBoolean(RESPONSE_FOUND))) {
+                result.add((E) make(entityDescriptor, doc));
+            }
+        }
+
+        return result;
+    }
+
     private String determineRoutingForFind(Object id,
                                            EntityDescriptor entityDescriptor,
                                            Function<String, Value> context) {
@@ -604,6 +726,22 @@ public class Elastic extends BaseMapper<ElasticEntity, ElasticConstraint, Elasti
         return routing;
     }
 
+    /**
+     * Shortens the given list of ids so that it can be output in a log message.
+     *
+     * @param ids the ids to describe
+     * @return the first {@link #MAX_IDS_IN_WARNINGS} ids along with the total number of ids if the list is longer
+     */
+    private String describeIds(List<Object> ids) {
+        if (ids.size() <= MAX_IDS_IN_WARNINGS) {
+            return Strings.join(ids, ", ");
+        }
+
+        return Strings.apply("%s, ... (%s ids in total)",
+                             Strings.join(ids.subList(0, MAX_IDS_IN_WARNINGS), ", "),
+                             ids.size());
+    }
+
     /**
      * Determines if the entity of the given descriptor requires a routing value.
      *
@@ -728,6 +866,15 @@ public class Elastic extends BaseMapper<ElasticEntity, ElasticConstraint, Elasti
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    protected long executeDeleteAllWhere(EntityDescriptor descriptor, Mapping field, Object value)
+            throws Exception {
+        JSONObject payload = new JSONObject();
+        payload.put(KEY_QUERY, FILTERS.eq(field, value).toJSON());
+        JSONObject response = getLowLevelClient().deleteByQuery(determineWriteAlias(descriptor), null, payload);
+        return response.getLongValue(RESPONSE_DELETED);
+    }
+
     @Override
     protected int determineRetryTimeoutFactor() {
         return 500;
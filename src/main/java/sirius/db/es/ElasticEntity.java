@@ -79,7 +79,7 @@ public abstract class ElasticEntity extends BaseEntity<String> {
     public boolean isUnique(Mapping field, Object value, Mapping... within) {
         ElasticQuery<? extends ElasticEntity> qry = elastic.select(getClass()).eq(field, value);
         for (Mapping withinField : within) {
-            qry.eq(withinField, getDescriptor().getProperty(withinField).getValue(this));
+            qry.eq(withinField, getUniqueWithinValue(withinField));
         }
         if (!isNew()) {
             qry.ne(ID, getId());
@@ -109,10 +109,9 @@ public abstract class ElasticEntity extends BaseEntity<String> {
 
     @Override
     public boolean isAnyMappingChanged() {
-        return getDescriptor().getProperties()
+        return getDescriptor().getChangedProperties(this)
                               .stream()
-                              .filter(property -> !ElasticEntity.ID.getName().equals(property.getName()))
-                              .anyMatch(property -> getDescriptor().isChanged(this, property));
+                              .anyMatch(property -> !ElasticEntity.ID.getName().equals(property.getName()));
     }
 
     @SuppressWarnings("AssignmentOrReturnOfFieldWithMutableType")
@@ -267,4 +266,11 @@ public abstract class ElasticEntity extends BaseEntity<String> {
     protected void setSeqNo(long seqNo) {
         this.seqNo = seqNo;
     }
+
+    @Override
+    protected void transferMetadata(BaseEntity<?> copy) {
+        ElasticEntity elasticCopy = (ElasticEntity) copy;
+        elasticCopy.primaryTerm = primaryTerm;
+        elasticCopy.seqNo = seqNo;
+    }
 }
@@ -14,10 +14,14 @@ import sirius.db.es.constraints.BoolQueryBuilder;
 import sirius.db.es.constraints.ElasticConstraint;
 import sirius.db.mixing.DateRange;
 import sirius.db.mixing.EntityDescriptor;
+import sirius.db.mixing.EntityMetrics;
 import sirius.db.mixing.Mapping;
 import sirius.db.mixing.Mixing;
 import sirius.db.mixing.OptimisticLockException;
+import sirius.db.mixing.Property;
+import sirius.db.mixing.query.PrefetchingSpliterator;
 import sirius.db.mixing.query.Query;
+import sirius.db.mixing.query.ValueRow;
 import sirius.db.mixing.query.constraints.FilterFactory;
 import sirius.kernel.async.ExecutionPoint;
 import sirius.kernel.async.TaskContext;
@@ -27,11 +31,13 @@ import sirius.kernel.commons.PullBasedSpliterator;
 import sirius.kernel.commons.RateLimit;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.commons.Tuple;
+import sirius.kernel.commons.Value;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.health.Exceptions;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.time.Duration;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -84,6 +90,12 @@ public class ElasticQuery<E extends ElasticEntity> extends Query<ElasticQuery<E>
      */
     private static final int MAX_SCROLL_RESULTS_PER_SHARD = 100;
 
+    /**
+     * Determines how long after a write no results are put into the query cache, as Elasticsearch refreshes its
+     * indices once per second by default.
+     */
+    private static final Duration CACHE_REFRESH_DELAY = Duration.ofSeconds(1);
+
     public static final String SHARD_DOC_ID = "_shard_doc";
 
     private static final String KEY_SCROLL_ID = "_scroll_id";
@@ -116,6 +128,7 @@ public class ElasticQuery<E extends ElasticEntity> extends Query<ElasticQuery<E>
     private static final String KEY_SUGGEST = "suggest";
     private static final String KEY_VALUE = "value";
     private static final String KEY_SEQ_NO_PRIMARY_TERM = "seq_no_primary_term";
+    private static final String KEY_SOURCE = "_source";
     private static final Mapping SCORE = Mapping.named("_score");
 
     @Part
@@ -249,15 +262,21 @@ public class ElasticQuery<E extends ElasticEntity> extends Query<ElasticQuery<E>
      *
      * @return a copy of this query.
      */
+    @Override
     public ElasticQuery<E> copy() {
         ElasticQuery<E> copy = new ElasticQuery<>(descriptor, client);
         copy.limit = this.limit;
         copy.skip = this.skip;
         copy.forceFail = this.forceFail;
+        copy.readOnly = this.readOnly;
+        copy.cacheTTL = this.cacheTTL;
         copy.routing = this.routing;
         copy.unrouted = this.unrouted;
         copy.explain = this.explain;
         copy.collapseBy = this.collapseBy;
+        if (this.prefetchedReferences != null) {
+            copy.prefetchedReferences = new ArrayList<>(this.prefetchedReferences);
+        }
 
         if (queryBuilder != null) {
             copy.queryBuilder = this.queryBuilder.copy();
@@ -876,6 +895,16 @@ public class ElasticQuery<E extends ElasticEntity> extends Query<ElasticQuery<E>
      * @return the query as JSON
      */
     private JSONObject buildPayload() {
+        return buildPayload(null);
+    }
+
+    /**
+     * Builds the actual JSON query for <tt>_search</tt> which only fetches the given source fields.
+     *
+     * @param sourceFields the fields of the source to fetch or <tt>null</tt> to fetch the whole source
+     * @return the query as JSON
+     */
+    private JSONObject buildPayload(@Nullable List<String> sourceFields) {
         JSONObject payload = new JSONObject();
         if (descriptor.isVersioned()) {
             payload.put(KEY_SEQ_NO_PRIMARY_TERM, true);
@@ -885,6 +914,10 @@ public class ElasticQuery<E extends ElasticEntity> extends Query<ElasticQuery<E>
             payload.put(KEY_EXPLAIN, true);
         }
 
+        if (sourceFields != null) {
+            payload.put(KEY_SOURCE, sourceFields);
+        }
+
         applyQuery(payload);
 
         if (sorts != null && !sorts.isEmpty()) {
@@ -976,12 +1009,21 @@ public class ElasticQuery<E extends ElasticEntity> extends Query<ElasticQuery<E>
             return 0;
         }
 
+        return countCached(this::executeCount);
+    }
+
+    private long executeCount() {
         String filteredRouting = checkRouting(Elastic.RoutingAccessMode.READ);
 
-        JSONObject countResponse = client.count(computeEffectiveIndexName(elastic::determineReadAlias),
-                                                filteredRouting,
-                                                buildSimplePayload());
-        return countResponse.getLong(KEY_COUNT);
+        EntityMetrics.Measurement measurement = entityMetrics.start(descriptor, EntityMetrics.Operation.COUNT);
+        try {
+            JSONObject countResponse = client.count(computeEffectiveIndexName(elastic::determineReadAlias),
+                                                    filteredRouting,
+                                                    buildSimplePayload());
+            return countResponse.getLong(KEY_COUNT);
+        } finally {
+            measurement.finish();
+        }
     }
 
     /**
@@ -1050,8 +1092,48 @@ public class ElasticQuery<E extends ElasticEntity> extends Query<ElasticQuery<E>
         if (forceFail) {
             return;
         }
+
+        EntityMetrics.Measurement measurement = entityMetrics.start(descriptor, EntityMetrics.Operation.QUERY);
+        try {
+            Predicate<E> entityHandler = measurement.wrap(handler);
+            iterateHits(null, hit -> entityHandler.test((E) Elastic.make(descriptor, hit, readOnly)));
+        } finally {
+            measurement.finish();
+        }
+    }
+
+    @Override
+    protected void iterateRows(List<Mapping> mappings, Predicate<ValueRow> handler) {
+        Property[] properties = mappings.stream().map(descriptor::getProperty).toArray(Property[]::new);
+        List<String> sourceFields = Arrays.stream(properties).map(Property::getPropertyName).toList();
+        EntityMetrics.Measurement measurement = entityMetrics.start(descriptor, EntityMetrics.Operation.QUERY);
+        try {
+            Predicate<ValueRow> rowHandler = measurement.wrap(handler);
+            iterateHits(sourceFields, hit -> rowHandler.test(new ValueRow(mappings, readValues(properties, hit))));
+        } finally {
+            measurement.finish();
+        }
+    }
+
+    private Object[] readValues(Property[] properties, JSONObject hit) {
+        JSONObject source = hit.getJSONObject(KEY_SOURCE);
+        Object[] values = new Object[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            if (ElasticEntity.ID.getName().equals(properties[i].getName())) {
+                // The id isn't part of the source but provided as metadata of the hit...
+                values[i] = hit.getString(Elastic.ID_FIELD);
+            } else {
+                Object value = source == null ? null : source.get(properties[i].getPropertyName());
+                values[i] = properties[i].transformFromDatasource(Elastic.class, Value.of(value));
+            }
+        }
+
+        return values;
+    }
+
+    private void iterateHits(@Nullable List<String> sourceFields, Predicate<JSONObject> handler) {
         if (useScrolling()) {
-            scroll(handler);
+            scroll(sourceFields, handler);
             return;
         }
 
@@ -1061,9 +1143,9 @@ public class ElasticQuery<E extends ElasticEntity> extends Query<ElasticQuery<E>
                                       filteredRouting,
                                       skip,
                                       limit,
-                                      buildPayload());
+                                      buildPayload(sourceFields));
         for (Object obj : this.response.getJSONObject(KEY_HITS).getJSONArray(KEY_HITS)) {
-            if (!handler.test((E) Elastic.make(descriptor, (JSONObject) obj))) {
+            if (!handler.test((JSONObject) obj)) {
                 return;
             }
         }
@@ -1331,9 +1413,10 @@ public class ElasticQuery<E extends ElasticEntity> extends Query<ElasticQuery<E>
      * For larger queries, we use a scroll query in Elasticsearch, which provides kind of a
      * cursor to fetch the results block-wise.
      *
-     * @param handler the result handler as passed to {@link #iterate(Predicate)}
+     * @param sourceFields the fields of the source to fetch or <tt>null</tt> to fetch the whole source
+     * @param handler      the handler which processes each hit
      */
-    private void scroll(Predicate<E> handler) {
+    private void scroll(@Nullable List<String> sourceFields, Predicate<JSONObject> handler) {
         try {
             if (sorts == null || sorts.isEmpty()) {
                 // If no explicit search order is given, we sort by _doc which improves the performance
@@ -1350,12 +1433,12 @@ public class ElasticQuery<E extends ElasticEntity> extends Query<ElasticQuery<E>
                                                             MAX_SCROLL_RESULTS_FOR_SINGLE_SHARD :
                                                             MAX_SCROLL_RESULTS_PER_SHARD,
                                                             SCROLL_TTL_SECONDS,
-                                                            buildPayload());
+                                                            buildPayload(sourceFields));
             try {
                 TaskContext ctx = TaskContext.get();
                 RateLimit rateLimit = RateLimit.timeInterval(1, TimeUnit.SECONDS);
                 Limit effectiveLimit = new Limit(skip, limit);
-                scrollResponse = executeScroll(entity -> {
+                scrollResponse = executeScroll(hit -> {
                     // Check if the user aborted processing...
                     if (rateLimit.check() && !ctx.isActive()) {
                         return false;
@@ -1367,7 +1450,7 @@ public class ElasticQuery<E extends ElasticEntity> extends Query<ElasticQuery<E>
                     }
 
                     // Process entity, abort if the handler isn't interested in continuing...
-                    if (!handler.test(entity)) {
+                    if (!handler.test(hit)) {
                         return false;
                     }
 
@@ -1389,8 +1472,7 @@ public class ElasticQuery<E extends ElasticEntity> extends Query<ElasticQuery<E>
      * @param firstResponse the first response we received when creating the scroll query.
      * @return the last response we received when iterating over the scroll query
      */
-    @SuppressWarnings("unchecked")
-    private JSONObject executeScroll(Predicate<E> handler, JSONObject firstResponse) {
+    private JSONObject executeScroll(Predicate<JSONObject> handler, JSONObject firstResponse) {
         long lastScroll = 0;
         JSONObject scrollResponse = firstResponse;
         while (true) {
@@ -1401,7 +1483,7 @@ public class ElasticQuery<E extends ElasticEntity> extends Query<ElasticQuery<E>
             }
 
             for (Object obj : hits) {
-                if (!handler.test((E) Elastic.make(descriptor, (JSONObject) obj))) {
+                if (!handler.test((JSONObject) obj)) {
                     return scrollResponse;
                 }
             }
@@ -1443,12 +1525,7 @@ public class ElasticQuery<E extends ElasticEntity> extends Query<ElasticQuery<E>
             return Stream.empty();
         }
 
-        if (limit > 0) {
-            throw new UnsupportedOperationException("ElasticQuery doesn't allow 'limit' in streamBlockwise");
-        }
-        if (skip > 0) {
-            throw new UnsupportedOperationException("ElasticQuery doesn't allow 'skip' in streamBlockwise");
-        }
+        assertStreamableBlockwise();
 
         // Note we use this "hack" of a stream of streams + flatMap so that our spliterator is guaranteed to
         // be closed once the stream is terminated. Note that Stream actually implements AutoClosable - however,
@@ -1460,6 +1537,26 @@ public class ElasticQuery<E extends ElasticEntity> extends Query<ElasticQuery<E>
                      .flatMap(Function.identity());
     }
 
+    @Override
+    public Stream<E> streamBlockwise(int prefetchedBlocks) {
+        if (forceFail || prefetchedBlocks <= 0) {
+            return streamBlockwise();
+        }
+
+        assertStreamableBlockwise();
+        ElasticScrollingSpliterator spliterator = new ElasticScrollingSpliterator();
+        return PrefetchingSpliterator.stream(spliterator::pullNextBlock, prefetchedBlocks, spliterator::close);
+    }
+
+    private void assertStreamableBlockwise() {
+        if (limit > 0) {
+            throw new UnsupportedOperationException("ElasticQuery doesn't allow 'limit' in streamBlockwise");
+        }
+        if (skip > 0) {
+            throw new UnsupportedOperationException("ElasticQuery doesn't allow 'skip' in streamBlockwise");
+        }
+    }
+
     private class ElasticScrollingSpliterator extends PullBasedSpliterator<E> {
         private long lastScroll = 0;
         private String scrollId = null;
@@ -1481,11 +1578,13 @@ public class ElasticQuery<E extends ElasticEntity> extends Query<ElasticQuery<E>
                     scrollId == null ? pullFirstBlock() : client.continueScroll(SCROLL_TTL_SECONDS, scrollId);
             scrollId = scrollResponse.getString(KEY_SCROLL_ID);
             lastScroll = performScrollMonitoring(lastScroll);
-            return scrollResponse.getJSONObject(KEY_HITS)
-                                 .getJSONArray(KEY_HITS)
-                                 .stream()
-                                 .map(obj -> (E) Elastic.make(descriptor, (JSONObject) obj))
-                                 .iterator();
+            List<E> block = scrollResponse.getJSONObject(KEY_HITS)
+                                          .getJSONArray(KEY_HITS)
+                                          .stream()
+                                          .map(obj -> (E) Elastic.make(descriptor, (JSONObject) obj, readOnly))
+                                          .collect(Collectors.toList());
+            prefetchReferences(block);
+            return block.iterator();
         }
 
         private JSONObject pullFirstBlock() {
@@ -1549,6 +1648,26 @@ public class ElasticQuery<E extends ElasticEntity> extends Query<ElasticQuery<E>
         return Elastic.FILTERS;
     }
 
+    /**
+     * Writes only become visible in Elasticsearch once the index has been refreshed (by default once per second).
+     * A result computed right after a write might therefore be stale and would remain in the {@link
+     * sirius.db.mixing.QueryCache} for its whole TTL. Hence, results are not cached within the refresh interval
+     * after a write.
+     */
+    @Nullable
+    @Override
+    protected String getCacheKey() {
+        if (queryCache.isInvalidatedWithin(descriptor, CACHE_REFRESH_DELAY)) {
+            return null;
+        }
+
+        return computeEffectiveIndexName(elastic::determineReadAlias)
+               + "|"
+               + filterRouting(Elastic.RoutingAccessMode.READ)
+               + "|"
+               + buildPayload();
+    }
+
     @Override
     public String toString() {
         return descriptor.getType() + ": " + buildPayload();
@@ -48,6 +48,7 @@ public class LowLevelClient {
     private static final String API_SEARCH = "/_search";
     private static final String API_DELETE_BY_QUERY = "/_delete_by_query";
     private static final String API_PREFIX_DOC = "/_doc/";
+    private static final String API_MGET = "/_mget";
     private static final String API_REFRESH = "/_refresh";
     private static final String API_SETTINGS = "/_settings";
     private static final String API_CLUSTER_HEALTH = "/_cluster/health";
@@ -158,6 +159,21 @@ public class LowLevelClient {
                            .response();
     }
 
+    /**
+     * Performs a lookup for all given documents.
+     *
+     * @param index   the index to search in
+     * @param ids     the IDs to search by
+     * @param routing the routing value to use
+     * @return the response of the call which contains a <tt>docs</tt> array with an entry per requested ID
+     */
+    public JSONObject mget(String index, List<String> ids, @Nullable String routing) {
+        return performGet().routing(routing)
+                           .data(new JSONObject().fluentPut("ids", ids))
+                           .execute(index + API_MGET)
+                           .response();
+    }
+
     /**
      * Deletes the given document.
      *
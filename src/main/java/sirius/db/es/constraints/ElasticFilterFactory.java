@@ -18,7 +18,6 @@ import sirius.db.mixing.query.QueryField;
 import sirius.db.mixing.query.constraints.CSVFilter;
 import sirius.db.mixing.query.constraints.FilterFactory;
 import sirius.kernel.commons.Strings;
-import sirius.kernel.commons.Tuple;
 import sirius.kernel.commons.Value;
 
 import javax.annotation.Nullable;
@@ -263,11 +262,8 @@ public class ElasticFilterFactory extends FilterFactory<ElasticConstraint> {
     }
 
     @Override
-    public Tuple<ElasticConstraint, Boolean> compileString(EntityDescriptor descriptor,
-                                                           String query,
-                                                           List<QueryField> fields) {
-        ElasticQueryCompiler compiler = new ElasticQueryCompiler(this, descriptor, query, fields);
-        return Tuple.create(compiler.compile(), compiler.isDebugging());
+    protected ElasticQueryCompiler createQueryCompiler(EntityDescriptor descriptor, String query, List<QueryField> fields) {
+        return new ElasticQueryCompiler(this, descriptor, query, fields);
     }
 
     /**
@@ -14,6 +14,7 @@ import sirius.db.mixing.types.BaseEntityRef;
 import sirius.kernel.di.std.Part;
 
 import java.io.Serial;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -68,6 +69,11 @@ public class ElasticRef<E extends ElasticEntity> extends BaseEntityRef<String, E
         return elastic.find(type, id);
     }
 
+    @Override
+    protected List<Optional<E>> findAll(Class<E> type, List<String> ids) {
+        return elastic.findAll(type, ids);
+    }
+
     @Override
     protected String coerceToId(Object id) {
         return id.toString();
@@ -38,6 +38,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -330,14 +331,36 @@ public class Databases implements Initializable {
      */
     public Row fetchGeneratedKeys(PreparedStatement stmt) throws SQLException {
         try (ResultSet rs = stmt.getGeneratedKeys()) {
-            Row row = new Row();
             if (rs != null && rs.next()) {
-                for (int col = 1; col <= rs.getMetaData().getColumnCount(); col++) {
-                    row.fields.put(rs.getMetaData().getColumnLabel(col).toUpperCase(),
-                                   Tuple.create(rs.getMetaData().getColumnLabel(col), rs.getObject(col)));
-                }
+                return readGeneratedKeys(rs);
             }
-            return row;
+            return new Row();
         }
     }
+
+    /**
+     * Returns the generated keys of all rows inserted by a batch.
+     *
+     * @param stmt the statement which was used to perform a batch insert
+     * @return a list containing a row of generated keys per inserted row
+     * @throws SQLException in case of an error thrown by the database or driver
+     */
+    public List<Row> fetchAllGeneratedKeys(PreparedStatement stmt) throws SQLException {
+        List<Row> result = new ArrayList<>();
+        try (ResultSet rs = stmt.getGeneratedKeys()) {
+            while (rs != null && rs.next()) {
+                result.add(readGeneratedKeys(rs));
+            }
+        }
+        return result;
+    }
+
+    private Row readGeneratedKeys(ResultSet rs) throws SQLException {
+        Row row = new Row();
+        for (int col = 1; col <= rs.getMetaData().getColumnCount(); col++) {
+            row.fields.put(rs.getMetaData().getColumnLabel(col).toUpperCase(),
+                           Tuple.create(rs.getMetaData().getColumnLabel(col), rs.getObject(col)));
+        }
+        return row;
+    }
 }
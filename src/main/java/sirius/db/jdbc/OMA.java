@@ -17,6 +17,7 @@ import sirius.db.mixing.IntegrityConstraintFailedException;
 import sirius.db.mixing.Mapping;
 import sirius.db.mixing.OptimisticLockException;
 import sirius.db.mixing.Property;
+import sirius.db.mixing.SessionOperation;
 import sirius.kernel.async.Future;
 import sirius.kernel.commons.Context;
 import sirius.kernel.commons.Strings;
@@ -28,16 +29,26 @@ import sirius.kernel.health.Exceptions;
 import sirius.kernel.health.Log;
 
 import javax.annotation.Nullable;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Provides the {@link BaseMapper mapper} used to communicate with JDBC / SQL databases.
@@ -257,19 +268,17 @@ public class OMA extends BaseMapper<SQLEntity, SQLConstraint, SmartQuery<? exten
 
     private List<Object> buildUpdateStatement(SQLEntity entity, EntityDescriptor ed, StringBuilder sql) {
         List<Object> data = new ArrayList<>();
-        for (Property p : ed.getProperties()) {
-            if (ed.isChanged(entity, p)) {
-                if (SQLEntity.ID.getName().equals(p.getName())) {
-                    throw new IllegalStateException("The id column of an entity must not be modified manually!");
-                }
-                if (!data.isEmpty()) {
-                    sql.append(", ");
-                }
-
-                sql.append(p.getPropertyName());
-                sql.append(" = ? ");
-                data.add(p.getValueForDatasource(OMA.class, entity));
+        for (Property p : ed.getChangedProperties(entity)) {
+            if (SQLEntity.ID.getName().equals(p.getName())) {
+                throw new IllegalStateException("The id column of an entity must not be modified manually!");
+            }
+            if (!data.isEmpty()) {
+                sql.append(", ");
             }
+
+            sql.append(p.getPropertyName());
+            sql.append(" = ? ");
+            data.add(p.getValueForDatasource(OMA.class, entity));
         }
 
         return data;
@@ -343,6 +352,340 @@ public class OMA extends BaseMapper<SQLEntity, SQLConstraint, SmartQuery<? exten
         }
     }
 
+    /**
+     * Performs the given operations as JDBC batches.
+     * <p>
+     * Consecutive operations which result in the same SQL statement are executed as a single batch, therefore all
+     * operations are performed in the order in which they were queued. If the driver aborts a batch due to an error,
+     * the remaining operations of the batch are executed one by one.
+     * <p>
+     * Updates and deletes of versioned entities are never batched, as some drivers only report
+     * {@link Statement#SUCCESS_NO_INFO} for batched statements, which would hide concurrent modifications.
+     *
+     * @param operations the operations to perform
+     * @throws Exception in case of a database error which affects all remaining operations
+     */
+    @Override
+    protected void executeWrites(List<SessionOperation<SQLEntity>> operations) throws Exception {
+        int start = 0;
+        while (start < operations.size()) {
+            // Operations are grouped per realm, as long as this doesn't change their order...
+            String realm = realmOf(operations.get(start));
+            int end = start + 1;
+            while (end < operations.size() && realm.equals(realmOf(operations.get(end)))) {
+                end++;
+            }
+
+            executeWrites(getDatabase(realm), operations.subList(start, end));
+            start = end;
+        }
+    }
+
+    private String realmOf(SessionOperation<SQLEntity> operation) {
+        return operation.getEntity().getDescriptor().getRealm();
+    }
+
+    private void executeWrites(Database database, List<SessionOperation<SQLEntity>> operations) throws SQLException {
+        List<SessionOperation<SQLEntity>> unmatchedOperations = new ArrayList<>();
+        try (Connection connection = database.getConnection()) {
+            String batchSQL = null;
+            List<Tuple<SessionOperation<SQLEntity>, List<Object>>> batch = new ArrayList<>();
+            for (SessionOperation<SQLEntity> operation : operations) {
+                StringBuilder sql = new StringBuilder();
+                List<Object> parameters = new ArrayList<>();
+                if (!prepareWrite(operation, sql, parameters)) {
+                    // An update without any changes is successful right away...
+                    operation.markWritten();
+                    continue;
+                }
+
+                if (!sql.toString().equals(batchSQL) || isSingleWrite(operation)) {
+                    executeBatch(database, connection, batchSQL, batch, unmatchedOperations);
+                    batch.clear();
+                    batchSQL = null;
+                }
+
+                if (isSingleWrite(operation)) {
+                    executeSingleWrite(connection, sql.toString(), operation, parameters, unmatchedOperations);
+                } else {
+                    batchSQL = sql.toString();
+                    batch.add(Tuple.create(operation, parameters));
+                }
+            }
+            executeBatch(database, connection, batchSQL, batch, unmatchedOperations);
+
+            verifyUnmatchedWrites(connection, unmatchedOperations);
+        }
+    }
+
+    private boolean isSingleWrite(SessionOperation<SQLEntity> operation) {
+        return operation.getType() != SessionOperation.Type.CREATE
+               && operation.getEntity().getDescriptor().isVersioned();
+    }
+
+    private boolean prepareWrite(SessionOperation<SQLEntity> operation, StringBuilder sql, List<Object> parameters) {
+        SQLEntity entity = operation.getEntity();
+        EntityDescriptor entityDescriptor = entity.getDescriptor();
+        switch (operation.getType()) {
+            case CREATE -> prepareInsert(entity, entityDescriptor, sql, parameters);
+            case UPDATE -> {
+                sql.append("UPDATE ").append(entityDescriptor.getRelationName()).append(" SET ");
+                parameters.addAll(buildUpdateStatement(entity, entityDescriptor, sql));
+                if (parameters.isEmpty()) {
+                    return false;
+                }
+                if (entityDescriptor.isVersioned()) {
+                    sql.append(", version = ? ");
+                    parameters.add(entity.getVersion() + 1);
+                }
+                appendIdAndVersionConstraint(entity, entityDescriptor, sql, parameters);
+            }
+            case DELETE -> {
+                sql.append("DELETE FROM ").append(entityDescriptor.getRelationName());
+                appendIdAndVersionConstraint(entity, entityDescriptor, sql, parameters);
+            }
+        }
+
+        return true;
+    }
+
+    private void prepareInsert(SQLEntity entity,
+                               EntityDescriptor entityDescriptor,
+                               StringBuilder sql,
+                               List<Object> parameters) {
+        StringBuilder values = new StringBuilder();
+        sql.append("INSERT INTO ").append(entityDescriptor.getRelationName()).append(" (");
+        for (Property property : entityDescriptor.getProperties()) {
+            Object value = property.getValueForDatasource(OMA.class, entity);
+            if (value != null && !SQLEntity.ID.getName().equals(property.getName())) {
+                appendInsertValue(property.getPropertyName(), Databases.convertValue(value), sql, values, parameters);
+            }
+        }
+        if (entityDescriptor.isVersioned()) {
+            appendInsertValue(VERSION, 1, sql, values, parameters);
+        }
+        sql.append(") VALUES (").append(values).append(")");
+    }
+
+    private void appendInsertValue(String column,
+                                   Object value,
+                                   StringBuilder sql,
+                                   StringBuilder values,
+                                   List<Object> parameters) {
+        if (!parameters.isEmpty()) {
+            sql.append(", ");
+            values.append(", ");
+        }
+        sql.append(column);
+        values.append("?");
+        parameters.add(value);
+    }
+
+    private void appendIdAndVersionConstraint(SQLEntity entity,
+                                              EntityDescriptor entityDescriptor,
+                                              StringBuilder sql,
+                                              List<Object> parameters) {
+        sql.append(SQL_WHERE_ID);
+        parameters.add(entity.getId());
+        if (entityDescriptor.isVersioned()) {
+            sql.append(SQL_AND_VERSION);
+            parameters.add(entity.getVersion());
+        }
+    }
+
+    private void executeBatch(Database database,
+                              Connection connection,
+                              @Nullable String sql,
+                              List<Tuple<SessionOperation<SQLEntity>, List<Object>>> batch,
+                              List<SessionOperation<SQLEntity>> unmatchedOperations) throws SQLException {
+        if (sql == null || batch.isEmpty()) {
+            return;
+        }
+
+        boolean fetchKeys = batch.get(0).getFirst().getType() == SessionOperation.Type.CREATE
+                            && database.hasCapability(Capability.GENERATED_KEYS);
+        try (PreparedStatement stmt = fetchKeys ?
+                                      connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS) :
+                                      connection.prepareStatement(sql)) {
+            for (Tuple<SessionOperation<SQLEntity>, List<Object>> operation : batch) {
+                applyParameters(stmt, operation.getSecond());
+                stmt.addBatch();
+            }
+
+            int[] updateCounts;
+            try {
+                updateCounts = stmt.executeBatch();
+            } catch (BatchUpdateException e) {
+                handleFailedBatch(stmt, batch, fetchKeys, e, unmatchedOperations);
+                return;
+            }
+
+            List<Row> keys = fetchKeys ? dbs.fetchAllGeneratedKeys(stmt) : Collections.emptyList();
+            for (int i = 0; i < batch.size(); i++) {
+                completeWrite(batch.get(i).getFirst(),
+                              updateCounts[i],
+                              i < keys.size() ? keys.get(i) : null,
+                              unmatchedOperations);
+            }
+        }
+    }
+
+    private void applyParameters(PreparedStatement stmt, List<Object> parameters) throws SQLException {
+        int index = 1;
+        for (Object parameter : parameters) {
+            stmt.setObject(index++, parameter);
+        }
+    }
+
+    private void executeSingleWrite(Connection connection,
+                                    String sql,
+                                    SessionOperation<SQLEntity> operation,
+                                    List<Object> parameters,
+                                    List<SessionOperation<SQLEntity>> unmatchedOperations) {
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            applyParameters(stmt, parameters);
+            completeWrite(operation, stmt.executeUpdate(), null, unmatchedOperations);
+        } catch (SQLIntegrityConstraintViolationException e) {
+            operation.fail(new IntegrityConstraintFailedException(e));
+        } catch (SQLException e) {
+            operation.fail(e);
+        }
+    }
+
+    private void handleFailedBatch(PreparedStatement stmt,
+                                   List<Tuple<SessionOperation<SQLEntity>, List<Object>>> batch,
+                                   boolean fetchKeys,
+                                   BatchUpdateException e,
+                                   List<SessionOperation<SQLEntity>> unmatchedOperations) throws SQLException {
+        int[] updateCounts = e.getUpdateCounts();
+        Iterator<Row> keys = Collections.emptyIterator();
+        boolean keysAvailable = true;
+        if (fetchKeys) {
+            try {
+                keys = dbs.fetchAllGeneratedKeys(stmt).iterator();
+            } catch (SQLException keyError) {
+                // Many drivers refuse to report generated keys once a batch was aborted. As the created entities
+                // wouldn't receive their ids otherwise, these are written one by one (see below)...
+                Exceptions.ignore(keyError);
+                keysAvailable = false;
+            }
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            SessionOperation<SQLEntity> operation = batch.get(i).getFirst();
+            boolean executed = i < updateCounts.length && updateCounts[i] != Statement.EXECUTE_FAILED;
+            if (executed && keysAvailable) {
+                completeWrite(operation, updateCounts[i], keys.hasNext() ? keys.next() : null, unmatchedOperations);
+            } else if (executed) {
+                executeWriteSeparately(operation);
+            } else if (i <= updateCounts.length) {
+                operation.fail(e.getNextException() instanceof SQLIntegrityConstraintViolationException
+                               || e.getCause() instanceof SQLIntegrityConstraintViolationException ?
+                               new IntegrityConstraintFailedException(e) :
+                               e);
+            } else {
+                // The driver stopped executing the batch, therefore we write the remaining entities one by one...
+                executeWriteSeparately(operation);
+            }
+        }
+    }
+
+    private void executeWriteSeparately(SessionOperation<SQLEntity> operation) {
+        SQLEntity entity = operation.getEntity();
+        try {
+            switch (operation.getType()) {
+                case CREATE -> createEntity(entity, entity.getDescriptor());
+                case UPDATE -> updateEntity(entity, false, entity.getDescriptor());
+                case DELETE -> deleteEntity(entity, false, entity.getDescriptor());
+            }
+            operation.markWritten();
+        } catch (Exception e) {
+            operation.fail(e);
+        }
+    }
+
+    private void completeWrite(SessionOperation<SQLEntity> operation,
+                               int updateCount,
+                               @Nullable Row keys,
+                               List<SessionOperation<SQLEntity>> unmatchedOperations) {
+        SQLEntity entity = operation.getEntity();
+        try {
+            if (operation.getType() == SessionOperation.Type.CREATE) {
+                if (keys != null) {
+                    loadCreatedId(entity, keys);
+                }
+                entity.setVersion(1);
+            } else if (updateCount == 0) {
+                // Whether the entity was modified concurrently or doesn't exist at all is checked in one go later...
+                unmatchedOperations.add(operation);
+                return;
+            } else if (operation.getType() == SessionOperation.Type.UPDATE && entity.getDescriptor().isVersioned()) {
+                entity.setVersion(entity.getVersion() + 1);
+            }
+            operation.markWritten();
+        } catch (Exception e) {
+            operation.fail(e);
+        }
+    }
+
+    /**
+     * Determines why the given updates or deletes didn't affect any row.
+     * <p>
+     * This uses a single query per table and deliberately bypasses any entity cache, as this might still contain
+     * entities which have already been deleted.
+     */
+    private void verifyUnmatchedWrites(Connection connection, List<SessionOperation<SQLEntity>> unmatchedOperations)
+            throws SQLException {
+        Map<EntityDescriptor, List<SessionOperation<SQLEntity>>> operationsPerTable = new LinkedHashMap<>();
+        for (SessionOperation<SQLEntity> operation : unmatchedOperations) {
+            operationsPerTable.computeIfAbsent(operation.getEntity().getDescriptor(), ignored -> new ArrayList<>())
+                              .add(operation);
+        }
+
+        for (Map.Entry<EntityDescriptor, List<SessionOperation<SQLEntity>>> entry : operationsPerTable.entrySet()) {
+            Set<Long> existingIds = fetchExistingIds(connection, entry.getKey(), entry.getValue());
+            for (SessionOperation<SQLEntity> operation : entry.getValue()) {
+                SQLEntity entity = operation.getEntity();
+                if (existingIds.contains(entity.getId())) {
+                    operation.fail(new OptimisticLockException());
+                } else if (operation.getType() == SessionOperation.Type.UPDATE) {
+                    operation.fail(Exceptions.handle()
+                                             .to(OMA.LOG)
+                                             .withSystemErrorMessage("The entity %s (%s) cannot be updated as it "
+                                                                     + "does not exist in the database!",
+                                                                     entity,
+                                                                     entity.getId())
+                                             .handle());
+                } else {
+                    // Deleting an entity which is already gone is fine...
+                    operation.markWritten();
+                }
+            }
+        }
+    }
+
+    private Set<Long> fetchExistingIds(Connection connection,
+                                       EntityDescriptor entityDescriptor,
+                                       List<SessionOperation<SQLEntity>> operations) throws SQLException {
+        String sql = "SELECT id FROM "
+                     + entityDescriptor.getRelationName()
+                     + " WHERE id IN ("
+                     + operations.stream().map(ignored -> "?").collect(Collectors.joining(", "))
+                     + ")";
+        Set<Long> result = new HashSet<>();
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            List<Object> ids = operations.stream().map(operation -> (Object) operation.getEntity().getId()).toList();
+            applyParameters(stmt, ids);
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                while (resultSet.next()) {
+                    result.add(resultSet.getLong(1));
+                }
+            }
+        }
+
+        return result;
+    }
+
     @Override
     public <E extends SQLEntity> SmartQuery<E> select(Class<E> type) {
         EntityDescriptor ed = mixing.getDescriptor(type);
@@ -420,7 +763,6 @@ public class OMA extends BaseMapper<SQLEntity, SQLConstraint, SmartQuery<? exten
         }
     }
 
-    @SuppressWarnings("unchecked")
     protected <E extends SQLEntity> Optional<E> execFind(Object id, EntityDescriptor ed, Connection c)
             throws Exception {
         try (PreparedStatement stmt = c.prepareStatement("SELECT * FROM " + ed.getRelationName() + SQL_WHERE_ID,
@@ -432,25 +774,33 @@ public class OMA extends BaseMapper<SQLEntity, SQLConstraint, SmartQuery<? exten
                     return Optional.empty();
                 }
 
-                Set<String> columns = dbs.readColumns(rs);
-                E entity = (E) ed.make(OMA.class, null, key -> {
-                    String effectiveKey = key.toUpperCase();
-                    if (!columns.contains(effectiveKey)) {
-                        return null;
-                    }
-
-                    try {
-                        return Value.of(rs.getObject(effectiveKey));
-                    } catch (SQLException e) {
-                        throw Exceptions.handle(OMA.LOG, e);
-                    }
-                });
+                return Optional.of(new ResultSetMaterializer(rs).make(ed, null));
+            }
+        }
+    }
 
-                if (ed.isVersioned()) {
-                    entity.setVersion(rs.getInt(BaseMapper.VERSION.toUpperCase()));
+    @Override
+    protected <E extends SQLEntity> List<E> findEntities(List<Object> ids,
+                                                         EntityDescriptor entityDescriptor,
+                                                         Function<String, Value> context) throws Exception {
+        String sql = "SELECT * FROM "
+                     + entityDescriptor.getRelationName()
+                     + " WHERE id IN ("
+                     + ids.stream().map(id -> "?").collect(Collectors.joining(", "))
+                     + ")";
+        try (Connection c = getDatabase(entityDescriptor.getRealm()).getConnection();
+             PreparedStatement stmt = c.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            for (int i = 0; i < ids.size(); i++) {
+                stmt.setLong(i + 1, Value.of(ids.get(i)).asLong(-1));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<E> result = new ArrayList<>(ids.size());
+                ResultSetMaterializer materializer = new ResultSetMaterializer(rs);
+                while (rs.next()) {
+                    result.add(materializer.make(entityDescriptor, null));
                 }
 
-                return Optional.of(entity);
+                return result;
             }
         }
     }
@@ -479,6 +829,48 @@ public class OMA extends BaseMapper<SQLEntity, SQLConstraint, SmartQuery<? exten
                            .orElse(Value.EMPTY);
     }
 
+    @Override
+    public Map<String, Map<Mapping, Value>> fetchFields(Class<? extends SQLEntity> type,
+                                                        Collection<?> ids,
+                                                        Collection<Mapping> fields) throws Exception {
+        Map<String, Map<Mapping, Value>> result = new HashMap<>();
+        List<Mapping> fieldsToSelect = new ArrayList<>(fields);
+        fieldsToSelect.add(SQLEntity.ID);
+        List<Object> remainingIds = new ArrayList<>(ids);
+        while (!remainingIds.isEmpty()) {
+            List<Object> idsToFetch = remainingIds.subList(0, Math.min(remainingIds.size(), MAX_IDS_PER_LOOKUP));
+            select(type).fields(fieldsToSelect.toArray(new Mapping[0]))
+                        .where(FILTERS.oneInField(SQLEntity.ID, new ArrayList<>(idsToFetch)).build())
+                        .iterateAll(entity -> collectFields(entity, fields, result));
+            idsToFetch.clear();
+        }
+
+        return result;
+    }
+
+    private void collectFields(SQLEntity entity, Collection<Mapping> fields, Map<String, Map<Mapping, Value>> result) {
+        EntityDescriptor descriptor = entity.getDescriptor();
+        Map<Mapping, Value> values = new HashMap<>();
+        for (Mapping field : fields) {
+            values.put(field, Value.of(descriptor.getProperty(field).getValue(entity)));
+        }
+        result.put(String.valueOf(entity.getId()), values);
+    }
+
+    @Override
+    protected long executeDeleteAllWhere(EntityDescriptor descriptor, Mapping field, Object value)
+            throws Exception {
+        DeleteStatement statement = new DeleteStatement(descriptor, getDatabase(descriptor.getRealm()));
+        return statement.where(field, value).executeUpdate();
+    }
+
+    @Override
+    protected long executeClearAllWhere(EntityDescriptor descriptor, Mapping field, Object value)
+            throws Exception {
+        UpdateStatement statement = new UpdateStatement(descriptor, getDatabase(descriptor.getRealm()));
+        return statement.set(field, null).where(field, value).executeUpdate();
+    }
+
     @Override
     protected int determineRetryTimeoutFactor() {
         return 50;
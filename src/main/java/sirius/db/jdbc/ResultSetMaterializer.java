@@ -0,0 +1,127 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.jdbc;
+
+import sirius.db.mixing.BaseMapper;
+import sirius.db.mixing.EntityDescriptor;
+import sirius.db.mixing.MaterializationPlan;
+import sirius.kernel.commons.Value;
+
+import javax.annotation.Nullable;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Creates entities from the rows of a {@link ResultSet}.
+ * <p>
+ * The column layout of the result set is read once and each {@link MaterializationPlan} is resolved once per
+ * descriptor and alias. Therefore all rows are read by column index without computing or comparing any column names.
+ * <p>
+ * As the layout of a prepared statement doesn't change, a materializer can also be re-used for subsequent result sets
+ * of the same statement via {@link #make(ResultSet, EntityDescriptor, String)}.
+ */
+public class ResultSetMaterializer {
+
+    private final ResultSet resultSet;
+    private final Map<String, Integer> columnIndices = new HashMap<>();
+    private final Map<MaterializationPlan, MaterializationPlan> resolvedPlans = new HashMap<>();
+    private boolean readOnly;
+
+    /**
+     * Creates a new materializer for the given result set.
+     *
+     * @param resultSet the result set to read entities from
+     * @throws SQLException in case the metadata of the result set cannot be read
+     */
+    public ResultSetMaterializer(ResultSet resultSet) throws SQLException {
+        this.resultSet = resultSet;
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        for (int col = 1; col <= metaData.getColumnCount(); col++) {
+            columnIndices.putIfAbsent(metaData.getColumnLabel(col).toUpperCase(), col);
+        }
+    }
+
+    /**
+     * Specifies that all entities are created as {@link sirius.db.mixing.BaseEntity#isReadOnly() read-only}.
+     *
+     * @return the materializer itself for fluent method calls
+     */
+    public ResultSetMaterializer readOnly() {
+        this.readOnly = true;
+        return this;
+    }
+
+    /**
+     * Creates an entity from the current row of the result set.
+     *
+     * @param descriptor the descriptor of the entity to create
+     * @param alias      the alias used to generate unique column names
+     * @param <E>        the type of the entity being created
+     * @return the entity filled with the values of the current row
+     * @throws Exception in case of an error while reading the row
+     */
+    public <E extends SQLEntity> E make(EntityDescriptor descriptor, @Nullable String alias) throws Exception {
+        return make(resultSet, descriptor, alias);
+    }
+
+    /**
+     * Creates an entity from the current row of the given result set.
+     * <p>
+     * Note that the given result set must have the same layout as the one this materializer was created for.
+     *
+     * @param rs         the result set to read from
+     * @param descriptor the descriptor of the entity to create
+     * @param alias      the alias used to generate unique column names
+     * @param <E>        the type of the entity being created
+     * @return the entity filled with the values of the current row
+     * @throws Exception in case of an error while reading the row
+     */
+    @SuppressWarnings("unchecked")
+    public <E extends SQLEntity> E make(ResultSet rs, EntityDescriptor descriptor, @Nullable String alias)
+            throws Exception {
+        MaterializationPlan unresolvedPlan = descriptor.getMaterializationPlan(alias);
+        if (readOnly) {
+            unresolvedPlan = unresolvedPlan.asReadOnly();
+        }
+        MaterializationPlan plan = resolvedPlans.computeIfAbsent(unresolvedPlan, key -> key.resolve(this::indexOf));
+        E result = (E) plan.makeByIndex(OMA.class, index -> Value.of(rs.getObject(index)));
+
+        if (descriptor.isVersioned()) {
+            int versionIndex = indexOf(BaseMapper.VERSION);
+            if (versionIndex > 0) {
+                result.setVersion(rs.getInt(versionIndex));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Determines the index of the given column.
+     *
+     * @param columnLabel the label of the column to lookup (case-insensitive)
+     * @return the index of the column or -1 if it isn't present
+     */
+    public int indexOf(String columnLabel) {
+        return columnIndices.getOrDefault(columnLabel.toUpperCase(), -1);
+    }
+
+    /**
+     * Returns the upper-cased labels of all columns in the result set.
+     *
+     * @return all columns of the result set
+     */
+    public Set<String> getColumns() {
+        return columnIndices.keySet();
+    }
+}
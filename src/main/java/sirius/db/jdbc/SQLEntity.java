@@ -98,6 +98,11 @@ public abstract class SQLEntity extends BaseEntity<Long> {
         this.version = version;
     }
 
+    @Override
+    protected void transferMetadata(BaseEntity<?> copy) {
+        ((SQLEntity) copy).version = version;
+    }
+
     /**
      * Returns a hash code value for the object. This method is supported for the benefit of hash tables such as those
      * provided by {@link java.util.HashMap}.
@@ -139,7 +144,7 @@ public abstract class SQLEntity extends BaseEntity<Long> {
     public boolean isUnique(Mapping field, Object value, Mapping... within) {
         SmartQuery<? extends SQLEntity> qry = oma.select(getClass()).eq(field, value);
         for (Mapping withinField : within) {
-            qry.eq(withinField, getDescriptor().getProperty(withinField).getValue(this));
+            qry.eq(withinField, getUniqueWithinValue(withinField));
         }
         if (!isNew()) {
             qry.ne(ID, getId());
@@ -11,6 +11,11 @@ package sirius.db.jdbc;
 import sirius.db.util.BaseEntityCache;
 import sirius.kernel.di.std.Part;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
 /**
  * Provides a template for caching JDBC/SQL entities in an on-heap cache.
  *
@@ -25,4 +30,14 @@ public abstract class SQLEntityCache<E extends SQLEntity> extends BaseEntityCach
     protected E fetchFromDb(String id) {
         return oma.find(getEntityClass(), id).orElse(null);
     }
+
+    @Override
+    protected Map<String, E> fetchAllFromDb(Collection<String> ids) {
+        Map<String, E> result = new HashMap<>();
+        for (Optional<E> entity : oma.findAll(getEntityClass(), ids)) {
+            entity.ifPresent(value -> result.put(value.getIdAsString(), value));
+        }
+
+        return result;
+    }
 }
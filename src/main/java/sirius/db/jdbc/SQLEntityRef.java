@@ -13,6 +13,7 @@ import sirius.kernel.di.std.Part;
 import sirius.kernel.health.Exceptions;
 
 import java.io.Serial;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -82,6 +83,11 @@ public class SQLEntityRef<E extends SQLEntity> extends BaseEntityRef<Long, E> {
         return oma.find(type, id);
     }
 
+    @Override
+    protected List<Optional<E>> findAll(Class<E> type, List<Long> ids) {
+        return oma.findAll(type, ids);
+    }
+
     @Override
     protected Long coerceToId(Object id) {
         try {
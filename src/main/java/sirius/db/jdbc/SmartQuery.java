@@ -11,11 +11,14 @@ package sirius.db.jdbc;
 import sirius.db.jdbc.constraints.CompoundValue;
 import sirius.db.jdbc.constraints.SQLConstraint;
 import sirius.db.mixing.BaseEntity;
-import sirius.db.mixing.BaseMapper;
 import sirius.db.mixing.EntityDescriptor;
+import sirius.db.mixing.EntityMetrics;
 import sirius.db.mixing.Mapping;
+import sirius.db.mixing.Property;
 import sirius.db.mixing.properties.SQLEntityRefProperty;
+import sirius.db.mixing.query.PrefetchingSpliterator;
 import sirius.db.mixing.query.Query;
+import sirius.db.mixing.query.ValueRow;
 import sirius.db.mixing.query.constraints.FilterFactory;
 import sirius.kernel.async.TaskContext;
 import sirius.kernel.commons.Explain;
@@ -44,7 +47,6 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.Spliterator;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -67,9 +69,6 @@ public class SmartQuery<E extends SQLEntity> extends Query<SmartQuery<E>, E, SQL
     @Part
     private static OMA oma;
 
-    @Part
-    private static Databases dbs;
-
     protected List<Mapping> fields = Collections.emptyList();
     protected boolean distinct;
     protected List<Tuple<Mapping, Boolean>> orderBys = new ArrayList<>();
@@ -154,12 +153,19 @@ public class SmartQuery<E extends SQLEntity> extends Query<SmartQuery<E>, E, SQL
         if (forceFail) {
             return 0;
         }
+
+        return countCached(this::executeCount);
+    }
+
+    private long executeCount() {
         Watch w = Watch.start();
         Compiler compiler = compileCOUNT();
+        EntityMetrics.Measurement measurement = entityMetrics.start(descriptor, EntityMetrics.Operation.COUNT);
         try {
             try (Connection c = db.getConnection()) {
                 return execCount(compiler, c);
             } finally {
+                measurement.finish();
                 if (Microtiming.isEnabled()) {
                     w.submitMicroTiming("OMA", "COUNT: " + compiler.getQuery());
                 }
@@ -288,14 +294,28 @@ public class SmartQuery<E extends SQLEntity> extends Query<SmartQuery<E>, E, SQL
             return Stream.empty();
         }
 
+        assertStreamableBlockwise();
+        return StreamSupport.stream(new SmartQuerySpliterator(), false);
+    }
+
+    @Override
+    public Stream<E> streamBlockwise(int prefetchedBlocks) {
+        if (forceFail || prefetchedBlocks <= 0) {
+            return streamBlockwise();
+        }
+
+        assertStreamableBlockwise();
+        SmartQuerySpliterator spliterator = new SmartQuerySpliterator();
+        return PrefetchingSpliterator.stream(spliterator::pullNextBlock, prefetchedBlocks, null);
+    }
+
+    private void assertStreamableBlockwise() {
         if (limit > 0) {
             throw new UnsupportedOperationException("SmartQuery doesn't allow 'limit' in streamBlockwise");
         }
         if (skip > 0) {
             throw new UnsupportedOperationException("SmartQuery doesn't allow 'skip' in streamBlockwise");
         }
-
-        return StreamSupport.stream(new SmartQuerySpliterator(), false);
     }
 
     private class SmartQuerySpliterator extends PullBasedSpliterator<E> {
@@ -321,6 +341,7 @@ public class SmartQuery<E extends SQLEntity> extends Query<SmartQuery<E>, E, SQL
         }
 
         private List<E> queryNextBlock() {
+            // As each block is loaded via queryList, prefetched references are loaded per block...
             SmartQuery<E> effectiveQuery = copy().orderAsc(BaseEntity.ID).limit(MAX_LIST_SIZE);
 
             if (lastValue == null) {
@@ -377,15 +398,21 @@ public class SmartQuery<E extends SQLEntity> extends Query<SmartQuery<E>, E, SQL
      *
      * @return a copy of this query
      */
+    @Override
     public SmartQuery<E> copy() {
         SmartQuery<E> copy = new SmartQuery<>(descriptor, db);
         copy.distinct = distinct;
         copy.forceFail = forceFail;
+        copy.readOnly = readOnly;
+        copy.cacheTTL = cacheTTL;
         copy.fields = new ArrayList<>(fields);
         copy.orderBys.addAll(orderBys);
         copy.constraints.addAll(constraints);
         copy.limit = limit;
         copy.skip = skip;
+        if (prefetchedReferences != null) {
+            copy.prefetchedReferences = new ArrayList<>(prefetchedReferences);
+        }
 
         return copy;
     }
@@ -396,6 +423,7 @@ public class SmartQuery<E extends SQLEntity> extends Query<SmartQuery<E>, E, SQL
             return;
         }
         Compiler compiler = compileSELECT();
+        EntityMetrics.Measurement measurement = entityMetrics.start(descriptor, EntityMetrics.Operation.QUERY);
         try {
             Watch w = Watch.start();
             try (Connection c = db.getConnection(); PreparedStatement stmt = compiler.prepareStatement(c)) {
@@ -403,9 +431,10 @@ public class SmartQuery<E extends SQLEntity> extends Query<SmartQuery<E>, E, SQL
                 boolean nativeLimit = db.hasCapability(Capability.LIMIT);
                 tuneStatement(stmt, limit, nativeLimit);
                 try (ResultSet rs = stmt.executeQuery()) {
-                    execIterate(handler, compiler, limit, nativeLimit, rs);
+                    execIterate(measurement.wrap(handler), compiler, limit, nativeLimit, rs);
                 }
             } finally {
+                measurement.finish();
                 if (Microtiming.isEnabled()) {
                     w.submitMicroTiming("OMA", "ITERATE: " + compiler.getQuery());
                 }
@@ -415,16 +444,45 @@ public class SmartQuery<E extends SQLEntity> extends Query<SmartQuery<E>, E, SQL
         }
     }
 
-    @SuppressWarnings("unchecked")
-    protected void execIterate(Predicate<E> handler, Compiler compiler, Limit limit, boolean nativeLimit, ResultSet rs)
-            throws Exception {
+    @Override
+    protected void iterateRows(List<Mapping> mappings, Predicate<ValueRow> handler) {
+        Property[] properties = mappings.stream().map(descriptor::getProperty).toArray(Property[]::new);
+        Compiler compiler = compileProjection(mappings);
+        EntityMetrics.Measurement measurement = entityMetrics.start(descriptor, EntityMetrics.Operation.QUERY);
+        try {
+            Watch w = Watch.start();
+            try (Connection c = db.getConnection(); PreparedStatement stmt = compiler.prepareStatement(c)) {
+                Limit limit = getLimit();
+                boolean nativeLimit = db.hasCapability(Capability.LIMIT);
+                tuneStatement(stmt, limit, nativeLimit);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    execIterateRows(measurement.wrap(handler), mappings, properties, limit, nativeLimit, rs);
+                }
+            } finally {
+                measurement.finish();
+                if (Microtiming.isEnabled()) {
+                    w.submitMicroTiming("OMA", "PROJECT: " + compiler.getQuery());
+                }
+            }
+        } catch (Exception e) {
+            throw queryError(compiler, e);
+        }
+    }
+
+    private void execIterateRows(Predicate<ValueRow> handler,
+                                 List<Mapping> mappings,
+                                 Property[] properties,
+                                 Limit limit,
+                                 boolean nativeLimit,
+                                 ResultSet rs) throws SQLException {
         TaskContext tc = TaskContext.get();
-        Set<String> columns = dbs.readColumns(rs);
         while (rs.next() && tc.isActive()) {
             if (nativeLimit || limit.nextRow()) {
-                SQLEntity e = makeEntity(descriptor, null, columns, rs);
-                compiler.executeJoinFetches(e, columns, rs);
-                if (!handler.test((E) e)) {
+                Object[] values = new Object[properties.length];
+                for (int i = 0; i < properties.length; i++) {
+                    values[i] = properties[i].transformFromDatasource(OMA.class, Value.of(rs.getObject(i + 1)));
+                }
+                if (!handler.test(new ValueRow(mappings, values))) {
                     return;
                 }
             }
@@ -434,21 +492,26 @@ public class SmartQuery<E extends SQLEntity> extends Query<SmartQuery<E>, E, SQL
         }
     }
 
-    private static SQLEntity makeEntity(EntityDescriptor descriptor, String alias, Set<String> columns, ResultSet rs)
+    @SuppressWarnings("unchecked")
+    protected void execIterate(Predicate<E> handler, Compiler compiler, Limit limit, boolean nativeLimit, ResultSet rs)
             throws Exception {
-        SQLEntity result = (SQLEntity) descriptor.make(OMA.class, alias, key -> {
-            try {
-                return columns.contains(key.toUpperCase()) ? Value.of(rs.getObject(key)) : null;
-            } catch (SQLException e) {
-                throw Exceptions.handle(OMA.LOG, e);
+        TaskContext tc = TaskContext.get();
+        ResultSetMaterializer materializer = new ResultSetMaterializer(rs);
+        if (readOnly) {
+            materializer.readOnly();
+        }
+        while (rs.next() && tc.isActive()) {
+            if (nativeLimit || limit.nextRow()) {
+                SQLEntity e = materializer.make(descriptor, null);
+                compiler.executeJoinFetches(e, materializer);
+                if (!handler.test((E) e)) {
+                    return;
+                }
+            }
+            if (!nativeLimit && !limit.shouldContinue()) {
+                return;
             }
-        });
-
-        if (descriptor.isVersioned() && columns.contains(BaseMapper.VERSION.toUpperCase())) {
-            result.setVersion(rs.getInt(BaseMapper.VERSION.toUpperCase()));
         }
-
-        return result;
     }
 
     protected void tuneStatement(PreparedStatement stmt, Limit limit, boolean nativeLimit) throws SQLException {
@@ -644,19 +707,19 @@ public class SmartQuery<E extends SQLEntity> extends Query<SmartQuery<E>, E, SQL
             return fields.stream().anyMatch(field -> field.toString().equals(col.toString()));
         }
 
-        protected void executeJoinFetches(SQLEntity entity, Set<String> columns, ResultSet rs) {
-            executeJoinFetch(rootFetch, entity, columns, rs);
+        protected void executeJoinFetches(SQLEntity entity, ResultSetMaterializer materializer) {
+            executeJoinFetch(rootFetch, entity, materializer);
         }
 
-        private void executeJoinFetch(JoinFetch jf, SQLEntity parent, Set<String> columns, ResultSet rs) {
+        private void executeJoinFetch(JoinFetch jf, SQLEntity parent, ResultSetMaterializer materializer) {
             try {
                 SQLEntity child = parent;
                 if (jf.property != null) {
-                    child = makeEntity(jf.property.getReferencedDescriptor(), jf.tableAlias, columns, rs);
+                    child = materializer.make(jf.property.getReferencedDescriptor(), jf.tableAlias);
                     jf.property.setReferencedEntity(parent, child);
                 }
                 for (JoinFetch subFetch : jf.subFetches.values()) {
-                    executeJoinFetch(subFetch, child, columns, rs);
+                    executeJoinFetch(subFetch, child, materializer);
                 }
             } catch (Exception e) {
                 throw Exceptions.handle()
@@ -665,7 +728,7 @@ public class SmartQuery<E extends SQLEntity> extends Query<SmartQuery<E>, E, SQL
                                 .withSystemErrorMessage(
                                         "Error while trying to read join fetched values for %s (%s): %s (%s)",
                                         jf.property,
-                                        columns)
+                                        materializer.getColumns())
                                 .handle();
             }
         }
@@ -713,6 +776,21 @@ public class SmartQuery<E extends SQLEntity> extends Query<SmartQuery<E>, E, SQL
         return compiler;
     }
 
+    private Compiler compileProjection(List<Mapping> mappings) {
+        Compiler compiler = new Compiler(descriptor);
+        compiler.getSELECTBuilder().append("SELECT ");
+        if (distinct) {
+            compiler.getSELECTBuilder().append("DISTINCT ");
+        }
+        Monoflop mf = Monoflop.create();
+        mappings.forEach(mapping -> appendToSELECT(compiler, false, mf, mapping, false, null));
+        from(compiler);
+        where(compiler);
+        orderBy(compiler);
+        limit(compiler);
+        return compiler;
+    }
+
     private Compiler compileCOUNT() {
         Compiler compiler = selectCount();
         from(compiler);
@@ -841,6 +919,11 @@ public class SmartQuery<E extends SQLEntity> extends Query<SmartQuery<E>, E, SQL
         }
     }
 
+    @Override
+    protected String getCacheKey() {
+        return compileSELECT().toString();
+    }
+
     @Override
     public String toString() {
         return compileSELECT().toString();
@@ -8,16 +8,13 @@
 
 package sirius.db.jdbc.batch;
 
-import sirius.db.jdbc.Databases;
 import sirius.db.jdbc.OMA;
 import sirius.db.jdbc.Operator;
+import sirius.db.jdbc.ResultSetMaterializer;
 import sirius.db.jdbc.SQLEntity;
-import sirius.db.mixing.BaseMapper;
 import sirius.db.mixing.Property;
 import sirius.kernel.commons.Tuple;
-import sirius.kernel.commons.Value;
 import sirius.kernel.commons.Watch;
-import sirius.kernel.di.std.Part;
 import sirius.kernel.health.Exceptions;
 
 import javax.annotation.Nonnull;
@@ -26,7 +23,6 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 /**
  * Represents a batch query which finds and entity in the database.
@@ -38,8 +34,10 @@ import java.util.Set;
  */
 public class FindQuery<E extends SQLEntity> extends BatchQuery<E> {
 
-    @Part
-    private static Databases dbs;
+    /**
+     * Resolves the columns of the statement once, as it is executed over and over again.
+     */
+    private ResultSetMaterializer materializer;
 
     protected FindQuery(BatchContext context, Class<E> type, List<Tuple<Operator, String>> filters) {
         super(context, type, filters);
@@ -104,25 +102,11 @@ public class FindQuery<E extends SQLEntity> extends BatchQuery<E> {
     }
 
     private SQLEntity make(ResultSet rs) throws Exception {
-        Set<String> columns = dbs.readColumns(rs);
-        SQLEntity result = (SQLEntity) descriptor.make(OMA.class, null, key -> {
-            String effectiveKey = key.toUpperCase();
-            if (!columns.contains(effectiveKey)) {
-                return null;
-            }
-
-            try {
-                return Value.of(rs.getObject(effectiveKey));
-            } catch (SQLException e) {
-                throw Exceptions.handle(OMA.LOG, e);
-            }
-        });
-
-        if (descriptor.isVersioned() && columns.contains(BaseMapper.VERSION.toUpperCase())) {
-            result.setVersion(rs.getInt(BaseMapper.VERSION.toUpperCase()));
+        if (materializer == null) {
+            materializer = new ResultSetMaterializer(rs);
         }
 
-        return result;
+        return materializer.make(rs, descriptor, null);
     }
 
     @Override
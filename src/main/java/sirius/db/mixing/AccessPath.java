@@ -9,8 +9,12 @@
 package sirius.db.mixing;
 
 import sirius.kernel.commons.Strings;
+import sirius.kernel.health.Exceptions;
 
 import javax.annotation.Nonnull;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.function.Function;
 import java.util.function.UnaryOperator;
 
@@ -20,11 +24,35 @@ import java.util.function.UnaryOperator;
  * As properties can be contained within composites or mixins (or a combination thereof) we may need to
  * fetch the composite or use {@link Mixable#as(Class)} to fetch the mixin in order to access the field. The types
  * and number of calls are defined by an <tt>AccessPath</tt>.
+ * <p>
+ * Internally, all steps of a path are folded into a single {@link MethodHandle} once the path is built, so that
+ * resolving a target object doesn't need to walk a chain of lambdas for each access.
  */
 public class AccessPath {
 
+    /**
+     * Contains the method type of a folded accessor: <tt>(Object)Object</tt>.
+     */
+    private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /**
+     * Used to turn a plain {@link Function} into a method handle which can be folded into a path.
+     */
+    private static final MethodHandle APPLY_FUNCTION;
+
+    static {
+        try {
+            APPLY_FUNCTION = MethodHandles.publicLookup()
+                                          .findVirtual(Function.class,
+                                                       "apply",
+                                                       MethodType.methodType(Object.class, Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private String prefix = "";
-    private Function<Object, Object> accessor;
+    private MethodHandle accessor;
 
     /**
      * Represents a NO-OP access path which is used for all fields which are directly contained in the entity.
@@ -42,16 +70,34 @@ public class AccessPath {
      */
     @Nonnull
     public AccessPath append(@Nonnull String prefixToAppend, @Nonnull UnaryOperator<Object> accessor) {
+        return append(prefixToAppend, APPLY_FUNCTION.bindTo(accessor));
+    }
+
+    /**
+     * Creates a new access path which appends the given prefix and accessor to the current access path.
+     * <p>
+     * In contrast to {@link #append(String, UnaryOperator)} this directly accepts a method handle (e.g. an
+     * unreflected field getter), which avoids an additional indirection when being invoked.
+     *
+     * @param prefixToAppend the prefix to be appended to all field names to make them unique (composites might be
+     *                       embedded twice).
+     * @param accessor       the handle used to access the sub entity (composite or mixin) from the current
+     *                       access path. This must accept a single object and return one.
+     * @return a new access path which is extended by the given prefix and accessor
+     */
+    @Nonnull
+    public AccessPath append(@Nonnull String prefixToAppend, @Nonnull MethodHandle accessor) {
         AccessPath result = new AccessPath();
+        MethodHandle effectiveAccessor = accessor.asType(ACCESSOR_TYPE);
         if (IDENTITY.equals(this)) {
             result.prefix = prefixToAppend;
-            result.accessor = accessor;
+            result.accessor = effectiveAccessor;
 
             return result;
         }
 
         result.prefix = qualify(prefixToAppend);
-        result.accessor = this.accessor.andThen(accessor);
+        result.accessor = MethodHandles.filterReturnValue(this.accessor, effectiveAccessor);
 
         return result;
     }
@@ -81,7 +127,17 @@ public class AccessPath {
      */
     @Nonnull
     public Object apply(@Nonnull Object object) {
-        return accessor == null ? object : accessor.apply(object);
+        if (accessor == null) {
+            return object;
+        }
+
+        try {
+            return (Object) accessor.invokeExact(object);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw Exceptions.handle(Mixing.LOG, e);
+        }
     }
 
     /**
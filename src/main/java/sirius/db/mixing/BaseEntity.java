@@ -11,6 +11,7 @@ package sirius.db.mixing;
 import sirius.db.mixing.annotations.Transient;
 import sirius.db.mixing.query.Query;
 import sirius.db.mixing.query.constraints.Constraint;
+import sirius.db.mixing.query.constraints.FilterFactory;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.health.Exceptions;
@@ -18,9 +19,10 @@ import sirius.kernel.nls.NLS;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.Objects;
 import java.util.function.BiPredicate;
 import java.util.function.Consumer;
@@ -49,8 +51,37 @@ public abstract class BaseEntity<I> extends Mixable implements Entity {
     @Part
     protected static Mixing mixing;
 
+    /**
+     * Contains the values which were last loaded from or written to the database.
+     * <p>
+     * The array is indexed by {@link Property#getOrdinal()} and only allocated once the first value is recorded.
+     * A <tt>null</tt> entry represents a property which hasn't been fetched, whereas {@link #PERSISTED_NULL} marks a
+     * property which was fetched but contained <tt>null</tt>.
+     */
+    @Transient
+    protected Object[] persistedData;
+
+    /**
+     * Marks a property whose persisted value is <tt>null</tt> in {@link #persistedData}.
+     */
+    private static final Object PERSISTED_NULL = new Object();
+
+    /**
+     * Contains the ordinals of all properties which have been marked as changed.
+     * <p>
+     * This is only maintained for entities which wear a {@link sirius.db.mixing.annotations.TrackChanges} annotation
+     * and is lazily allocated once the first property is marked.
+     */
     @Transient
-    protected Map<Property, Object> persistedData = new HashMap<>();
+    protected BitSet changeMarkers;
+
+    /**
+     * Determines if this entity was loaded by a {@link sirius.db.mixing.query.BaseQuery#readOnly() read-only} query.
+     * <p>
+     * Such entities have no {@link #persistedData} and therefore must not be updated.
+     */
+    @Transient
+    protected boolean readOnly;
 
     /**
      * Contains the unique id of the entity.
@@ -129,6 +160,51 @@ public abstract class BaseEntity<I> extends Mixable implements Entity {
      */
     public abstract boolean isUnique(Mapping field, Object value, Mapping... within);
 
+    /**
+     * Determines if the values of all given properties are unique within their respective side constraints.
+     * <p>
+     * This combines all checks into a single query (one OR'ed condition per property), which doesn't tell which of
+     * the properties collided. Use {@link #isUnique(Mapping, Object, Mapping...)} to determine this.
+     *
+     * @param properties the {@link sirius.db.mixing.annotations.Unique unique} properties to check
+     * @return <tt>true</tt> if none of the properties collides with another entity, <tt>false</tt> otherwise
+     */
+    @SuppressWarnings("unchecked")
+    protected <E extends BaseEntity<?>, C extends Constraint, Q extends Query<Q, E, C>> boolean isUnique(
+            List<Property> properties) {
+        BaseMapper<E, C, Q> mapper = getMapper();
+        FilterFactory<C> filters = mapper.filters();
+        List<C> alternatives = new ArrayList<>(properties.size());
+        for (Property property : properties) {
+            List<C> constraints = new ArrayList<>();
+            constraints.add(filters.eq(Mapping.named(property.getName()), property.getValue(this)));
+            for (Mapping withinField : property.getUniqueWithin()) {
+                constraints.add(filters.eq(withinField, getUniqueWithinValue(withinField)));
+            }
+            alternatives.add(filters.and(constraints));
+        }
+
+        Q query = mapper.select((Class<E>) getClass()).where(filters.or(alternatives));
+        if (!isNew()) {
+            query.ne(ID, getId());
+        }
+
+        return !query.exists();
+    }
+
+    /**
+     * Determines the value of the given side constraint field which is used when checking the uniqueness of a value.
+     * <p>
+     * This is used by both, {@link #isUnique(Mapping, Object, Mapping...)} and the combined check of all unique
+     * properties, so that both apply the same conversion.
+     *
+     * @param withinField the side constraint field to read
+     * @return the value of the field to filter on
+     */
+    protected Object getUniqueWithinValue(Mapping withinField) {
+        return getDescriptor().getProperty(withinField).getValue(this);
+    }
+
     /**
      * Ensures that the given value in the given field is unique within the given side constraints.
      *
@@ -364,7 +440,7 @@ public abstract class BaseEntity<I> extends Mixable implements Entity {
             return;
         }
 
-        if (Objects.equals(persistedData.get(property), propertyValue)) {
+        if (Objects.equals(getPersistedValue(property), propertyValue)) {
             return;
         }
 
@@ -416,7 +492,119 @@ public abstract class BaseEntity<I> extends Mixable implements Entity {
      */
     @Nullable
     public Object getPersistedValue(Property property) {
-        return persistedData.get(property);
+        if (persistedData == null) {
+            return null;
+        }
+
+        Object value = readPersistedSlot(property);
+        return value == PERSISTED_NULL ? null : value;
+    }
+
+    /**
+     * Determines if a persisted value is present for the given property.
+     *
+     * @param property the property to check
+     * @return <tt>true</tt> if the property was loaded from or written to the database, <tt>false</tt> otherwise
+     */
+    protected boolean isPersistedValuePresent(Property property) {
+        return persistedData != null && readPersistedSlot(property) != null;
+    }
+
+    private Object readPersistedSlot(Property property) {
+        int ordinal = property.getOrdinal();
+        if (ordinal < 0 || ordinal >= persistedData.length) {
+            return null;
+        }
+
+        return persistedData[ordinal];
+    }
+
+    /**
+     * Determines if this entity was loaded by a {@link sirius.db.mixing.query.BaseQuery#readOnly() read-only} query.
+     * <p>
+     * Read-only entities don't track any changes and cannot be updated. Re-fetch the entity using
+     * {@link BaseMapper#refreshOrFail(BaseEntity)} to modify it.
+     *
+     * @return <tt>true</tt> if the entity is read-only, <tt>false</tt> otherwise
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Transfers all metadata which isn't stored in a property (e.g. the version) to the given copy.
+     * <p>
+     * This is invoked by {@link EntityDescriptor#copy(BaseEntity)} and should be overwritten by subclasses which
+     * keep such metadata.
+     *
+     * @param copy the copy of this entity to transfer the metadata to
+     */
+    protected void transferMetadata(BaseEntity<?> copy) {
+        // By default, there is no metadata to transfer...
+    }
+
+    /**
+     * Records the given value as persisted value of the given property.
+     *
+     * @param property the property to update
+     * @param value    the value which is present in the database
+     */
+    protected void setPersistedValue(Property property, @Nullable Object value) {
+        if (persistedData == null) {
+            persistedData = new Object[property.getDescriptor().getProperties().size()];
+        }
+
+        persistedData[property.getOrdinal()] = value == null ? PERSISTED_NULL : value;
+    }
+
+    /**
+     * Marks the given fields as changed.
+     * <p>
+     * For entities which wear a {@link sirius.db.mixing.annotations.TrackChanges} annotation, this has to be invoked
+     * by each setter which directly assigns a field, as only marked properties are inspected when performing an
+     * update. For all other entities, this is a no-op.
+     *
+     * @param mappings the fields which have been changed
+     */
+    public void markChanged(Mapping... mappings) {
+        EntityDescriptor descriptor = getDescriptor();
+        if (!descriptor.isTrackingChanges()) {
+            return;
+        }
+
+        for (Mapping mapping : mappings) {
+            markChanged(descriptor.getProperty(mapping));
+        }
+    }
+
+    /**
+     * Marks the given property as changed.
+     *
+     * @param property the property which has been changed
+     */
+    protected void markChanged(Property property) {
+        if (changeMarkers == null) {
+            changeMarkers = new BitSet(property.getDescriptor().getProperties().size());
+        }
+
+        changeMarkers.set(property.getOrdinal());
+    }
+
+    /**
+     * Returns the change markers of this entity.
+     *
+     * @return the ordinals of all properties marked as changed or <tt>null</tt> if no property has been marked yet
+     */
+    @Nullable
+    protected BitSet getChangeMarkers() {
+        return changeMarkers;
+    }
+
+    /**
+     * Discards all change markers once the entity has been written to the database.
+     */
+    protected void clearChangeMarkers() {
+        changeMarkers = null;
     }
 
     /**
@@ -425,7 +613,7 @@ public abstract class BaseEntity<I> extends Mixable implements Entity {
      * @return <tt>true</tt> if at least one column was changed, <tt>false</tt> otherwise.
      */
     public boolean isAnyMappingChanged() {
-        return getDescriptor().getProperties().stream().anyMatch(property -> getDescriptor().isChanged(this, property));
+        return getDescriptor().isAnyPropertyChanged(this);
     }
 
     /**
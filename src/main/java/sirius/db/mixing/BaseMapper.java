@@ -30,9 +30,16 @@ import sirius.kernel.health.Exceptions;
 import sirius.kernel.health.HandledException;
 
 import javax.annotation.CheckReturnValue;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 /**
@@ -52,9 +59,23 @@ public abstract class BaseMapper<B extends BaseEntity<?>, C extends Constraint,
      */
     public static final String VERSION = "version";
 
+    /**
+     * Contains the maximal number of ids which are resolved by a single lookup in {@link #findAll}.
+     */
+    protected static final int MAX_IDS_PER_LOOKUP = 500;
+
     @Part
     protected Mixing mixing;
 
+    @Part
+    protected EntityMetrics entityMetrics;
+
+    @Part
+    protected EntityCache entityCache;
+
+    @Part
+    protected QueryCache queryCache;
+
     /**
      * Writes the contents of the given entity to the database.
      * <p>
@@ -72,11 +93,30 @@ public abstract class BaseMapper<B extends BaseEntity<?>, C extends Constraint,
     public <E extends B> void update(E entity) {
         try {
             performUpdate(entity, false);
-        } catch (OptimisticLockException | IntegrityConstraintFailedException e) {
+        } catch (IntegrityConstraintFailedException e) {
+            throw handleIntegrityConstraintFailure(entity, e);
+        } catch (OptimisticLockException e) {
             throw Exceptions.handle(e);
         }
     }
 
+    /**
+     * Performs an {@link #update(BaseEntity)} of the given entity in the background.
+     * <p>
+     * Note that the entity must not be modified until the returned future is completed.
+     *
+     * @param entity the entity to write to the database
+     * @param <E>    the generic type of the entity
+     * @return a future which is completed with the updated entity once it has been written
+     * @see Mixing#executeAsync(java.util.concurrent.Callable)
+     */
+    public <E extends B> CompletableFuture<E> updateAsync(E entity) {
+        return mixing.executeAsync(() -> {
+            update(entity);
+            return entity;
+        });
+    }
+
     /**
      * Tries to perform an {@link #update(BaseEntity)} of the given entity.
      * <p>
@@ -182,11 +222,28 @@ public abstract class BaseMapper<B extends BaseEntity<?>, C extends Constraint,
     public <E extends B> void override(E entity) {
         try {
             performUpdate(entity, true);
-        } catch (IntegrityConstraintFailedException | OptimisticLockException e) {
+        } catch (IntegrityConstraintFailedException e) {
+            throw handleIntegrityConstraintFailure(entity, e);
+        } catch (OptimisticLockException e) {
             throw Exceptions.handle(e);
         }
     }
 
+    /**
+     * Converts a failed integrity constraint into an appropriate error.
+     * <p>
+     * If the entity has properties which are {@link sirius.db.mixing.annotations.Unique#enforcedByIndex() unique via
+     * an index}, the colliding field is reported just like a failed uniqueness check would.
+     *
+     * @param entity the entity which could not be saved
+     * @param e      the exception reported by the database
+     * @return the exception to throw if no colliding field could be determined
+     */
+    private HandledException handleIntegrityConstraintFailure(B entity, IntegrityConstraintFailedException e) {
+        entity.getDescriptor().reportUniquenessViolation(entity);
+        return Exceptions.handle(e);
+    }
+
     @SuppressWarnings("squid:RedundantThrowsDeclarationCheck")
     @Explain("false positive - both exceptions can be thrown")
     protected <E extends B> void performUpdate(E entity, boolean force)
@@ -195,14 +252,29 @@ public abstract class BaseMapper<B extends BaseEntity<?>, C extends Constraint,
             return;
         }
 
+        assertWritable(entity);
+
         try {
             EntityDescriptor entityDescriptor = entity.getDescriptor();
             invokeBeforeSaveHandlers(entity, entityDescriptor);
 
-            if (entity.isNew()) {
-                createEntity(entity, entityDescriptor);
-            } else {
-                updateEntity(entity, force, entityDescriptor);
+            boolean create = entity.isNew();
+            EntityMetrics.Measurement measurement = entityMetrics.start(entityDescriptor,
+                                                                        create ?
+                                                                        EntityMetrics.Operation.CREATE :
+                                                                        EntityMetrics.Operation.UPDATE);
+            try {
+                if (create) {
+                    createEntity(entity, entityDescriptor);
+                } else {
+                    updateEntity(entity, force, entityDescriptor);
+                }
+            } finally {
+                measurement.finish();
+                queryCache.invalidate(entityDescriptor);
+                if (!create) {
+                    entityCache.invalidate(entity);
+                }
             }
 
             invokeAfterSaveHandlers(entity, entityDescriptor);
@@ -273,6 +345,21 @@ public abstract class BaseMapper<B extends BaseEntity<?>, C extends Constraint,
         }
     }
 
+    /**
+     * Performs a {@link #delete(BaseEntity)} of the given entity in the background.
+     *
+     * @param entity the entity to delete
+     * @param <E>    the generic entity type
+     * @return a future which is completed once the entity has been deleted
+     * @see Mixing#executeAsync(java.util.concurrent.Callable)
+     */
+    public <E extends B> CompletableFuture<Void> deleteAsync(E entity) {
+        return mixing.executeAsync(() -> {
+            delete(entity);
+            return null;
+        });
+    }
+
     /**
      * Tries to delete the entity from the database.
      * <p>
@@ -312,7 +399,15 @@ public abstract class BaseMapper<B extends BaseEntity<?>, C extends Constraint,
             EntityDescriptor entityDescriptor = entity.getDescriptor();
             invokeBeforeDeleteHandlers(entity, entityDescriptor);
             if (TaskContext.get().isActive()) {
-                deleteEntity(entity, force, entityDescriptor);
+                EntityMetrics.Measurement measurement =
+                        entityMetrics.start(entityDescriptor, EntityMetrics.Operation.DELETE);
+                try {
+                    deleteEntity(entity, force, entityDescriptor);
+                } finally {
+                    measurement.finish();
+                    queryCache.invalidate(entityDescriptor);
+                    entityCache.invalidate(entity);
+                }
                 invokeAfterDeleteHandlers(entity, entityDescriptor);
             }
         } catch (OptimisticLockException e) {
@@ -356,6 +451,133 @@ public abstract class BaseMapper<B extends BaseEntity<?>, C extends Constraint,
      */
     protected abstract void deleteEntity(B entity, boolean force, EntityDescriptor entityDescriptor) throws Exception;
 
+    /**
+     * Invokes the before save or before delete handlers of an entity which is queued in a {@link MixingSession}.
+     *
+     * @param entity the entity being queued
+     * @param delete <tt>true</tt> if the entity is about to be deleted, <tt>false</tt> if it is about to be saved
+     * @param <E>    the generic entity type
+     */
+    protected <E extends B> void beforeSessionWrite(E entity, boolean delete) {
+        EntityDescriptor entityDescriptor = entity.getDescriptor();
+        if (delete) {
+            invokeBeforeDeleteHandlers(entity, entityDescriptor);
+        } else {
+            assertWritable(entity);
+            invokeBeforeSaveHandlers(entity, entityDescriptor);
+        }
+    }
+
+    /**
+     * Ensures that the given entity wasn't loaded by a {@link sirius.db.mixing.query.BaseQuery#readOnly() read-only}
+     * query.
+     * <p>
+     * As no persisted values are recorded for such entities, an update would be unable to detect any changes.
+     *
+     * @param entity the entity to check
+     * @throws HandledException if the entity is read-only
+     */
+    protected void assertWritable(B entity) {
+        if (entity.isReadOnly()) {
+            throw Exceptions.handle()
+                            .to(Mixing.LOG)
+                            .withSystemErrorMessage("Cannot update %s (%s) as it was loaded by a read-only query.",
+                                                    entity.getIdAsString(),
+                                                    entity.getClass().getName())
+                            .handle();
+        }
+    }
+
+    /**
+     * Writes the given operations queued by a {@link MixingSession} and invokes the after save or after delete
+     * handlers of all successfully written entities.
+     *
+     * @param operations the operations to perform
+     */
+    protected void flushSessionOperations(List<SessionOperation<B>> operations) {
+        Watch watch = Watch.start();
+        try {
+            executeWrites(operations);
+        } catch (Exception e) {
+            HandledException error = Exceptions.handle()
+                                               .to(Mixing.LOG)
+                                               .error(e)
+                                               .withSystemErrorMessage("Failed to flush a session: %s (%s)")
+                                               .handle();
+            // Operations which have already been written must not be reported as failed...
+            operations.stream()
+                      .filter(operation -> !operation.isFailed() && !operation.isWritten())
+                      .forEach(operation -> operation.fail(error));
+        } finally {
+            watch.submitMicroTiming(TIMING_CATEGORY_MIXING, "Session - " + getClass().getSimpleName());
+        }
+
+        for (SessionOperation<B> operation : operations) {
+            queryCache.invalidate(operation.getEntity().getDescriptor());
+            if (operation.getType() != SessionOperation.Type.CREATE) {
+                entityCache.invalidate(operation.getEntity());
+            }
+            if (operation.isFailed()) {
+                handleSessionFailure(operation);
+            } else {
+                invokeSessionAfterHandlers(operation);
+            }
+        }
+    }
+
+    private void handleSessionFailure(SessionOperation<B> operation) {
+        if (operation.getFailure() instanceof IntegrityConstraintFailedException integrityConstraintFailedException) {
+            try {
+                operation.fail(handleIntegrityConstraintFailure(operation.getEntity(),
+                                                                integrityConstraintFailedException));
+            } catch (HandledException e) {
+                operation.fail(e);
+            }
+        }
+    }
+
+    private void invokeSessionAfterHandlers(SessionOperation<B> operation) {
+        try {
+            if (operation.getType() == SessionOperation.Type.DELETE) {
+                invokeAfterDeleteHandlers(operation.getEntity(), operation.getEntity().getDescriptor());
+            } else {
+                invokeAfterSaveHandlers(operation.getEntity(), operation.getEntity().getDescriptor());
+            }
+        } catch (Exception e) {
+            operation.fail(e);
+        }
+    }
+
+    /**
+     * Performs the given operations queued by a {@link MixingSession}.
+     * <p>
+     * By default, each entity is written on its own. Mappers override this to use the batching mechanism of the
+     * underlying database. Errors which only affect a single entity (most notably an {@link OptimisticLockException}
+     * or an {@link IntegrityConstraintFailedException}) must be reported via {@link SessionOperation#fail(Exception)}
+     * so that all other entities are still written. Each successful write should be reported via
+     * {@link SessionOperation#markWritten()}, so that it isn't considered as failed if a later write throws an
+     * exception. The operations have to be performed in the given order, as later operations might depend on
+     * earlier ones (e.g. a unique value which is freed before being assigned to another entity).
+     *
+     * @param operations the operations to perform
+     * @throws Exception in case of an error which affects all operations
+     */
+    protected void executeWrites(List<SessionOperation<B>> operations) throws Exception {
+        for (SessionOperation<B> operation : operations) {
+            B entity = operation.getEntity();
+            try {
+                switch (operation.getType()) {
+                    case CREATE -> createEntity(entity, entity.getDescriptor());
+                    case UPDATE -> updateEntity(entity, false, entity.getDescriptor());
+                    case DELETE -> deleteEntity(entity, false, entity.getDescriptor());
+                }
+                operation.markWritten();
+            } catch (Exception e) {
+                operation.fail(e);
+            }
+        }
+    }
+
     /**
      * Determines if the given entity has validation warnings.
      *
@@ -412,7 +634,14 @@ public abstract class BaseMapper<B extends BaseEntity<?>, C extends Constraint,
             }
 
             EntityDescriptor entityDescriptor = mixing.getDescriptor(type);
-            return findEntity(id, entityDescriptor, makeContext(info));
+            EntityMetrics.Measurement measurement = entityMetrics.start(entityDescriptor, EntityMetrics.Operation.FIND);
+            try {
+                return entityCache.find(entityDescriptor,
+                                        id,
+                                        () -> findEntity(id, entityDescriptor, makeContext(info)));
+            } finally {
+                measurement.finish();
+            }
         } catch (HandledException e) {
             throw e;
         } catch (Exception e) {
@@ -424,6 +653,125 @@ public abstract class BaseMapper<B extends BaseEntity<?>, C extends Constraint,
         }
     }
 
+    /**
+     * Performs a {@link #find(Class, Object, ContextInfo...)} in the background.
+     * <p>
+     * This permits to execute several independent lookups (even against different databases) concurrently.
+     *
+     * @param type the type of entity to select
+     * @param id   the id (which can be either a long, int or String) to select
+     * @param info info provided as context (e.g. routing infos for Elasticsearch)
+     * @param <E>  the generic type of the entity to select
+     * @return a future which is completed with the entity wrapped as <tt>Optional</tt> or an empty optional if no
+     * entity with the given id exists
+     * @see Mixing#executeAsync(java.util.concurrent.Callable)
+     */
+    public <E extends B> CompletableFuture<Optional<E>> findAsync(Class<E> type, Object id, ContextInfo... info) {
+        return mixing.executeAsync(() -> find(type, id, info));
+    }
+
+    /**
+     * Performs a database lookup to select all entities of the given type with the given ids.
+     * <p>
+     * In contrast to invoking {@link #find(Class, Object, ContextInfo...)} for each id, this only performs a single
+     * lookup per {@link #MAX_IDS_PER_LOOKUP} distinct ids.
+     *
+     * @param type the type of entities to select
+     * @param ids  the ids (which can be either longs, ints or Strings) to select
+     * @param info info provided as context (e.g. routing infos for Elasticsearch)
+     * @param <E>  the generic type of the entities to select
+     * @return a list which contains the entity for each of the given ids in the same order. Empty or stale ids (for
+     * which no entity exists) are represented by an empty optional
+     */
+    public <E extends B> List<Optional<E>> findAll(Class<E> type, Collection<?> ids, ContextInfo... info) {
+        try {
+            if (ids.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            EntityDescriptor entityDescriptor = mixing.getDescriptor(type);
+            Function<String, Value> context = makeContext(info);
+            Map<String, E> entities = new HashMap<>();
+            Set<String> requestedIds = new HashSet<>();
+            List<Object> pendingIds = new ArrayList<>();
+            for (Object id : ids) {
+                if (Strings.isFilled(id) && requestedIds.add(id.toString())) {
+                    if (!isPossibleId(id.getClass())) {
+                        throw Exceptions.handle()
+                                        .to(Mixing.LOG)
+                                        .withSystemErrorMessage(
+                                                "The given object is not an ID (String, long, int): %s (%s)",
+                                                id,
+                                                type)
+                                        .handle();
+                    }
+
+                    pendingIds.add(id);
+                    if (pendingIds.size() >= MAX_IDS_PER_LOOKUP) {
+                        findEntitiesInto(pendingIds, entityDescriptor, context, entities);
+                        pendingIds.clear();
+                    }
+                }
+            }
+            if (!pendingIds.isEmpty()) {
+                findEntitiesInto(pendingIds, entityDescriptor, context, entities);
+            }
+
+            List<Optional<E>> result = new ArrayList<>(ids.size());
+            for (Object id : ids) {
+                result.add(Strings.isEmpty(id) ? Optional.empty() : Optional.ofNullable(entities.get(id.toString())));
+            }
+
+            return result;
+        } catch (HandledException e) {
+            throw e;
+        } catch (Exception e) {
+            throw Exceptions.handle()
+                            .to(Mixing.LOG)
+                            .error(e)
+                            .withSystemErrorMessage("Unable to FIND ALL %s (%s ids): %s (%s)",
+                                                    type.getSimpleName(),
+                                                    ids.size())
+                            .handle();
+        }
+    }
+
+    private <E extends B> void findEntitiesInto(List<Object> ids,
+                                                EntityDescriptor entityDescriptor,
+                                                Function<String, Value> context,
+                                                Map<String, E> entities) throws Exception {
+        List<E> foundEntities = findEntities(ids, entityDescriptor, context);
+        for (E entity : foundEntities) {
+            entities.put(String.valueOf(entity.getId()), entity);
+        }
+    }
+
+    /**
+     * Tries to find all entities with the given ids.
+     * <p>
+     * By default, this performs a lookup per id. Mappers are expected to override this with a single query
+     * (e.g. an <tt>IN</tt> clause or a multi-get).
+     *
+     * @param ids              the distinct ids of the entities to find. This will contain at most
+     *                         {@link #MAX_IDS_PER_LOOKUP} entries
+     * @param entityDescriptor the descriptor of the entities to find
+     * @param context          the advanced search context which can be populated using {@link ContextInfo}
+     * @param <E>              the effective type of the entities
+     * @return all entities which were found in no particular order
+     * @throws Exception in case of a database error
+     */
+    protected <E extends B> List<E> findEntities(List<Object> ids,
+                                                 EntityDescriptor entityDescriptor,
+                                                 Function<String, Value> context) throws Exception {
+        List<E> result = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            Optional<E> entity = findEntity(id, entityDescriptor, context);
+            entity.ifPresent(result::add);
+        }
+
+        return result;
+    }
+
     @SuppressWarnings("java:S1067")
     @Explain("We rather keep all possible cases in one place.")
     private boolean isPossibleId(Class<?> clazz) {
@@ -613,4 +961,151 @@ public abstract class BaseMapper<B extends BaseEntity<?>, C extends Constraint,
      * @throws Exception in case of an error during a lookup
      */
     public abstract Value fetchField(Class<? extends B> type, Object id, Mapping field) throws Exception;
+
+    /**
+     * Provides the most efficient way of retrieving several field values of several entities.
+     * <p>
+     * By default, this loads the entities via {@link #findEntities(List, EntityDescriptor, Function)} (one lookup
+     * per {@link #MAX_IDS_PER_LOOKUP} ids) and reads the requested fields from them. Mappers are expected to override
+     * this with a query which only selects the requested fields.
+     * <p>
+     * Note that it is probably advisable to not call this method directly but rather
+     * {@link FieldLookupCache#lookupAll(Class, Collection, Mapping...)} which provides a cache.
+     *
+     * @param type   the type of the entities
+     * @param ids    the distinct ids of the entities
+     * @param fields the fields to resolve
+     * @return the field values, transformed into the appropriate type, per id (as string). Ids of entities which do
+     * not exist are not contained in the result
+     * @throws Exception in case of an error during a lookup
+     */
+    public Map<String, Map<Mapping, Value>> fetchFields(Class<? extends B> type,
+                                                        Collection<?> ids,
+                                                        Collection<Mapping> fields) throws Exception {
+        EntityDescriptor descriptor = mixing.getDescriptor(type);
+        Map<String, Map<Mapping, Value>> result = new HashMap<>();
+        List<Object> remainingIds = new ArrayList<>(ids);
+        while (!remainingIds.isEmpty()) {
+            List<Object> idsToFetch = remainingIds.subList(0, Math.min(remainingIds.size(), MAX_IDS_PER_LOOKUP));
+            for (B entity : this.<B>findEntities(new ArrayList<>(idsToFetch), descriptor, EMPTY_CONTEXT)) {
+                Map<Mapping, Value> values = new HashMap<>();
+                for (Mapping field : fields) {
+                    values.put(field, Value.of(descriptor.getProperty(field).getValue(entity)));
+                }
+                result.put(entity.getIdAsString(), values);
+            }
+            idsToFetch.clear();
+        }
+
+        return result;
+    }
+
+    /**
+     * Deletes all entities of the given descriptor which contain the given value in the given field using a single
+     * set-based operation of the underlying database.
+     * <p>
+     * Note that <b>no</b> delete handlers are invoked for the deleted entities. Therefore, this should only be used
+     * if {@link EntityDescriptor#isSetBasedDeletePossible()} permits it. All cached query results of the entity type
+     * are invalidated.
+     *
+     * @param descriptor the descriptor of the entities to delete
+     * @param field      the field to filter on
+     * @param value      the value to filter by
+     * @return the number of deleted entities or <tt>-1</tt> if the mapper doesn't support set-based deletes
+     * @throws Exception in case of a database error
+     */
+    public long deleteAllWhere(EntityDescriptor descriptor, Mapping field, Object value) throws Exception {
+        long deletedEntities = executeDeleteAllWhere(descriptor, field, value);
+        if (deletedEntities >= 0) {
+            queryCache.invalidate(descriptor);
+        }
+
+        return deletedEntities;
+    }
+
+    /**
+     * Performs the set-based delete for {@link #deleteAllWhere(EntityDescriptor, Mapping, Object)}.
+     *
+     * @param descriptor the descriptor of the entities to delete
+     * @param field      the field to filter on
+     * @param value      the value to filter by
+     * @return the number of deleted entities or <tt>-1</tt> if the mapper doesn't support set-based deletes
+     * @throws Exception in case of a database error
+     */
+    protected long executeDeleteAllWhere(EntityDescriptor descriptor, Mapping field, Object value) throws Exception {
+        return -1;
+    }
+
+    /**
+     * Sets the given field to <tt>null</tt> for all entities of the given descriptor which contain the given value
+     * in this field using a single set-based operation of the underlying database.
+     * <p>
+     * Note that <b>no</b> save handlers are invoked for the updated entities. Therefore, this should only be used
+     * if {@link EntityDescriptor#isSetBasedUpdatePossible()} permits it. All cached query results of the entity type
+     * are invalidated.
+     *
+     * @param descriptor the descriptor of the entities to update
+     * @param field      the field to filter on and to clear
+     * @param value      the value to filter by
+     * @return the number of updated entities or <tt>-1</tt> if the mapper doesn't support set-based updates
+     * @throws Exception in case of a database error
+     */
+    public long clearAllWhere(EntityDescriptor descriptor, Mapping field, Object value) throws Exception {
+        long updatedEntities = executeClearAllWhere(descriptor, field, value);
+        if (updatedEntities >= 0) {
+            queryCache.invalidate(descriptor);
+        }
+
+        return updatedEntities;
+    }
+
+    /**
+     * Performs the set-based update for {@link #clearAllWhere(EntityDescriptor, Mapping, Object)}.
+     *
+     * @param descriptor the descriptor of the entities to update
+     * @param field      the field to filter on and to clear
+     * @param value      the value to filter by
+     * @return the number of updated entities or <tt>-1</tt> if the mapper doesn't support set-based updates
+     * @throws Exception in case of a database error
+     */
+    protected long executeClearAllWhere(EntityDescriptor descriptor, Mapping field, Object value) throws Exception {
+        return -1;
+    }
+
+    /**
+     * Removes the given value from the given list field of all entities of the given descriptor which contain it
+     * using a single set-based operation of the underlying database.
+     * <p>
+     * Note that <b>no</b> save handlers are invoked for the updated entities. Therefore, this should only be used
+     * if {@link EntityDescriptor#isSetBasedUpdatePossible()} permits it. All cached query results of the entity type
+     * are invalidated.
+     *
+     * @param descriptor the descriptor of the entities to update
+     * @param field      the list field to filter on and to remove the value from
+     * @param value      the value to remove
+     * @return the number of updated entities or <tt>-1</tt> if the mapper doesn't support set-based updates
+     * @throws Exception in case of a database error
+     */
+    public long removeFromAllWhere(EntityDescriptor descriptor, Mapping field, Object value) throws Exception {
+        long updatedEntities = executeRemoveFromAllWhere(descriptor, field, value);
+        if (updatedEntities >= 0) {
+            queryCache.invalidate(descriptor);
+        }
+
+        return updatedEntities;
+    }
+
+    /**
+     * Performs the set-based update for {@link #removeFromAllWhere(EntityDescriptor, Mapping, Object)}.
+     *
+     * @param descriptor the descriptor of the entities to update
+     * @param field      the list field to filter on and to remove the value from
+     * @param value      the value to remove
+     * @return the number of updated entities or <tt>-1</tt> if the mapper doesn't support set-based updates
+     * @throws Exception in case of a database error
+     */
+    protected long executeRemoveFromAllWhere(EntityDescriptor descriptor, Mapping field, Object value)
+            throws Exception {
+        return -1;
+    }
 }
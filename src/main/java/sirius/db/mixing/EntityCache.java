@@ -0,0 +1,216 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing;
+
+import sirius.db.redis.Redis;
+import sirius.db.redis.Subscriber;
+import sirius.kernel.async.CallContext;
+import sirius.kernel.cache.Cache;
+import sirius.kernel.cache.CacheManager;
+import sirius.kernel.commons.Strings;
+import sirius.kernel.di.std.Part;
+import sirius.kernel.di.std.Register;
+import sirius.kernel.health.Average;
+import sirius.kernel.health.Counter;
+import sirius.kernel.health.Exceptions;
+import sirius.kernel.health.metrics.MetricProvider;
+import sirius.kernel.health.metrics.MetricsCollector;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Provides the second level cache for entities which wear a {@link sirius.db.mixing.annotations.Cached} annotation.
+ * <p>
+ * {@link BaseMapper#find(Class, Object, ContextInfo...)} serves these entities from a local cache
+ * (<tt>mixing-entities</tt>). As entities are mutable, the cache keeps its own instance and always hands out
+ * {@link EntityDescriptor#copy(BaseEntity) copies}.
+ * <p>
+ * Each update or delete performed by a mapper invalidates the entry locally and broadcasts the invalidation to all
+ * other nodes via redis (if configured). Note that the TTL given in the annotation is enforced in addition to the
+ * settings of the underlying cache, therefore the cache TTL should be at least as long as the longest entity TTL.
+ */
+@Register(classes = {EntityCache.class, Subscriber.class, MetricProvider.class})
+public class EntityCache implements Subscriber, MetricProvider {
+
+    private static final String TOPIC = "mixing-entity-cache";
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Represents a cached entity along with its expiry timestamp.
+     */
+    private static class CachedEntity {
+        private final BaseEntity<?> entity;
+        private final long expiresAt;
+
+        CachedEntity(BaseEntity<?> entity, Duration ttl) {
+            this.entity = entity;
+            this.expiresAt = System.currentTimeMillis() + ttl.toMillis();
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+
+    @Part
+    private Redis redis;
+
+    private final Cache<String, CachedEntity> cache = CacheManager.createLocalCache("mixing-entities");
+
+    /**
+     * Counts all invalidations, so that a lookup which ran concurrently to an invalidation doesn't put a stale
+     * entity into the cache.
+     */
+    private final AtomicLong invalidationCounter = new AtomicLong();
+
+    private final Counter hits = new Counter();
+    private final Counter misses = new Counter();
+    private final Counter expirations = new Counter();
+    private final Counter invalidations = new Counter();
+    private final Average remoteInvalidationLatency = new Average();
+    private long lastHits;
+    private long lastMisses;
+
+    /**
+     * Resolves the entity with the given id either from the cache or by using the given loader.
+     *
+     * @param descriptor the descriptor of the entity to find
+     * @param id         the id of the entity to find
+     * @param loader     the loader used to fetch the entity from the database
+     * @param <E>        the type of the entity
+     * @return the entity with the given id or an empty optional if the entity doesn't exist
+     * @throws Exception in case of an error while loading or copying the entity
+     */
+    @SuppressWarnings("unchecked")
+    protected <E extends BaseEntity<?>> Optional<E> find(EntityDescriptor descriptor,
+                                                         Object id,
+                                                         Callable<Optional<E>> loader) throws Exception {
+        Duration ttl = descriptor.getCacheTTL();
+        if (ttl == null || Strings.areEqual(BaseEntity.NEW, id)) {
+            return loader.call();
+        }
+
+        String key = Mixing.getUniqueName(descriptor.getType(), id);
+        CachedEntity cachedEntity = cache.get(key);
+        if (cachedEntity != null) {
+            if (!cachedEntity.isExpired()) {
+                hits.inc();
+                return Optional.of(descriptor.copy((E) cachedEntity.entity));
+            }
+
+            expirations.inc();
+            cache.remove(key);
+        }
+
+        misses.inc();
+        long invalidationsBeforeLoad = invalidationCounter.get();
+        Optional<E> result = loader.call();
+        if (result.isPresent() && invalidationCounter.get() == invalidationsBeforeLoad) {
+            cache.put(key, new CachedEntity(descriptor.copy(result.get()), ttl));
+        }
+
+        return result;
+    }
+
+    /**
+     * Removes the given entity from the cache on this and all other nodes.
+     *
+     * @param entity the entity which has been modified or deleted
+     */
+    protected void invalidate(BaseEntity<?> entity) {
+        EntityDescriptor descriptor = entity.getDescriptor();
+        if (descriptor.getCacheTTL() == null || entity.isNew()) {
+            return;
+        }
+
+        String key = Mixing.getUniqueName(descriptor.getType(), entity.getId());
+        invalidateLocally(key);
+
+        if (redis != null && redis.isConfigured()) {
+            try {
+                redis.publish(TOPIC,
+                              CallContext.getNodeName()
+                              + SEPARATOR
+                              + System.currentTimeMillis()
+                              + SEPARATOR
+                              + key);
+            } catch (Exception e) {
+                Exceptions.handle()
+                          .to(Mixing.LOG)
+                          .error(e)
+                          .withSystemErrorMessage("Failed to broadcast the invalidation of %s: %s (%s)", key)
+                          .handle();
+            }
+        }
+    }
+
+    private void invalidateLocally(String key) {
+        invalidationCounter.incrementAndGet();
+        invalidations.inc();
+        cache.remove(key);
+    }
+
+    @Override
+    public String getTopic() {
+        return TOPIC;
+    }
+
+    @Override
+    public void onMessage(String message) {
+        String[] parts = message.split("\\" + SEPARATOR, 3);
+        if (parts.length != 3 || Strings.areEqual(parts[0], CallContext.getNodeName())) {
+            return;
+        }
+
+        invalidateLocally(parts[2]);
+        try {
+            remoteInvalidationLatency.addValue(Math.max(0, System.currentTimeMillis() - Long.parseLong(parts[1])));
+        } catch (NumberFormatException e) {
+            Exceptions.ignore(e);
+        }
+    }
+
+    @Override
+    public void gather(MetricsCollector collector) {
+        long currentHits = hits.getCount();
+        long currentMisses = misses.getCount();
+        long intervalHits = currentHits - lastHits;
+        long intervalLookups = intervalHits + currentMisses - lastMisses;
+        lastHits = currentHits;
+        lastMisses = currentMisses;
+        if (currentHits + currentMisses == 0) {
+            // The cache has not been used at all...
+            return;
+        }
+
+        collector.metric("mixing_entity_cache_hit_rate",
+                         "mixing-entity-cache-hit-rate",
+                         "Mixing Entity Cache Hit Rate",
+                         intervalLookups == 0 ? 0 : intervalHits * 100d / intervalLookups,
+                         "%");
+        collector.differentialMetric("mixing_entity_cache_expirations",
+                                     "mixing-entity-cache-expirations",
+                                     "Mixing Entity Cache Expirations",
+                                     expirations.getCount(),
+                                     "/min");
+        collector.differentialMetric("mixing_entity_cache_invalidations",
+                                     "mixing-entity-cache-invalidations",
+                                     "Mixing Entity Cache Invalidations",
+                                     invalidations.getCount(),
+                                     "/min");
+        collector.metric("mixing_entity_cache_invalidation_latency",
+                         "mixing-entity-cache-invalidation-latency",
+                         "Mixing Entity Cache Invalidation Latency",
+                         remoteInvalidationLatency.getAndClear(),
+                         "ms");
+    }
+}
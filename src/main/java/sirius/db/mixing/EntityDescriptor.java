@@ -15,14 +15,17 @@ import sirius.db.mixing.annotations.AfterDelete;
 import sirius.db.mixing.annotations.AfterSave;
 import sirius.db.mixing.annotations.BeforeDelete;
 import sirius.db.mixing.annotations.BeforeSave;
+import sirius.db.mixing.annotations.Cached;
 import sirius.db.mixing.annotations.ComplexDelete;
 import sirius.db.mixing.annotations.Mixin;
 import sirius.db.mixing.annotations.OnValidate;
 import sirius.db.mixing.annotations.Realm;
 import sirius.db.mixing.annotations.RelationName;
 import sirius.db.mixing.annotations.SkipDefaultValue;
+import sirius.db.mixing.annotations.TrackChanges;
 import sirius.db.mixing.annotations.Transient;
 import sirius.db.mixing.annotations.TranslationSource;
+import sirius.db.mixing.annotations.Unique;
 import sirius.db.mixing.annotations.Versioned;
 import sirius.db.mixing.properties.LocalDateTimeProperty;
 import sirius.db.mixing.query.Query;
@@ -47,13 +50,16 @@ import javax.annotation.Nullable;
 import java.lang.annotation.Annotation;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -64,6 +70,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 import java.util.function.BiPredicate;
 import java.util.function.Consumer;
@@ -111,6 +118,20 @@ public class EntityDescriptor {
      */
     private boolean complexDelete;
 
+    /**
+     * Determines if at least one property performs custom logic when an entity is deleted.
+     *
+     * @see Property#isHandlingDeletes()
+     */
+    private boolean propertiesHandlingDeletes;
+
+    /**
+     * Determines if at least one property performs custom logic when an entity has been saved.
+     *
+     * @see Property#isHandlingSaves()
+     */
+    private boolean propertiesHandlingSaves;
+
     /**
      * Contains all properties (defined via fields, composites or mixins)
      */
@@ -178,9 +199,51 @@ public class EntityDescriptor {
 
     private static final MethodHandles.Lookup METHOD_LOOKUP = MethodHandles.lookup();
 
+    /**
+     * Contains the default constructor used to create new instances when materializing entities.
+     */
+    private Constructor<?> constructor;
+
+    /**
+     * Contains the materialization plan used for non-aliased columns.
+     * <p>
+     * This is computed lazily, as the properties are not known when the descriptor is created. Concurrent readers
+     * might compute the plan twice, which is harmless as both plans are equivalent.
+     */
+    private volatile MaterializationPlan defaultMaterializationPlan;
+
+    /**
+     * Contains the materialization plans per alias.
+     */
+    private final Map<String, MaterializationPlan> materializationPlans = new ConcurrentHashMap<>();
+
     protected Config legacyInfo;
     protected Map<String, String> columnAliases;
     protected boolean versioned;
+    protected Duration cacheTTL;
+
+    /**
+     * Determines if the entity wears a {@link TrackChanges} annotation.
+     */
+    protected boolean trackingChanges;
+
+    /**
+     * Contains all properties indexed by their {@link Property#getOrdinal() ordinal}.
+     */
+    private Property[] propertiesByOrdinal;
+
+    /**
+     * Contains all properties which are always compared, even if changes are tracked.
+     *
+     * @see Property#isTrackable()
+     */
+    private Property[] untrackableProperties;
+
+    /**
+     * Contains all properties which wear an {@link Unique} annotation.
+     */
+    private List<Property> uniqueProperties;
+
     protected BaseMapper<?, ?, ?> mapper;
 
     /**
@@ -195,6 +258,8 @@ public class EntityDescriptor {
                 getAnnotation(RelationName.class).map(RelationName::value).orElse(type.getSimpleName().toLowerCase());
         this.realm = getAnnotation(Realm.class).map(Realm::value).orElse(Mixing.DEFAULT_REALM);
         this.versioned = getAnnotation(Versioned.class).isPresent();
+        this.cacheTTL = getAnnotation(Cached.class).map(cached -> Duration.ofSeconds(cached.ttl())).orElse(null);
+        this.trackingChanges = getAnnotation(TrackChanges.class).isPresent();
 
         try {
             this.referenceInstance = type.getDeclaredConstructor().newInstance();
@@ -378,6 +443,12 @@ public class EntityDescriptor {
      */
     protected void finishSetup() {
         getAnnotation(ComplexDelete.class).ifPresent(annotation -> complexDelete = annotation.value());
+        untrackableProperties = properties.values()
+                                          .stream()
+                                          .filter(property -> !property.isTrackable())
+                                          .toArray(Property[]::new);
+        propertiesHandlingDeletes = properties.values().stream().anyMatch(Property::isHandlingDeletes);
+        propertiesHandlingSaves = properties.values().stream().anyMatch(Property::isHandlingSaves);
     }
 
     /**
@@ -402,7 +473,7 @@ public class EntityDescriptor {
      * @return <tt>true</tt> if a value was fetched from the database, <tt>false</tt> otherwise
      */
     public boolean isFetched(BaseEntity<?> entity, Property property) {
-        return entity.persistedData.containsKey(property);
+        return entity.isPersistedValuePresent(property);
     }
 
     /**
@@ -426,6 +497,69 @@ public class EntityDescriptor {
         return isChanged(entity, property, Objects::equals);
     }
 
+    /**
+     * Determines all properties of the given entity which were changed since it was last fetched from the database.
+     * <p>
+     * If the entity {@link TrackChanges tracks its changes}, only marked properties and ones which are not
+     * {@link Property#isTrackable() trackable} are inspected. Otherwise, all properties are checked.
+     *
+     * @param entity the entity to check
+     * @return all properties which have been changed
+     */
+    public List<Property> getChangedProperties(BaseEntity<?> entity) {
+        List<Property> result = new ArrayList<>();
+        if (!trackingChanges || untrackableProperties == null) {
+            for (Property property : properties.values()) {
+                if (isChanged(entity, property)) {
+                    result.add(property);
+                }
+            }
+
+            return result;
+        }
+
+        for (Property property : untrackableProperties) {
+            if (isChanged(entity, property)) {
+                result.add(property);
+            }
+        }
+
+        BitSet changeMarkers = entity.getChangeMarkers();
+        if (changeMarkers != null) {
+            for (int ordinal = changeMarkers.nextSetBit(0);
+                 ordinal >= 0 && ordinal < propertiesByOrdinal.length;
+                 ordinal = changeMarkers.nextSetBit(ordinal + 1)) {
+                Property property = propertiesByOrdinal[ordinal];
+                if (property.isTrackable() && isChanged(entity, property)) {
+                    result.add(property);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Determines if any property of the given entity was changed since it was last fetched from the database.
+     *
+     * @param entity the entity to check
+     * @return <tt>true</tt> if at least one property was changed, <tt>false</tt> otherwise
+     * @see #getChangedProperties(BaseEntity)
+     */
+    public boolean isAnyPropertyChanged(BaseEntity<?> entity) {
+        if (!trackingChanges || untrackableProperties == null) {
+            for (Property property : properties.values()) {
+                if (isChanged(entity, property)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        return !getChangedProperties(entity).isEmpty();
+    }
+
     /**
      * Determines if the value for the property was changed since it was last fetched from the database.
      * <p>
@@ -442,7 +576,7 @@ public class EntityDescriptor {
     public boolean isChanged(BaseEntity<?> entity,
                              Property property,
                              BiPredicate<? super Object, ? super Object> equalsFunction) {
-        Object persistedValue = entity.persistedData.get(property);
+        Object persistedValue = entity.getPersistedValue(property);
         Object newValue = property.getValue(entity);
         if (property.isConsideredNull(persistedValue) && property.isConsideredNull(newValue)) {
             return false;
@@ -474,6 +608,65 @@ public class EntityDescriptor {
         for (Property property : properties.values()) {
             property.onBeforeSave(entity);
         }
+        if (entity instanceof BaseEntity<?> baseEntity) {
+            checkUniqueness(baseEntity);
+        }
+    }
+
+    /**
+     * Checks the uniqueness of all {@link Unique} properties which have changed using a single query.
+     * <p>
+     * Only if this query reports a collision, the properties are checked one by one to determine which field
+     * is affected, so that an appropriate error can be reported.
+     *
+     * @param entity the entity to check
+     */
+    private void checkUniqueness(BaseEntity<?> entity) {
+        List<Property> propertiesToCheck = new ArrayList<>();
+        for (Property property : getUniqueProperties()) {
+            if (property.isUniquenessCheckRequired(entity)) {
+                propertiesToCheck.add(property);
+            }
+        }
+
+        if (propertiesToCheck.isEmpty()) {
+            return;
+        }
+
+        if (propertiesToCheck.size() == 1 || !entity.isUnique(propertiesToCheck)) {
+            for (Property property : propertiesToCheck) {
+                property.checkUniqueness(entity, property.getValue(entity));
+            }
+        }
+    }
+
+    /**
+     * Reports a failed unique index as an error for the affected field.
+     * <p>
+     * This is used for properties which are {@link Unique#enforcedByIndex() unique via an index}. As the database
+     * doesn't report which index failed in a portable way, each candidate is checked by a query. Therefore this
+     * is only used once an {@link IntegrityConstraintFailedException} occurred.
+     *
+     * @param entity the entity which could not be saved
+     * @throws sirius.kernel.health.HandledException if one of the index enforced fields isn't unique
+     */
+    public void reportUniquenessViolation(BaseEntity<?> entity) {
+        for (Property property : getUniqueProperties()) {
+            if (property.isUniquenessEnforcedByIndex(entity)) {
+                property.checkUniqueness(entity, property.getValue(entity));
+            }
+        }
+    }
+
+    private List<Property> getUniqueProperties() {
+        if (uniqueProperties == null) {
+            uniqueProperties = properties.values()
+                                         .stream()
+                                         .filter(property -> property.getAnnotation(Unique.class).isPresent())
+                                         .toList();
+        }
+
+        return uniqueProperties;
     }
 
     private List<Consumer<Object>> getSortedBeforeSaveHandlers() {
@@ -518,11 +711,11 @@ public class EntityDescriptor {
         }
 
         if (isBaseEntity(entity)) {
-            // Reset persisted data
-            asBaseEntity(entity).persistedData.clear();
+            // Reset persisted data - as we write all properties, there is no need to clear the snapshot first...
             for (Property p : getProperties()) {
-                asBaseEntity(entity).persistedData.put(p, p.getValueAsCopy(entity));
+                asBaseEntity(entity).setPersistedValue(p, p.getValueAsSnapshot(entity));
             }
+            asBaseEntity(entity).clearChangeMarkers();
         }
     }
 
@@ -656,10 +849,17 @@ public class EntityDescriptor {
                 properties.put(p.getName(), p);
             }
         });
+
+        int ordinal = 0;
+        propertiesByOrdinal = new Property[properties.size()];
+        for (Property property : properties.values()) {
+            property.ordinal = ordinal;
+            propertiesByOrdinal[ordinal++] = property;
+        }
     }
 
     @SuppressWarnings("unchecked")
-    private static Collection<Class<?>> getMixins(Class<? extends Mixable> forClass) {
+    private static synchronized Collection<Class<?>> getMixins(Class<? extends Mixable> forClass) {
         if (allMixins == null) {
             MultiMap<Class<? extends Mixable>, Class<?>> mixinMap = MultiMap.create();
             for (Class<?> mixinClass : Injector.context().getParts(Mixin.class, Class.class)) {
@@ -728,14 +928,20 @@ public class EntityDescriptor {
             handleBeforeSaveMethod(descriptor, accessPath, method);
         }
         if (method.isAnnotationPresent(AfterSave.class)) {
-            descriptor.afterSaveHandlers.add(createInvokeHandler(accessPath, method));
+            descriptor.afterSaveHandlers.add(createInvokeHandler(accessPath,
+                                                                 method,
+                                                                 HandlerMetrics.HandlerType.AFTER_SAVE));
         }
         if (method.isAnnotationPresent(BeforeDelete.class)) {
-            descriptor.beforeDeleteHandlers.add(createInvokeHandler(accessPath, method));
+            descriptor.beforeDeleteHandlers.add(createInvokeHandler(accessPath,
+                                                                   method,
+                                                                   HandlerMetrics.HandlerType.BEFORE_DELETE));
             handleComplexDelete(descriptor, method);
         }
         if (method.isAnnotationPresent(AfterDelete.class)) {
-            descriptor.afterDeleteHandlers.add(createInvokeHandler(accessPath, method));
+            descriptor.afterDeleteHandlers.add(createInvokeHandler(accessPath,
+                                                                  method,
+                                                                  HandlerMetrics.HandlerType.AFTER_DELETE));
             handleComplexDelete(descriptor, method);
         }
         if (method.isAnnotationPresent(OnValidate.class)) {
@@ -743,26 +949,35 @@ public class EntityDescriptor {
         }
     }
 
-    private static Consumer<Object> createInvokeHandler(AccessPath accessPath, Method method) {
+    private static Consumer<Object> createInvokeHandler(AccessPath accessPath,
+                                                        Method method,
+                                                        HandlerMetrics.HandlerType handlerType) {
         try {
             warnOnWrongVisibility(method);
             method.setAccessible(true);
             MethodHandle handle = METHOD_LOOKUP.unreflect(method);
+            HandlerMetrics.HandlerProfile profile = HandlerMetrics.getProfile(handlerType, method);
 
             if (method.getParameterCount() == 0) {
                 return entity -> {
+                    long start = profile.start();
                     try {
                         handle.invoke(accessPath.apply(entity));
                     } catch (Throwable e) {
                         throw Exceptions.handle(Mixing.LOG, e);
+                    } finally {
+                        profile.finish(start);
                     }
                 };
             } else if (method.getParameterCount() == 1) {
                 return entity -> {
+                    long start = profile.start();
                     try {
                         handle.invoke(accessPath.apply(entity), entity);
                     } catch (Throwable e) {
                         throw Exceptions.handle(Mixing.LOG, e);
+                    } finally {
+                        profile.finish(start);
                     }
                 };
             } else {
@@ -800,24 +1015,32 @@ public class EntityDescriptor {
             warnOnWrongVisibility(method);
             method.setAccessible(true);
             MethodHandle handle = METHOD_LOOKUP.unreflect(method);
+            HandlerMetrics.HandlerProfile profile =
+                    HandlerMetrics.getProfile(HandlerMetrics.HandlerType.VALIDATE, method);
 
             if (method.getParameterCount() == 1 && method.getParameterTypes()[0] == Consumer.class) {
                 // When declared within an entity, we only have Consumer<String> as parameter
                 return (entity, warningsConsumer) -> {
+                    long start = profile.start();
                     try {
                         handle.invoke(accessPath.apply(entity), warningsConsumer);
                     } catch (Throwable e) {
                         throw Exceptions.handle(Mixing.LOG, e);
+                    } finally {
+                        profile.finish(start);
                     }
                 };
             } else if (method.getParameterCount() == 2 && method.getParameterTypes()[1] == Consumer.class) {
                 // When declared within a mixin, we have the entity itself as first parameter
                 // and the consumer as second...
                 return (entity, warningsConsumer) -> {
+                    long start = profile.start();
                     try {
                         handle.invoke(accessPath.apply(entity), entity, warningsConsumer);
                     } catch (Throwable e) {
                         throw Exceptions.handle(Mixing.LOG, e);
+                    } finally {
+                        profile.finish(start);
                     }
                 };
             } else {
@@ -850,7 +1073,9 @@ public class EntityDescriptor {
                             .handle();
         }
         descriptor.beforeSaveHandlerCollector.add(method.getAnnotation(BeforeSave.class).priority(),
-                                                  createInvokeHandler(accessPath, method));
+                                                  createInvokeHandler(accessPath,
+                                                                      method,
+                                                                      HandlerMetrics.HandlerType.BEFORE_SAVE));
     }
 
     private static void warnOnWrongVisibility(Method method) {
@@ -893,23 +1118,74 @@ public class EntityDescriptor {
      * @param supplier   used to provide values for a given column name
      * @return an entity containing the values of the given result row
      * @throws Exception in case of an error while building the entity
+     * @see #getMaterializationPlan(String)
      */
     public Object make(Class<? extends BaseMapper<?, ?, ?>> mapperType, String alias, ValueSupplier<String> supplier)
             throws Exception {
-        Object entity = type.getDeclaredConstructor().newInstance();
-
-        for (Property p : getProperties()) {
-            String columnName = (alias == null) ? p.getPropertyName() : alias + "_" + p.getPropertyName();
-            Value data = supplier.apply(columnName);
-            if (data != null) {
-                p.setValueFromDatasource(mapperType, entity, data);
-                if (isBaseEntity(entity)) {
-                    asBaseEntity(entity).persistedData.put(p, p.getValueAsCopy(entity));
-                }
+        return getMaterializationPlan(alias).make(mapperType, supplier);
+    }
+
+    /**
+     * Returns the plan used to fill entities of this type from result rows.
+     * <p>
+     * The plan is computed once per alias and then re-used. Mappers which know the layout of their result
+     * (e.g. the columns of a JDBC result set) should {@link MaterializationPlan#resolve resolve} the plan once
+     * per result and then read all values by their index.
+     *
+     * @param alias the field alias used to generate unique column names
+     * @return the materialization plan for the given alias
+     */
+    public MaterializationPlan getMaterializationPlan(@Nullable String alias) {
+        if (alias == null) {
+            MaterializationPlan plan = defaultMaterializationPlan;
+            if (plan == null) {
+                plan = new MaterializationPlan(this, null);
+                defaultMaterializationPlan = plan;
+            }
+            return plan;
+        }
+
+        return materializationPlans.computeIfAbsent(alias, ignored -> new MaterializationPlan(this, alias));
+    }
+
+    /**
+     * Creates an independent copy of the given entity.
+     * <p>
+     * All property values are copied along with their persisted values, so that the copy tracks its changes just
+     * like the original. Metadata like the version is transferred via {@link BaseEntity#transferMetadata(BaseEntity)}.
+     *
+     * @param entity the entity to copy
+     * @param <E>    the type of the entity
+     * @return a new instance containing the same values as the given entity
+     * @throws Exception in case the copy cannot be created
+     */
+    @SuppressWarnings("unchecked")
+    public <E extends BaseEntity<?>> E copy(E entity) throws Exception {
+        E copy = (E) newInstance();
+        for (Property property : getProperties()) {
+            property.setValueToField(property.getValueAsCopy(entity), property.accessPath.apply(copy));
+            if (entity.isPersistedValuePresent(property)) {
+                copy.setPersistedValue(property, property.getValueAsSnapshot(copy));
             }
         }
+        copy.readOnly = entity.readOnly;
+        entity.transferMetadata(copy);
 
-        return entity;
+        return copy;
+    }
+
+    /**
+     * Creates a new and empty instance of the described type.
+     *
+     * @return a new instance of the entity type
+     * @throws Exception in case the instance cannot be created
+     */
+    protected Object newInstance() throws Exception {
+        if (constructor == null) {
+            constructor = type.getDeclaredConstructor();
+        }
+
+        return constructor.newInstance();
     }
 
     /**
@@ -1142,6 +1418,27 @@ public class EntityDescriptor {
         return versioned;
     }
 
+    /**
+     * Determines how long entities of this type are kept in the {@link EntityCache}.
+     *
+     * @return the TTL of cached entities or <tt>null</tt> if the entity doesn't wear a {@link Cached} annotation
+     */
+    @Nullable
+    public Duration getCacheTTL() {
+        return cacheTTL;
+    }
+
+    /**
+     * Determines if the underlying entity explicitly tracks its changes.
+     *
+     * @return <tt>true</tt> if only marked or untrackable properties are inspected when determining changes,
+     * <tt>false</tt> if all properties are compared
+     * @see TrackChanges
+     */
+    public boolean isTrackingChanges() {
+        return trackingChanges;
+    }
+
     /**
      * Toggles the complexDelete flag to <tt>true</tt>.
      *
@@ -1173,4 +1470,42 @@ public class EntityDescriptor {
     public boolean isComplexDelete() {
         return complexDelete;
     }
+
+    /**
+     * Determines if entities of this descriptor can be deleted using a single set-based operation.
+     * <p>
+     * This is the case if the entities are not {@link #isComplexDelete() complex to delete} and if neither
+     * before, after nor cascade delete handlers are present and no property {@link Property#isHandlingDeletes()
+     * handles deletes}, as these would be skipped by such an operation. Also, {@link Cached cached} entities are
+     * always deleted one by one, so that they are removed from the cache.
+     *
+     * @return <tt>true</tt> if entities can be deleted without loading them first, <tt>false</tt> otherwise
+     */
+    public boolean isSetBasedDeletePossible() {
+        return !complexDelete
+               && cacheTTL == null
+               && !propertiesHandlingDeletes
+               && beforeDeleteHandlers.isEmpty()
+               && afterDeleteHandlers.isEmpty()
+               && cascadeDeleteHandlers.isEmpty();
+    }
+
+    /**
+     * Determines if entities of this descriptor can be updated using a single set-based operation.
+     * <p>
+     * This is the case if the entities are not {@link #isVersioned() versioned} and if neither before nor after
+     * save handlers are present and no property {@link Property#isHandlingSaves() handles saves}, as these would be
+     * skipped by such an operation. Also, {@link Cached cached} entities are always updated one by one, so that they
+     * are removed from the cache.
+     *
+     * @return <tt>true</tt> if entities can be updated without loading them first, <tt>false</tt> otherwise
+     */
+    public boolean isSetBasedUpdatePossible() {
+        List<Consumer<Object>> beforeSaveHandlers = getSortedBeforeSaveHandlers();
+        return !versioned
+               && cacheTTL == null
+               && !propertiesHandlingSaves
+               && (beforeSaveHandlers == null || beforeSaveHandlers.isEmpty())
+               && afterSaveHandlers.isEmpty();
+    }
 }
@@ -0,0 +1,217 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing;
+
+import sirius.kernel.commons.Tuple;
+import sirius.kernel.di.std.ConfigValue;
+import sirius.kernel.di.std.Register;
+import sirius.kernel.health.metrics.MetricProvider;
+import sirius.kernel.health.metrics.MetricState;
+import sirius.kernel.health.metrics.MetricsCollector;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Records the number and latency of database operations per entity type.
+ * <p>
+ * The mappers and queries report each create, update, delete, find, query and count here. For each entity type and
+ * operation, two {@link LatencyHistogram histograms} are maintained: one which is reset on every gathering of the
+ * metrics (and therefore represents the last minute) and one which is only reset manually via the
+ * <tt>entity-metrics</tt> console command.
+ * <p>
+ * The metrics provider reports the number of calls and the 95th percentile of each entity type and operation which
+ * was active within the last interval. The maximal number of reported entity types can be limited via
+ * <tt>mixing.metrics.maxReportedTypes</tt>.
+ */
+@Register(classes = {EntityMetrics.class, MetricProvider.class})
+public class EntityMetrics implements MetricProvider {
+
+    /**
+     * Enumerates the operations being recorded.
+     */
+    public enum Operation {
+        CREATE, UPDATE, DELETE, FIND, QUERY, COUNT
+    }
+
+    /**
+     * Contains the histograms of a single entity type and operation.
+     */
+    public static class OperationStats {
+
+        private final LatencyHistogram interval = new LatencyHistogram();
+        private final LatencyHistogram total = new LatencyHistogram();
+
+        protected void addValue(long micros) {
+            interval.addValue(micros);
+            total.addValue(micros);
+        }
+
+        /**
+         * Returns the histogram of all values recorded since the last reset via the console command.
+         *
+         * @return the histogram of all recorded values
+         */
+        public LatencyHistogram getTotal() {
+            return total;
+        }
+    }
+
+    /**
+     * Measures the duration of a single operation.
+     * <p>
+     * The time spent in a result handler {@link #wrap(Predicate) wrapped} by the measurement is excluded, so that
+     * queries report the time spent in the database rather than the time needed to process the results.
+     */
+    public class Measurement {
+
+        private final EntityDescriptor descriptor;
+        private final Operation operation;
+        private final long start = System.nanoTime();
+        private long excludedNanos;
+
+        protected Measurement(EntityDescriptor descriptor, Operation operation) {
+            this.descriptor = descriptor;
+            this.operation = operation;
+        }
+
+        /**
+         * Wraps the given handler so that the time spent within it is not recorded.
+         *
+         * @param handler the handler to wrap
+         * @param <E>     the type of objects being processed by the handler
+         * @return a handler which delegates to the given one
+         */
+        public <E> Predicate<E> wrap(Predicate<E> handler) {
+            return entity -> {
+                long handlerStart = System.nanoTime();
+                try {
+                    return handler.test(entity);
+                } finally {
+                    excludedNanos += System.nanoTime() - handlerStart;
+                }
+            };
+        }
+
+        /**
+         * Records the duration of the operation.
+         */
+        public void finish() {
+            record(descriptor, operation, (System.nanoTime() - start - excludedNanos) / 1000);
+        }
+    }
+
+    @ConfigValue("mixing.metrics.maxReportedTypes")
+    private int maxReportedTypes;
+
+    private final Map<EntityDescriptor, Map<Operation, OperationStats>> stats = new ConcurrentHashMap<>();
+
+    /**
+     * Starts measuring the given operation.
+     *
+     * @param descriptor the descriptor of the affected entity type
+     * @param operation  the operation being performed
+     * @return the measurement which has to be {@link Measurement#finish() finished} once the operation is completed
+     */
+    public Measurement start(EntityDescriptor descriptor, Operation operation) {
+        return new Measurement(descriptor, operation);
+    }
+
+    /**
+     * Records the given duration for the given entity type and operation.
+     *
+     * @param descriptor the descriptor of the affected entity type
+     * @param operation  the operation which was performed
+     * @param micros     the duration in microseconds
+     */
+    public void record(EntityDescriptor descriptor, Operation operation, long micros) {
+        if (descriptor == null) {
+            return;
+        }
+
+        stats.computeIfAbsent(descriptor, ignored -> new ConcurrentHashMap<>())
+             .computeIfAbsent(operation, ignored -> new OperationStats())
+             .addValue(micros);
+    }
+
+    /**
+     * Returns the recorded statistics of all entity types.
+     *
+     * @return the statistics per entity type and operation
+     */
+    public Map<EntityDescriptor, Map<Operation, OperationStats>> getStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    /**
+     * Returns the recorded statistics of the given entity type.
+     *
+     * @param descriptor the entity type to fetch the statistics for
+     * @return the statistics per operation
+     */
+    public Map<Operation, OperationStats> getStats(EntityDescriptor descriptor) {
+        Map<Operation, OperationStats> result = new EnumMap<>(Operation.class);
+        result.putAll(stats.getOrDefault(descriptor, Collections.emptyMap()));
+        return result;
+    }
+
+    /**
+     * Discards all statistics recorded so far.
+     */
+    public void reset() {
+        stats.values()
+             .forEach(operations -> operations.values().forEach(operationStats -> operationStats.total.reset()));
+    }
+
+    @Override
+    public void gather(MetricsCollector collector) {
+        // Determine the time spent per entity type once, as the values might change while sorting...
+        stats.entrySet()
+             .stream()
+             .map(entry -> Tuple.create(entry, computeTotalIntervalMicros(entry.getValue())))
+             .filter(entryAndMicros -> entryAndMicros.getSecond() > 0)
+             .sorted((left, right) -> Long.compare(right.getSecond(), left.getSecond()))
+             .limit(maxReportedTypes)
+             .forEach(entryAndMicros -> gather(collector,
+                                               entryAndMicros.getFirst().getKey(),
+                                               entryAndMicros.getFirst().getValue()));
+
+        stats.values()
+             .forEach(operations -> operations.values().forEach(operationStats -> operationStats.interval.reset()));
+    }
+
+    private long computeTotalIntervalMicros(Map<Operation, OperationStats> operations) {
+        return operations.values()
+                         .stream()
+                         .mapToLong(operationStats -> operationStats.interval.getCount()
+                                                      * operationStats.interval.getAverage())
+                         .sum();
+    }
+
+    private void gather(MetricsCollector collector, EntityDescriptor descriptor, Map<Operation, OperationStats> ops) {
+        ops.forEach((operation, operationStats) -> {
+            LatencyHistogram histogram = operationStats.interval;
+            if (histogram.getCount() == 0) {
+                return;
+            }
+
+            String code = "mixing_" + descriptor.getName().toLowerCase() + "_" + operation.name().toLowerCase();
+            String label = "Mixing " + descriptor.getName() + " " + operation.name();
+            collector.metric(code + "_calls", label + " Calls", histogram.getCount(), "/min", MetricState.GRAY);
+            collector.metric(code + "_p95",
+                             "mixing-entity-p95",
+                             label + " Duration (p95)",
+                             histogram.getPercentile(95) / 1000d,
+                             "ms");
+        });
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing;
+
+import sirius.kernel.commons.Values;
+import sirius.kernel.di.std.Part;
+import sirius.kernel.di.std.Register;
+import sirius.kernel.health.console.Command;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+
+/**
+ * Lists the slowest entity types and operations as recorded by {@link EntityMetrics}.
+ * <p>
+ * Use <tt>entity-metrics [number of rows]</tt> to list the operations with the highest 95th percentile and
+ * <tt>entity-metrics reset</tt> to discard all values recorded so far.
+ */
+@Register
+public class EntityMetricsCommand implements Command {
+
+    private static final String ROW_FORMAT = "%-30s %-8s %10s %10s %10s %10s %10s %10s";
+
+    @Part
+    private EntityMetrics entityMetrics;
+
+    @Override
+    public void execute(Output output, String... arguments) throws Exception {
+        Values args = Values.of(arguments);
+        if ("reset".equals(args.at(0).asString())) {
+            entityMetrics.reset();
+            output.line("All entity metrics have been reset...");
+            return;
+        }
+
+        MetricsTable table = new MetricsTable(ROW_FORMAT, "ENTITY", "OP", "CALLS", "AVG", "P50", "P95", "P99", "MAX");
+        entityMetrics.getStats().forEach((descriptor, operations) -> addRows(table, descriptor, operations));
+
+        output.line("Usage: entity-metrics [number of rows] or entity-metrics reset");
+        output.blankLine();
+        table.output(output, args);
+    }
+
+    private void addRows(MetricsTable table,
+                         EntityDescriptor descriptor,
+                         Map<EntityMetrics.Operation, EntityMetrics.OperationStats> operations) {
+        operations.forEach((operation, stats) -> {
+            LatencyHistogram histogram = stats.getTotal();
+            long p95 = histogram.getPercentile(95);
+            table.addRow(p95,
+                         descriptor.getName(),
+                         operation,
+                         histogram.getCount(),
+                         MetricsTable.formatMillis(histogram.getAverage()),
+                         MetricsTable.formatMillis(histogram.getPercentile(50)),
+                         MetricsTable.formatMillis(p95),
+                         MetricsTable.formatMillis(histogram.getPercentile(99)),
+                         MetricsTable.formatMillis(histogram.getMax()));
+        });
+    }
+
+    @Override
+    public String getDescription() {
+        return "Lists the slowest database operations per entity type";
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "entity-metrics";
+    }
+}
@@ -17,27 +17,77 @@ import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
 import sirius.kernel.health.Exceptions;
 
-import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Provides a global cache for field values.
  * <p>
  * This can be used to quickly resolve IDs into names / label when rendering tables of items.
  * Note that the cache isn't invalidated automatically but rather short lived.
+ * <p>
+ * Lookups for entities which do not exist are remembered in a separate cache (<tt>mixing-field-lookup-misses</tt>),
+ * which commonly has a shorter TTL than the cache for actual values.
  */
 @Register(classes = FieldLookupCache.class)
 public class FieldLookupCache {
 
-    private Cache<String, Value> cache = CacheManager.createLocalCache("mixing-field-lookup");
+    /**
+     * Represents the key of a cached value which consists of the entity type, its id and the field.
+     * <p>
+     * For the cache of missing entities, the field is <tt>null</tt>.
+     */
+    private static final class LookupKey {
 
-    @Part
-    private Mixing mixing;
+        private final Class<?> type;
+        private final String id;
+        private final Mapping field;
+        private final int hash;
 
-    private <E extends BaseEntity<?>> Value load(Class<E> type, @Nullable Object id, Mapping field) throws Exception {
-        return mixing.getDescriptor(type).getMapper().fetchField(type, id, field);
+        private LookupKey(Class<?> type, String id, @Nullable Mapping field) {
+            this.type = type;
+            this.id = id;
+            this.field = field;
+            this.hash = Objects.hash(type, id, field);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof LookupKey otherKey)) {
+                return false;
+            }
+
+            return type == otherKey.type && id.equals(otherKey.id) && Objects.equals(field, otherKey.field);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return field == null ? Mixing.getUniqueName(type, id) : Mixing.getUniqueName(type, id) + "-" + field;
+        }
     }
 
+    private Cache<LookupKey, Value> cache = CacheManager.createLocalCache("mixing-field-lookup");
+    private Cache<LookupKey, Boolean> missingEntities = CacheManager.createLocalCache("mixing-field-lookup-misses");
+
+    @Part
+    private Mixing mixing;
+
     /**
      * Provides the value of the given entity and field.
      * <p>
@@ -55,32 +105,106 @@ public class FieldLookupCache {
             return Value.EMPTY;
         }
 
-        try {
-            String cacheKey = getCacheKey(type, id, field);
-            Value result = cache.get(cacheKey);
-            if (result == null) {
-                result = load(type, id, field);
-                cache.put(cacheKey, result);
+        Value result = cache.get(getCacheKey(type, id, field));
+        if (result != null) {
+            return result;
+        }
+
+        return lookupAll(type, Collections.singletonList(id), field).get(id.toString()).get(field);
+    }
+
+    /**
+     * Provides the values of the given fields for all given entities.
+     * <p>
+     * All values which are not cached yet are loaded using a single query (per block of ids) via
+     * {@link BaseMapper#fetchFields(Class, Collection, Collection)}. Just like {@link #lookup(Class, Object, Mapping)}
+     * this gracefully handles empty IDs (which are skipped) and IDs of nonexistent entities (for which all values
+     * are empty).
+     *
+     * @param type   the type of the entities to resolve
+     * @param ids    the ids of the entities to resolve
+     * @param fields the fields to resolve
+     * @param <E>    the generic type of the entities
+     * @return the values of all fields for each of the given ids (as string) in the order of the given ids
+     */
+    public <E extends BaseEntity<?>> Map<String, Map<Mapping, Value>> lookupAll(Class<E> type,
+                                                                             Collection<?> ids,
+                                                                             Mapping... fields) {
+        Map<String, Map<Mapping, Value>> result = new LinkedHashMap<>();
+        Set<String> idsToLoad = new LinkedHashSet<>();
+        for (Object id : ids) {
+            if (Strings.isFilled(id) && !result.containsKey(id.toString())) {
+                String effectiveId = id.toString();
+                Map<Mapping, Value> values = new HashMap<>();
+                result.put(effectiveId, values);
+                if (missingEntities.get(getCacheKey(type, effectiveId, null)) == null) {
+                    fillFromCache(type, effectiveId, fields, values, idsToLoad);
+                }
             }
+        }
 
-            return result;
-        } catch (Exception e) {
-            Exceptions.handle()
-                      .to(Mixing.LOG)
-                      .error(e)
-                      .withSystemErrorMessage(
-                              "An error occurred when performing a lookup on field %s for entity %s of type %s: %s (%s)",
-                              field,
-                              id,
-                              type)
-                      .handle();
-            return Value.EMPTY;
+        if (!idsToLoad.isEmpty()) {
+            try {
+                load(type, idsToLoad, fields, result);
+            } catch (Exception e) {
+                Exceptions.handle()
+                          .to(Mixing.LOG)
+                          .error(e)
+                          .withSystemErrorMessage(
+                                  "An error occurred when performing a lookup on fields %s for %s entities of type %s: %s (%s)",
+                                  Arrays.toString(fields),
+                                  idsToLoad.size(),
+                                  type)
+                          .handle();
+            }
+        }
+
+        for (Map<Mapping, Value> values : result.values()) {
+            for (Mapping field : fields) {
+                values.putIfAbsent(field, Value.EMPTY);
+            }
+        }
+
+        return result;
+    }
+
+    private void fillFromCache(Class<?> type,
+                               String id,
+                               Mapping[] fields,
+                               Map<Mapping, Value> values,
+                               Set<String> idsToLoad) {
+        for (Mapping field : fields) {
+            Value value = cache.get(getCacheKey(type, id, field));
+            if (value == null) {
+                idsToLoad.add(id);
+            } else {
+                values.put(field, value);
+            }
+        }
+    }
+
+    private <E extends BaseEntity<?>> void load(Class<E> type,
+                                                Set<String> ids,
+                                                Mapping[] fields,
+                                                Map<String, Map<Mapping, Value>> result) throws Exception {
+        Map<String, Map<Mapping, Value>> loadedValues =
+                mixing.getDescriptor(type).getMapper().fetchFields(type, ids, Arrays.asList(fields));
+        for (String id : ids) {
+            Map<Mapping, Value> values = loadedValues.get(id);
+            if (values == null) {
+                missingEntities.put(getCacheKey(type, id, null), Boolean.TRUE);
+            } else {
+                Map<Mapping, Value> effectiveValues = result.get(id);
+                values.forEach((field, value) -> {
+                    cache.put(getCacheKey(type, id, field), value);
+                    effectiveValues.put(field, value);
+                });
+            }
         }
     }
 
-    @Nonnull
-    private <E extends BaseEntity<?>> String getCacheKey(Class<E> type, Object id, Mapping field) {
-        return Mixing.getUniqueName(type, id) + "-" + field;
+    private LookupKey getCacheKey(Class<?> type, Object id, @Nullable Mapping field) {
+        return new LookupKey(type, id.toString(), field);
     }
 
     /**
@@ -0,0 +1,257 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing;
+
+import sirius.kernel.Startable;
+import sirius.kernel.commons.Tuple;
+import sirius.kernel.di.std.ConfigValue;
+import sirius.kernel.di.std.Register;
+import sirius.kernel.health.metrics.MetricProvider;
+import sirius.kernel.health.metrics.MetricsCollector;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Profiles the lifecycle handlers (e.g. {@link sirius.db.mixing.annotations.BeforeSave}) of all entities.
+ * <p>
+ * As profiling adds a small overhead to each handler invocation, it is disabled by default. It can be enabled via
+ * <tt>mixing.metrics.profileHandlers</tt> or at runtime using the <tt>handler-metrics</tt> console command.
+ * <p>
+ * While enabled, the number of invocations and the total time spent in all handlers is reported as metric, along
+ * with the handlers which took the most time within the last interval (the number is controlled via
+ * <tt>mixing.metrics.maxReportedHandlers</tt>).
+ */
+@Register(classes = {HandlerMetrics.class, MetricProvider.class, Startable.class})
+public class HandlerMetrics implements MetricProvider, Startable {
+
+    /**
+     * Enumerates the kinds of handlers being profiled.
+     */
+    public enum HandlerType {
+        BEFORE_SAVE, AFTER_SAVE, BEFORE_DELETE, AFTER_DELETE, VALIDATE
+    }
+
+    /**
+     * Records the invocations of a single handler method.
+     * <p>
+     * If a handler is declared in a mixin or a superclass, the profile is shared by all entities using it.
+     */
+    public static class HandlerProfile {
+
+        private final HandlerType type;
+        private final String name;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private long lastReportedNanos;
+        private volatile long callsAtReset;
+        private volatile long nanosAtReset;
+
+        protected HandlerProfile(HandlerType type, String name) {
+            this.type = type;
+            this.name = name;
+        }
+
+        /**
+         * Starts measuring an invocation of the handler.
+         *
+         * @return the start timestamp which has to be passed to {@link #finish(long)} or <tt>0</tt> if profiling is
+         * disabled
+         */
+        public long start() {
+            return enabled ? System.nanoTime() : 0;
+        }
+
+        /**
+         * Records the invocation of the handler.
+         *
+         * @param start the value returned by {@link #start()}
+         */
+        public void finish(long start) {
+            if (start != 0) {
+                calls.increment();
+                nanos.add(System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * Returns the kind of the handler.
+         *
+         * @return the type of the handler (e.g. before save)
+         */
+        public HandlerType getType() {
+            return type;
+        }
+
+        /**
+         * Returns the name of the handler.
+         *
+         * @return the name of the declaring class and the method
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the number of recorded invocations of this handler.
+         *
+         * @return the number of invocations recorded while profiling was enabled since the last {@link #reset()}
+         */
+        public long getCalls() {
+            return calls.sum() - callsAtReset;
+        }
+
+        /**
+         * Returns the total time spent in this handler.
+         *
+         * @return the total duration in microseconds since the last {@link #reset()}
+         */
+        public long getTotalMicros() {
+            return (nanos.sum() - nanosAtReset) / 1000;
+        }
+
+        /**
+         * Discards the invocations recorded so far for the console command.
+         * <p>
+         * The underlying counters keep growing, as the reported metrics are computed as differences of these.
+         */
+        protected void reset() {
+            callsAtReset = calls.sum();
+            nanosAtReset = nanos.sum();
+        }
+    }
+
+    private static final Map<String, HandlerProfile> profiles = new ConcurrentHashMap<>();
+    private static volatile boolean enabled;
+
+    @ConfigValue("mixing.metrics.profileHandlers")
+    private boolean profileHandlers;
+
+    @ConfigValue("mixing.metrics.maxReportedHandlers")
+    private int maxReportedHandlers;
+
+    /**
+     * Obtains the profile for the given handler method.
+     * <p>
+     * This is invoked by the {@link EntityDescriptor} when creating the handler and therefore happens before this
+     * class is initialized as part of the framework.
+     *
+     * @param type   the kind of handler
+     * @param method the handler method
+     * @return the profile to record the invocations of the handler in
+     */
+    protected static HandlerProfile getProfile(HandlerType type, Method method) {
+        String name = method.getDeclaringClass().getName() + "." + method.getName();
+        return profiles.computeIfAbsent(type + ":" + name, ignored -> new HandlerProfile(type, name));
+    }
+
+    @Override
+    public int getPriority() {
+        return 100;
+    }
+
+    @Override
+    public void started() {
+        setEnabled(profileHandlers);
+    }
+
+    /**
+     * Determines if handlers are currently being profiled.
+     * <p>
+     * As the profiles are created along with the {@link EntityDescriptor descriptors}, this is a global setting.
+     *
+     * @return <tt>true</tt> if profiling is enabled, <tt>false</tt> otherwise
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables the profiling of handlers.
+     *
+     * @param enabled <tt>true</tt> to enable profiling, <tt>false</tt> to disable it
+     */
+    public static void setEnabled(boolean enabled) {
+        HandlerMetrics.enabled = enabled;
+    }
+
+    /**
+     * Returns the profiles of all handlers which have been invoked while profiling was enabled.
+     *
+     * @return a list of all profiles which recorded at least one invocation
+     */
+    public List<HandlerProfile> getProfiles() {
+        List<HandlerProfile> result = new ArrayList<>();
+        profiles.values().stream().filter(profile -> profile.getCalls() > 0).forEach(result::add);
+        return result;
+    }
+
+    /**
+     * Discards all invocations recorded so far, as reported by {@link #getProfiles()}.
+     * <p>
+     * Note that this doesn't affect the reported metrics.
+     */
+    public void reset() {
+        profiles.values().forEach(HandlerProfile::reset);
+    }
+
+    @Override
+    public void gather(MetricsCollector collector) {
+        if (!enabled) {
+            return;
+        }
+
+        long totalCalls = 0;
+        long totalNanos = 0;
+        List<Tuple<HandlerProfile, Long>> intervalNanos = new ArrayList<>();
+        for (HandlerProfile profile : profiles.values()) {
+            long nanos = profile.nanos.sum();
+            totalCalls += profile.calls.sum();
+            totalNanos += nanos;
+            if (nanos > profile.lastReportedNanos) {
+                intervalNanos.add(Tuple.create(profile, nanos - profile.lastReportedNanos));
+            }
+            profile.lastReportedNanos = nanos;
+        }
+
+        collector.differentialMetric("mixing_handler_calls",
+                                     "mixing-handler-calls",
+                                     "Mixing Handler Calls",
+                                     totalCalls,
+                                     "/min");
+        collector.differentialMetric("mixing_handler_duration",
+                                     "mixing-handler-duration",
+                                     "Mixing Handler Duration",
+                                     totalNanos / 1_000_000d,
+                                     "ms/min");
+
+        intervalNanos.stream()
+                     .sorted((left, right) -> Long.compare(right.getSecond(), left.getSecond()))
+                     .limit(maxReportedHandlers)
+                     .forEach(profileAndNanos -> reportHandler(collector,
+                                                               profileAndNanos.getFirst(),
+                                                               profileAndNanos.getSecond()));
+    }
+
+    private void reportHandler(MetricsCollector collector, HandlerProfile profile, long nanos) {
+        String code = "mixing_handler_"
+                      + profile.getType().name().toLowerCase()
+                      + "_"
+                      + profile.getName().replaceAll("[^A-Za-z0-9]+", "_").toLowerCase();
+        collector.metric(code,
+                         "mixing-handler-duration",
+                         "Mixing " + profile.getType() + " " + profile.getName(),
+                         nanos / 1_000_000d,
+                         "ms/min");
+    }
+}
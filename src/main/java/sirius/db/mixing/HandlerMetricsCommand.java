@@ -0,0 +1,80 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing;
+
+import sirius.kernel.commons.Values;
+import sirius.kernel.di.std.Part;
+import sirius.kernel.di.std.Register;
+import sirius.kernel.health.console.Command;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Lists the lifecycle handlers which took the most time as recorded by {@link HandlerMetrics}.
+ * <p>
+ * Use <tt>handler-metrics enable</tt> or <tt>handler-metrics disable</tt> to toggle the profiling,
+ * <tt>handler-metrics [number of rows]</tt> to list the most expensive handlers and <tt>handler-metrics reset</tt> to
+ * discard all values recorded so far.
+ */
+@Register
+public class HandlerMetricsCommand implements Command {
+
+    private static final String ROW_FORMAT = "%-70s %-13s %10s %12s %10s";
+
+    @Part
+    private HandlerMetrics handlerMetrics;
+
+    @Override
+    public void execute(Output output, String... arguments) throws Exception {
+        Values args = Values.of(arguments);
+        String command = args.at(0).asString();
+        if ("enable".equals(command)) {
+            HandlerMetrics.setEnabled(true);
+            output.line("Profiling of entity handlers has been enabled...");
+            return;
+        }
+        if ("disable".equals(command)) {
+            HandlerMetrics.setEnabled(false);
+            output.line("Profiling of entity handlers has been disabled...");
+            return;
+        }
+        if ("reset".equals(command)) {
+            handlerMetrics.reset();
+            output.line("All handler metrics have been reset...");
+            return;
+        }
+
+        output.line("Usage: handler-metrics [number of rows] or handler-metrics enable|disable|reset");
+        output.line("Profiling is currently " + (HandlerMetrics.isEnabled() ? "enabled" : "disabled") + ".");
+        output.blankLine();
+        MetricsTable table = new MetricsTable(ROW_FORMAT, "HANDLER", "TYPE", "CALLS", "TOTAL", "AVG");
+        for (HandlerMetrics.HandlerProfile profile : handlerMetrics.getProfiles()) {
+            long calls = profile.getCalls();
+            long totalMicros = profile.getTotalMicros();
+            table.addRow(totalMicros,
+                         profile.getName(),
+                         profile.getType(),
+                         calls,
+                         MetricsTable.formatMillis(totalMicros),
+                         MetricsTable.formatMillis(totalMicros / Math.max(1, calls)));
+        }
+        table.output(output, args);
+    }
+
+    @Override
+    public String getDescription() {
+        return "Lists the entity lifecycle handlers (@BeforeSave, @AfterSave, @OnValidate...) which took the most time";
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "handler-metrics";
+    }
+}
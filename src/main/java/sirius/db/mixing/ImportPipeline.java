@@ -0,0 +1,503 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing;
+
+import sirius.kernel.async.TaskContext;
+import sirius.kernel.commons.Strings;
+import sirius.kernel.commons.Value;
+import sirius.kernel.health.Exceptions;
+import sirius.kernel.health.HandledException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Imports a large number of rows (e.g. read from a CSV or JSON file) as entities.
+ * <p>
+ * The rows are read from the given source in chunks. Each chunk is parsed (and validated) in parallel by the
+ * executor named in <tt>mixing.importExecutor</tt>. The resulting entities are then written in the order of the
+ * source by a {@link MixingSession}, which uses the batching mechanism of the underlying database (JDBC batches,
+ * bulk writes for MongoDB and the bulk API of Elasticsearch).
+ * <p>
+ * Only a limited number of chunks are parsed ahead of the writes. Therefore the source is only read as fast as the
+ * database accepts the entities, which keeps the memory consumption constant, no matter how large the import is.
+ * <p>
+ * A row which cannot be parsed or written doesn't abort the import but is reported to the
+ * {@link #onError(BiConsumer) error handler}. Rows which are imported but report validation warnings are passed to
+ * the {@link #onWarning(BiConsumer) warning handler}. A parser may return <tt>null</tt> to skip a row. The progress is
+ * reported to the current {@link TaskContext}, which can also be used to cancel the import.
+ * <pre>{@code
+ * ImportPipeline.Result result = mixing.importPipeline(Product.class)
+ *                                      .onError((row, error) -> log(row, error.getMessage()))
+ *                                      .execute(csvRows);
+ * }</pre>
+ *
+ * @param <S> the type of rows being read from the source
+ * @param <E> the type of entities being imported
+ * @see Mixing#importPipeline(Class, Function)
+ * @see Mixing#importPipeline(Class)
+ */
+public class ImportPipeline<S, E extends BaseEntity<?>> {
+
+    /**
+     * Contains the default number of rows which are parsed as a single unit of work.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 100;
+
+    /**
+     * Contains the default number of chunks which are parsed ahead of the writes.
+     */
+    public static final int DEFAULT_MAX_PENDING_CHUNKS = 16;
+
+    /**
+     * Contains the max. number of errors (or warnings) which are kept in the {@link Result} if no handler is present.
+     */
+    private static final int MAX_COLLECTED_ERRORS = 100;
+
+    /**
+     * Represents a parsed row which is ready to be written.
+     */
+    private static class ParsedRow<E> {
+        private final long rowNumber;
+        private E entity;
+        private HandledException error;
+        private HandledException warnings;
+
+        ParsedRow(long rowNumber) {
+            this.rowNumber = rowNumber;
+        }
+    }
+
+    /**
+     * Represents a row which couldn't be imported or which was imported with validation warnings.
+     */
+    public static class RowError {
+        private final long rowNumber;
+        private final HandledException error;
+
+        protected RowError(long rowNumber, HandledException error) {
+            this.rowNumber = rowNumber;
+            this.error = error;
+        }
+
+        /**
+         * Returns the number of the row in the source.
+         *
+         * @return the one based number of the row
+         */
+        public long getRowNumber() {
+            return rowNumber;
+        }
+
+        public HandledException getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return rowNumber + ": " + error.getMessage();
+        }
+    }
+
+    /**
+     * Summarizes an import.
+     */
+    public static class Result {
+        private long rowsRead;
+        private long rowsImported;
+        private long rowsFailed;
+        private long rowsSkipped;
+        private long rowsWithWarnings;
+        private final List<RowError> errors = new ArrayList<>();
+        private final List<RowError> warnings = new ArrayList<>();
+
+        public long getRowsRead() {
+            return rowsRead;
+        }
+
+        public long getRowsImported() {
+            return rowsImported;
+        }
+
+        public long getRowsFailed() {
+            return rowsFailed;
+        }
+
+        /**
+         * Returns the number of rows for which the parser returned <tt>null</tt>.
+         *
+         * @return the number of skipped rows
+         */
+        public long getRowsSkipped() {
+            return rowsSkipped;
+        }
+
+        /**
+         * Returns the number of imported rows which reported validation warnings.
+         * <p>
+         * Note that these rows are also contained in {@link #getRowsImported()}.
+         *
+         * @return the number of imported rows with warnings
+         */
+        public long getRowsWithWarnings() {
+            return rowsWithWarnings;
+        }
+
+        /**
+         * Returns the first errors which occurred if no error handler was present.
+         *
+         * @return the first 100 errors which occurred
+         */
+        public List<RowError> getErrors() {
+            return Collections.unmodifiableList(errors);
+        }
+
+        /**
+         * Returns the first warnings which occurred if no warning handler was present.
+         *
+         * @return the first 100 warnings which occurred
+         */
+        public List<RowError> getWarnings() {
+            return Collections.unmodifiableList(warnings);
+        }
+
+        @Override
+        public String toString() {
+            return Strings.apply("%s rows read, %s imported (%s with warnings), %s failed, %s skipped",
+                                 rowsRead,
+                                 rowsImported,
+                                 rowsWithWarnings,
+                                 rowsFailed,
+                                 rowsSkipped);
+        }
+    }
+
+    private final Mixing mixing;
+    private final EntityDescriptor descriptor;
+    private final Function<S, E> parser;
+    private Consumer<E> transformer;
+    private BiConsumer<Long, HandledException> errorHandler;
+    private BiConsumer<Long, HandledException> warningHandler;
+    private boolean skipRowsWithWarnings;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int maxPendingChunks = DEFAULT_MAX_PENDING_CHUNKS;
+    private int batchSize = MixingSession.DEFAULT_FLUSH_INTERVAL;
+
+    protected ImportPipeline(Mixing mixing, EntityDescriptor descriptor, Function<S, E> parser) {
+        this.mixing = mixing;
+        this.descriptor = descriptor;
+        this.parser = parser;
+    }
+
+    /**
+     * Creates a parser which fills a new entity using the given map of field names and values.
+     * <p>
+     * Each value is applied using {@link Property#parseValueFromImport(Object, Value)}. Unknown fields are ignored.
+     *
+     * @param descriptor the descriptor of the entities to create
+     * @param <E>        the type of entities to create
+     * @return a parser which creates an entity for a given map of field values
+     */
+    @SuppressWarnings("unchecked")
+    protected static <E extends BaseEntity<?>> Function<Map<String, ?>, E> parseFields(EntityDescriptor descriptor) {
+        return row -> {
+            try {
+                E entity = (E) descriptor.newInstance();
+                row.forEach((field, value) -> {
+                    Property property = descriptor.findProperty(field);
+                    if (property != null) {
+                        property.parseValueFromImport(entity, Value.of(value));
+                    }
+                });
+                return entity;
+            } catch (HandledException e) {
+                throw e;
+            } catch (Exception e) {
+                throw Exceptions.handle(Mixing.LOG, e);
+            }
+        };
+    }
+
+    /**
+     * Specifies a transformer which is invoked for each parsed entity.
+     * <p>
+     * Just like the parser, this is executed in parallel and must therefore be thread-safe.
+     *
+     * @param transformer the transformer to invoke for each entity
+     * @return the pipeline itself for fluent method calls
+     */
+    public ImportPipeline<S, E> withTransformer(Consumer<E> transformer) {
+        this.transformer = transformer;
+        return this;
+    }
+
+    /**
+     * Specifies a handler which is notified about each row which couldn't be imported.
+     * <p>
+     * The handler is invoked with the one based number of the row and the error. It is always invoked by the
+     * thread which executes the import. If no handler is present, the first errors are kept in the {@link Result}.
+     *
+     * @param errorHandler the handler to notify for each failed row
+     * @return the pipeline itself for fluent method calls
+     */
+    public ImportPipeline<S, E> onError(BiConsumer<Long, HandledException> errorHandler) {
+        this.errorHandler = errorHandler;
+        return this;
+    }
+
+    /**
+     * Specifies a handler which is notified about each imported row which reported validation warnings.
+     * <p>
+     * The handler is invoked with the one based number of the row and the warnings. It is always invoked by the
+     * thread which executes the import. If no handler is present, the first warnings are kept in the {@link Result}.
+     *
+     * @param warningHandler the handler to notify for each row with warnings
+     * @return the pipeline itself for fluent method calls
+     */
+    public ImportPipeline<S, E> onWarning(BiConsumer<Long, HandledException> warningHandler) {
+        this.warningHandler = warningHandler;
+        return this;
+    }
+
+    /**
+     * Skips all rows whose entity reports warnings when being {@link EntityDescriptor#validate(Object) validated}.
+     * <p>
+     * By default, such rows are imported and their warnings are reported to the
+     * {@link #onWarning(BiConsumer) warning handler}. Once this is enabled, these rows are rejected and their
+     * warnings are reported as errors instead.
+     *
+     * @return the pipeline itself for fluent method calls
+     */
+    public ImportPipeline<S, E> skipRowsWithWarnings() {
+        this.skipRowsWithWarnings = true;
+        return this;
+    }
+
+    /**
+     * Specifies the number of rows which are parsed as a single unit of work.
+     *
+     * @param chunkSize the number of rows per chunk
+     * @return the pipeline itself for fluent method calls
+     */
+    public ImportPipeline<S, E> withChunkSize(int chunkSize) {
+        this.chunkSize = Math.max(1, chunkSize);
+        return this;
+    }
+
+    /**
+     * Specifies the number of chunks which may be parsed ahead of the writes.
+     * <p>
+     * Once this limit is reached, no more rows are read from the source until the oldest chunk has been written.
+     *
+     * @param maxPendingChunks the max. number of chunks being parsed or waiting to be written
+     * @return the pipeline itself for fluent method calls
+     */
+    public ImportPipeline<S, E> withMaxPendingChunks(int maxPendingChunks) {
+        this.maxPendingChunks = Math.max(1, maxPendingChunks);
+        return this;
+    }
+
+    /**
+     * Specifies the number of entities which are written as a single batch.
+     *
+     * @param batchSize the number of entities per batch
+     * @return the pipeline itself for fluent method calls
+     */
+    public ImportPipeline<S, E> withBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+        return this;
+    }
+
+    /**
+     * Imports all rows provided by the given source.
+     * <p>
+     * The source is only accessed by the calling thread and therefore doesn't need to be thread-safe.
+     *
+     * @param source the rows to import
+     * @return a summary of the import
+     */
+    public Result execute(Iterator<S> source) {
+        Result result = new Result();
+        TaskContext taskContext = TaskContext.get();
+        Deque<CompletableFuture<List<ParsedRow<E>>>> pendingChunks = new ArrayDeque<>();
+        Map<BaseEntity<?>, ParsedRow<E>> pendingRows = new IdentityHashMap<>();
+
+        try (MixingSession session = mixing.session()
+                                           .withFlushInterval(0)
+                                           .onFailure((entity, error) -> handleWriteFailure(entity,
+                                                                                            error,
+                                                                                            pendingRows,
+                                                                                            result))) {
+            while (source.hasNext() && taskContext.isActive()) {
+                List<S> chunk = new ArrayList<>(chunkSize);
+                while (chunk.size() < chunkSize && source.hasNext()) {
+                    chunk.add(source.next());
+                }
+
+                long firstRowNumber = result.rowsRead + 1;
+                result.rowsRead += chunk.size();
+                pendingChunks.add(mixing.executeImportStage(() -> parseChunk(chunk, firstRowNumber)));
+
+                if (pendingChunks.size() >= maxPendingChunks) {
+                    writeChunk(await(pendingChunks.poll()), session, pendingRows, result);
+                    taskContext.tryUpdateState("Importing %s: %s", descriptor.getType().getSimpleName(), result);
+                }
+            }
+
+            while (!pendingChunks.isEmpty()) {
+                writeChunk(await(pendingChunks.poll()), session, pendingRows, result);
+            }
+
+            flush(session, pendingRows);
+        }
+
+        return result;
+    }
+
+    private List<ParsedRow<E>> parseChunk(List<S> chunk, long firstRowNumber) {
+        List<ParsedRow<E>> result = new ArrayList<>(chunk.size());
+        long rowNumber = firstRowNumber;
+        for (S row : chunk) {
+            result.add(parseRow(row, rowNumber++));
+        }
+
+        return result;
+    }
+
+    private ParsedRow<E> parseRow(S row, long rowNumber) {
+        ParsedRow<E> parsedRow = new ParsedRow<>(rowNumber);
+        try {
+            E entity = parser.apply(row);
+            if (entity != null && transformer != null) {
+                transformer.accept(entity);
+            }
+            if (entity != null) {
+                List<String> warnings = descriptor.validate(entity);
+                if (warnings.isEmpty()) {
+                    parsedRow.entity = entity;
+                } else if (skipRowsWithWarnings) {
+                    parsedRow.error =
+                            Exceptions.createHandled().withDirectMessage(String.join(", ", warnings)).handle();
+                } else {
+                    parsedRow.entity = entity;
+                    parsedRow.warnings =
+                            Exceptions.createHandled().withDirectMessage(String.join(", ", warnings)).handle();
+                }
+            }
+        } catch (Exception e) {
+            parsedRow.error = asHandledException(e);
+        }
+
+        return parsedRow;
+    }
+
+    private List<ParsedRow<E>> await(CompletableFuture<List<ParsedRow<E>>> chunk) {
+        try {
+            return chunk.join();
+        } catch (CompletionException e) {
+            throw Exceptions.handle()
+                            .to(Mixing.LOG)
+                            .error(e.getCause())
+                            .withSystemErrorMessage("Failed to parse a chunk of an import of %s: %s (%s)",
+                                                    descriptor.getType().getName())
+                            .handle();
+        }
+    }
+
+    private void writeChunk(List<ParsedRow<E>> chunk,
+                            MixingSession session,
+                            Map<BaseEntity<?>, ParsedRow<E>> pendingRows,
+                            Result result) {
+        for (ParsedRow<E> row : chunk) {
+            if (row.error != null) {
+                result.rowsFailed++;
+                reportError(row.rowNumber, row.error, result);
+            } else if (row.entity != null) {
+                writeRow(row, session, pendingRows, result);
+            } else {
+                result.rowsSkipped++;
+            }
+        }
+    }
+
+    private void writeRow(ParsedRow<E> row,
+                          MixingSession session,
+                          Map<BaseEntity<?>, ParsedRow<E>> pendingRows,
+                          Result result) {
+        try {
+            session.update(row.entity);
+            pendingRows.put(row.entity, row);
+            result.rowsImported++;
+            if (row.warnings != null) {
+                result.rowsWithWarnings++;
+                reportWarnings(row.rowNumber, row.warnings, result);
+            }
+        } catch (Exception e) {
+            result.rowsFailed++;
+            reportError(row.rowNumber, e, result);
+        }
+
+        if (session.countPendingOperations() >= batchSize) {
+            flush(session, pendingRows);
+        }
+    }
+
+    private void flush(MixingSession session, Map<BaseEntity<?>, ParsedRow<E>> pendingRows) {
+        session.flush();
+        pendingRows.clear();
+    }
+
+    private void handleWriteFailure(BaseEntity<?> entity,
+                                    Exception error,
+                                    Map<BaseEntity<?>, ParsedRow<E>> pendingRows,
+                                    Result result) {
+        ParsedRow<E> row = pendingRows.get(entity);
+        result.rowsImported--;
+        result.rowsFailed++;
+        if (row != null && row.warnings != null) {
+            result.rowsWithWarnings--;
+        }
+        reportError(row == null ? 0L : row.rowNumber, error, result);
+    }
+
+    private void reportError(long rowNumber, Exception error, Result result) {
+        if (errorHandler != null) {
+            errorHandler.accept(rowNumber, asHandledException(error));
+        } else if (result.errors.size() < MAX_COLLECTED_ERRORS) {
+            result.errors.add(new RowError(rowNumber, asHandledException(error)));
+        }
+    }
+
+    private void reportWarnings(long rowNumber, HandledException warnings, Result result) {
+        if (warningHandler != null) {
+            warningHandler.accept(rowNumber, warnings);
+        } else if (result.warnings.size() < MAX_COLLECTED_ERRORS) {
+            result.warnings.add(new RowError(rowNumber, warnings));
+        }
+    }
+
+    private HandledException asHandledException(Exception error) {
+        if (error instanceof HandledException handledException) {
+            return handledException;
+        }
+
+        return Exceptions.createHandled().error(error).handle();
+    }
+}
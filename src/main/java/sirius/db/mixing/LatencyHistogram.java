@@ -0,0 +1,129 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records durations in logarithmic buckets so that percentiles can be estimated without keeping all values.
+ * <p>
+ * Each power of two (in microseconds) is split into four buckets, therefore a percentile is reported with a
+ * precision of about 25%. Recording a value is lock-free and doesn't allocate any memory.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKETS_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKETS_BITS;
+    private static final int NUM_BUCKETS = 64 * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records the given duration.
+     *
+     * @param micros the duration in microseconds
+     */
+    public void addValue(long micros) {
+        long value = Math.max(0, micros);
+        buckets.incrementAndGet(bucketIndex(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKETS_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKETS_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int exponent = index / SUB_BUCKETS + SUB_BUCKETS_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKETS_BITS)) - 1;
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of values recorded since the last reset
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the average of all recorded values.
+     *
+     * @return the average duration in microseconds
+     */
+    public long getAverage() {
+        long numberOfValues = count.get();
+        return numberOfValues == 0 ? 0 : sum.get() / numberOfValues;
+    }
+
+    /**
+     * Returns the highest recorded value.
+     *
+     * @return the maximal duration in microseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Estimates the given percentile.
+     *
+     * @param percentile the percentile to compute (e.g. 95 or 99.9)
+     * @return the estimated duration in microseconds below which the given percentage of values lie
+     */
+    public long getPercentile(double percentile) {
+        long numberOfValues = count.get();
+        if (numberOfValues == 0) {
+            return 0;
+        }
+
+        long threshold = (long) Math.ceil(numberOfValues * percentile / 100d);
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= threshold) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+
+        return max.get();
+    }
+
+    /**
+     * Discards all recorded values.
+     * <p>
+     * Note that values which are recorded concurrently might partially survive the reset.
+     */
+    public void reset() {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+}
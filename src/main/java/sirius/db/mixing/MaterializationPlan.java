@@ -0,0 +1,221 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing;
+
+import sirius.kernel.commons.Value;
+import sirius.kernel.commons.ValueSupplier;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Describes how the properties of an entity are filled using a result row of a datasource.
+ * <p>
+ * A plan knows the effective column name of each property (including an optional alias), so that these names do not
+ * have to be computed for each row. Once the layout of a result (e.g. the columns of a JDBC result set) is known, a
+ * plan can be {@link #resolve(ToIntFunction) resolved} into one which reads all values by their column index and
+ * skips all properties which are not present at all.
+ * <p>
+ * Plans for a descriptor are obtained via {@link EntityDescriptor#getMaterializationPlan(String)}.
+ */
+public class MaterializationPlan {
+
+    /**
+     * Provides values for a given column index.
+     */
+    @FunctionalInterface
+    public interface IndexedValueSupplier {
+
+        /**
+         * Returns the value of the given column.
+         *
+         * @param index the index of the column as determined by {@link #resolve(ToIntFunction)}
+         * @return the value of the column
+         * @throws Exception in case of an error when reading the value
+         */
+        Value apply(int index) throws Exception;
+    }
+
+    private final EntityDescriptor descriptor;
+    private final Property[] properties;
+    private final String[] columnNames;
+    private final int[] columnIndices;
+    private final boolean readOnly;
+    private volatile MaterializationPlan readOnlyPlan;
+
+    /**
+     * Creates a new plan which fills all properties of the given descriptor by their (aliased) column names.
+     *
+     * @param descriptor the descriptor of the entities to create
+     * @param alias      the field alias used to generate unique column names
+     */
+    protected MaterializationPlan(EntityDescriptor descriptor, @Nullable String alias) {
+        this.descriptor = descriptor;
+        this.properties = descriptor.getProperties().toArray(new Property[0]);
+        this.columnNames = new String[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            String propertyName = properties[i].getPropertyName();
+            columnNames[i] = (alias == null) ? propertyName : alias + "_" + propertyName;
+        }
+        this.columnIndices = null;
+        this.readOnly = false;
+    }
+
+    private MaterializationPlan(EntityDescriptor descriptor,
+                                Property[] properties,
+                                String[] columnNames,
+                                int[] columnIndices,
+                                boolean readOnly) {
+        this.descriptor = descriptor;
+        this.properties = properties;
+        this.columnNames = columnNames;
+        this.columnIndices = columnIndices;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Returns a variant of this plan which creates {@link BaseEntity#isReadOnly() read-only} entities.
+     * <p>
+     * Such a plan doesn't record any persisted values, which saves a copy of each value (and the array holding
+     * them). The resulting entities therefore cannot be updated.
+     *
+     * @return a plan which creates read-only entities
+     */
+    public MaterializationPlan asReadOnly() {
+        if (readOnly) {
+            return this;
+        }
+        MaterializationPlan plan = readOnlyPlan;
+        if (plan == null) {
+            plan = new MaterializationPlan(descriptor, properties, columnNames, columnIndices, true);
+            readOnlyPlan = plan;
+        }
+
+        return plan;
+    }
+
+    /**
+     * Resolves the column of each property into an index.
+     * <p>
+     * This is intended to be invoked once per result (e.g. per JDBC result set) so that each row can then be
+     * materialized via {@link #makeByIndex(Class, IndexedValueSupplier)} without any lookups by name.
+     *
+     * @param indexLookup determines the index of the given column name or returns a negative number if the column
+     *                    isn't present at all. Properties without a column will not be filled.
+     * @return a new plan which reads values by their index
+     */
+    public MaterializationPlan resolve(ToIntFunction<String> indexLookup) {
+        List<Property> resolvedProperties = new ArrayList<>(properties.length);
+        List<String> resolvedNames = new ArrayList<>(properties.length);
+        int[] indices = new int[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            int index = indexLookup.applyAsInt(columnNames[i]);
+            if (index >= 0) {
+                indices[resolvedProperties.size()] = index;
+                resolvedProperties.add(properties[i]);
+                resolvedNames.add(columnNames[i]);
+            }
+        }
+
+        int[] effectiveIndices = new int[resolvedProperties.size()];
+        System.arraycopy(indices, 0, effectiveIndices, 0, effectiveIndices.length);
+
+        return new MaterializationPlan(descriptor,
+                                       resolvedProperties.toArray(new Property[0]),
+                                       resolvedNames.toArray(new String[0]),
+                                       effectiveIndices,
+                                       readOnly);
+    }
+
+    /**
+     * Creates an entity by reading the values of all properties by their column name.
+     *
+     * @param mapperType the mapper which is currently active
+     * @param supplier   used to provide values for a given column name. If <tt>null</tt> is returned, the property
+     *                   is considered as "not fetched" and remains untouched.
+     * @return an entity containing the values of the given result row
+     * @throws Exception in case of an error while building the entity
+     */
+    public Object make(Class<? extends BaseMapper<?, ?, ?>> mapperType, ValueSupplier<String> supplier)
+            throws Exception {
+        Object entity = descriptor.newInstance();
+        BaseEntity<?> baseEntity = entity instanceof BaseEntity<?> castEntity ? castEntity : null;
+        for (int i = 0; i < properties.length; i++) {
+            fill(mapperType, entity, baseEntity, properties[i], supplier.apply(columnNames[i]));
+        }
+        markAsReadOnly(baseEntity);
+
+        return entity;
+    }
+
+    /**
+     * Creates an entity by reading the values of all properties by their column index.
+     * <p>
+     * Note that this requires a plan which has been {@link #resolve(ToIntFunction) resolved}.
+     *
+     * @param mapperType the mapper which is currently active
+     * @param supplier   used to provide values for a given column index
+     * @return an entity containing the values of the given result row
+     * @throws Exception in case of an error while building the entity
+     */
+    public Object makeByIndex(Class<? extends BaseMapper<?, ?, ?>> mapperType, IndexedValueSupplier supplier)
+            throws Exception {
+        if (columnIndices == null) {
+            throw new IllegalStateException("Cannot make an entity by index using an unresolved plan.");
+        }
+
+        Object entity = descriptor.newInstance();
+        BaseEntity<?> baseEntity = entity instanceof BaseEntity<?> castEntity ? castEntity : null;
+        for (int i = 0; i < properties.length; i++) {
+            fill(mapperType, entity, baseEntity, properties[i], supplier.apply(columnIndices[i]));
+        }
+        markAsReadOnly(baseEntity);
+
+        return entity;
+    }
+
+    private void fill(Class<? extends BaseMapper<?, ?, ?>> mapperType,
+                      Object entity,
+                      @Nullable BaseEntity<?> baseEntity,
+                      Property property,
+                      @Nullable Value data) {
+        if (data != null) {
+            property.setValueFromDatasource(mapperType, entity, data);
+            if (baseEntity != null && !readOnly) {
+                baseEntity.setPersistedValue(property, property.getValueAsSnapshot(entity));
+            }
+        }
+    }
+
+    private void markAsReadOnly(@Nullable BaseEntity<?> baseEntity) {
+        if (readOnly && baseEntity != null) {
+            baseEntity.readOnly = true;
+        }
+    }
+
+    /**
+     * Returns the descriptor of the entities created by this plan.
+     *
+     * @return the descriptor for which this plan was created
+     */
+    public EntityDescriptor getDescriptor() {
+        return descriptor;
+    }
+
+    /**
+     * Returns the number of properties being filled by this plan.
+     *
+     * @return the number of properties filled by this plan
+     */
+    public int size() {
+        return properties.length;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing;
+
+import sirius.kernel.commons.Values;
+import sirius.kernel.health.console.Command;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Renders the tables output by {@link EntityMetricsCommand} and {@link HandlerMetricsCommand}.
+ * <p>
+ * The rows are sorted descending by a key which is determined once when the row is added, as new values might be
+ * recorded while the table is being built.
+ */
+class MetricsTable {
+
+    private static final int DEFAULT_NUMBER_OF_ROWS = 20;
+
+    /**
+     * Represents a row of the output.
+     */
+    private static class Row {
+        private final long sortKey;
+        private final Object[] cells;
+
+        Row(long sortKey, Object[] cells) {
+            this.sortKey = sortKey;
+            this.cells = cells;
+        }
+    }
+
+    private final String rowFormat;
+    private final Object[] headers;
+    private final List<Row> rows = new ArrayList<>();
+
+    /**
+     * Creates a new table.
+     *
+     * @param rowFormat the format used for the header and each row
+     * @param headers   the headers of the columns
+     */
+    MetricsTable(String rowFormat, Object... headers) {
+        this.rowFormat = rowFormat;
+        this.headers = headers;
+    }
+
+    /**
+     * Adds a row to the table.
+     *
+     * @param sortKey the key used to sort the rows (descending)
+     * @param cells   the values of the columns
+     */
+    void addRow(long sortKey, Object... cells) {
+        rows.add(new Row(sortKey, cells));
+    }
+
+    /**
+     * Outputs the table.
+     * <p>
+     * The number of rows can be given as first argument of the command.
+     *
+     * @param output    the output to write to
+     * @param arguments the arguments passed to the command
+     */
+    void output(Command.Output output, Values arguments) {
+        output.apply(rowFormat, headers);
+        output.separator();
+        rows.stream()
+            .sorted(Comparator.comparingLong((Row row) -> row.sortKey).reversed())
+            .limit(arguments.at(0).asInt(DEFAULT_NUMBER_OF_ROWS))
+            .forEach(row -> output.apply(rowFormat, row.cells));
+        output.separator();
+        output.line("All durations are given in milliseconds.");
+    }
+
+    /**
+     * Formats the given duration as milliseconds.
+     *
+     * @param micros the duration in microseconds
+     * @return the duration in milliseconds with two decimal places
+     */
+    static String formatMillis(long micros) {
+        return String.format("%.2f", micros / 1000d);
+    }
+}
@@ -8,9 +8,11 @@
 
 package sirius.db.mixing;
 
+import sirius.kernel.async.Tasks;
 import sirius.kernel.commons.Explain;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.commons.Tuple;
+import sirius.kernel.commons.Watch;
 import sirius.kernel.di.GlobalContext;
 import sirius.kernel.di.Initializable;
 import sirius.kernel.di.std.ConfigValue;
@@ -23,8 +25,13 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Provides a lookup facility to the {@link EntityDescriptor descriptor} for an entity.
@@ -48,19 +55,41 @@ public class Mixing implements Initializable {
     @ConfigValue("mixing.autoUpdateSchema")
     private String autoUpdateSchemaMode;
 
+    @ConfigValue("mixing.parallelBootstrap")
+    private boolean parallelBootstrap;
+
+    @ConfigValue("mixing.asyncExecutor")
+    private String asyncExecutor;
+
+    @ConfigValue("mixing.importExecutor")
+    private String importExecutor;
+
     private Map<Class<?>, EntityDescriptor> descriptorsByType = new HashMap<>();
     private Map<String, EntityDescriptor> descriptorsByName = new HashMap<>();
 
     @Part
     private GlobalContext globalContext;
 
+    @Part
+    private Tasks tasks;
+
     @Override
     public void initialize() throws Exception {
         descriptorsByType.clear();
         descriptorsByName.clear();
+
+        Watch watch = Watch.start();
         loadEntities();
+        String entitiesDuration = watch.duration(true);
         loadNesteds();
+        String nestedsDuration = watch.duration(true);
         linkSchema();
+        LOG.INFO("Initialized %s descriptors (%s): Entities: %s, Nesteds: %s, Linking: %s",
+                 descriptorsByType.size(),
+                 parallelBootstrap ? "parallel" : "sequential",
+                 entitiesDuration,
+                 nestedsDuration,
+                 watch.duration());
 
         checkAutoUpdateSchemaMode();
     }
@@ -92,10 +121,10 @@ public class Mixing implements Initializable {
     }
 
     private void loadEntities() {
-        for (Class<? extends BaseEntity<?>> mappableType : EntityLoadAction.getMappableClasses()) {
-            EntityDescriptor descriptor = new EntityDescriptor(mappableType);
-            descriptor.initialize();
-            descriptorsByType.put(mappableType, descriptor);
+        // Descriptors are registered in the order of their classes, so that name conflicts are always
+        // resolved the same way, no matter in which order the descriptors were initialized...
+        for (EntityDescriptor descriptor : createDescriptors(EntityLoadAction.getMappableClasses())) {
+            descriptorsByType.put(descriptor.getType(), descriptor);
             String typeName = getNameForType(descriptor.getType());
             EntityDescriptor conflictingDescriptor = descriptorsByName.get(typeName);
             if (conflictingDescriptor != null) {
@@ -103,7 +132,7 @@ public class Mixing implements Initializable {
                           .to(LOG)
                           .withSystemErrorMessage(
                                   "Cannot register mapping descriptor for '%s' as '%s' as this name is already taken by '%s'",
-                                  mappableType.getName(),
+                                  descriptor.getType().getName(),
                                   typeName,
                                   conflictingDescriptor.getType().getName())
                           .handle();
@@ -114,11 +143,27 @@ public class Mixing implements Initializable {
     }
 
     private void loadNesteds() {
-        for (Class<? extends Nested> mappableType : NestedLoadAction.getMappableClasses()) {
+        for (EntityDescriptor descriptor : createDescriptors(NestedLoadAction.getMappableClasses())) {
+            descriptorsByType.put(descriptor.getType(), descriptor);
+        }
+    }
+
+    /**
+     * Creates and initializes the descriptors for the given types.
+     * <p>
+     * As each descriptor only inspects its own type (and mixins) during initialization, this can be performed in
+     * parallel. Cross-references between descriptors are only resolved in {@link #linkSchema()}.
+     *
+     * @param mappableTypes the types to create descriptors for
+     * @return the initialized descriptors in the same order as the given types
+     */
+    private List<EntityDescriptor> createDescriptors(Collection<? extends Class<?>> mappableTypes) {
+        Stream<? extends Class<?>> types = parallelBootstrap ? mappableTypes.parallelStream() : mappableTypes.stream();
+        return types.map(mappableType -> {
             EntityDescriptor descriptor = new EntityDescriptor(mappableType);
             descriptor.initialize();
-            descriptorsByType.put(mappableType, descriptor);
-        }
+            return descriptor;
+        }).toList();
     }
 
     /**
@@ -253,4 +298,114 @@ public class Mixing implements Initializable {
     public boolean shouldExecuteUnsafeSchemaChanges() {
         return UPDATE_SCHEMA_MODE_ALL.equals(autoUpdateSchemaMode);
     }
+
+    /**
+     * Creates a new unit of work which collects writes and performs them as batches.
+     * <p>
+     * Use this within a try-with-resources block, so that all pending operations are flushed once the session is
+     * closed:
+     * <pre>{@code
+     * try (MixingSession session = mixing.session()) {
+     *     session.update(entity);
+     *     session.delete(otherEntity);
+     * }
+     * }</pre>
+     *
+     * @return a new session
+     * @see MixingSession
+     */
+    public MixingSession session() {
+        return new MixingSession();
+    }
+
+    /**
+     * Executes the given database operation in the background.
+     * <p>
+     * The operation is executed by the executor named in <tt>mixing.asyncExecutor</tt>. As this is managed by
+     * {@link Tasks}, the current {@link sirius.kernel.async.CallContext} (and therefore also the
+     * {@link sirius.kernel.async.TaskContext}) is carried over, so that logging and microtiming work as expected.
+     * <p>
+     * This is used by the asynchronous variants of the mappers and queries like
+     * {@link BaseMapper#findAsync(Class, Object, ContextInfo...)}.
+     *
+     * @param operation the operation to execute
+     * @param <T>       the type of the result
+     * @return a future which is completed with the result of the operation or completed exceptionally if the
+     * operation failed
+     */
+    public <T> CompletableFuture<T> executeAsync(Callable<T> operation) {
+        return execute(asyncExecutor, operation);
+    }
+
+    /**
+     * Creates a pipeline which imports rows as entities of the given type.
+     *
+     * @param type   the type of entities to import
+     * @param parser the function which creates (or loads) and fills an entity for a given row. This is invoked in
+     *               parallel and must therefore be thread-safe.
+     * @param <S>    the type of rows being imported
+     * @param <E>    the type of entities being imported
+     * @return a new pipeline which can be configured and executed
+     * @see ImportPipeline
+     */
+    public <S, E extends BaseEntity<?>> ImportPipeline<S, E> importPipeline(Class<E> type, Function<S, E> parser) {
+        return new ImportPipeline<>(this, getDescriptor(type), parser);
+    }
+
+    /**
+     * Creates a pipeline which imports rows of field names and values as new entities of the given type.
+     * <p>
+     * Each value is applied using {@link Property#parseValueFromImport(Object, sirius.kernel.commons.Value)}.
+     * Unknown fields are ignored.
+     *
+     * @param type the type of entities to import
+     * @param <E>  the type of entities being imported
+     * @return a new pipeline which can be configured and executed
+     * @see ImportPipeline
+     */
+    public <E extends BaseEntity<?>> ImportPipeline<Map<String, ?>, E> importPipeline(Class<E> type) {
+        EntityDescriptor descriptor = getDescriptor(type);
+        return new ImportPipeline<>(this, descriptor, ImportPipeline.parseFields(descriptor));
+    }
+
+    /**
+     * Executes a stage of an {@link ImportPipeline} using the executor named in <tt>mixing.importExecutor</tt>.
+     *
+     * @param stage the stage to execute
+     * @param <T>   the type of the result
+     * @return a future which is completed with the result of the stage
+     */
+    protected <T> CompletableFuture<T> executeImportStage(Callable<T> stage) {
+        return execute(importExecutor, stage);
+    }
+
+    /**
+     * Executes the given operation using the given executor.
+     * <p>
+     * The returned future is completed in any case, even if the operation throws an {@link Error} or if the executor
+     * rejects the task (e.g. during shutdown), so that callers waiting for it never block forever. Note that an
+     * overloaded executor runs the task in the calling thread instead of dropping it.
+     *
+     * @param executor  the name of the executor to use
+     * @param operation the operation to execute
+     * @param <T>       the type of the result
+     * @return a future which is completed with the result of the operation or completed exceptionally if the
+     * operation failed or couldn't be scheduled
+     */
+    private <T> CompletableFuture<T> execute(String executor, Callable<T> operation) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            tasks.executor(executor).start(() -> {
+                try {
+                    result.complete(operation.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        }
+
+        return result;
+    }
 }
@@ -0,0 +1,231 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing;
+
+import sirius.kernel.commons.Explain;
+import sirius.kernel.health.Exceptions;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Provides a unit of work which collects creates, updates and deletes and writes them as batches.
+ * <p>
+ * All {@link sirius.db.mixing.annotations.BeforeSave} and {@link sirius.db.mixing.annotations.BeforeDelete} handlers
+ * (and therefore also all validations and cascades) are executed immediately once an entity is passed to
+ * {@link #update(BaseEntity)} or {@link #delete(BaseEntity)}. The actual writes are collected and performed once
+ * {@link #flush()} is invoked, the {@link #withFlushInterval(int) flush interval} is reached or the session is
+ * closed. Each mapper uses the batching mechanism of its database (JDBC batches, bulk writes for MongoDB and the
+ * bulk API of Elasticsearch). Once an entity has been written, its {@link sirius.db.mixing.annotations.AfterSave} or
+ * {@link sirius.db.mixing.annotations.AfterDelete} handlers are invoked.
+ * <p>
+ * The writes are performed in the order in which they were queued, therefore e.g. a unique value can be freed by
+ * one entity and then be assigned to another one within the same session. Only consecutive writes which can be
+ * combined are sent as one batch.
+ * <p>
+ * As the entities are written as a batch, a failing entity (e.g. due to an {@link OptimisticLockException}) does
+ * not prevent the others from being written. All failures are either passed to the
+ * {@link #onFailure(BiConsumer) failure handler} or reported as a single exception at the end of the flush.
+ * <p>
+ * Note that an entity which is created within the session doesn't have an ID until the session is flushed. Therefore
+ * {@link #flush()} has to be invoked manually before a reference to such an entity can be stored in another one.
+ * <p>
+ * This class is not thread-safe.
+ */
+@NotThreadSafe
+public class MixingSession implements Closeable {
+
+    /**
+     * Contains the default number of queued operations after which the session is flushed automatically.
+     */
+    public static final int DEFAULT_FLUSH_INTERVAL = 250;
+
+    private final Map<BaseEntity<?>, SessionOperation<?>> operations = new IdentityHashMap<>();
+    private final List<SessionOperation<?>> pendingOperations = new ArrayList<>();
+    private int flushInterval = DEFAULT_FLUSH_INTERVAL;
+    private BiConsumer<BaseEntity<?>, Exception> failureHandler;
+
+    protected MixingSession() {
+    }
+
+    /**
+     * Specifies the number of queued operations after which the session is flushed automatically.
+     *
+     * @param flushInterval the maximal number of operations to queue. Use <tt>0</tt> to only flush when requested
+     *                      manually or when the session is closed.
+     * @return the session itself for fluent method calls
+     */
+    public MixingSession withFlushInterval(int flushInterval) {
+        this.flushInterval = flushInterval;
+        return this;
+    }
+
+    /**
+     * Specifies a handler which is notified about each entity which couldn't be written.
+     * <p>
+     * If no handler is present, {@link #flush()} throws an exception which lists all failed entities.
+     *
+     * @param failureHandler the handler to notify for each failed entity
+     * @return the session itself for fluent method calls
+     */
+    public MixingSession onFailure(BiConsumer<BaseEntity<?>, Exception> failureHandler) {
+        this.failureHandler = failureHandler;
+        return this;
+    }
+
+    /**
+     * Queues the creation or update of the given entity.
+     * <p>
+     * The entity is validated and all before save handlers are invoked right away. The entity must not be modified
+     * until the session has been flushed. Therefore, queuing an entity which is already pending has no effect.
+     *
+     * @param entity the entity to create or update
+     * @param <E>    the type of the entity
+     * @return the session itself for fluent method calls
+     */
+    public <E extends BaseEntity<?>> MixingSession update(E entity) {
+        if (entity == null) {
+            return this;
+        }
+
+        if (operations.containsKey(entity)) {
+            return this;
+        }
+
+        entity.getMapper().beforeSessionWrite(entity, false);
+        queue(new SessionOperation<>(entity.isNew() ? SessionOperation.Type.CREATE : SessionOperation.Type.UPDATE,
+                                     entity));
+
+        return this;
+    }
+
+    /**
+     * Queues the deletion of the given entity.
+     * <p>
+     * All before delete handlers (including cascades) are invoked right away. If the entity hasn't been written yet,
+     * as it was created within this session, the creation is simply discarded.
+     *
+     * @param entity the entity to delete
+     * @param <E>    the type of the entity
+     * @return the session itself for fluent method calls
+     */
+    public <E extends BaseEntity<?>> MixingSession delete(E entity) {
+        if (entity == null) {
+            return this;
+        }
+
+        SessionOperation<?> queuedOperation = operations.get(entity);
+        if (queuedOperation != null && queuedOperation.getType() == SessionOperation.Type.CREATE) {
+            operations.remove(entity);
+            pendingOperations.remove(queuedOperation);
+            return this;
+        }
+
+        if (entity.isNew() || (queuedOperation != null && queuedOperation.getType() == SessionOperation.Type.DELETE)) {
+            return this;
+        }
+
+        entity.getMapper().beforeSessionWrite(entity, true);
+        if (queuedOperation != null) {
+            queuedOperation.setType(SessionOperation.Type.DELETE);
+        } else {
+            queue(new SessionOperation<>(SessionOperation.Type.DELETE, entity));
+        }
+
+        return this;
+    }
+
+    private void queue(SessionOperation<?> operation) {
+        operations.put(operation.getEntity(), operation);
+        pendingOperations.add(operation);
+        if (flushInterval > 0 && pendingOperations.size() >= flushInterval) {
+            flush();
+        }
+    }
+
+    /**
+     * Returns the number of operations which have not been written yet.
+     *
+     * @return the number of pending operations
+     */
+    public int countPendingOperations() {
+        return pendingOperations.size();
+    }
+
+    /**
+     * Writes all pending operations.
+     *
+     * @throws sirius.kernel.health.HandledException if one or more entities couldn't be written and no
+     *                                               {@link #onFailure(BiConsumer) failure handler} is present
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Explain("The operations are grouped by their mapper, therefore the entity types match.")
+    public void flush() {
+        if (pendingOperations.isEmpty()) {
+            return;
+        }
+
+        Map<BaseMapper<?, ?, ?>, List<SessionOperation<?>>> operationsPerMapper = new LinkedHashMap<>();
+        for (SessionOperation<?> operation : pendingOperations) {
+            operationsPerMapper.computeIfAbsent(operation.getEntity().getMapper(), ignored -> new ArrayList<>())
+                               .add(operation);
+        }
+
+        List<SessionOperation<?>> flushedOperations = new ArrayList<>(pendingOperations);
+        operations.clear();
+        pendingOperations.clear();
+
+        operationsPerMapper.forEach((mapper, mapperOperations) -> ((BaseMapper) mapper).flushSessionOperations(
+                mapperOperations));
+
+        reportFailures(flushedOperations);
+    }
+
+    private void reportFailures(List<SessionOperation<?>> flushedOperations) {
+        List<SessionOperation<?>> failedOperations =
+                flushedOperations.stream().filter(SessionOperation::isFailed).collect(Collectors.toList());
+        if (failedOperations.isEmpty()) {
+            return;
+        }
+
+        if (failureHandler != null) {
+            failedOperations.forEach(operation -> failureHandler.accept(operation.getEntity(),
+                                                                        operation.getFailure()));
+            return;
+        }
+
+        throw Exceptions.handle()
+                        .to(Mixing.LOG)
+                        .error(failedOperations.get(0).getFailure())
+                        .withSystemErrorMessage("Failed to write %s of %s entities of a session: %s - %s (%s)",
+                                                failedOperations.size(),
+                                                flushedOperations.size(),
+                                                failedOperations.stream()
+                                                                .map(SessionOperation::toString)
+                                                                .collect(Collectors.joining(", ")))
+                        .handle();
+    }
+
+    /**
+     * Flushes all pending operations.
+     *
+     * @see #flush()
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+}
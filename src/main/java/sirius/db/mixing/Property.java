@@ -24,8 +24,13 @@ import sirius.kernel.health.HandledException;
 import sirius.kernel.nls.NLS;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.Objects;
 import java.util.Optional;
@@ -39,6 +44,10 @@ import java.util.function.Consumer;
  */
 public abstract class Property extends Composable {
 
+    private static final MethodHandles.Lookup FIELD_LOOKUP = MethodHandles.lookup();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
     /**
      * Contains the effective property name. If the field, for which this property was created, resides
      * inside a mixin or composite, the name will be prefixed appropriately. Names are separated by
@@ -112,6 +121,29 @@ public abstract class Property extends Composable {
      */
     protected Field field;
 
+    /**
+     * Contains a method handle which reads the {@link #field} of a given target object.
+     * <p>
+     * This is created once when the property is set up, so that reading a value doesn't go through
+     * {@link Field#get(Object)} for each access.
+     */
+    private final MethodHandle getter;
+
+    /**
+     * Contains a method handle which writes the {@link #field} of a given target object.
+     * <p>
+     * This might be <tt>null</tt> if the field cannot be written via a method handle (e.g. for some final fields). In
+     * this case we fall back to {@link Field#set(Object, Object)}.
+     */
+    private final MethodHandle setter;
+
+    /**
+     * Contains the position of this property within its descriptor.
+     *
+     * @see #getOrdinal()
+     */
+    protected int ordinal = -1;
+
     /**
      * Contains the default value of this property
      * <p>
@@ -145,6 +177,8 @@ public abstract class Property extends Composable {
                            + field.getName();
         this.alternativePropertyKey = "Model." + field.getName();
         this.field.setAccessible(true);
+        this.getter = createGetter();
+        this.setter = createSetter();
         this.name = accessPath.qualify(field.getName());
         if (Strings.isFilled(accessPath.prefix())) {
             this.localPropertyKey = descriptor.getTranslationSource().getSimpleName() + "." + name;
@@ -158,6 +192,45 @@ public abstract class Property extends Composable {
         determineDefaultValue();
     }
 
+    /**
+     * Unreflects the getter of the underlying field into a method handle.
+     *
+     * @return the method handle which reads the field or <tt>null</tt> if it cannot be created
+     */
+    @Nullable
+    private MethodHandle createGetter() {
+        try {
+            return FIELD_LOOKUP.unreflectGetter(field).asType(GETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            Exceptions.handle()
+                      .to(Mixing.LOG)
+                      .error(e)
+                      .withSystemErrorMessage("Cannot create a getter for property '%s' (from '%s'): %s (%s)",
+                                              field.getName(),
+                                              getDefinition())
+                      .handle();
+            return null;
+        }
+    }
+
+    /**
+     * Unreflects the setter of the underlying field into a method handle.
+     *
+     * @return the method handle which writes the field or <tt>null</tt> if it cannot be created
+     */
+    @Nullable
+    private MethodHandle createSetter() {
+        try {
+            return FIELD_LOOKUP.unreflectSetter(field).asType(SETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            // This happens for fields which cannot be written via a method handle at all. As most of these are
+            // final fields containing a container (like a StringList) which is never replaced, we simply fall
+            // back to reflection for the rare case that it is actually written to...
+            Exceptions.ignore(e);
+            return null;
+        }
+    }
+
     /**
      * Determines the default value of the property by checking for a {@link DefaultValue} annotation on the field, or its initial value.
      */
@@ -233,6 +306,18 @@ public abstract class Property extends Composable {
         return propertyName;
     }
 
+    /**
+     * Returns the position of this property within the list of all properties of its descriptor.
+     * <p>
+     * The ordinal is stable once the descriptor has been initialized and is used to address per-property data
+     * of an entity (like its persisted values) using a plain array.
+     *
+     * @return the ordinal of this property or -1 if the owning descriptor isn't fully initialized yet
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
     /**
      * Returns the field which will store the database value.
      *
@@ -339,6 +424,9 @@ public abstract class Property extends Composable {
      * <p>
      * Note that no further value conversion will be performed, therefore the given object must match the expected value.
      * Use {@link #parseValue(Object, Value)} to utilize automatic transformations.
+     * <p>
+     * If the entity {@link sirius.db.mixing.annotations.TrackChanges tracks its changes}, the property is marked as
+     * changed.
      *
      * @param entity the entity to write to
      * @param object the value to write to the field
@@ -346,6 +434,61 @@ public abstract class Property extends Composable {
     public void setValue(Object entity, Object object) {
         Object target = accessPath.apply(entity);
         setValueToField(object, target);
+        if (descriptor.isTrackingChanges() && entity instanceof BaseEntity<?> baseEntity) {
+            baseEntity.markChanged(this);
+        }
+    }
+
+    /**
+     * Determines if changes of this property can be tracked via {@link BaseEntity#markChanged(Mapping...)}.
+     * <p>
+     * This is only possible for non-final fields which are directly contained in the entity. Fields within composites
+     * or mixins are commonly assigned without knowing the entity, and final fields (lists, maps, references) are
+     * modified in place.
+     *
+     * @return <tt>true</tt> if changes of this property can be tracked, <tt>false</tt> if the property has to be
+     * compared against its persisted value
+     */
+    public boolean isTrackable() {
+        return accessPath == AccessPath.IDENTITY && !Modifier.isFinal(field.getModifiers());
+    }
+
+    /**
+     * Determines if this property performs custom logic once an entity is about to be or has been deleted.
+     * <p>
+     * This is the case if either {@link #onBeforeDelete(Object)} or {@link #onAfterDelete(Object)} is overwritten.
+     * As a set-based delete would skip this logic, such a property prevents it.
+     *
+     * @return <tt>true</tt> if the property reacts on deletes, <tt>false</tt> otherwise
+     * @see EntityDescriptor#isSetBasedDeletePossible()
+     */
+    public boolean isHandlingDeletes() {
+        return isOverwritten("onBeforeDelete") || isOverwritten("onAfterDelete");
+    }
+
+    /**
+     * Determines if this property performs custom logic once an entity has been saved.
+     * <p>
+     * This is the case if {@link #onAfterSave(Object)} is overwritten. As a set-based update would skip this logic,
+     * such a property prevents it.
+     *
+     * @return <tt>true</tt> if the property reacts on saves, <tt>false</tt> otherwise
+     * @see EntityDescriptor#isSetBasedUpdatePossible()
+     */
+    public boolean isHandlingSaves() {
+        return isOverwritten("onAfterSave");
+    }
+
+    private boolean isOverwritten(String handlerName) {
+        for (Class<?> type = getClass(); type != Property.class; type = type.getSuperclass()) {
+            if (Arrays.stream(type.getDeclaredMethods())
+                      .anyMatch(method -> handlerName.equals(method.getName())
+                                          && method.getParameterCount() == 1)) {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     /**
@@ -356,8 +499,14 @@ public abstract class Property extends Composable {
      */
     protected void setValueToField(Object value, Object target) {
         try {
-            field.set(target, value);
-        } catch (IllegalAccessException | IllegalArgumentException e) {
+            if (setter != null) {
+                setter.invokeExact(target, value);
+            } else {
+                field.set(target, value);
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
             throw Exceptions.handle()
                             .to(Mixing.LOG)
                             .error(e)
@@ -388,7 +537,8 @@ public abstract class Property extends Composable {
             return;
         }
 
-        setValue(entity, effectiveValue);
+        // Loading a value doesn't count as change, therefore we bypass setValue here...
+        setValueToField(effectiveValue, accessPath.apply(entity));
     }
 
     /**
@@ -463,7 +613,20 @@ public abstract class Property extends Composable {
      * @return the extracted and translated value to include in messages shown to the user
      */
     public String getValueForUserMessage(Object entity) {
-        return NLS.toUserString(getValue(entity));
+        return formatValueForUserMessage(getValue(entity));
+    }
+
+    /**
+     * Formats the given value just like {@link #getValueForUserMessage(Object)} does.
+     * <p>
+     * This is used for values which have been read without creating an entity, e.g. by a
+     * {@link sirius.db.mixing.query.QueryExport}.
+     *
+     * @param value the value as read from the database
+     * @return the translated value to show to the user
+     */
+    public String formatValueForUserMessage(Object value) {
+        return NLS.toUserString(value);
     }
 
     /**
@@ -477,6 +640,20 @@ public abstract class Property extends Composable {
         return getValue(entity);
     }
 
+    /**
+     * Returns the value to be stored as persisted value of this property, which is later used for change tracking.
+     * <p>
+     * By default this is the same as {@link #getValueAsCopy(Object)}. However, properties for modifiable datatypes
+     * can return a snapshot which shares its data with the field value until the field value is modified.
+     * Note that the returned value must never be modified.
+     *
+     * @param entity the entity to fetch the value from
+     * @return a value which is not affected by further modifications of the field value
+     */
+    public Object getValueAsSnapshot(Object entity) {
+        return getValueAsCopy(entity);
+    }
+
     /**
      * Obtains the value from the field in the given target object
      *
@@ -485,8 +662,13 @@ public abstract class Property extends Composable {
      */
     protected Object getValueFromField(Object target) {
         try {
+            if (getter != null) {
+                return (Object) getter.invokeExact(target);
+            }
             return field.get(target);
-        } catch (IllegalAccessException e) {
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
             throw Exceptions.handle()
                             .to(Mixing.LOG)
                             .error(e)
@@ -665,20 +847,14 @@ public abstract class Property extends Composable {
     /**
      * Invoked before an entity is written to the database.
      * <p>
-     * Checks the nullability and uniqueness of the property.
+     * Checks the nullability of the property. Note that the uniqueness is checked for all properties at once
+     * by {@link EntityDescriptor#beforeSave(Object)}.
      *
      * @param entity the entity to check
      */
     protected final void onBeforeSave(Object entity) {
         onBeforeSaveChecks(entity);
-        Object propertyValue = getValue(entity);
-        checkNullability(propertyValue);
-
-        if (entity instanceof BaseEntity<?> && (((BaseEntity<?>) entity).isNew() || ((BaseEntity<?>) entity).isChanged(
-                nameAsMapping))) {
-            // Only enforce uniqueness if the value actually changed...
-            checkUniqueness(entity, propertyValue);
-        }
+        checkNullability(getValue(entity));
     }
 
     /**
@@ -728,6 +904,67 @@ public abstract class Property extends Composable {
         return propertyValue == null;
     }
 
+    /**
+     * Determines if the uniqueness of this property has to be checked by a query before the given entity is saved.
+     * <p>
+     * This is the case if the property wears an {@link Unique} annotation which isn't
+     * {@link Unique#enforcedByIndex() enforced by an index} and if either the entity is new or the value or one of
+     * the <tt>within</tt> fields has changed.
+     *
+     * @param entity the entity to check
+     * @return <tt>true</tt> if a uniqueness check is required, <tt>false</tt> otherwise
+     */
+    protected boolean isUniquenessCheckRequired(BaseEntity<?> entity) {
+        Unique unique = field.getAnnotation(Unique.class);
+        if (unique == null || unique.enforcedByIndex()) {
+            return false;
+        }
+
+        return isUniquenessAffected(entity, unique);
+    }
+
+    /**
+     * Determines if the uniqueness of this property is enforced by a unique index and might therefore be the cause
+     * of an {@link IntegrityConstraintFailedException} when saving the given entity.
+     *
+     * @param entity the entity which was about to be saved
+     * @return <tt>true</tt> if the property is unique via an index and its value or scope changed
+     */
+    protected boolean isUniquenessEnforcedByIndex(BaseEntity<?> entity) {
+        Unique unique = field.getAnnotation(Unique.class);
+        if (unique == null || !unique.enforcedByIndex()) {
+            return false;
+        }
+
+        return isUniquenessAffected(entity, unique);
+    }
+
+    private boolean isUniquenessAffected(BaseEntity<?> entity, Unique unique) {
+        if (!unique.includingNull() && getValue(entity) == null) {
+            return false;
+        }
+
+        return entity.isNew() || entity.isChanged(nameAsMapping) || entity.isChanged(getUniqueWithin(unique));
+    }
+
+    /**
+     * Returns the properties which determine the scope of the uniqueness of this property.
+     *
+     * @return the fields listed in {@link Unique#within()} or an empty array if the property isn't unique
+     */
+    protected Mapping[] getUniqueWithin() {
+        Unique unique = field.getAnnotation(Unique.class);
+        if (unique == null) {
+            return new Mapping[0];
+        }
+
+        return getUniqueWithin(unique);
+    }
+
+    private Mapping[] getUniqueWithin(Unique unique) {
+        return Arrays.stream(unique.within()).map(Mapping::named).toArray(Mapping[]::new);
+    }
+
     /**
      * Checks the uniqueness of the given value and entity if an {@link Unique} annotation is present
      *
@@ -747,8 +984,7 @@ public abstract class Property extends Composable {
             throw new IllegalArgumentException("Only subclasses of BaseEntity can have unique fields!");
         }
 
-        Mapping[] withinColumns = Arrays.stream(unique.within()).map(Mapping::named).toArray(Mapping[]::new);
-        ((BaseEntity<?>) entity).assertUnique(nameAsMapping, propertyValue, withinColumns);
+        ((BaseEntity<?>) entity).assertUnique(nameAsMapping, propertyValue, getUniqueWithin(unique));
     }
 
     /**
@@ -0,0 +1,285 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing;
+
+import sirius.kernel.Startable;
+import sirius.kernel.cache.Cache;
+import sirius.kernel.cache.CacheManager;
+import sirius.kernel.di.std.ConfigValue;
+import sirius.kernel.di.std.Register;
+import sirius.kernel.health.Counter;
+import sirius.kernel.health.Exceptions;
+import sirius.kernel.health.metrics.MetricProvider;
+import sirius.kernel.health.metrics.MetricsCollector;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Caches the results of queries which have been marked using {@link sirius.db.mixing.query.BaseQuery#cached(Duration)}.
+ * <p>
+ * Results are stored in the local cache <tt>mixing-query-results</tt> using the compiled query as key. Whenever a
+ * {@link BaseMapper} on this node writes an entity, all results for its type are invalidated. Note that writes
+ * performed by other nodes are not observed, therefore the TTL of a query determines how stale a result may become.
+ * <p>
+ * Lists larger than <tt>mixing.queryCache.maxListSize</tt> are never cached. The whole cache can be bypassed via
+ * <tt>mixing.queryCache.enabled</tt> or at runtime using the <tt>query-cache</tt> console command.
+ */
+@Register(classes = {QueryCache.class, MetricProvider.class, Startable.class})
+public class QueryCache implements MetricProvider, Startable {
+
+    /**
+     * Represents a cached result along with the generation of its entity type and its expiry timestamp.
+     */
+    private static class CachedResult {
+        private final Object result;
+        private final long generation;
+        private final long expiresAt;
+
+        CachedResult(Object result, long generation, Duration ttl) {
+            this.result = result;
+            this.generation = generation;
+            this.expiresAt = System.currentTimeMillis() + ttl.toMillis();
+        }
+    }
+
+    @ConfigValue("mixing.queryCache.enabled")
+    private boolean enabledByConfig;
+
+    @ConfigValue("mixing.queryCache.maxListSize")
+    private int maxListSize;
+
+    private volatile boolean enabled;
+
+    private final Cache<String, CachedResult> cache = CacheManager.createLocalCache("mixing-query-results");
+
+    /**
+     * Contains a generation per entity type which is incremented for each write. Results which were computed for an
+     * older generation are considered stale.
+     */
+    private final Map<Class<?>, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    /**
+     * Contains the timestamp of the last invalidation per entity type.
+     */
+    private final Map<Class<?>, Long> lastInvalidations = new ConcurrentHashMap<>();
+
+    private final Counter hits = new Counter();
+    private final Counter misses = new Counter();
+
+    @Override
+    public int getPriority() {
+        return 100;
+    }
+
+    @Override
+    public void started() {
+        enabled = enabledByConfig;
+    }
+
+    /**
+     * Determines the number of matches of a query either from the cache or by using the given counter.
+     *
+     * @param descriptor the descriptor of the entities being queried
+     * @param key        the compiled query
+     * @param ttl        the max. age of a cached result
+     * @param counter    the counter used to execute the query
+     * @return the number of matches of the query
+     */
+    public long count(EntityDescriptor descriptor, String key, Duration ttl, LongSupplier counter) {
+        if (!enabled) {
+            return counter.getAsLong();
+        }
+
+        String effectiveKey = descriptor.getType().getName() + "|COUNT|" + key;
+        CachedResult cachedResult = lookup(descriptor, effectiveKey);
+        if (cachedResult != null) {
+            return (Long) cachedResult.result;
+        }
+
+        long generation = currentGeneration(descriptor);
+        long result = counter.getAsLong();
+        cache.put(effectiveKey, new CachedResult(result, generation, ttl));
+
+        return result;
+    }
+
+    /**
+     * Determines the entities matched by a query either from the cache or by using the given loader.
+     * <p>
+     * As entities are mutable, the cache keeps its own instances and always hands out
+     * {@link EntityDescriptor#copy(BaseEntity) copies}.
+     *
+     * @param descriptor the descriptor of the entities being queried
+     * @param key        the compiled query
+     * @param ttl        the max. age of a cached result
+     * @param loader     the loader used to execute the query
+     * @param <E>        the type of entities being queried
+     * @return the entities matched by the query
+     */
+    @SuppressWarnings("unchecked")
+    public <E extends BaseEntity<?>> List<E> list(EntityDescriptor descriptor,
+                                                  String key,
+                                                  Duration ttl,
+                                                  Supplier<List<E>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        String effectiveKey = descriptor.getType().getName() + "|LIST|" + key;
+        CachedResult cachedResult = lookup(descriptor, effectiveKey);
+        if (cachedResult != null) {
+            return copy(descriptor, (List<E>) cachedResult.result);
+        }
+
+        long generation = currentGeneration(descriptor);
+        List<E> result = loader.get();
+        if (result.size() <= maxListSize) {
+            cache.put(effectiveKey, new CachedResult(copy(descriptor, result), generation, ttl));
+        }
+
+        return result;
+    }
+
+    private CachedResult lookup(EntityDescriptor descriptor, String key) {
+        CachedResult cachedResult = cache.get(key);
+        if (cachedResult != null
+            && cachedResult.generation == currentGeneration(descriptor)
+            && cachedResult.expiresAt >= System.currentTimeMillis()) {
+            hits.inc();
+            return cachedResult;
+        }
+
+        misses.inc();
+        return null;
+    }
+
+    private <E extends BaseEntity<?>> List<E> copy(EntityDescriptor descriptor, List<E> entities) {
+        List<E> result = new ArrayList<>(entities.size());
+        try {
+            for (E entity : entities) {
+                result.add(descriptor.copy(entity));
+            }
+        } catch (Exception e) {
+            throw Exceptions.handle()
+                            .to(Mixing.LOG)
+                            .error(e)
+                            .withSystemErrorMessage("Failed to copy a cached query result of %s: %s (%s)",
+                                                    descriptor.getType().getName())
+                            .handle();
+        }
+
+        return result;
+    }
+
+    private long currentGeneration(EntityDescriptor descriptor) {
+        AtomicLong generation = generations.get(descriptor.getType());
+        return generation == null ? 0 : generation.get();
+    }
+
+    /**
+     * Invalidates all cached results for the given entity type.
+     * <p>
+     * This is invoked by the {@link BaseMapper} for each entity being created, updated or deleted.
+     *
+     * @param descriptor the descriptor of the entity type which has been modified
+     */
+    protected void invalidate(EntityDescriptor descriptor) {
+        generations.computeIfAbsent(descriptor.getType(), ignored -> new AtomicLong()).incrementAndGet();
+        lastInvalidations.put(descriptor.getType(), System.currentTimeMillis());
+    }
+
+    /**
+     * Determines if the results of the given entity type have been invalidated within the given period.
+     * <p>
+     * This can be used by queries against databases which only make writes visible after a delay, so that they
+     * don't cache results which might not yet reflect the latest write.
+     *
+     * @param descriptor the descriptor of the entity type to check
+     * @param period     the period to check
+     * @return <tt>true</tt> if an entity of the given type has been written within the given period,
+     * <tt>false</tt> otherwise
+     */
+    public boolean isInvalidatedWithin(EntityDescriptor descriptor, Duration period) {
+        Long lastInvalidation = lastInvalidations.get(descriptor.getType());
+        return lastInvalidation != null && System.currentTimeMillis() - lastInvalidation < period.toMillis();
+    }
+
+    /**
+     * Determines if query results are currently being cached.
+     *
+     * @return <tt>true</tt> if the cache is enabled, <tt>false</tt> if it is bypassed
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or bypasses the cache.
+     * <p>
+     * Note that bypassing the cache also discards all cached results.
+     *
+     * @param enabled <tt>true</tt> to enable the cache, <tt>false</tt> to bypass it
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    /**
+     * Discards all cached results.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    public long getHits() {
+        return hits.getCount();
+    }
+
+    public long getMisses() {
+        return misses.getCount();
+    }
+
+    /**
+     * Returns the number of cached results.
+     *
+     * @return the number of results in the cache (including stale ones which have not been evicted yet)
+     */
+    public int getSize() {
+        return cache.getSize();
+    }
+
+    @Override
+    public void gather(MetricsCollector collector) {
+        if (hits.getCount() + misses.getCount() == 0) {
+            // The cache has not been used at all...
+            return;
+        }
+
+        collector.differentialMetric("mixing_query_cache_hits",
+                                     "mixing-query-cache-hits",
+                                     "Mixing Query Cache Hits",
+                                     hits.getCount(),
+                                     "/min");
+        collector.differentialMetric("mixing_query_cache_misses",
+                                     "mixing-query-cache-misses",
+                                     "Mixing Query Cache Misses",
+                                     misses.getCount(),
+                                     "/min");
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing;
+
+import sirius.kernel.commons.Values;
+import sirius.kernel.di.std.Part;
+import sirius.kernel.di.std.Register;
+import sirius.kernel.health.console.Command;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Reports the state of the {@link QueryCache}.
+ * <p>
+ * Use <tt>query-cache enable</tt> or <tt>query-cache disable</tt> to toggle the cache and <tt>query-cache clear</tt>
+ * to discard all cached results.
+ */
+@Register
+public class QueryCacheCommand implements Command {
+
+    @Part
+    private QueryCache queryCache;
+
+    @Override
+    public void execute(Output output, String... arguments) throws Exception {
+        String command = Values.of(arguments).at(0).asString();
+        if ("enable".equals(command)) {
+            queryCache.setEnabled(true);
+            output.line("The query cache has been enabled...");
+            return;
+        }
+        if ("disable".equals(command)) {
+            queryCache.setEnabled(false);
+            output.line("The query cache has been disabled and cleared...");
+            return;
+        }
+        if ("clear".equals(command)) {
+            queryCache.clear();
+            output.line("The query cache has been cleared...");
+            return;
+        }
+
+        output.line("Usage: query-cache enable|disable|clear");
+        output.blankLine();
+        output.apply("%-20s %s", "STATE", queryCache.isEnabled() ? "enabled" : "disabled");
+        output.apply("%-20s %s", "CACHED RESULTS", queryCache.getSize());
+        output.apply("%-20s %s", "HITS", queryCache.getHits());
+        output.apply("%-20s %s", "MISSES", queryCache.getMisses());
+    }
+
+    @Override
+    public String getDescription() {
+        return "Reports the state of the cache for query results and permits to enable, disable or clear it";
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "query-cache";
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing;
+
+import javax.annotation.Nullable;
+
+/**
+ * Represents a write operation which has been queued in a {@link MixingSession}.
+ * <p>
+ * The operations are handed to {@link BaseMapper#executeWrites(java.util.List)} once the session is flushed. If an
+ * operation cannot be performed, the mapper records the error via {@link #fail(Exception)} so that the session can
+ * report it for the affected entity while still writing all other entities.
+ *
+ * @param <E> the type of the entity being written
+ */
+public class SessionOperation<E extends BaseEntity<?>> {
+
+    /**
+     * Enumerates the kinds of operations which can be queued.
+     */
+    public enum Type {
+        CREATE, UPDATE, DELETE
+    }
+
+    private Type type;
+    private final E entity;
+    private Exception failure;
+    private boolean written;
+
+    protected SessionOperation(Type type, E entity) {
+        this.type = type;
+        this.entity = entity;
+    }
+
+    /**
+     * Returns the type of the operation.
+     *
+     * @return the type of the operation
+     */
+    public Type getType() {
+        return type;
+    }
+
+    protected void setType(Type type) {
+        this.type = type;
+    }
+
+    /**
+     * Returns the entity to write.
+     *
+     * @return the entity to create, update or delete
+     */
+    public E getEntity() {
+        return entity;
+    }
+
+    /**
+     * Marks the operation as failed.
+     * <p>
+     * Note that an {@link OptimisticLockException} should be reported as is, so that the caller can detect
+     * concurrent modifications.
+     *
+     * @param failure the error which occurred while performing the operation
+     */
+    public void fail(Exception failure) {
+        this.failure = failure;
+    }
+
+    /**
+     * Marks the operation as successfully written to the database.
+     * <p>
+     * If the mapper fails to write the remaining operations, this ensures that the operation is still reported as
+     * written (and its after save or after delete handlers are invoked).
+     */
+    public void markWritten() {
+        this.written = true;
+    }
+
+    /**
+     * Determines if the operation has been written successfully.
+     *
+     * @return <tt>true</tt> if the mapper reported the operation as written, <tt>false</tt> otherwise
+     */
+    public boolean isWritten() {
+        return written;
+    }
+
+    /**
+     * Determines if the operation has failed.
+     *
+     * @return <tt>true</tt> if the operation failed, <tt>false</tt> otherwise
+     */
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * Returns the error which occurred while performing the operation.
+     *
+     * @return the error reported via {@link #fail(Exception)} or <tt>null</tt> if the operation didn't fail
+     */
+    @Nullable
+    public Exception getFailure() {
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        return type + ": " + entity.getDescriptor().getName() + " (" + entity.getIdAsString() + ")";
+    }
+}
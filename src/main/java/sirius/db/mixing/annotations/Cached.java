@@ -0,0 +1,37 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an entity as eligible for the second level cache.
+ * <p>
+ * Lookups via {@link sirius.db.mixing.BaseMapper#find(Class, Object, sirius.db.mixing.ContextInfo...)} are served
+ * from a local cache (see {@link sirius.db.mixing.EntityCache}). Each update or delete performed via the mapper
+ * invalidates the entry on all nodes. Therefore, cascades (deletes or set null) are always performed entity by entity
+ * for such entities. Note that modifications which bypass the mapper (e.g. update statements) are only picked up once
+ * the entry expires.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Cached {
+
+    /**
+     * Determines how long an entity is kept in the cache.
+     *
+     * @return the max. number of seconds an entity is served from the cache
+     */
+    int ttl() default 60;
+}
@@ -0,0 +1,34 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an entity as tracking its changes explicitly.
+ * <p>
+ * By default, each property of an entity is compared against its persisted value when the entity is updated.
+ * For tracked entities, only properties which have been marked via
+ * {@link sirius.db.mixing.BaseEntity#markChanged(sirius.db.mixing.Mapping...)} or written via
+ * {@link sirius.db.mixing.Property#setValue(Object, Object)} are inspected. This saves a lot of work for large
+ * entities which are updated frequently.
+ * <p>
+ * Note that all setters of a tracked entity which directly assign a field must therefore invoke <tt>markChanged</tt>.
+ * Properties which cannot be tracked this way are still always compared. These are fields within composites or mixins
+ * as well as final fields (like lists, maps or references) which are modified in place.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface TrackChanges {
+}
@@ -38,4 +38,16 @@ public @interface Unique {
      * @return <tt>true</tt> if <tt>null</tt> also must occur at most once, <tt>false</tt> (default) otherwise
      */
     boolean includingNull() default false;
+
+    /**
+     * Determines if the uniqueness is solely enforced by a unique index of the database.
+     * <p>
+     * If set, no query is issued to check the uniqueness before an entity is saved. Rather a unique index, which
+     * has to be present (e.g. via {@link Index#unique()}), rejects duplicate values and the resulting
+     * {@link sirius.db.mixing.IntegrityConstraintFailedException} is reported as if this check had failed. Note that
+     * this only works for databases which support unique indices (JDBC and MongoDB).
+     *
+     * @return <tt>true</tt> if a unique index enforces the uniqueness, <tt>false</tt> (default) if a query is used
+     */
+    boolean enforcedByIndex() default false;
 }
@@ -14,6 +14,7 @@ import sirius.db.es.IndexMappings;
 import sirius.db.es.annotations.IndexMode;
 import sirius.db.mixing.AccessPath;
 import sirius.db.mixing.BaseEntity;
+import sirius.db.mixing.BaseMapper;
 import sirius.db.mixing.EntityDescriptor;
 import sirius.db.mixing.Mixable;
 import sirius.db.mixing.Mixing;
@@ -21,8 +22,6 @@ import sirius.db.mixing.Property;
 import sirius.db.mixing.PropertyFactory;
 import sirius.db.mixing.types.BaseEntityRef;
 import sirius.db.mixing.types.BaseEntityRefList;
-import sirius.db.mongo.Mongo;
-import sirius.db.mongo.MongoEntity;
 import sirius.kernel.async.TaskContext;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.commons.Value;
@@ -53,9 +52,6 @@ public class BaseEntityRefListProperty extends Property implements ESPropertyInf
     @Part
     private static Mixing mixing;
 
-    @Part
-    private static Mongo mongo;
-
     private BaseEntityRefList<?, ?> entityRefList;
     private EntityDescriptor referencedDescriptor;
 
@@ -114,6 +110,11 @@ public class BaseEntityRefListProperty extends Property implements ESPropertyInf
         return getEntityRefList(accessPath.apply(entity)).copyList();
     }
 
+    @Override
+    public Object getValueAsSnapshot(Object entity) {
+        return getEntityRefList(accessPath.apply(entity)).snapshotList();
+    }
+
     @Override
     public Object transformValue(Value value) {
         if (value.isEmptyString()) {
@@ -231,17 +232,31 @@ public class BaseEntityRefListProperty extends Property implements ESPropertyInf
         BaseEntity<?> referenceInstance = (BaseEntity<?>) getDescriptor().getReferenceInstance();
 
         Object idBeingDeleted = ((BaseEntity<?>) e).getId();
-        if (referenceInstance instanceof MongoEntity) {
-            // MongoDB provides a fast and efficient way of removing and ID from a list...
-            mongo.update()
-                 .where(nameAsMapping, idBeingDeleted)
-                 .pull(nameAsMapping, idBeingDeleted)
-                 .executeForMany(referenceInstance.getClass());
-        } else {
-            referenceInstance.getMapper()
-                             .select(referenceInstance.getClass())
-                             .eq(nameAsMapping, idBeingDeleted)
-                             .iterateAll(other -> cascadeSetNull(taskContext, idBeingDeleted, other));
+        if (getDescriptor().isSetBasedUpdatePossible()) {
+            // Some databases (e.g. MongoDB) provide a fast and efficient way of removing an ID from all lists...
+            if (removeFromAllWhere(referenceInstance.getMapper(), idBeingDeleted) >= 0) {
+                return;
+            }
+        }
+
+        referenceInstance.getMapper()
+                         .select(referenceInstance.getClass())
+                         .eq(nameAsMapping, idBeingDeleted)
+                         .iterateAll(other -> cascadeSetNull(taskContext, idBeingDeleted, other));
+    }
+
+    private long removeFromAllWhere(BaseMapper<?, ?, ?> mapper, Object id) {
+        try {
+            return mapper.removeFromAllWhere(getDescriptor(), nameAsMapping, id);
+        } catch (Exception ex) {
+            throw Exceptions.handle()
+                            .to(Mixing.LOG)
+                            .error(ex)
+                            .withSystemErrorMessage("Failed to remove the reference to %s from all %s via %s: %s (%s)",
+                                                    id,
+                                                    getDescriptor().getType().getName(),
+                                                    getName())
+                            .handle();
         }
     }
 
@@ -261,9 +276,19 @@ public class BaseEntityRefListProperty extends Property implements ESPropertyInf
                                              .format());
 
         BaseEntity<?> referenceInstance = (BaseEntity<?>) getDescriptor().getReferenceInstance();
+        Object id = ((BaseEntity<?>) e).getId();
+        if (getDescriptor().isSetBasedDeletePossible()) {
+            long count = CascadeDeletes.deleteAllWhere(referenceInstance.getMapper(), this, nameAsMapping, id);
+            if (count >= 0) {
+                CascadeDeletes.logCascadeStrategy(taskContext, this, "BaseEntityRefProperty.setBasedDelete", count);
+                return;
+            }
+        }
+
+        CascadeDeletes.logCascadeStrategy(taskContext, this, "BaseEntityRefProperty.cascadeEntityWise", -1);
         referenceInstance.getMapper()
                          .select(referenceInstance.getClass())
-                         .eq(nameAsMapping, ((BaseEntity<?>) e).getId())
+                         .eq(nameAsMapping, id)
                          .iterateAll(other -> cascadeDelete(taskContext, other));
     }
 
@@ -27,6 +27,9 @@ import sirius.kernel.nls.NLS;
 
 import java.io.Serializable;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -95,6 +98,21 @@ public abstract class BaseEntityRefProperty<I extends Serializable, E extends Ba
         return entityRef;
     }
 
+    /**
+     * Loads the referenced entities for all given entities using a batched lookup.
+     *
+     * @param entities the entities which contain this property
+     * @see BaseEntityRef#fetchValues(Collection)
+     */
+    public void prefetch(Collection<?> entities) {
+        List<R> references = new ArrayList<>(entities.size());
+        for (Object entity : entities) {
+            references.add(getEntityRef(accessPath.apply(entity)));
+        }
+
+        BaseEntityRef.fetchValues(references);
+    }
+
     @Override
     protected Object getValueFromField(Object target) {
         return getEntityRef(target).getId();
@@ -274,9 +292,19 @@ public abstract class BaseEntityRefProperty<I extends Serializable, E extends Ba
                                              .format());
 
         BaseEntity<?> referenceInstance = (BaseEntity<?>) getDescriptor().getReferenceInstance();
+        Object id = ((BaseEntity<?>) e).getId();
+        if (getDescriptor().isSetBasedUpdatePossible()) {
+            long count = clearAllWhere(referenceInstance.getMapper(), id);
+            if (count >= 0) {
+                CascadeDeletes.logCascadeStrategy(taskContext, this, "BaseEntityRefProperty.setBasedSetNull", count);
+                return;
+            }
+        }
+
+        CascadeDeletes.logCascadeStrategy(taskContext, this, "BaseEntityRefProperty.cascadeEntityWise", -1);
         referenceInstance.getMapper()
                          .select(referenceInstance.getClass())
-                         .eq(nameAsMapping, ((BaseEntity<?>) e).getId())
+                         .eq(nameAsMapping, id)
                          .iterateAll(other -> cascadeSetNull(taskContext, other));
     }
 
@@ -297,9 +325,19 @@ public abstract class BaseEntityRefProperty<I extends Serializable, E extends Ba
                                              .format());
 
         BaseEntity<?> referenceInstance = (BaseEntity<?>) getDescriptor().getReferenceInstance();
+        Object id = ((BaseEntity<?>) e).getId();
+        if (getDescriptor().isSetBasedDeletePossible()) {
+            long count = CascadeDeletes.deleteAllWhere(referenceInstance.getMapper(), this, nameAsMapping, id);
+            if (count >= 0) {
+                CascadeDeletes.logCascadeStrategy(taskContext, this, "BaseEntityRefProperty.setBasedDelete", count);
+                return;
+            }
+        }
+
+        CascadeDeletes.logCascadeStrategy(taskContext, this, "BaseEntityRefProperty.cascadeEntityWise", -1);
         referenceInstance.getMapper()
                          .select(referenceInstance.getClass())
-                         .eq(nameAsMapping, ((BaseEntity<?>) e).getId())
+                         .eq(nameAsMapping, id)
                          .iterateAll(other -> cascadeDelete(taskContext, other));
     }
 
@@ -309,6 +347,21 @@ public abstract class BaseEntityRefProperty<I extends Serializable, E extends Ba
         taskContext.addTiming(NLS.get("BaseEntityRefProperty.cascadedDelete"), watch.elapsedMillis(), true);
     }
 
+    private long clearAllWhere(BaseMapper<?, ?, ?> mapper, Object id) {
+        try {
+            return mapper.clearAllWhere(getDescriptor(), nameAsMapping, id);
+        } catch (Exception ex) {
+            throw Exceptions.handle()
+                            .to(Mixing.LOG)
+                            .error(ex)
+                            .withSystemErrorMessage("Failed to clear the reference to %s in all %s via %s: %s (%s)",
+                                                    id,
+                                                    getDescriptor().getType().getName(),
+                                                    getName())
+                            .handle();
+        }
+    }
+
     protected void onDeleteReject(Object e) {
         BaseEntity<?> referenceInstance = (BaseEntity<?>) getDescriptor().getReferenceInstance();
         long count = referenceInstance.getMapper()
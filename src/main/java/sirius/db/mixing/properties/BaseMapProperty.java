@@ -50,6 +50,12 @@ public abstract class BaseMapProperty extends Property {
         return ((SafeMap<?, ?>) super.getValueFromField(target)).copyMap();
     }
 
+    @Override
+    public Object getValueAsSnapshot(Object entity) {
+        Object target = accessPath.apply(entity);
+        return ((SafeMap<?, ?>) super.getValueFromField(target)).snapshotMap();
+    }
+
     @Override
     public Object transformValue(Value value) {
         if (value.isEmptyString()) {
@@ -0,0 +1,72 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing.properties;
+
+import sirius.db.mixing.BaseMapper;
+import sirius.db.mixing.Mapping;
+import sirius.db.mixing.Mixing;
+import sirius.db.mixing.Property;
+import sirius.kernel.async.TaskContext;
+import sirius.kernel.health.Exceptions;
+import sirius.kernel.nls.NLS;
+
+/**
+ * Provides the set-based delete and the task logging shared by the cascade handling of
+ * {@link BaseEntityRefProperty} and {@link BaseEntityRefListProperty}.
+ */
+class CascadeDeletes {
+
+    private static final String PARAM_TYPE = "type";
+    private static final String PARAM_FIELD = "field";
+    private static final String PARAM_COUNT = "count";
+
+    private CascadeDeletes() {
+    }
+
+    /**
+     * Deletes all entities of the descriptor of the given property which reference the given id.
+     *
+     * @param mapper   the mapper of the referencing entities
+     * @param property the property which references the deleted entity
+     * @param field    the field to filter on (the name of the property)
+     * @param id       the id of the deleted entity
+     * @return the number of deleted entities or <tt>-1</tt> if the mapper doesn't support set-based deletes
+     * @see BaseMapper#deleteAllWhere(sirius.db.mixing.EntityDescriptor, Mapping, Object)
+     */
+    static long deleteAllWhere(BaseMapper<?, ?, ?> mapper, Property property, Mapping field, Object id) {
+        try {
+            return mapper.deleteAllWhere(property.getDescriptor(), field, id);
+        } catch (Exception ex) {
+            throw Exceptions.handle()
+                            .to(Mixing.LOG)
+                            .error(ex)
+                            .withSystemErrorMessage("Failed to cascade the delete of %s to all %s via %s: %s (%s)",
+                                                    id,
+                                                    property.getDescriptor().getType().getName(),
+                                                    property.getName())
+                            .handle();
+        }
+    }
+
+    /**
+     * Reports the strategy used to cascade a delete (or set-null) to the referencing entities in the task log.
+     *
+     * @param taskContext the task context to log to
+     * @param property    the property which references the deleted entity
+     * @param key         the NLS key of the message to log
+     * @param count       the number of affected entities or <tt>-1</tt> if these are processed one by one
+     */
+    static void logCascadeStrategy(TaskContext taskContext, Property property, String key, long count) {
+        taskContext.smartLogLimited(() -> NLS.fmtr(key)
+                                             .set(PARAM_TYPE, property.getDescriptor().getPluralLabel())
+                                             .set(PARAM_FIELD, property.getLabel())
+                                             .set(PARAM_COUNT, count)
+                                             .format());
+    }
+}
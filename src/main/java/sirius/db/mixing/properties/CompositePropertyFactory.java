@@ -18,6 +18,7 @@ import sirius.db.mixing.PropertyFactory;
 import sirius.kernel.di.std.Register;
 import sirius.kernel.health.Exceptions;
 
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.function.Consumer;
@@ -53,18 +54,16 @@ public class CompositePropertyFactory implements PropertyFactory {
     }
 
     private AccessPath expandAccessPath(AccessPath accessPath, Field field) {
-        return accessPath.append(field.getName(), obj -> {
-            try {
-                return field.get(obj);
-            } catch (Exception e) {
-                throw Exceptions.handle()
-                                .to(Mixing.LOG)
-                                .error(e)
-                                .withSystemErrorMessage("Cannot access composite property %s in %s: %s (%s)",
-                                                        field.getName(),
-                                                        field.getDeclaringClass().getName())
-                                .handle();
-            }
-        });
+        try {
+            return accessPath.append(field.getName(), MethodHandles.lookup().unreflectGetter(field));
+        } catch (IllegalAccessException e) {
+            throw Exceptions.handle()
+                            .to(Mixing.LOG)
+                            .error(e)
+                            .withSystemErrorMessage("Cannot access composite property %s in %s: %s (%s)",
+                                                    field.getName(),
+                                                    field.getDeclaringClass().getName())
+                            .handle();
+        }
     }
 }
@@ -148,4 +148,9 @@ public class MultiPointLocationProperty extends Property {
     public Object getValueAsCopy(Object entity) {
         return ((MultiPointLocation) super.getValueFromField(entity)).copyList();
     }
+
+    @Override
+    public Object getValueAsSnapshot(Object entity) {
+        return ((MultiPointLocation) super.getValueFromField(accessPath.apply(entity))).snapshotList();
+    }
 }
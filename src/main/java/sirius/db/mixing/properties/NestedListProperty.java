@@ -100,10 +100,13 @@ public class NestedListProperty extends Property implements ESPropertyInfo {
         return getNestedList(target).data();
     }
 
-    @SuppressWarnings("unchecked")
     @Override
-    public String getValueForUserMessage(Object entity) {
-        return ((List<Nested>) getValue(entity)).stream().map(NLS::toUserString).collect(Collectors.joining(", "));
+    public String formatValueForUserMessage(Object value) {
+        if (value instanceof List<?> list) {
+            return list.stream().map(NLS::toUserString).collect(Collectors.joining(", "));
+        }
+
+        return super.formatValueForUserMessage(value);
     }
 
     @Override
@@ -111,6 +114,11 @@ public class NestedListProperty extends Property implements ESPropertyInfo {
         return getNestedList(accessPath.apply(entity)).copyList();
     }
 
+    @Override
+    public Object getValueAsSnapshot(Object entity) {
+        return getNestedList(accessPath.apply(entity)).snapshotList();
+    }
+
     @Override
     public Object transformValue(Value value) {
         if (value.isEmptyString()) {
@@ -107,10 +107,13 @@ public class StringListProperty extends Property implements ESPropertyInfo, SQLP
         return ((StringList) super.getValueFromField(target)).data();
     }
 
-    @SuppressWarnings("unchecked")
     @Override
-    public String getValueForUserMessage(Object entity) {
-        return ((List<String>) getValue(entity)).stream().map(NLS::toUserString).collect(Collectors.joining(", "));
+    public String formatValueForUserMessage(Object value) {
+        if (value instanceof List<?> list) {
+            return list.stream().map(NLS::toUserString).collect(Collectors.joining(", "));
+        }
+
+        return super.formatValueForUserMessage(value);
     }
 
     @Override
@@ -119,6 +122,12 @@ public class StringListProperty extends Property implements ESPropertyInfo, SQLP
         return ((StringList) super.getValueFromField(target)).copyList();
     }
 
+    @Override
+    public Object getValueAsSnapshot(Object entity) {
+        Object target = accessPath.apply(entity);
+        return ((StringList) super.getValueFromField(target)).snapshotList();
+    }
+
     @Override
     public Object transformValue(Value value) {
         if (value.isEmptyString()) {
@@ -10,17 +10,27 @@ package sirius.db.mixing.query;
 
 import sirius.db.mixing.BaseEntity;
 import sirius.db.mixing.EntityDescriptor;
+import sirius.db.mixing.EntityMetrics;
+import sirius.db.mixing.Mapping;
 import sirius.db.mixing.Mixing;
+import sirius.db.mixing.QueryCache;
+import sirius.db.mixing.properties.BaseEntityRefProperty;
+import sirius.db.mixing.types.BaseEntityRef;
 import sirius.kernel.commons.Limit;
 import sirius.kernel.commons.Value;
 import sirius.kernel.commons.ValueHolder;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.health.Exceptions;
 
+import javax.annotation.Nullable;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
@@ -69,9 +79,31 @@ public abstract class BaseQuery<Q, E extends BaseEntity<?>> {
      */
     protected boolean forceFail;
 
+    /**
+     * Determines if the entities are created as {@link BaseEntity#isReadOnly() read-only}.
+     */
+    protected boolean readOnly;
+
+    /**
+     * Contains the references to load for all entities in the result of {@link #queryList()}.
+     */
+    protected List<BaseEntityRefProperty<?, ?, ?>> prefetchedReferences;
+
+    /**
+     * Contains the max. age of results of {@link #count()} and {@link #queryList()} served from the
+     * {@link QueryCache} or <tt>null</tt> if the query isn't cached.
+     */
+    protected Duration cacheTTL;
+
     @Part
     protected static Mixing mixing;
 
+    @Part
+    protected static EntityMetrics entityMetrics;
+
+    @Part
+    protected static QueryCache queryCache;
+
     /**
      * Contains the descriptor of the entities being queried.
      */
@@ -166,6 +198,130 @@ public abstract class BaseQuery<Q, E extends BaseEntity<?>> {
         return (Q) this;
     }
 
+    /**
+     * Creates all entities in the result as {@link BaseEntity#isReadOnly() read-only}.
+     * <p>
+     * Read-only entities don't record the values loaded from the database, which are otherwise kept to detect
+     * changes. This saves a considerable amount of memory and allocations for large results which are only
+     * rendered or exported. Any attempt to update such an entity fails immediately.
+     *
+     * @return the query itself for fluent method calls
+     */
+    @SuppressWarnings("unchecked")
+    public Q readOnly() {
+        readOnly = true;
+        return (Q) this;
+    }
+
+    /**
+     * Serves the results of {@link #count()} and {@link #queryList()} (and all methods based upon it) from the
+     * {@link QueryCache}.
+     * <p>
+     * This is intended for queries which are executed over and over again for slowly changing entity types, e.g.
+     * on a dashboard. All cached results of an entity type are discarded as soon as an entity of this type is
+     * written on this node. However, writes on other nodes only become visible once the given TTL has elapsed.
+     *
+     * @param ttl the max. age of a cached result
+     * @return the query itself for fluent method calls
+     */
+    @SuppressWarnings("unchecked")
+    public Q cached(Duration ttl) {
+        this.cacheTTL = ttl;
+        return (Q) this;
+    }
+
+    /**
+     * Returns the compiled form of this query which is used as key by the {@link QueryCache}.
+     * <p>
+     * Implementations must include everything which affects the result (e.g. filters, sorting and selected fields).
+     * Skip, limit and the read-only flag are appended by the caller.
+     *
+     * @return the compiled query or <tt>null</tt> if this query cannot be cached
+     */
+    @Nullable
+    protected String getCacheKey() {
+        return null;
+    }
+
+    @Nullable
+    private String computeCacheKey() {
+        if (cacheTTL == null || forceFail) {
+            return null;
+        }
+
+        String key = getCacheKey();
+        if (key == null) {
+            return null;
+        }
+
+        return skip + "|" + limit + "|" + readOnly + "|" + key;
+    }
+
+    /**
+     * Serves the number of matches from the {@link QueryCache} if this query is {@link #cached(Duration) cached}.
+     *
+     * @param counter the counter used to actually execute the query
+     * @return the number of matches of this query
+     */
+    protected long countCached(LongSupplier counter) {
+        String key = computeCacheKey();
+        if (key == null) {
+            return counter.getAsLong();
+        }
+
+        return queryCache.count(descriptor, key, cacheTTL, counter);
+    }
+
+    /**
+     * Specifies references which are loaded for all entities in the result.
+     * <p>
+     * Instead of performing a lookup per entity when invoking {@link BaseEntityRef#fetchValue()}, the ids of all
+     * references are collected and resolved using a single batched lookup. In contrast to a JOIN FETCH, this works
+     * for all kinds of references (SQL, Mongo, Elastic), even across databases.
+     * <p>
+     * Note that this is applied to {@link #queryList()} and all methods based upon it, to {@link #queryFirst()} and
+     * to each block of {@link #streamBlockwise()}. As {@link #iterate(Predicate)} and {@link #iterateAll(Consumer)}
+     * hand out each entity right away, these ignore prefetched references.
+     *
+     * @param references the reference fields to load
+     * @return the query itself for fluent method calls
+     */
+    @SuppressWarnings("unchecked")
+    public Q prefetch(Mapping... references) {
+        if (prefetchedReferences == null) {
+            prefetchedReferences = new ArrayList<>();
+        }
+        for (Mapping reference : references) {
+            if (descriptor.getProperty(reference) instanceof BaseEntityRefProperty<?, ?, ?> referenceProperty) {
+                prefetchedReferences.add(referenceProperty);
+            } else {
+                throw Exceptions.handle()
+                                .to(Mixing.LOG)
+                                .withSystemErrorMessage("Cannot prefetch '%s' of '%s' as it isn't an entity reference.",
+                                                        reference,
+                                                        descriptor.getType().getName())
+                                .handle();
+            }
+        }
+
+        return (Q) this;
+    }
+
+    /**
+     * Loads all {@link #prefetch(Mapping...) prefetched references} for the given entities.
+     *
+     * @param entities the entities to load the references for
+     */
+    protected void prefetchReferences(List<E> entities) {
+        if (prefetchedReferences == null || entities.isEmpty()) {
+            return;
+        }
+
+        for (BaseEntityRefProperty<?, ?, ?> referenceProperty : prefetchedReferences) {
+            referenceProperty.prefetch(entities);
+        }
+    }
+
     /**
      * Returns a list of all items in the result.
      * <p>
@@ -177,7 +333,24 @@ public abstract class BaseQuery<Q, E extends BaseEntity<?>> {
      * @return a list of items in the query or an empty list if the query did not match any items
      */
     public List<E> queryList() {
-        List<E> result = new ArrayList<>();
+        String key = computeCacheKey();
+        List<E> result = key == null ?
+                         queryList(this::iterateAll) :
+                         queryCache.list(descriptor, key, cacheTTL, () -> queryList(this::iterateAll));
+        prefetchReferences(result);
+
+        return result;
+    }
+
+    /**
+     * Collects all items provided by the given iterator into a list while enforcing {@link #MAX_LIST_SIZE}.
+     *
+     * @param iterator the method which invokes the given consumer for each item in the result
+     * @param <T>      the type of items being collected
+     * @return a list of items in the result or an empty list if the query did not match any items
+     */
+    protected <T> List<T> queryList(Consumer<Consumer<T>> iterator) {
+        List<T> result = new ArrayList<>();
         if (forceFail) {
             return result;
         }
@@ -199,17 +372,31 @@ public abstract class BaseQuery<Q, E extends BaseEntity<?>> {
             limit = MAX_LIST_SIZE + 1;
         }
 
-        iterateAll(entity -> {
-            result.add(entity);
-            failOnOverflow(result);
-        });
-
-        // Restore limit in case the code above changed it.
-        limit = originalLimit;
+        try {
+            iterator.accept(item -> {
+                result.add(item);
+                failOnOverflow(result);
+            });
+        } finally {
+            // Restore limit in case the code above changed it.
+            limit = originalLimit;
+        }
 
         return result;
     }
 
+    /**
+     * Executes {@link #queryList()} in the background.
+     * <p>
+     * Note that the query must not be modified until the returned future is completed.
+     *
+     * @return a future which is completed with the list of items in the query
+     * @see Mixing#executeAsync(java.util.concurrent.Callable)
+     */
+    public CompletableFuture<List<E>> queryListAsync() {
+        return mixing.executeAsync(this::queryList);
+    }
+
     /**
      * Returns a stream containing all items in the result.
      * <p>
@@ -231,6 +418,9 @@ public abstract class BaseQuery<Q, E extends BaseEntity<?>> {
      * kept in memory when iterating through them. Note however, that for verly large result sets, a method
      * like {@link #streamBlockwise()} might be more appropriate, as it ensures that underlying resources
      * like <tt>cursors</tt> or <tt>database connections</tt> cannot run into a timeout.
+     * <p>
+     * As each item is handed out right away, {@link #prefetch(Mapping...) prefetched references} aren't loaded
+     * here. Use {@link #queryList()} or {@link #streamBlockwise()} for such queries.
      *
      * @param handler the handler to be invoked for each item in the result. Should return <tt>true</tt>
      *                to continue processing or <tt>false</tt> to abort processing of the result set.
@@ -270,7 +460,23 @@ public abstract class BaseQuery<Q, E extends BaseEntity<?>> {
      */
     public abstract Stream<E> streamBlockwise();
 
-    protected void failOnOverflow(List<E> result) {
+    /**
+     * Provides the same stream as {@link #streamBlockwise()} but fetches the next blocks in the background.
+     * <p>
+     * While the consumer processes one block, up to the given number of subsequent blocks are loaded by a
+     * {@link PrefetchingSpliterator}. This is useful if both, the database access and the processing of an entity
+     * take a considerable amount of time. Note that the stream is still processed sequentially.
+     * <p>
+     * By default, no prefetching is supported and this simply delegates to {@link #streamBlockwise()}.
+     *
+     * @param prefetchedBlocks the maximal number of blocks to load ahead. Use <tt>0</tt> to disable prefetching.
+     * @return the stream of matched entities
+     */
+    public Stream<E> streamBlockwise(int prefetchedBlocks) {
+        return streamBlockwise();
+    }
+
+    protected void failOnOverflow(List<?> result) {
         if (result.size() > MAX_LIST_SIZE) {
             throw Exceptions.handle()
                             .to(Mixing.LOG)
@@ -304,6 +510,10 @@ public abstract class BaseQuery<Q, E extends BaseEntity<?>> {
             return false;
         });
 
+        if (result.get() != null) {
+            prefetchReferences(Collections.singletonList(result.get()));
+        }
+
         return result.get();
     }
 
@@ -0,0 +1,248 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing.query;
+
+import sirius.db.mixing.Mixing;
+import sirius.kernel.async.TaskContext;
+import sirius.kernel.async.Tasks;
+import sirius.kernel.commons.PullBasedSpliterator;
+import sirius.kernel.di.std.Part;
+import sirius.kernel.health.Exceptions;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Loads the blocks of a {@link BaseQuery#streamBlockwise(int) blockwise stream} ahead of time in a background thread.
+ * <p>
+ * The next blocks are fetched while the consumer processes the current one, so that the latency of the database and
+ * the processing time no longer add up. At most the given number of blocks is kept in memory (in addition to the
+ * one being processed and the one being fetched).
+ * <p>
+ * Once the stream is closed or the surrounding task is no longer {@link TaskContext#isActive() active}, the
+ * background thread stops fetching blocks. Note that {@link #stream(Supplier, int, Runnable)} ensures that the stream
+ * is closed once it has been consumed.
+ * <p>
+ * If the executor is overloaded and runs the fetching in the calling thread, the blocks are simply pulled one after
+ * another by the consumer, just like in a regular blockwise stream.
+ *
+ * @param <E> the type of entities being streamed
+ */
+public class PrefetchingSpliterator<E> extends PullBasedSpliterator<E> {
+
+    /**
+     * Contains the name of the executor used to fetch the blocks.
+     */
+    private static final String EXECUTOR_PREFETCH = "mixing-stream-prefetch";
+
+    /**
+     * Determines how long {@link #close()} waits for a block currently being fetched.
+     */
+    private static final long CLOSE_TIMEOUT_SECONDS = 60;
+
+    /**
+     * Determines how long to wait for the next block before checking if the background thread is still running.
+     */
+    private static final long POLL_TIMEOUT_SECONDS = 1;
+
+    @Part
+    private static Tasks tasks;
+
+    private final Supplier<Iterator<E>> blockSupplier;
+    private final Runnable closeHandler;
+    private final BlockingQueue<List<E>> blocks;
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile boolean started;
+    private volatile boolean closed;
+    private volatile boolean synchronous;
+    private volatile Thread consumerThread;
+    private volatile TaskContext taskContext;
+    private volatile Throwable failure;
+    private boolean exhausted;
+
+    /**
+     * Creates a new spliterator which fetches blocks using the given supplier.
+     *
+     * @param blockSupplier    supplies the next block. Returns either <tt>null</tt> or an empty iterator once all
+     *                         blocks have been fetched. This is invoked sequentially by the background thread.
+     * @param prefetchedBlocks the maximal number of blocks to load ahead
+     * @param closeHandler     invoked once the stream is closed and the background thread has stopped
+     */
+    public PrefetchingSpliterator(Supplier<Iterator<E>> blockSupplier,
+                                  int prefetchedBlocks,
+                                  @Nullable Runnable closeHandler) {
+        this.blockSupplier = blockSupplier;
+        this.closeHandler = closeHandler;
+        this.blocks = new ArrayBlockingQueue<>(Math.max(1, prefetchedBlocks));
+    }
+
+    /**
+     * Creates a stream which fetches its blocks ahead of time using the given supplier.
+     * <p>
+     * The stream is wrapped via {@link Stream#flatMap(Function)} so that it is guaranteed to be closed once the
+     * stream is terminated, even if it isn't used within a try-with-resources block.
+     *
+     * @param blockSupplier    supplies the next block. Returns either <tt>null</tt> or an empty iterator once all
+     *                         blocks have been fetched
+     * @param prefetchedBlocks the maximal number of blocks to load ahead
+     * @param closeHandler     invoked once the stream is closed and the background thread has stopped
+     * @param <E>              the type of entities being streamed
+     * @return a stream of all entities provided by the given supplier
+     */
+    public static <E> Stream<E> stream(Supplier<Iterator<E>> blockSupplier,
+                                       int prefetchedBlocks,
+                                       @Nullable Runnable closeHandler) {
+        PrefetchingSpliterator<E> spliterator =
+                new PrefetchingSpliterator<>(blockSupplier, prefetchedBlocks, closeHandler);
+        return Stream.of(StreamSupport.stream(spliterator, false).onClose(spliterator::close))
+                     .flatMap(Function.identity());
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.NONNULL | Spliterator.IMMUTABLE;
+    }
+
+    @Nullable
+    @Override
+    protected Iterator<E> pullNextBlock() {
+        if (exhausted) {
+            return null;
+        }
+
+        if (!started) {
+            started = true;
+            consumerThread = Thread.currentThread();
+            taskContext = TaskContext.get();
+            tasks.executor(EXECUTOR_PREFETCH).start(this::fetchBlocks);
+        }
+
+        if (synchronous) {
+            return blockSupplier.get();
+        }
+
+        List<E> block = takeNextBlock();
+        if (block.isEmpty()) {
+            exhausted = true;
+            if (failure != null) {
+                throw Exceptions.handle()
+                                .to(Mixing.LOG)
+                                .error(failure)
+                                .withSystemErrorMessage("Failed to prefetch the next block of a stream: %s (%s)")
+                                .handle();
+            }
+            return null;
+        }
+
+        return block.iterator();
+    }
+
+    private List<E> takeNextBlock() {
+        try {
+            while (true) {
+                List<E> block = blocks.poll(POLL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                if (block != null) {
+                    return block;
+                }
+                if (finished.getCount() == 0 && blocks.isEmpty()) {
+                    // The background thread stopped without signalling the end, therefore we must not wait forever...
+                    return Collections.emptyList();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        }
+    }
+
+    private void fetchBlocks() {
+        if (Thread.currentThread() == consumerThread) {
+            // The executor is overloaded and runs us in the calling thread. As nobody would consume the blocks while
+            // we're filling the queue, we let the consumer pull them itself...
+            synchronous = true;
+            finished.countDown();
+            return;
+        }
+
+        try {
+            while (!closed && taskContext.isActive()) {
+                List<E> block = new ArrayList<>();
+                Iterator<E> iterator = blockSupplier.get();
+                if (iterator != null) {
+                    iterator.forEachRemaining(block::add);
+                }
+
+                enqueue(block);
+                if (block.isEmpty()) {
+                    return;
+                }
+            }
+
+            signalEnd();
+        } catch (InterruptedException e) {
+            failure = e;
+            signalEnd();
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            failure = e;
+            signalEnd();
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    private void enqueue(List<E> block) throws InterruptedException {
+        while (!closed) {
+            if (blocks.offer(block, 1, TimeUnit.SECONDS)) {
+                return;
+            }
+        }
+    }
+
+    private void signalEnd() {
+        try {
+            enqueue(Collections.emptyList());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops fetching further blocks and releases all resources.
+     * <p>
+     * Waits until a block, which is currently being fetched, is completed before invoking the close handler.
+     */
+    public void close() {
+        closed = true;
+        blocks.clear();
+        try {
+            if (started && !finished.await(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                Mixing.LOG.WARN("A prefetching stream did not stop within %s seconds.", CLOSE_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (closeHandler != null) {
+            closeHandler.run();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing.query;
+
+import sirius.db.mixing.Mapping;
+import sirius.db.mixing.Mixing;
+import sirius.kernel.commons.Strings;
+import sirius.kernel.health.Exceptions;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Reads only the given fields of the entities matched by a query and maps them to lightweight objects.
+ * <p>
+ * In contrast to the regular query methods, no entities are created. Therefore neither default values are applied
+ * nor any snapshots of the persisted data or copies of lists are kept. Use this to efficiently read a few columns
+ * of many entities, e.g. for a dropdown or an export.
+ * <p>
+ * Note that only fields of the queried entity itself can be projected.
+ *
+ * @param <T> the type of objects created for each row
+ * @see Query#project(Function, Mapping...)
+ * @see Query#project(Class, Mapping...)
+ */
+public class Projection<T> {
+
+    private final Query<?, ?, ?> query;
+    private final List<Mapping> mappings;
+    private final Function<ValueRow, T> mapper;
+
+    protected Projection(Query<?, ?, ?> query, List<Mapping> mappings, Function<ValueRow, T> mapper) {
+        this.query = query;
+        this.mappings = mappings;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Creates a mapper which invokes the canonical constructor of the given record for each row.
+     * <p>
+     * The components of the record have to match the projected fields in their order.
+     *
+     * @param recordType     the type of record to create
+     * @param numberOfFields the number of projected fields
+     * @param <R>            the type of record to create
+     * @return a function which creates a record for a given row
+     */
+    protected static <R extends Record> Function<ValueRow, R> forRecord(Class<R> recordType, int numberOfFields) {
+        RecordComponent[] components = recordType.getRecordComponents();
+        if (components.length != numberOfFields) {
+            throw new IllegalArgumentException(Strings.apply(
+                    "The record %s has %s components but %s fields are projected.",
+                    recordType.getName(),
+                    components.length,
+                    numberOfFields));
+        }
+
+        try {
+            Constructor<R> constructor = recordType.getDeclaredConstructor(Arrays.stream(components)
+                                                                                 .map(RecordComponent::getType)
+                                                                                 .toArray(Class[]::new));
+            constructor.setAccessible(true);
+            return row -> createRecord(constructor, components, row);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Cannot determine the canonical constructor of " + recordType.getName(),
+                                               e);
+        }
+    }
+
+    private static <R extends Record> R createRecord(Constructor<R> constructor,
+                                                     RecordComponent[] components,
+                                                     ValueRow row) {
+        Object[] parameters = new Object[components.length];
+        for (int i = 0; i < components.length; i++) {
+            Class<?> type = components[i].getType();
+            Object value = row.at(i).get();
+            parameters[i] = type.isInstance(value) ? value : row.at(i).coerce(type, null);
+        }
+
+        try {
+            return constructor.newInstance(parameters);
+        } catch (Exception e) {
+            throw Exceptions.handle()
+                            .to(Mixing.LOG)
+                            .error(e)
+                            .withSystemErrorMessage("Cannot create a %s for %s: %s (%s)",
+                                                    constructor.getDeclaringClass().getName(),
+                                                    row)
+                            .handle();
+        }
+    }
+
+    /**
+     * Calls the given function on all rows in the result, as long as it returns <tt>true</tt>.
+     *
+     * @param handler the handler to be invoked for each row. Should return <tt>true</tt> to continue processing or
+     *                <tt>false</tt> to abort processing of the result set.
+     * @see BaseQuery#iterate(Predicate)
+     */
+    public void iterate(Predicate<T> handler) {
+        if (query.isForceFail()) {
+            return;
+        }
+
+        query.iterateRows(mappings, row -> handler.test(mapper.apply(row)));
+    }
+
+    /**
+     * Calls the given consumer on all rows in the result.
+     *
+     * @param consumer the handler to be invoked for each row
+     * @see BaseQuery#iterateAll(Consumer)
+     */
+    public void iterateAll(Consumer<T> consumer) {
+        iterate(row -> {
+            consumer.accept(row);
+            return true;
+        });
+    }
+
+    /**
+     * Returns a list of all rows in the result.
+     * <p>
+     * Just like {@link BaseQuery#queryList()} this must only be used for results with a known size which is smaller
+     * than {@link BaseQuery#MAX_LIST_SIZE}.
+     *
+     * @return a list of all rows in the result
+     */
+    public List<T> queryList() {
+        return query.queryList(this::iterateAll);
+    }
+
+    /**
+     * Returns a stream of all rows in the result.
+     * <p>
+     * Just like {@link BaseQuery#streamList()} this must only be used for results with a known size which is
+     * smaller than {@link BaseQuery#MAX_LIST_SIZE}.
+     *
+     * @return a stream of all rows in the result
+     */
+    public Stream<T> streamList() {
+        return queryList().stream();
+    }
+
+    /**
+     * Returns the first row in the result.
+     * <p>
+     * The limit is applied to a copy of the underlying query, so that the query itself remains unchanged.
+     *
+     * @return the first row wrapped as <tt>Optional</tt> or an empty optional if the query has no matches
+     */
+    public Optional<T> first() {
+        Query<?, ?, ?> limitedQuery = query.copy();
+        limitedQuery.limit(1);
+        List<T> result = new Projection<>(limitedQuery, mappings, mapper).queryList();
+        return result.isEmpty() ? Optional.empty() : Optional.ofNullable(result.get(0));
+    }
+}
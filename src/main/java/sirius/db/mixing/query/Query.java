@@ -16,7 +16,12 @@ import sirius.db.mixing.query.constraints.Constraint;
 import sirius.db.mixing.query.constraints.FilterFactory;
 
 import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * Describes the minimal functionality to be supported by a query generated by a {@link BaseMapper mapper}.
@@ -118,6 +123,18 @@ public abstract class Query<Q, E extends BaseEntity<?>, C extends Constraint> ex
      */
     public abstract long count();
 
+    /**
+     * Executes {@link #count()} in the background.
+     * <p>
+     * Note that the query must not be modified until the returned future is completed.
+     *
+     * @return a future which is completed with the number of matched result entries
+     * @see sirius.db.mixing.Mixing#executeAsync(java.util.concurrent.Callable)
+     */
+    public CompletableFuture<Long> countAsync() {
+        return mixing.executeAsync(this::count);
+    }
+
     /**
      * Determines if the query would have at least one matching entity.
      * <p>
@@ -153,4 +170,70 @@ public abstract class Query<Q, E extends BaseEntity<?>, C extends Constraint> ex
      * Use this for larger result sets where integrity and constraints do not matter or are managed manually.
      */
     public abstract void truncate();
+
+    /**
+     * Creates a full copy of the query which can be modified without modifying this query.
+     *
+     * @return a copy of this query
+     */
+    public abstract Query<Q, E, C> copy();
+
+    /**
+     * Reads only the given fields of all matching entities and maps each row using the given function.
+     * <p>
+     * In contrast to {@link #iterate(Predicate)} no entities are created, which saves a lot of allocations when
+     * only a few fields of many entities are required. The values are converted by their properties just like they
+     * would be when loading an entity.
+     *
+     * @param mapper   the function which creates the result object for a given row
+     * @param mappings the fields to read. Only fields of the queried entity itself are supported.
+     * @param <T>      the type of objects created for each row
+     * @return the projection which can be used to iterate over or to collect the results
+     */
+    public <T> Projection<T> project(Function<ValueRow, T> mapper, Mapping... mappings) {
+        if (mappings.length == 0) {
+            throw new IllegalArgumentException("At least one field has to be projected.");
+        }
+        return new Projection<>(this, Arrays.asList(mappings), mapper);
+    }
+
+    /**
+     * Reads only the given fields of all matching entities and creates a record for each row.
+     * <p>
+     * The components of the record have to match the given fields in their order. Values are passed along as-is if
+     * their type matches the component type and coerced otherwise.
+     *
+     * @param recordType the type of record to create for each row
+     * @param mappings   the fields to read. Only fields of the queried entity itself are supported.
+     * @param <T>        the type of record to create
+     * @return the projection which can be used to iterate over or to collect the results
+     * @see #project(Function, Mapping...)
+     */
+    public <T extends Record> Projection<T> project(Class<T> recordType, Mapping... mappings) {
+        return project(Projection.forRecord(recordType, mappings.length), mappings);
+    }
+
+    /**
+     * Exports the given fields of all entities matched by this query without creating entities.
+     * <p>
+     * Use this to write large results as CSV or NDJSON into a stream or to feed them into other formats.
+     *
+     * @param mappings the fields to export
+     * @return an export which can be configured and written
+     * @see QueryExport
+     */
+    public QueryExport export(Mapping... mappings) {
+        return new QueryExport(this, Arrays.asList(mappings));
+    }
+
+    /**
+     * Reads the given fields of all matching entities without creating any entities.
+     * <p>
+     * This is invoked by {@link Projection} and {@link QueryExport}.
+     *
+     * @param mappings the fields to read
+     * @param handler  the handler to be invoked for each row. Should return <tt>true</tt> to continue processing or
+     *                 <tt>false</tt> to abort processing of the result set.
+     */
+    protected abstract void iterateRows(List<Mapping> mappings, Predicate<ValueRow> handler);
 }
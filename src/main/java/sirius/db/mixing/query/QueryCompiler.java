@@ -77,6 +77,13 @@ import java.util.regex.Pattern;
  * Note that this class can also be subclasses in order to generate custom constraints or to handle virtual
  * fields.
  * <p>
+ * <b>Important:</b> Compiled constraints are cached by default (see
+ * {@link FilterFactory#compileString(EntityDescriptor, String, List)}). The cache key only consists of the query,
+ * the entity type, the default search fields and the current language. Therefore, subclasses and
+ * {@link QueryTagHandler tag handlers} which generate constraints depending on anything else (e.g. the current time,
+ * user or tenant) <b>must</b> call {@link #markContextDependent()} so that the constraint is compiled anew for each
+ * call. Relative dates and query tags are already handled by this class.
+ * <p>
  * This is implemented as a simple recursive descending parser (which forms the upper section of the class). The main
  * task is to determine how to transform tokens into constraints as we're never 100% sure if a user got an operation
  * wrong or if this is simply a complex seach term (e.g. value:XX). Therefore we provide some ways of recovering or
@@ -127,6 +134,7 @@ public abstract class QueryCompiler<C extends Constraint> {
     protected final List<QueryField> searchFields;
     protected final LookaheadReader reader;
     protected boolean debugging;
+    protected boolean contextDependent;
 
     @Part
     protected static GlobalContext ctx;
@@ -187,6 +195,28 @@ public abstract class QueryCompiler<C extends Constraint> {
         return debugging;
     }
 
+    /**
+     * Determines if the compiled constraint depends on the time or context of the call.
+     * <p>
+     * This is the case if relative dates (like <tt>-5d</tt> or <tt>now</tt>) or {@link QueryTag query tags} were
+     * used. Such constraints must not be re-used for subsequent calls.
+     *
+     * @return <tt>true</tt> if the compiled constraint may only be used once, <tt>false</tt> if it can be cached
+     */
+    public boolean isContextDependent() {
+        return contextDependent;
+    }
+
+    /**
+     * Marks the constraint being compiled as dependent on the time or context of the call.
+     * <p>
+     * Subclasses which generate such constraints (e.g. based on the current user) have to invoke this, so that
+     * the constraint isn't cached.
+     */
+    protected void markContextDependent() {
+        this.contextDependent = true;
+    }
+
     private C parseOR() {
         List<C> constraints = new ArrayList<>();
         while (!reader.current().isEndOfInput() && !reader.current().is(')')) {
@@ -701,6 +731,13 @@ public abstract class QueryCompiler<C extends Constraint> {
      * @return the effective value to use in a constraint
      */
     protected Object compileStringValue(Property property, String value) {
+        if (property instanceof LocalDateTimeProperty
+            || property instanceof LocalDateProperty
+            || property instanceof LocalTimeProperty) {
+            // Temporal values might be relative to "now"...
+            markContextDependent();
+        }
+
         LocalDateTime deltaValue = parseDeltaValue(value);
         if (deltaValue != null) {
             if (property instanceof LocalDateTimeProperty) {
@@ -764,6 +801,7 @@ public abstract class QueryCompiler<C extends Constraint> {
         tag.append(reader.consume());
 
         QueryTag queryTag = QueryTag.parse(tag.toString());
+        markContextDependent();
         if (queryTag.getType() != null && Strings.isFilled(queryTag.getValue())) {
             QueryTagHandler<C> handler = ctx.getPart(queryTag.getType(), QueryTagHandler.class);
             if (handler != null) {
@@ -0,0 +1,247 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing.query;
+
+import com.alibaba.fastjson.JSONObject;
+import sirius.db.mixing.Mapping;
+import sirius.db.mixing.Mixing;
+import sirius.db.mixing.Property;
+import sirius.kernel.health.Exceptions;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Exports the given fields of all entities matched by a query as CSV, NDJSON or as rows of formatted values.
+ * <p>
+ * The fields are read using a {@link Projection}, therefore no entities are created and the memory consumption
+ * remains constant, no matter how many rows are exported. Each value is formatted using
+ * {@link Property#formatValueForUserMessage(Object)}, just like it would be shown in a message for the user. Note
+ * that references are exported as their ID, as resolving them would require a lookup per row.
+ *
+ * @see Query#export(Mapping...)
+ */
+public class QueryExport {
+
+    private static final char QUOTE = '"';
+
+    private final Query<?, ?, ?> query;
+    private final List<Mapping> mappings;
+    private final Property[] properties;
+    private boolean includeHeader = true;
+    private boolean useLabels;
+    private char separator = ';';
+
+    protected QueryExport(Query<?, ?, ?> query, List<Mapping> mappings) {
+        this.query = query;
+        this.mappings = mappings;
+        this.properties = mappings.stream().map(query.getDescriptor()::getProperty).toArray(Property[]::new);
+    }
+
+    /**
+     * Suppresses the header row which is otherwise emitted by {@link #toCSV(OutputStream)} and
+     * {@link #toRows(Predicate)}.
+     *
+     * @return the export itself for fluent method calls
+     */
+    public QueryExport withoutHeader() {
+        this.includeHeader = false;
+        return this;
+    }
+
+    /**
+     * Uses the labels of the properties as header instead of their field names.
+     *
+     * @return the export itself for fluent method calls
+     */
+    public QueryExport withLabels() {
+        this.useLabels = true;
+        return this;
+    }
+
+    /**
+     * Specifies the separator used by {@link #toCSV(OutputStream)}.
+     *
+     * @param separator the character used to separate the columns. By default <tt>;</tt> is used.
+     * @return the export itself for fluent method calls
+     */
+    public QueryExport withSeparator(char separator) {
+        this.separator = separator;
+        return this;
+    }
+
+    /**
+     * Invokes the given handler for each row of formatted values.
+     * <p>
+     * This can be used to feed other formats like an Excel file. Unless {@link #withoutHeader()} was called, the
+     * first row contains the names of the exported fields.
+     *
+     * @param rowHandler the handler to invoke for each row. Should return <tt>true</tt> to continue processing or
+     *                   <tt>false</tt> to abort the export.
+     * @return the number of exported rows (excluding the header)
+     */
+    public long toRows(Predicate<List<String>> rowHandler) {
+        if (includeHeader && !rowHandler.test(getHeader())) {
+            return 0;
+        }
+
+        return iterate(row -> rowHandler.test(Arrays.asList(formatValues(row))));
+    }
+
+    /**
+     * Writes all rows as CSV (UTF-8 encoded) into the given stream.
+     * <p>
+     * Note that the stream is flushed but not closed.
+     *
+     * @param output the stream to write the CSV data to
+     * @return the number of exported rows (excluding the header)
+     */
+    public long toCSV(OutputStream output) {
+        return write(output, writer -> {
+            if (includeHeader) {
+                writeCSVLine(writer, getHeader().toArray(String[]::new));
+            }
+
+            return iterate(row -> {
+                writeCSVLine(writer, formatValues(row));
+                return true;
+            });
+        });
+    }
+
+    /**
+     * Writes all rows as newline delimited JSON (UTF-8 encoded) into the given stream.
+     * <p>
+     * Each row is written as an object which maps the field names to their values. Numbers and booleans are
+     * written as such, all other values are formatted. Note that the stream is flushed but not closed.
+     *
+     * @param output the stream to write the JSON data to
+     * @return the number of exported rows
+     */
+    public long toNDJSON(OutputStream output) {
+        return write(output, writer -> iterate(row -> {
+            writeLine(writer, toJSON(row).toJSONString());
+            return true;
+        }));
+    }
+
+    private long iterate(Predicate<ValueRow> handler) {
+        AtomicLong rows = new AtomicLong();
+        query.project(Function.identity(), mappings.toArray(Mapping[]::new)).iterate(row -> {
+            if (!handler.test(row)) {
+                return false;
+            }
+
+            rows.incrementAndGet();
+            return true;
+        });
+
+        return rows.get();
+    }
+
+    private long write(OutputStream output, ToLongFunction<Writer> exporter) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        long rows = exporter.applyAsLong(writer);
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw exportError(e);
+        }
+
+        return rows;
+    }
+
+    private List<String> getHeader() {
+        List<String> header = new ArrayList<>(properties.length);
+        for (Property property : properties) {
+            header.add(useLabels ? property.getLabel() : property.getName());
+        }
+
+        return header;
+    }
+
+    private String[] formatValues(ValueRow row) {
+        String[] values = new String[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            values[i] = properties[i].formatValueForUserMessage(row.at(i).get());
+        }
+
+        return values;
+    }
+
+    private JSONObject toJSON(ValueRow row) {
+        JSONObject json = new JSONObject(true);
+        for (int i = 0; i < properties.length; i++) {
+            Object value = row.at(i).get();
+            if (value == null || value instanceof Number || value instanceof Boolean) {
+                json.put(properties[i].getName(), value);
+            } else {
+                json.put(properties[i].getName(), properties[i].formatValueForUserMessage(value));
+            }
+        }
+
+        return json;
+    }
+
+    private void writeCSVLine(Writer writer, String[] values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(separator);
+            }
+            appendCSVValue(line, values[i]);
+        }
+
+        writeLine(writer, line.toString());
+    }
+
+    private void appendCSVValue(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+
+        if (value.indexOf(separator) < 0
+            && value.indexOf(QUOTE) < 0
+            && value.indexOf('\n') < 0
+            && value.indexOf('\r') < 0) {
+            line.append(value);
+            return;
+        }
+
+        line.append(QUOTE).append(value.replace("\"", "\"\"")).append(QUOTE);
+    }
+
+    private void writeLine(Writer writer, String line) {
+        try {
+            writer.write(line);
+            writer.write('\n');
+        } catch (IOException e) {
+            throw exportError(e);
+        }
+    }
+
+    private RuntimeException exportError(IOException e) {
+        return Exceptions.handle()
+                         .to(Mixing.LOG)
+                         .error(e)
+                         .withSystemErrorMessage("Failed to export the results of %s: %s (%s)", query)
+                         .handle();
+    }
+}
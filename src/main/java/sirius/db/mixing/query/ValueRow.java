@@ -0,0 +1,93 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing.query;
+
+import sirius.db.mixing.Mapping;
+import sirius.kernel.commons.Strings;
+import sirius.kernel.commons.Value;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Represents a single result row of a {@link Projection}.
+ * <p>
+ * Contains the values of the projected fields in the order in which they were given. All values have already been
+ * converted by their {@link sirius.db.mixing.Property} just like they would be when loading an entity.
+ */
+public class ValueRow {
+
+    private final List<Mapping> mappings;
+    private final Object[] values;
+
+    /**
+     * Creates a new row.
+     *
+     * @param mappings the projected fields
+     * @param values   the values of the projected fields in the same order
+     */
+    public ValueRow(List<Mapping> mappings, Object[] values) {
+        this.mappings = mappings;
+        this.values = values;
+    }
+
+    /**
+     * Returns the number of values in this row.
+     *
+     * @return the number of projected fields
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Returns the value at the given position.
+     *
+     * @param index the zero based index of the field as given when creating the projection
+     * @return the value at the given position
+     */
+    @Nonnull
+    public Value at(int index) {
+        return Value.of(values[index]);
+    }
+
+    /**
+     * Returns the value of the given field.
+     *
+     * @param mapping the field to fetch the value for
+     * @return the value of the given field
+     * @throws IllegalArgumentException if the field is not part of the projection
+     */
+    @Nonnull
+    public Value getValue(Mapping mapping) {
+        String name = mapping.toString();
+        for (int i = 0; i < values.length; i++) {
+            if (Strings.areEqual(name, mappings.get(i).toString())) {
+                return Value.of(values[i]);
+            }
+        }
+
+        throw new IllegalArgumentException(Strings.apply("Unknown field: %s in %s", name, this));
+    }
+
+    /**
+     * Returns the projected fields.
+     *
+     * @return the fields contained in this row
+     */
+    public List<Mapping> getMappings() {
+        return mappings;
+    }
+
+    @Override
+    public String toString() {
+        return mappings + ": " + Arrays.toString(values);
+    }
+}
@@ -11,13 +11,17 @@ package sirius.db.mixing.query.constraints;
 import sirius.db.mixing.BaseEntity;
 import sirius.db.mixing.EntityDescriptor;
 import sirius.db.mixing.Mapping;
+import sirius.db.mixing.query.QueryCompiler;
 import sirius.db.mixing.query.QueryField;
 import sirius.db.mixing.types.BaseEntityRef;
+import sirius.kernel.cache.Cache;
+import sirius.kernel.cache.CacheManager;
 import sirius.kernel.commons.Amount;
 import sirius.kernel.commons.Explain;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.commons.Tuple;
 import sirius.kernel.commons.Value;
+import sirius.kernel.nls.NLS;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -36,6 +40,12 @@ import java.util.stream.Stream;
  */
 public abstract class FilterFactory<C extends Constraint> {
 
+    /**
+     * Caches compiled query strings as these are commonly sent over and over again.
+     */
+    private static final Cache<String, Tuple<? extends Constraint, Boolean>> COMPILED_QUERIES =
+            CacheManager.createLocalCache("mixing-compiled-queries");
+
     /**
      * Transforms a given value into the representation expected by the database.
      *
@@ -600,11 +610,56 @@ public abstract class FilterFactory<C extends Constraint> {
 
     /**
      * Compiles the given query for the given entity while searching in the given fields.
+     * <p>
+     * As the same queries are commonly compiled over and over again (e.g. by search fields or saved filters), the
+     * compiled constraints are kept in the <tt>mixing-compiled-queries</tt> cache. Queries whose outcome depends on
+     * the time or context of the call (see {@link QueryCompiler#isContextDependent()}) are always compiled anew.
      *
      * @param descriptor the descriptor of the entity being searched
      * @param query      the query to compile
      * @param fields     the default fields to search in
-     * @return a constraint representing the compiled query
+     * @return a constraint representing the compiled query along with a flag which indicates if the compiler was put
+     * into debug mode
+     */
+    @SuppressWarnings("unchecked")
+    @Explain("The cache key contains the class of this factory, therefore all cached constraints are of type C.")
+    public Tuple<C, Boolean> compileString(EntityDescriptor descriptor, String query, List<QueryField> fields) {
+        String cacheKey = computeCompiledQueryKey(descriptor, query, fields);
+        Tuple<? extends Constraint, Boolean> cachedQuery = COMPILED_QUERIES.get(cacheKey);
+        if (cachedQuery != null) {
+            return Tuple.create((C) cachedQuery.getFirst(), cachedQuery.getSecond());
+        }
+
+        QueryCompiler<C> compiler = createQueryCompiler(descriptor, query, fields);
+        C constraint = compiler.compile();
+        if (!compiler.isContextDependent()) {
+            COMPILED_QUERIES.put(cacheKey, Tuple.create(constraint, compiler.isDebugging()));
+        }
+
+        return Tuple.create(constraint, compiler.isDebugging());
+    }
+
+    private String computeCompiledQueryKey(EntityDescriptor descriptor, String query, List<QueryField> fields) {
+        StringBuilder key = new StringBuilder(getClass().getName());
+        key.append("|").append(descriptor.getType().getName());
+        key.append("|").append(NLS.getCurrentLanguage());
+        for (QueryField field : fields) {
+            key.append("|").append(field.getMode()).append(":").append(field.getField());
+        }
+        key.append("|").append(query);
+
+        return key.toString();
+    }
+
+    /**
+     * Creates the compiler used to compile the given query.
+     *
+     * @param descriptor the descriptor of the entity being searched
+     * @param query      the query to compile
+     * @param fields     the default fields to search in
+     * @return the compiler to use
      */
-    public abstract Tuple<C, Boolean> compileString(EntityDescriptor descriptor, String query, List<QueryField> fields);
+    protected abstract QueryCompiler<C> createQueryCompiler(EntityDescriptor descriptor,
+                                                           String query,
+                                                           List<QueryField> fields);
 }
@@ -18,6 +18,11 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.Serial;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -203,6 +208,59 @@ public abstract class BaseEntityRef<I extends Serializable, E extends BaseEntity
      */
     protected abstract Optional<E> find(Class<E> type, I id);
 
+    /**
+     * Performs the lookup of all entities with the given ids.
+     * <p>
+     * By default, this performs a lookup per id. Subclasses should override this to perform a batched lookup via
+     * {@link sirius.db.mixing.BaseMapper#findAll(Class, Collection, sirius.db.mixing.ContextInfo...)}.
+     *
+     * @param type the type to search for
+     * @param ids  the distinct ids to lookup
+     * @return the matching entities in the order of the given ids. Stale ids are represented by an empty optional
+     */
+    protected List<Optional<E>> findAll(Class<E> type, List<I> ids) {
+        return ids.stream().map(entityId -> find(type, entityId)).toList();
+    }
+
+    /**
+     * Loads the referenced entities of all given references using a batched lookup.
+     * <p>
+     * References which are empty or already loaded are skipped. Just like {@link #fetchValue()}, references to
+     * entities which no longer exist are cleared.
+     *
+     * @param references the references to load. Note that all of them have to point to the same entity type
+     * @param <I>        the type of the ids
+     * @param <E>        the type of the referenced entities
+     */
+    public static <I extends Serializable, E extends BaseEntity<I>> void fetchValues(
+            Collection<? extends BaseEntityRef<I, E>> references) {
+        List<BaseEntityRef<I, E>> unloadedReferences = new ArrayList<>();
+        for (BaseEntityRef<I, E> reference : references) {
+            if (reference != null && !reference.isValueLoaded()) {
+                unloadedReferences.add(reference);
+            }
+        }
+        if (unloadedReferences.isEmpty()) {
+            return;
+        }
+
+        BaseEntityRef<I, E> firstReference = unloadedReferences.get(0);
+        List<I> ids = unloadedReferences.stream().map(BaseEntityRef::getId).distinct().toList();
+        Map<I, E> entitiesById = new HashMap<>();
+        for (Optional<E> entity : firstReference.findAll(firstReference.type, ids)) {
+            entity.ifPresent(value -> entitiesById.put(value.getId(), value));
+        }
+
+        for (BaseEntityRef<I, E> reference : unloadedReferences) {
+            E entity = entitiesById.get(reference.id);
+            if (entity != null) {
+                reference.value = entity;
+            } else {
+                reference.id = null;
+            }
+        }
+    }
+
     /**
      * Sets the entity being referenced.
      *
@@ -11,6 +11,7 @@ package sirius.db.mixing.types;
 import sirius.db.mixing.BaseEntity;
 import sirius.db.mixing.ContextInfo;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -43,6 +44,20 @@ public abstract class BaseEntityRefList<E extends BaseEntity<String>, L extends
      */
     protected abstract Optional<E> resolve(String id, ContextInfo... context);
 
+    /**
+     * Resolves the given IDs into entity instances.
+     * <p>
+     * By default, this resolves each ID on its own. Subclasses should override this to perform a batched lookup
+     * via {@link sirius.db.mixing.BaseMapper#findAll(Class, java.util.Collection, ContextInfo...)}.
+     *
+     * @param ids     the ids to resolve
+     * @param context the context used for resolving (routing etc.)
+     * @return the resolved entities in the order of the given IDs. Stale IDs are represented by an empty optional
+     */
+    protected List<Optional<E>> resolveAll(List<String> ids, ContextInfo... context) {
+        return ids.stream().map(id -> resolve(id, context)).toList();
+    }
+
     /**
      * Adds the given entity to the list.
      * <p>
@@ -93,19 +108,23 @@ public abstract class BaseEntityRefList<E extends BaseEntity<String>, L extends
     /**
      * Retruns all entity in the list by resolving them against the database.
      * <p>
-     * This will perform N uncached lookups against the database - use with caution.
+     * The entities are resolved using batched but uncached lookups against the database - use with caution.
      *
      * @param context the lookup context
      * @return a stream of all entities in the list, wrapped as optional. May contain empty optionals for stale IDs
      */
     public Stream<Optional<E>> fetchAll(ContextInfo... context) {
-        return data().stream().map(id -> resolve(id, context));
+        if (isEmpty()) {
+            return Stream.empty();
+        }
+
+        return resolveAll(data(), context).stream();
     }
 
     /**
      * Retruns all entity in the list by resolving them against the database.
      * <p>
-     * This will perform N uncached lookups against the database - use with caution.
+     * The entities are resolved using batched but uncached lookups against the database - use with caution.
      *
      * @param context the lookup context
      * @return a stream of all entities in the list which also exist in the database
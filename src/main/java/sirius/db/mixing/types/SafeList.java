@@ -27,6 +27,13 @@ public abstract class SafeList<T> implements Iterable<T> {
 
     private List<T> data;
 
+    /**
+     * Determines if the underlying list is shared with a snapshot created by {@link #snapshotList()}.
+     * <p>
+     * In this case, the list has to be copied before it is modified.
+     */
+    private boolean shared;
+
     /**
      * Provides readonly access to the underlying list.
      *
@@ -48,6 +55,9 @@ public abstract class SafeList<T> implements Iterable<T> {
     public List<T> modify() {
         if (data == null) {
             data = new ArrayList<>();
+        } else if (shared) {
+            data = new ArrayList<>(data);
+            shared = false;
         }
 
         return data;
@@ -74,6 +84,9 @@ public abstract class SafeList<T> implements Iterable<T> {
      * In contrast to {@link #modify()} this will not create a new list if none is present yet.
      * Therefore the result might be readonly. The is mainly used by the storage engine to
      * re-use internal data structures as much as possible.
+     * <p>
+     * The result must not be modified, as it might be shared with a snapshot created by {@link #snapshotList()}.
+     * Therefore, a readonly view is returned in this case. Use {@link #modify()} to change the contents.
      *
      * @return the original list which was loaded from the database or an empty list if none is present
      */
@@ -82,6 +95,10 @@ public abstract class SafeList<T> implements Iterable<T> {
             return Collections.emptyList();
         }
 
+        if (shared) {
+            return Collections.unmodifiableList(data);
+        }
+
         return data;
     }
 
@@ -95,6 +112,7 @@ public abstract class SafeList<T> implements Iterable<T> {
      */
     public void setData(List<T> newData) {
         this.data = newData;
+        this.shared = false;
     }
 
     /**
@@ -149,7 +167,10 @@ public abstract class SafeList<T> implements Iterable<T> {
      * @return the list itself for fluent method calls
      */
     public SafeList<T> clear() {
-        if (data != null) {
+        if (shared) {
+            data = null;
+            shared = false;
+        } else if (data != null) {
             data.clear();
         }
 
@@ -256,4 +277,26 @@ public abstract class SafeList<T> implements Iterable<T> {
             return new ArrayList<>(data);
         }
     }
+
+    /**
+     * Creates a snapshot of the underlying list which is used by the framework to permit change tracking.
+     * <p>
+     * In contrast to {@link #copyList()} this doesn't necessarily copy the list. If the values don't need to be
+     * copied, the underlying list is shared with the snapshot and only copied once it is modified via
+     * {@link #modify()}. Therefore, entities which are only read, don't have to keep two copies of each list.
+     *
+     * @return a readonly snapshot of the internally stored list
+     */
+    public List<T> snapshotList() {
+        if (data == null) {
+            return Collections.emptyList();
+        }
+
+        if (valueNeedsCopy()) {
+            return copyList();
+        }
+
+        shared = true;
+        return Collections.unmodifiableList(data);
+    }
 }
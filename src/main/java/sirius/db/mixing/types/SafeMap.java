@@ -27,6 +27,13 @@ public abstract class SafeMap<K, V> implements Iterable<Map.Entry<K, V>> {
 
     protected Map<K, V> data;
 
+    /**
+     * Determines if the underlying map is shared with a snapshot created by {@link #snapshotMap()}.
+     * <p>
+     * In this case, the map has to be copied before it is modified.
+     */
+    private boolean shared;
+
     /**
      * Provides readonly access to the underlying map.
      *
@@ -48,6 +55,9 @@ public abstract class SafeMap<K, V> implements Iterable<Map.Entry<K, V>> {
     public Map<K, V> modify() {
         if (data == null) {
             data = new LinkedHashMap<>();
+        } else if (shared) {
+            data = new LinkedHashMap<>(data);
+            shared = false;
         }
 
         return data;
@@ -82,7 +92,10 @@ public abstract class SafeMap<K, V> implements Iterable<Map.Entry<K, V>> {
      * @return the map itself for fluent method calls
      */
     public SafeMap<K, V> clear() {
-        if (data != null) {
+        if (shared) {
+            data = null;
+            shared = false;
+        } else if (data != null) {
             data.clear();
         }
 
@@ -112,6 +125,28 @@ public abstract class SafeMap<K, V> implements Iterable<Map.Entry<K, V>> {
         return result;
     }
 
+    /**
+     * Creates a snapshot of the underlying map which is used by the framework to permit change tracking.
+     * <p>
+     * In contrast to {@link #copyMap()} this doesn't necessarily copy the map. If the values don't need to be
+     * copied, the underlying map is shared with the snapshot and only copied once it is modified via
+     * {@link #modify()}.
+     *
+     * @return a readonly snapshot of the internally stored map
+     */
+    public Map<K, V> snapshotMap() {
+        if (data == null) {
+            return Collections.emptyMap();
+        }
+
+        if (valueNeedsCopy()) {
+            return copyMap();
+        }
+
+        shared = true;
+        return Collections.unmodifiableMap(data);
+    }
+
     /**
      * Determines if values in this map must be copied if the map is copied.
      *
@@ -133,6 +168,9 @@ public abstract class SafeMap<K, V> implements Iterable<Map.Entry<K, V>> {
      * In contrast to {@link #modify()} this will not create a new map if none is present yet.
      * Therefore the result might be readonly. The is mainly used by the storage engine to
      * re-use internal data structures as much as possible.
+     * <p>
+     * The result must not be modified, as it might be shared with a snapshot created by {@link #snapshotMap()}.
+     * Therefore, a readonly view is returned in this case. Use {@link #modify()} to change the contents.
      *
      * @return the original map which was loaded from the database or an empty map if none is present
      */
@@ -141,6 +179,10 @@ public abstract class SafeMap<K, V> implements Iterable<Map.Entry<K, V>> {
             return Collections.emptyMap();
         }
 
+        if (shared) {
+            return Collections.unmodifiableMap(data);
+        }
+
         return data;
     }
 
@@ -154,6 +196,7 @@ public abstract class SafeMap<K, V> implements Iterable<Map.Entry<K, V>> {
      */
     public void setData(Map<K, V> newData) {
         this.data = newData;
+        this.shared = false;
     }
 
     /**
@@ -0,0 +1,111 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mongo;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import sirius.kernel.commons.Watch;
+import sirius.kernel.health.Microtiming;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fluent builder which collects inserts, updates and deletes and performs them as a single bulk write.
+ * <p>
+ * The operations are executed in the order in which they were added. Therefore, the bulk write stops at the first
+ * failing operation. Its index, as reported by {@link MongoBulkWriteException#getWriteErrors()}, matches the order
+ * in which the operations were added, all subsequent operations have not been executed.
+ */
+public class BulkWriter {
+
+    private final Mongo mongo;
+    private final String database;
+    private final String collection;
+    private final List<WriteModel<Document>> models = new ArrayList<>();
+
+    protected BulkWriter(Mongo mongo, String database, String collection) {
+        this.mongo = mongo;
+        this.database = database;
+        this.collection = collection;
+    }
+
+    /**
+     * Adds the given insert to the bulk write.
+     *
+     * @param inserter the insert to perform
+     * @return the builder itself for fluent method calls
+     */
+    public BulkWriter insert(Inserter inserter) {
+        models.add(inserter.toModel());
+        return this;
+    }
+
+    /**
+     * Adds the given update to the bulk write.
+     * <p>
+     * Note that at most one document will be updated.
+     *
+     * @param updater the update to perform
+     * @return the builder itself for fluent method calls
+     */
+    public BulkWriter updateOne(Updater updater) {
+        models.add(updater.toModel(collection));
+        return this;
+    }
+
+    /**
+     * Adds the given delete to the bulk write.
+     * <p>
+     * Note that at most one document will be deleted.
+     *
+     * @param deleter the delete to perform
+     * @return the builder itself for fluent method calls
+     */
+    public BulkWriter deleteOne(Deleter deleter) {
+        models.add(deleter.toModel());
+        return this;
+    }
+
+    /**
+     * Returns the number of operations added so far.
+     *
+     * @return the number of operations to perform
+     */
+    public int size() {
+        return models.size();
+    }
+
+    /**
+     * Executes all operations.
+     *
+     * @return the result of the bulk write
+     * @throws MongoBulkWriteException if one or more operations failed
+     */
+    public BulkWriteResult execute() {
+        Watch w = Watch.start();
+        try {
+            if (Mongo.LOG.isFINE()) {
+                Mongo.LOG.FINE("BULK WRITE: %s\nOperations: %s", collection, models.size());
+            }
+
+            return mongo.db(database)
+                        .getCollection(collection)
+                        .bulkWrite(models, new BulkWriteOptions().ordered(true));
+        } finally {
+            mongo.callDuration.addValue(w.elapsedMillis());
+            if (Microtiming.isEnabled()) {
+                w.submitMicroTiming("mongo", "BULK WRITE - " + collection);
+            }
+        }
+    }
+}
@@ -8,7 +8,9 @@
 
 package sirius.db.mongo;
 
+import com.mongodb.client.model.DeleteOneModel;
 import com.mongodb.client.result.DeleteResult;
+import org.bson.Document;
 import sirius.kernel.commons.Watch;
 import sirius.kernel.health.Microtiming;
 
@@ -86,4 +88,13 @@ public class Deleter extends QueryBuilder<Deleter> {
             traceIfRequired(collection, w);
         }
     }
+
+    /**
+     * Creates a model which performs this delete as part of a {@link BulkWriter bulk write}.
+     *
+     * @return the delete as write model which affects at most one document
+     */
+    protected DeleteOneModel<Document> toModel() {
+        return new DeleteOneModel<>(filterObject);
+    }
 }
@@ -76,6 +76,26 @@ public class Finder extends QueryBuilder<Finder> {
         return newFinder;
     }
 
+    /**
+     * Creates a full copy of this finder which can be modified without modifying this finder.
+     *
+     * @return a copy of this finder which contains the same filters, selected fields, sort order and limits
+     */
+    public Finder copy() {
+        Finder newFinder = copyFilters();
+        if (fields != null) {
+            newFinder.fields = new Document(fields);
+        }
+        if (orderBy != null) {
+            newFinder.orderBy = new Document(orderBy);
+        }
+        newFinder.skip = skip;
+        newFinder.limit = limit;
+        newFinder.batchSize = batchSize;
+
+        return newFinder;
+    }
+
     /**
      * Limits the fields being returned to the given list.
      *
@@ -194,6 +214,17 @@ public class Finder extends QueryBuilder<Finder> {
         return this;
     }
 
+    /**
+     * Returns a string which represents the filters, selected fields and sort order of this finder.
+     * <p>
+     * This is used as key by the {@link sirius.db.mixing.QueryCache}.
+     *
+     * @return the compiled form of this finder (without skip and limit)
+     */
+    protected String getCacheKey() {
+        return filterObject + "|" + fields + "|" + orderBy;
+    }
+
     /**
      * Specifies the number of items per batch. This has no effect on the result. Low batchSizes can be used
      * to prevent cursor timeouts when using a time consuming processor, but will be slower because the cursor
@@ -249,9 +280,13 @@ public class Finder extends QueryBuilder<Finder> {
     }
 
     private FindIterable<Document> buildCursor(String collection) {
+        return buildCursor(collection, fields);
+    }
+
+    private FindIterable<Document> buildCursor(String collection, @Nullable Document projection) {
         FindIterable<Document> cursor = getMongoCollection(collection).find(filterObject);
-        if (fields != null) {
-            cursor.projection(fields);
+        if (projection != null) {
+            cursor.projection(projection);
         }
         if (orderBy != null) {
             cursor.sort(orderBy);
@@ -288,11 +323,31 @@ public class Finder extends QueryBuilder<Finder> {
      * @param processor  the processor to handle matches, which also controls if further results should be processed
      */
     public void eachIn(String collection, Predicate<Doc> processor) {
+        eachIn(collection, fields, processor);
+    }
+
+    /**
+     * Executes the query for the given collection but only returns the given fields.
+     * <p>
+     * Any fields specified via {@link #selectFields(Mapping...)} are ignored.
+     *
+     * @param collection     the collection to search in
+     * @param fieldsToReturn the fields to return
+     * @param processor      the processor to handle matches, which also controls if further results should be
+     *                       processed
+     */
+    public void eachIn(String collection, List<Mapping> fieldsToReturn, Predicate<Doc> processor) {
+        Document projection = new Document();
+        fieldsToReturn.forEach(field -> projection.put(field.toString(), 1));
+        eachIn(collection, projection, processor);
+    }
+
+    private void eachIn(String collection, @Nullable Document projection, Predicate<Doc> processor) {
         if (Mongo.LOG.isFINE()) {
             Mongo.LOG.FINE("FIND: %s\nFilter: %s", collection, filterObject);
         }
 
-        FindIterable<Document> cursor = buildCursor(collection);
+        FindIterable<Document> cursor = buildCursor(collection, projection);
         if (limit > 0) {
             cursor.limit(limit);
         }
@@ -9,6 +9,7 @@
 package sirius.db.mongo;
 
 import com.mongodb.BasicDBList;
+import com.mongodb.client.model.InsertOneModel;
 import org.bson.Document;
 import sirius.db.mixing.Mapping;
 import sirius.kernel.commons.Watch;
@@ -108,4 +109,13 @@ public class Inserter {
         }
         return new Doc(obj);
     }
+
+    /**
+     * Creates a model which performs this insert as part of a {@link BulkWriter bulk write}.
+     *
+     * @return the insert as write model
+     */
+    protected InsertOneModel<Document> toModel() {
+        return new InsertOneModel<>(obj);
+    }
 }
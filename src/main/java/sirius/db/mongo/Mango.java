@@ -9,8 +9,11 @@
 package sirius.db.mongo;
 
 import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
 import com.mongodb.MongoWriteException;
 import com.mongodb.ReadPreference;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.IndexOptions;
 import org.bson.Document;
@@ -18,8 +21,10 @@ import sirius.db.mixing.BaseMapper;
 import sirius.db.mixing.EntityDescriptor;
 import sirius.db.mixing.IntegrityConstraintFailedException;
 import sirius.db.mixing.Mapping;
+import sirius.db.mixing.MaterializationPlan;
 import sirius.db.mixing.OptimisticLockException;
 import sirius.db.mixing.Property;
+import sirius.db.mixing.SessionOperation;
 import sirius.db.mixing.annotations.Index;
 import sirius.db.mixing.annotations.SkipDefaultValue;
 import sirius.db.mongo.constraints.MongoConstraint;
@@ -31,6 +36,11 @@ import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
 import sirius.kernel.health.Exceptions;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IntSummaryStatistics;
 import java.util.List;
@@ -74,19 +84,7 @@ public class Mango extends BaseMapper<MongoEntity, MongoConstraint, MongoQuery<?
     protected void createEntity(MongoEntity entity, EntityDescriptor entityDescriptor) throws Exception {
         Inserter insert = mongo.insert();
         String generatedId = entity.generateId();
-        insert.set(MongoEntity.ID, generatedId);
-        if (entityDescriptor.isVersioned()) {
-            insert.set(VERSION, 1);
-        }
-
-        for (Property property : entityDescriptor.getProperties()) {
-            Object valueForDatasource = property.getValueForDatasource(Mango.class, entity);
-            if (!MongoEntity.ID.getName().equals(property.getName()) && (!isDefaultValue(property, valueForDatasource)
-                                                                         || !property.isAnnotationPresent(
-                    SkipDefaultValue.class))) {
-                insert.set(property.getPropertyName(), valueForDatasource);
-            }
-        }
+        prepareInsert(insert, entity, entityDescriptor, generatedId);
 
         try {
             insert.into(entityDescriptor.getRelationName());
@@ -106,30 +104,10 @@ public class Mango extends BaseMapper<MongoEntity, MongoConstraint, MongoQuery<?
     @Override
     protected void updateEntity(MongoEntity entity, boolean force, EntityDescriptor entityDescriptor) throws Exception {
         Updater updater = mongo.update(entityDescriptor.getRealm());
-        boolean changed = false;
-        for (Property property : entityDescriptor.getProperties()) {
-            if (entityDescriptor.isChanged(entity, property)) {
-                if (MongoEntity.ID.getName().equals(property.getName())) {
-                    throw new IllegalStateException("The id column of an entity must not be modified manually!");
-                }
-
-                writeField(entity, updater, property);
-                changed = true;
-            }
-        }
-
-        if (!changed) {
+        if (!prepareUpdate(updater, entity, force, entityDescriptor)) {
             return;
         }
 
-        updater.where(MongoEntity.ID, entity.getId());
-        if (entityDescriptor.isVersioned()) {
-            updater.set(VERSION, entity.getVersion() + 1);
-            if (!force) {
-                updater.where(VERSION, entity.getVersion());
-            }
-        }
-
         try {
             long updatedRows = updater.executeForOne(entityDescriptor.getRelationName()).getModifiedCount();
             enforceUpdate(entity, force, updatedRows, entityDescriptor.isVersioned());
@@ -146,6 +124,54 @@ public class Mango extends BaseMapper<MongoEntity, MongoConstraint, MongoQuery<?
         }
     }
 
+    private void prepareInsert(Inserter insert,
+                               MongoEntity entity,
+                               EntityDescriptor entityDescriptor,
+                               String generatedId) {
+        insert.set(MongoEntity.ID, generatedId);
+        if (entityDescriptor.isVersioned()) {
+            insert.set(VERSION, 1);
+        }
+
+        for (Property property : entityDescriptor.getProperties()) {
+            Object valueForDatasource = property.getValueForDatasource(Mango.class, entity);
+            if (!MongoEntity.ID.getName().equals(property.getName()) && (!isDefaultValue(property, valueForDatasource)
+                                                                         || !property.isAnnotationPresent(
+                    SkipDefaultValue.class))) {
+                insert.set(property.getPropertyName(), valueForDatasource);
+            }
+        }
+    }
+
+    private boolean prepareUpdate(Updater updater,
+                                  MongoEntity entity,
+                                  boolean force,
+                                  EntityDescriptor entityDescriptor) {
+        boolean changed = false;
+        for (Property property : entityDescriptor.getChangedProperties(entity)) {
+            if (MongoEntity.ID.getName().equals(property.getName())) {
+                throw new IllegalStateException("The id column of an entity must not be modified manually!");
+            }
+
+            writeField(entity, updater, property);
+            changed = true;
+        }
+
+        if (!changed) {
+            return false;
+        }
+
+        updater.where(MongoEntity.ID, entity.getId());
+        if (entityDescriptor.isVersioned()) {
+            updater.set(VERSION, entity.getVersion() + 1);
+            if (!force) {
+                updater.where(VERSION, entity.getVersion());
+            }
+        }
+
+        return true;
+    }
+
     private void writeField(MongoEntity entity, Updater updater, Property property) {
         Object valueForDatasource = property.getValueForDatasource(Mango.class, entity);
         if (property.isAnnotationPresent(SkipDefaultValue.class) && isDefaultValue(property, valueForDatasource)) {
@@ -193,9 +219,8 @@ public class Mango extends BaseMapper<MongoEntity, MongoConstraint, MongoQuery<?
                 throw new OptimisticLockException();
             } else {
                 String changedProperties = entity.getDescriptor()
-                                                 .getProperties()
+                                                 .getChangedProperties(entity)
                                                  .stream()
-                                                 .filter(property -> entity.getDescriptor().isChanged(entity, property))
                                                  .map(Property::getName)
                                                  .collect(Collectors.joining(", "));
                 throw Exceptions.handle()
@@ -236,6 +261,221 @@ public class Mango extends BaseMapper<MongoEntity, MongoConstraint, MongoQuery<?
         }
     }
 
+    /**
+     * Performs the given operations as {@link BulkWriter bulk writes}.
+     * <p>
+     * Consecutive operations on the same collection are combined into one ordered bulk write, therefore all
+     * operations are performed in the order in which they were queued. If an operation fails, the remaining
+     * operations of the bulk write are sent again as a new bulk write.
+     * <p>
+     * As a bulk write only reports the total number of matched and deleted documents, the affected entities are
+     * only checked for their existence if these numbers don't add up. Updates and deletes of versioned entities are
+     * therefore performed one by one, as only then a concurrent modification can be detected reliably.
+     *
+     * @param operations the operations to perform
+     */
+    @Override
+    protected void executeWrites(List<SessionOperation<MongoEntity>> operations) {
+        int start = 0;
+        while (start < operations.size()) {
+            SessionOperation<MongoEntity> operation = operations.get(start);
+            EntityDescriptor entityDescriptor = operation.getEntity().getDescriptor();
+            if (isSingleWrite(operation)) {
+                executeVersionedWrite(operation, entityDescriptor);
+                start++;
+                continue;
+            }
+
+            int end = start + 1;
+            while (end < operations.size()
+                   && operations.get(end).getEntity().getDescriptor() == entityDescriptor
+                   && !isSingleWrite(operations.get(end))) {
+                end++;
+            }
+
+            List<SessionOperation<MongoEntity>> remainingOperations = operations.subList(start, end);
+            while (!remainingOperations.isEmpty()) {
+                remainingOperations = executeBulkWrite(entityDescriptor, remainingOperations);
+            }
+            start = end;
+        }
+    }
+
+    private boolean isSingleWrite(SessionOperation<MongoEntity> operation) {
+        return operation.getType() != SessionOperation.Type.CREATE
+               && operation.getEntity().getDescriptor().isVersioned();
+    }
+
+    /**
+     * Performs the given operations as a single ordered bulk write.
+     *
+     * @return the operations which haven't been executed, as the bulk write stopped at a failing operation
+     */
+    private List<SessionOperation<MongoEntity>> executeBulkWrite(EntityDescriptor entityDescriptor,
+                                                                 List<SessionOperation<MongoEntity>> operations) {
+        BulkWriter writer = mongo.bulkWrite(entityDescriptor.getRealm(), entityDescriptor.getRelationName());
+        List<SessionOperation<MongoEntity>> writtenOperations = new ArrayList<>();
+        List<String> generatedIds = new ArrayList<>();
+        for (SessionOperation<MongoEntity> operation : operations) {
+            try {
+                String generatedId = prepareBulkWrite(writer, operation, entityDescriptor);
+                if (writer.size() > writtenOperations.size()) {
+                    writtenOperations.add(operation);
+                    generatedIds.add(generatedId);
+                } else {
+                    // Updates without any changes are skipped entirely...
+                    operation.markWritten();
+                }
+            } catch (Exception e) {
+                operation.fail(e);
+            }
+        }
+
+        if (writer.size() == 0) {
+            return Collections.emptyList();
+        }
+
+        BulkWriteResult result;
+        List<SessionOperation<MongoEntity>> remainingOperations = Collections.emptyList();
+        try {
+            result = writer.execute();
+        } catch (MongoBulkWriteException e) {
+            // As the bulk write is ordered, it stops at the first failing operation...
+            int failedIndex = writtenOperations.size();
+            for (BulkWriteError error : e.getWriteErrors()) {
+                if (error.getIndex() < failedIndex) {
+                    failedIndex = error.getIndex();
+                    writtenOperations.get(failedIndex)
+                                     .fail(error.getCategory() == ErrorCategory.DUPLICATE_KEY ?
+                                           new IntegrityConstraintFailedException(e) :
+                                           e);
+                }
+            }
+            if (failedIndex < writtenOperations.size()) {
+                remainingOperations = new ArrayList<>(writtenOperations.subList(failedIndex + 1,
+                                                                                writtenOperations.size()));
+                writtenOperations = writtenOperations.subList(0, failedIndex + 1);
+            }
+            result = e.getWriteResult();
+        }
+
+        completeBulkWrite(entityDescriptor, writtenOperations, generatedIds, result);
+        return remainingOperations;
+    }
+
+    private void executeVersionedWrite(SessionOperation<MongoEntity> operation, EntityDescriptor entityDescriptor) {
+        try {
+            if (operation.getType() == SessionOperation.Type.DELETE) {
+                deleteEntity(operation.getEntity(), false, entityDescriptor);
+            } else {
+                updateEntity(operation.getEntity(), false, entityDescriptor);
+            }
+            operation.markWritten();
+        } catch (Exception e) {
+            operation.fail(e);
+        }
+    }
+
+    @Nullable
+    private String prepareBulkWrite(BulkWriter writer,
+                                    SessionOperation<MongoEntity> operation,
+                                    EntityDescriptor entityDescriptor) {
+        MongoEntity entity = operation.getEntity();
+        switch (operation.getType()) {
+            case CREATE -> {
+                Inserter insert = mongo.insert(entityDescriptor.getRealm());
+                String generatedId = entity.generateId();
+                prepareInsert(insert, entity, entityDescriptor, generatedId);
+                writer.insert(insert);
+                return generatedId;
+            }
+            case UPDATE -> {
+                Updater updater = mongo.update(entityDescriptor.getRealm());
+                if (prepareUpdate(updater, entity, false, entityDescriptor)) {
+                    writer.updateOne(updater);
+                }
+            }
+            case DELETE -> {
+                Deleter deleter = mongo.delete(entityDescriptor.getRealm()).where(MongoEntity.ID, entity.getId());
+                if (entityDescriptor.isVersioned()) {
+                    deleter.where(VERSION, entity.getVersion());
+                }
+                writer.deleteOne(deleter);
+            }
+        }
+
+        return null;
+    }
+
+    private void completeBulkWrite(EntityDescriptor entityDescriptor,
+                                   List<SessionOperation<MongoEntity>> operations,
+                                   List<String> generatedIds,
+                                   BulkWriteResult result) {
+        long expectedMatches = countSuccessfulOperations(operations, SessionOperation.Type.UPDATE);
+        Set<String> existingIds = null;
+        if (result.getMatchedCount() < expectedMatches) {
+            existingIds = fetchExistingIds(entityDescriptor, operations);
+        }
+
+        for (int i = 0; i < operations.size(); i++) {
+            SessionOperation<MongoEntity> operation = operations.get(i);
+            if (!operation.isFailed()) {
+                completeBulkWrite(entityDescriptor, operation, generatedIds.get(i), existingIds);
+            }
+        }
+    }
+
+    private long countSuccessfulOperations(List<SessionOperation<MongoEntity>> operations,
+                                           SessionOperation.Type type) {
+        return operations.stream()
+                         .filter(operation -> !operation.isFailed() && operation.getType() == type)
+                         .count();
+    }
+
+    private Set<String> fetchExistingIds(EntityDescriptor entityDescriptor,
+                                         List<SessionOperation<MongoEntity>> operations) {
+        Set<String> result = new HashSet<>();
+        List<String> remainingIds = operations.stream()
+                                              .filter(operation -> operation.getType()
+                                                                   == SessionOperation.Type.UPDATE)
+                                              .map(operation -> operation.getEntity().getId())
+                                              .collect(Collectors.toList());
+        while (!remainingIds.isEmpty()) {
+            List<String> idsToFetch = remainingIds.subList(0, Math.min(remainingIds.size(), MAX_IDS_PER_LOOKUP));
+            mongo.find(entityDescriptor.getRealm())
+                 .selectFields(MongoEntity.ID.getName())
+                 .where(QueryBuilder.FILTERS.oneInField(MongoEntity.ID, new ArrayList<>(idsToFetch)).build())
+                 .allIn(entityDescriptor.getRelationName(), doc -> result.add(doc.getString(MongoEntity.ID)));
+            idsToFetch.clear();
+        }
+
+        return result;
+    }
+
+    private void completeBulkWrite(EntityDescriptor entityDescriptor,
+                                   SessionOperation<MongoEntity> operation,
+                                   @Nullable String generatedId,
+                                   @Nullable Set<String> existingIds) {
+        MongoEntity entity = operation.getEntity();
+        if (operation.getType() == SessionOperation.Type.CREATE) {
+            entity.setId(generatedId);
+            if (entityDescriptor.isVersioned()) {
+                entity.setVersion(1);
+            }
+        } else if (operation.getType() == SessionOperation.Type.UPDATE
+                   && existingIds != null
+                   && !existingIds.contains(entity.getId())) {
+            operation.fail(Exceptions.handle()
+                                     .to(Mongo.LOG)
+                                     .withSystemErrorMessage("The entity %s (%s) cannot be updated as it does not "
+                                                             + "exist in the database!", entity, entity.getId())
+                                     .handle());
+            return;
+        }
+
+        operation.markWritten();
+    }
+
     @Override
     protected <E extends MongoEntity> Optional<E> findEntity(Object id,
                                                              EntityDescriptor entityDescriptor,
@@ -246,6 +486,18 @@ public class Mango extends BaseMapper<MongoEntity, MongoConstraint, MongoQuery<?
                     .map(doc -> make(entityDescriptor, doc));
     }
 
+    @Override
+    protected <E extends MongoEntity> List<E> findEntities(List<Object> ids,
+                                                           EntityDescriptor entityDescriptor,
+                                                           Function<String, Value> context) throws Exception {
+        List<E> result = new ArrayList<>(ids.size());
+        mongo.find(entityDescriptor.getRealm())
+             .where(QueryBuilder.FILTERS.oneInField(MongoEntity.ID, ids.stream().map(Object::toString).toList())
+                                        .build())
+             .allIn(entityDescriptor.getRelationName(), doc -> result.add(make(entityDescriptor, doc)));
+        return result;
+    }
+
     /**
      * Creates a new entity for the given descriptor based on the given doc.
      *
@@ -254,12 +506,35 @@ public class Mango extends BaseMapper<MongoEntity, MongoConstraint, MongoQuery<?
      * @param <E>        the effective type of the generated entity
      * @return the generated entity
      */
-    @SuppressWarnings("unchecked")
     public static <E extends MongoEntity> E make(EntityDescriptor descriptor, Doc doc) {
+        return make(descriptor, doc, false);
+    }
+
+    /**
+     * Creates a new entity for the given descriptor based on the given doc.
+     *
+     * @param descriptor the descriptor of the entity to create
+     * @param doc        the document to read the values from
+     * @param readOnly   determines if a {@link sirius.db.mixing.BaseEntity#isReadOnly() read-only} entity is
+     *                   created
+     * @param <E>        the effective type of the generated entity
+     * @return the generated entity
+     */
+    @SuppressWarnings("unchecked")
+    public static <E extends MongoEntity> E make(EntityDescriptor descriptor, Doc doc, boolean readOnly) {
         try {
-            E result = (E) descriptor.make(Mango.class,
-                                           null,
-                                           key -> doc.getUnderlyingObject().containsKey(key) ? doc.get(key) : null);
+            Document document = doc.getUnderlyingObject();
+            MaterializationPlan plan = descriptor.getMaterializationPlan(null);
+            if (readOnly) {
+                plan = plan.asReadOnly();
+            }
+            E result = (E) plan.make(Mango.class, key -> {
+                Object value = document.get(key);
+                if (value == null && !document.containsKey(key)) {
+                    return null;
+                }
+                return Value.of(value);
+            });
             if (descriptor.isVersioned()) {
                 result.setVersion(doc.get(VERSION).asInt(0));
             }
@@ -449,6 +724,64 @@ public class Mango extends BaseMapper<MongoEntity, MongoConstraint, MongoQuery<?
                     .orElse(Value.EMPTY);
     }
 
+    @Override
+    public Map<String, Map<Mapping, Value>> fetchFields(Class<? extends MongoEntity> type,
+                                                        Collection<?> ids,
+                                                        Collection<Mapping> fields) throws Exception {
+        EntityDescriptor descriptor = mixing.getDescriptor(type);
+        Map<String, Map<Mapping, Value>> result = new HashMap<>();
+        List<String> remainingIds = ids.stream().map(Object::toString).collect(Collectors.toList());
+        List<Mapping> fieldsToSelect = new ArrayList<>(fields);
+        fieldsToSelect.add(MongoEntity.ID);
+        while (!remainingIds.isEmpty()) {
+            List<String> idsToFetch = remainingIds.subList(0, Math.min(remainingIds.size(), MAX_IDS_PER_LOOKUP));
+            mongo.find(descriptor.getRealm())
+                 .selectFields(fieldsToSelect.toArray(new Mapping[0]))
+                 .where(QueryBuilder.FILTERS.oneInField(MongoEntity.ID, new ArrayList<>(idsToFetch)).build())
+                 .allIn(descriptor.getRelationName(), doc -> {
+                     Map<Mapping, Value> values = new HashMap<>();
+                     for (Mapping field : fields) {
+                         values.put(field,
+                                    Value.of(descriptor.getProperty(field)
+                                                       .transformFromDatasource(getClass(), doc.get(field))));
+                     }
+                     result.put(doc.getString(MongoEntity.ID), values);
+                 });
+            idsToFetch.clear();
+        }
+
+        return result;
+    }
+
+    @Override
+    protected long executeDeleteAllWhere(EntityDescriptor descriptor, Mapping field, Object value)
+            throws Exception {
+        return mongo.delete(descriptor.getRealm())
+                    .where(field, value)
+                    .manyFrom(descriptor.getRelationName())
+                    .getDeletedCount();
+    }
+
+    @Override
+    protected long executeClearAllWhere(EntityDescriptor descriptor, Mapping field, Object value)
+            throws Exception {
+        return mongo.update(descriptor.getRealm())
+                    .where(field, value)
+                    .set(field, null)
+                    .executeForMany(descriptor.getRelationName())
+                    .getModifiedCount();
+    }
+
+    @Override
+    protected long executeRemoveFromAllWhere(EntityDescriptor descriptor, Mapping field, Object value)
+            throws Exception {
+        return mongo.update(descriptor.getRealm())
+                    .where(field, value)
+                    .pull(field, value)
+                    .executeForMany(descriptor.getRelationName())
+                    .getModifiedCount();
+    }
+
     @Override
     protected int determineRetryTimeoutFactor() {
         return 50;
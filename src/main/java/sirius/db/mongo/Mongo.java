@@ -306,6 +306,17 @@ public class Mongo implements Startable, Stoppable {
         return new Deleter(this, database);
     }
 
+    /**
+     * Returns a fluent builder which performs several inserts, updates and deletes as a single bulk write.
+     *
+     * @param database   the name of the database configuration to use.
+     * @param collection the collection to write to
+     * @return a builder to collect the operations to perform
+     */
+    public BulkWriter bulkWrite(String database, String collection) {
+        return new BulkWriter(this, database, collection);
+    }
+
     /**
      * Returns a fluent query builder to delete one or more documents in the default database.
      *
@@ -52,12 +52,16 @@ public abstract class MongoEntity extends BaseEntity<String> {
             finder.where(QueryBuilder.FILTERS.ne(MongoEntity.ID, getId()));
         }
         for (Mapping withinField : within) {
-            finder.where(withinField,
-                         getDescriptor().getProperty(withinField).getValueForDatasource(Mango.class, this));
+            finder.where(withinField, getUniqueWithinValue(withinField));
         }
         return finder.singleIn(getDescriptor().getRelationName()).isEmpty();
     }
 
+    @Override
+    protected Object getUniqueWithinValue(Mapping withinField) {
+        return getDescriptor().getProperty(withinField).getValueForDatasource(Mango.class, this);
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public <E extends BaseEntity<?>, C extends Constraint, Q extends Query<Q, E, C>> BaseMapper<E, C, Q> getMapper() {
@@ -99,4 +103,9 @@ public abstract class MongoEntity extends BaseEntity<String> {
     public void setVersion(int version) {
         this.version = version;
     }
+
+    @Override
+    protected void transferMetadata(BaseEntity<?> copy) {
+        ((MongoEntity) copy).version = version;
+    }
 }
@@ -11,6 +11,11 @@ package sirius.db.mongo;
 import sirius.db.util.BaseEntityCache;
 import sirius.kernel.di.std.Part;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
 /**
  * Provides a template for caching mongo entities in an on-heap cache.
  *
@@ -25,4 +30,14 @@ public abstract class MongoEntityCache<E extends MongoEntity> extends BaseEntity
     protected E fetchFromDb(String id) {
         return mango.find(getEntityClass(), id).orElse(null);
     }
+
+    @Override
+    protected Map<String, E> fetchAllFromDb(Collection<String> ids) {
+        Map<String, E> result = new HashMap<>();
+        for (Optional<E> entity : mango.findAll(getEntityClass(), ids)) {
+            entity.ifPresent(value -> result.put(value.getIdAsString(), value));
+        }
+
+        return result;
+    }
 }
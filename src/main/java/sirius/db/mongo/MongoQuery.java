@@ -9,10 +9,15 @@
 package sirius.db.mongo;
 
 import com.mongodb.ReadPreference;
+import org.bson.Document;
 import sirius.db.mixing.EntityDescriptor;
+import sirius.db.mixing.EntityMetrics;
 import sirius.db.mixing.Mapping;
 import sirius.db.mixing.Mixing;
+import sirius.db.mixing.Property;
+import sirius.db.mixing.query.PrefetchingSpliterator;
 import sirius.db.mixing.query.Query;
+import sirius.db.mixing.query.ValueRow;
 import sirius.db.mixing.query.constraints.FilterFactory;
 import sirius.db.mongo.constraints.MongoConstraint;
 import sirius.db.mongo.facets.MongoFacet;
@@ -62,6 +67,33 @@ public class MongoQuery<E extends MongoEntity> extends Query<MongoQuery<E>, E, M
         this.finder = mongo.find(descriptor.getRealm(), readPreference);
     }
 
+    private MongoQuery(EntityDescriptor descriptor, Finder finder) {
+        super(descriptor);
+        this.finder = finder;
+    }
+
+    /**
+     * Creates a full copy of the query which can be modified without modifying this query.
+     * <p>
+     * Note that attached facets are not copied.
+     *
+     * @return a copy of this query
+     */
+    @Override
+    public MongoQuery<E> copy() {
+        MongoQuery<E> copy = new MongoQuery<>(descriptor, finder.copy());
+        copy.limit = limit;
+        copy.skip = skip;
+        copy.forceFail = forceFail;
+        copy.readOnly = readOnly;
+        copy.cacheTTL = cacheTTL;
+        if (prefetchedReferences != null) {
+            copy.prefetchedReferences = new ArrayList<>(prefetchedReferences);
+        }
+
+        return copy;
+    }
+
     /**
      * Limits the fields being returned to the given list.
      *
@@ -155,7 +187,33 @@ public class MongoQuery<E extends MongoEntity> extends Query<MongoQuery<E>, E, M
         if (forceFail) {
             return;
         }
-        finder.eachIn(descriptor.getRelationName(), doc -> resultHandler.test(Mango.make(descriptor, doc)));
+        EntityMetrics.Measurement measurement = entityMetrics.start(descriptor, EntityMetrics.Operation.QUERY);
+        try {
+            Predicate<E> handler = measurement.wrap(resultHandler);
+            finder.eachIn(descriptor.getRelationName(), doc -> handler.test(Mango.make(descriptor, doc, readOnly)));
+        } finally {
+            measurement.finish();
+        }
+    }
+
+    @Override
+    protected void iterateRows(List<Mapping> mappings, Predicate<ValueRow> handler) {
+        Property[] properties = mappings.stream().map(descriptor::getProperty).toArray(Property[]::new);
+        EntityMetrics.Measurement measurement = entityMetrics.start(descriptor, EntityMetrics.Operation.QUERY);
+        try {
+            Predicate<ValueRow> rowHandler = measurement.wrap(handler);
+            finder.eachIn(descriptor.getRelationName(), mappings, doc -> {
+                Document document = doc.getUnderlyingObject();
+                Object[] values = new Object[properties.length];
+                for (int i = 0; i < properties.length; i++) {
+                    Object value = document.get(properties[i].getPropertyName());
+                    values[i] = properties[i].transformFromDatasource(Mango.class, Value.of(value));
+                }
+                return rowHandler.test(new ValueRow(mappings, values));
+            });
+        } finally {
+            measurement.finish();
+        }
     }
 
     @Override
@@ -164,7 +222,22 @@ public class MongoQuery<E extends MongoEntity> extends Query<MongoQuery<E>, E, M
             return Stream.empty();
         }
 
-        String relation = descriptor.getRelationName();
+        assertStreamableBlockwise();
+        return StreamSupport.stream(new MongoQuerySpliterator(descriptor.getRelationName()), false);
+    }
+
+    @Override
+    public Stream<E> streamBlockwise(int prefetchedBlocks) {
+        if (forceFail || prefetchedBlocks <= 0) {
+            return streamBlockwise();
+        }
+
+        assertStreamableBlockwise();
+        MongoQuerySpliterator spliterator = new MongoQuerySpliterator(descriptor.getRelationName());
+        return PrefetchingSpliterator.stream(spliterator::pullNextBlock, prefetchedBlocks, null);
+    }
+
+    private void assertStreamableBlockwise() {
         if (limit > 0) {
             throw new UnsupportedOperationException("MongoQuery doesn't allow 'limit' in streamBlockwise");
         }
@@ -174,8 +247,6 @@ public class MongoQuery<E extends MongoEntity> extends Query<MongoQuery<E>, E, M
         if (finder.orderBy != null && !finder.orderBy.isEmpty()) {
             throw new UnsupportedOperationException("MongoQuery doesn't allow any explicit ordering in streamBlockwise");
         }
-
-        return StreamSupport.stream(new MongoQuerySpliterator(relation), false);
     }
 
     private class MongoQuerySpliterator extends PullBasedSpliterator<E> {
@@ -206,12 +277,13 @@ public class MongoQuery<E extends MongoEntity> extends Query<MongoQuery<E>, E, M
             if (lastId != null) {
                 query.where(QueryBuilder.FILTERS.gt(MongoEntity.ID, lastId));
             }
-            query.allIn(relation, doc -> buffer.add(Mango.make(descriptor, doc)));
+            query.allIn(relation, doc -> buffer.add(Mango.make(descriptor, doc, readOnly)));
 
             if (!buffer.isEmpty()) {
                 lastId = buffer.get(buffer.size() - 1).getId();
             }
 
+            prefetchReferences(buffer);
             return buffer.iterator();
         }
     }
@@ -221,7 +293,17 @@ public class MongoQuery<E extends MongoEntity> extends Query<MongoQuery<E>, E, M
         if (forceFail) {
             return 0;
         }
-        return finder.countIn(descriptor.getRelationName());
+
+        return countCached(this::executeCount);
+    }
+
+    private long executeCount() {
+        EntityMetrics.Measurement measurement = entityMetrics.start(descriptor, EntityMetrics.Operation.COUNT);
+        try {
+            return finder.countIn(descriptor.getRelationName());
+        } finally {
+            measurement.finish();
+        }
     }
 
     /**
@@ -273,7 +355,7 @@ public class MongoQuery<E extends MongoEntity> extends Query<MongoQuery<E>, E, M
         }
 
         finder.sample(descriptor.getRelationName(), doc -> {
-            result.add(Mango.make(descriptor, doc));
+            result.add(Mango.make(descriptor, doc, readOnly));
             failOnOverflow(result);
             return true;
         });
@@ -380,6 +462,11 @@ public class MongoQuery<E extends MongoEntity> extends Query<MongoQuery<E>, E, M
         finder.executeFacets(descriptor, facets);
     }
 
+    @Override
+    protected String getCacheKey() {
+        return descriptor.getRelationName() + "|" + finder.getCacheKey();
+    }
+
     @Override
     public String toString() {
         return descriptor.getType() + ": " + finder.toString();
@@ -113,7 +113,10 @@ public abstract class QueryBuilder<S> {
         if (filterObject.containsField(filter.getKey())) {
             Object other = filterObject.get(filter.getKey());
             if ("$and".equals(filter.getKey())) {
-                ((List<MongoConstraint>) other).addAll((List<MongoConstraint>) filter.getObject());
+                // Combine both lists into a new one, as the given constraint might be shared (e.g. if it was cached)...
+                List<Object> combined = new ArrayList<>((List<Object>) other);
+                combined.addAll((List<Object>) filter.getObject());
+                filterObject.put("$and", combined);
                 return (S) this;
             }
 
@@ -10,6 +10,7 @@ package sirius.db.mongo;
 
 import com.mongodb.BasicDBList;
 import com.mongodb.BasicDBObject;
+import com.mongodb.client.model.UpdateOneModel;
 import com.mongodb.client.model.UpdateOptions;
 import com.mongodb.client.result.UpdateResult;
 import org.bson.Document;
@@ -387,4 +388,14 @@ public class Updater extends QueryBuilder<Updater> {
         }
         return updateObject;
     }
+
+    /**
+     * Creates a model which performs this update as part of a {@link BulkWriter bulk write}.
+     *
+     * @param collection the collection to update
+     * @return the update as write model which affects at most one document
+     */
+    protected UpdateOneModel<Document> toModel(String collection) {
+        return new UpdateOneModel<>(filterObject, prepareUpdate(collection), new UpdateOptions().upsert(upsert));
+    }
 }
@@ -15,6 +15,7 @@ import sirius.db.mongo.Mango;
 import sirius.db.mongo.MongoEntity;
 import sirius.kernel.di.std.Part;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -43,4 +44,9 @@ public class MongoRefList<E extends MongoEntity> extends BaseEntityRefList<E, Mo
     protected Optional<E> resolve(String id, ContextInfo... context) {
         return mango.find(type, id);
     }
+
+    @Override
+    protected List<Optional<E>> resolveAll(List<String> ids, ContextInfo... context) {
+        return mango.findAll(type, ids);
+    }
 }
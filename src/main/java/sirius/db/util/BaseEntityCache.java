@@ -12,24 +12,71 @@ import sirius.db.mixing.BaseEntity;
 import sirius.db.mixing.types.BaseEntityRef;
 import sirius.kernel.cache.Cache;
 import sirius.kernel.cache.CacheManager;
+import sirius.kernel.async.Tasks;
 import sirius.kernel.commons.Strings;
+import sirius.kernel.di.std.Part;
 import sirius.kernel.health.Exceptions;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.Serializable;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Provides a template for caching entities using a coherent on-heap cache.
+ * <p>
+ * Optionally, a cache can operate in a <b>refresh-ahead</b> mode by overriding {@link #getRefreshAheadInterval()}.
+ * Entries which are accessed after this interval are reloaded in the background while the current value is still
+ * returned. This way, hot entries are kept up to date without any reader being blocked by a database lookup. Note
+ * that this is intended for rather small caches of frequently used entities (like tenants or configurations).
  *
  * @param <I> the type of the ID field used by the entity
  * @param <E> the type of entities being cached
  */
 public abstract class BaseEntityCache<I extends Serializable, E extends BaseEntity<I>> {
 
+    private static final String REFRESH_EXECUTOR = "mixing-entity-cache-refresh";
+
+    /**
+     * Contains the minimal number of load timestamps to keep before evicted entries are pruned.
+     */
+    private static final int MIN_PRUNE_THRESHOLD = 64;
+
     protected final Cache<String, E> entityByIdCache =
-            CacheManager.createCoherentCache(getCacheName(), this::fetchFromDb, null);
+            CacheManager.createCoherentCache(getCacheName(), this::load, null);
+
+    /**
+     * Contains the timestamp when each entry was loaded, if {@link #getRefreshAheadInterval() refresh ahead} is
+     * enabled.
+     * <p>
+     * As the cache doesn't report evictions, the timestamps of entries which are no longer cached are
+     * {@link #pruneLoadTimestamps(String) pruned} once there are considerably more timestamps than cached entries.
+     */
+    private final Map<String, Long> loadTimestamps = new ConcurrentHashMap<>();
+
+    /**
+     * Counts the entries removed via {@link #removeById(String)}, so that a refresh which was started before an
+     * entry was removed doesn't put the stale entity back into the cache.
+     */
+    private final AtomicLong invalidationCounter = new AtomicLong();
+
+    /**
+     * Contains the ids of all entries which are currently being reloaded in the background.
+     */
+    private final Set<String> pendingRefreshes = ConcurrentHashMap.newKeySet();
+
+    @Part
+    private static Tasks tasks;
 
     /**
      * Determines the name of the underlying cache.
@@ -46,6 +93,100 @@ public abstract class BaseEntityCache<I extends Serializable, E extends BaseEnti
      */
     protected abstract E fetchFromDb(String id);
 
+    /**
+     * Fetches all entities with the given ids from the database.
+     * <p>
+     * By default, this invokes {@link #fetchFromDb(String)} for each id. Subclasses should override this to use a
+     * single batched lookup.
+     *
+     * @param ids the ids to fetch
+     * @return all entities which were found, mapped by their id
+     */
+    protected Map<String, E> fetchAllFromDb(Collection<String> ids) {
+        Map<String, E> result = new HashMap<>();
+        for (String id : ids) {
+            E entity = fetchFromDb(id);
+            if (entity != null) {
+                result.put(id, entity);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Determines the interval after which entries are reloaded in the background once they are accessed.
+     * <p>
+     * This should be shorter than the TTL of the underlying cache, so that frequently used entries are refreshed
+     * before they expire.
+     *
+     * @return the refresh ahead interval or <tt>null</tt> to disable refreshing ahead (which is the default)
+     */
+    @Nullable
+    protected Duration getRefreshAheadInterval() {
+        return null;
+    }
+
+    private E load(String id) {
+        E entity = fetchFromDb(id);
+        recordLoad(id);
+        return entity;
+    }
+
+    private void recordLoad(String id) {
+        if (getRefreshAheadInterval() != null) {
+            loadTimestamps.put(id, System.currentTimeMillis());
+            pruneLoadTimestamps(id);
+        }
+    }
+
+    private void pruneLoadTimestamps(String loadedId) {
+        if (loadTimestamps.size() > 2 * Math.max(entityByIdCache.getSize(), MIN_PRUNE_THRESHOLD)) {
+            // The entry which has just been loaded might not yet be put into the cache, therefore we keep it...
+            loadTimestamps.keySet().removeIf(id -> !id.equals(loadedId) && !entityByIdCache.contains(id));
+        }
+    }
+
+    private void refreshAheadIfNecessary(String id) {
+        Duration refreshAheadInterval = getRefreshAheadInterval();
+        if (refreshAheadInterval == null) {
+            return;
+        }
+
+        Long loadTimestamp = loadTimestamps.get(id);
+        if (loadTimestamp == null || System.currentTimeMillis() - loadTimestamp < refreshAheadInterval.toMillis()) {
+            return;
+        }
+
+        if (pendingRefreshes.add(id)) {
+            // If the executor is overloaded, the refresh is skipped rather than being run in the reader's thread.
+            // As the entry remains due, another access will try again...
+            tasks.executor(REFRESH_EXECUTOR)
+                 .dropOnOverload(() -> pendingRefreshes.remove(id))
+                 .start(() -> refresh(id));
+        }
+    }
+
+    private void refresh(String id) {
+        try {
+            long invalidationsBeforeLoad = invalidationCounter.get();
+            E entity = fetchFromDb(id);
+            if (invalidationCounter.get() != invalidationsBeforeLoad) {
+                // An entry has been removed while we were loading, our entity might therefore already be stale...
+                return;
+            }
+
+            if (entity != null) {
+                entityByIdCache.put(id, entity);
+                recordLoad(id);
+            } else {
+                removeById(id);
+            }
+        } finally {
+            pendingRefreshes.remove(id);
+        }
+    }
+
     /**
      * Determines the type of entities being cached.
      *
@@ -64,7 +205,54 @@ public abstract class BaseEntityCache<I extends Serializable, E extends BaseEnti
         if (Strings.isEmpty(id)) {
             return Optional.empty();
         }
-        return Optional.ofNullable(entityByIdCache.get(id));
+
+        E entity = entityByIdCache.get(id);
+        if (entity != null) {
+            refreshAheadIfNecessary(id);
+        }
+
+        return Optional.ofNullable(entity);
+    }
+
+    /**
+     * Fetches all entities with the given {@link BaseEntity#ID ids} from the cache.
+     * <p>
+     * All entities which are not yet cached are loaded using a single lookup via {@link #fetchAllFromDb(Collection)}.
+     *
+     * @param ids the ids of the entities to fetch
+     * @return all entities which were found, mapped by their id in the order of the given ids
+     */
+    @Nonnull
+    public Map<String, E> fetchByIds(@Nonnull Collection<String> ids) {
+        Map<String, E> result = new LinkedHashMap<>();
+        Set<String> idsToLoad = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (Strings.isFilled(id) && !result.containsKey(id)) {
+                E entity = entityByIdCache.contains(id) ? entityByIdCache.get(id) : null;
+                if (entity != null) {
+                    refreshAheadIfNecessary(id);
+                } else {
+                    idsToLoad.add(id);
+                }
+                result.put(id, entity);
+            }
+        }
+
+        if (!idsToLoad.isEmpty()) {
+            long invalidationsBeforeLoad = invalidationCounter.get();
+            Map<String, E> loadedEntities = fetchAllFromDb(idsToLoad);
+            boolean cacheable = invalidationCounter.get() == invalidationsBeforeLoad;
+            loadedEntities.forEach((id, entity) -> {
+                if (cacheable) {
+                    entityByIdCache.put(id, entity);
+                    recordLoad(id);
+                }
+                result.put(id, entity);
+            });
+        }
+
+        result.values().removeIf(Objects::isNull);
+        return result;
     }
 
     /**
@@ -129,7 +317,7 @@ public abstract class BaseEntityCache<I extends Serializable, E extends BaseEnti
      */
     public void remove(@Nullable E entity) {
         if (entity != null && !entity.isNew()) {
-            entityByIdCache.remove(entity.getIdAsString());
+            removeById(entity.getIdAsString());
         }
     }
 
@@ -140,7 +328,9 @@ public abstract class BaseEntityCache<I extends Serializable, E extends BaseEnti
      */
     public void removeById(@Nullable String entityId) {
         if (Strings.isFilled(entityId)) {
+            invalidationCounter.incrementAndGet();
             entityByIdCache.remove(entityId);
+            loadTimestamps.remove(entityId);
         }
     }
 }
@@ -12,6 +12,7 @@ import sirius.db.es.properties.ESStringListEntity
 import sirius.db.es.properties.ESStringMapEntity
 import sirius.db.mixing.Mapping
 import sirius.db.mixing.properties.StringMapProperty
+import sirius.db.mixing.query.ValueRow
 import sirius.db.mongo.Mango
 import sirius.db.mongo.MangoTestEntity
 import sirius.kernel.BaseSpecification
@@ -22,6 +23,7 @@ import sirius.kernel.di.std.Part
 
 import java.time.Duration
 import java.time.LocalDateTime
+import java.util.function.Function
 
 class ElasticQuerySpec extends BaseSpecification {
 
@@ -441,4 +443,51 @@ class ElasticQuerySpec extends BaseSpecification {
         elasticTestEntityRecoveredViaQueryString.getValue() == "Test123"
         elasticTestEntityRecoveredViaQueryString.getMongoId().getId() == mangoTestEntity.getId()
     }
+
+    def "projections read the selected fields including the id"() {
+        given:
+        elastic.select(QueryTestEntity.class).eq(QueryTestEntity.VALUE, "PROJECTION").delete()
+        List<QueryTestEntity> entities = (1..2).collect { counter ->
+            QueryTestEntity entity = new QueryTestEntity()
+            entity.setValue("PROJECTION")
+            entity.setCounter(counter)
+            elastic.update(entity)
+            return entity
+        }
+        elastic.refresh(QueryTestEntity.class)
+        when:
+        List<ValueRow> rows = elastic.select(QueryTestEntity.class)
+                                     .eq(QueryTestEntity.VALUE, "PROJECTION")
+                                     .orderAsc(QueryTestEntity.COUNTER)
+                                     .project(Function.identity(),
+                                              ElasticEntity.ID,
+                                              QueryTestEntity.VALUE,
+                                              QueryTestEntity.COUNTER)
+                                     .queryList()
+        then:
+        rows.size() == 2
+        rows.collect { it.at(0).asString() } == entities*.getId()
+        rows.collect { it.at(1).asString() } == ["PROJECTION", "PROJECTION"]
+        rows.collect { it.at(2).get() } == [1, 2]
+    }
+
+    def "first of a projection doesn't modify the underlying query"() {
+        given:
+        elastic.select(QueryTestEntity.class).eq(QueryTestEntity.VALUE, "PROJECTION_FIRST").delete()
+        (1..3).each { counter ->
+            QueryTestEntity entity = new QueryTestEntity()
+            entity.setValue("PROJECTION_FIRST")
+            entity.setCounter(counter)
+            elastic.update(entity)
+        }
+        elastic.refresh(QueryTestEntity.class)
+        ElasticQuery<QueryTestEntity> query = elastic.select(QueryTestEntity.class)
+                                                     .eq(QueryTestEntity.VALUE, "PROJECTION_FIRST")
+                                                     .orderDesc(QueryTestEntity.COUNTER)
+        when:
+        Optional<Integer> first = query.project({ row -> row.at(0).asInt(0) }, QueryTestEntity.COUNTER).first()
+        then:
+        first.get() == 3
+        query.queryList().size() == 3
+    }
 }
@@ -9,6 +9,7 @@
 package sirius.db.es
 
 
+import sirius.db.mixing.BaseEntity
 import sirius.db.mixing.Mixing
 import sirius.db.mixing.OptimisticLockException
 import sirius.kernel.BaseSpecification
@@ -187,6 +188,84 @@ class ElasticSpec extends BaseSpecification {
         notFound == null
     }
 
+    def "a session reports optimistic lock failures per entity"() {
+        given:
+        LockedTestEntity modified = new LockedTestEntity()
+        modified.setValue("Test")
+        elastic.update(modified)
+        LockedTestEntity deleted = new LockedTestEntity()
+        deleted.setValue("Test")
+        elastic.update(deleted)
+        LockedTestEntity unmodified = new LockedTestEntity()
+        unmodified.setValue("Test")
+        elastic.update(unmodified)
+        elastic.refresh(LockedTestEntity.class)
+        and:
+        LockedTestEntity staleModified = elastic.refreshOrFail(modified)
+        LockedTestEntity staleDeleted = elastic.refreshOrFail(deleted)
+        modified.setValue("Test2")
+        elastic.update(modified)
+        deleted.setValue("Test2")
+        elastic.update(deleted)
+        elastic.refresh(LockedTestEntity.class)
+        and:
+        List<BaseEntity<?>> lockedEntities = []
+        when:
+        mixing.session().onFailure({ entity, error ->
+            if (error instanceof OptimisticLockException) {
+                lockedEntities.add(entity)
+            }
+        }).withCloseable { session ->
+            staleModified.setValue("Test3")
+            session.update(staleModified)
+            session.delete(staleDeleted)
+            unmodified.setValue("Test3")
+            session.update(unmodified)
+        }
+        elastic.refresh(LockedTestEntity.class)
+        then:
+        lockedEntities.size() == 2
+        and:
+        elastic.refreshOrFail(modified).getValue() == "Test2"
+        and:
+        elastic.find(LockedTestEntity.class, deleted.getId()).isPresent()
+        and:
+        elastic.refreshOrFail(unmodified).getValue() == "Test3"
+    }
+
+    def "a session creates entities as a bulk request and invokes the after save handlers once per entity"() {
+        given:
+        List<LockedTestEntity> lockedEntities = (1..3).collect {
+            LockedTestEntity entity = new LockedTestEntity()
+            entity.setValue("Bulk " + it)
+            return entity
+        }
+        List<ElasticWasCreatedTestEntity> trackedEntities = (1..3).collect {
+            ElasticWasCreatedTestEntity entity = new ElasticWasCreatedTestEntity()
+            entity.setValue("Bulk " + it)
+            return entity
+        }
+        when:
+        mixing.session().withCloseable { session ->
+            lockedEntities.each { session.update(it) }
+            trackedEntities.each { session.update(it) }
+        }
+        then: "each entity received its id"
+        lockedEntities.every { !it.isNew() }
+        lockedEntities.collect { it.getId() }.unique().size() == 3
+        trackedEntities.collect { it.getId() }.unique().size() == 3
+        and:
+        trackedEntities.every { it.hasJustBeenCreated() && it.getAfterSaveInvocations() == 1 }
+        when: "the sequence numbers are taken from the response, so that the entities can be updated right away"
+        lockedEntities.each {
+            it.setValue(it.getValue() + " updated")
+            elastic.update(it)
+        }
+        then:
+        notThrown(OptimisticLockException)
+        lockedEntities.every { elastic.refreshOrFail(it).getValue().endsWith(" updated") }
+    }
+
     def "wasCreated() works in elastic"() {
         given:
         ElasticWasCreatedTestEntity e = new ElasticWasCreatedTestEntity()
@@ -8,11 +8,21 @@
 
 package sirius.db.jdbc
 
+import sirius.db.jdbc.schema.Schema
+import sirius.db.mixing.BaseEntity
 import sirius.db.mixing.IntegrityConstraintFailedException
+import sirius.db.mixing.Mixing
 import sirius.db.mixing.OptimisticLockException
+import sirius.db.mixing.SessionOperation
 import sirius.kernel.BaseSpecification
+import sirius.kernel.commons.Context
 import sirius.kernel.di.std.Part
+import sirius.kernel.health.HandledException
 
+import java.sql.BatchUpdateException
+import java.sql.Connection
+import java.sql.PreparedStatement
+import java.sql.SQLException
 import java.time.Duration
 
 class OMASpec extends BaseSpecification {
@@ -20,6 +30,9 @@ class OMASpec extends BaseSpecification {
     @Part
     static OMA oma
 
+    @Part
+    static Mixing mixing
+
     def setupSpec() {
         oma.getReadyFuture().await(Duration.ofSeconds(60))
     }
@@ -177,6 +190,41 @@ class OMASpec extends BaseSpecification {
         e.isChanged(TestMixin.MIDDLE_NAME.inMixin(TestMixin.class))
     }
 
+    def "isChanged compares against the values which were loaded or saved last"() {
+        given:
+        TestEntityWithMixin e = new TestEntityWithMixin()
+        e.setFirstname("Homer")
+        e.setLastname("Simpson")
+        e.as(TestMixin.class).setMiddleName("Jay")
+        e.as(TestMixin.class).as(TestMixinMixin.class).setInitial("J")
+        oma.update(e)
+        when:
+        TestEntityWithMixin loaded = oma.refreshOrFail(e)
+        then:
+        !loaded.isAnyMappingChanged()
+        loaded.getPersistedValue(loaded.getDescriptor().getProperty(TestEntityWithMixin.FIRSTNAME)) == "Homer"
+        when: "a loaded value is cleared"
+        loaded.setFirstname(null)
+        then:
+        loaded.isChanged(TestEntityWithMixin.FIRSTNAME)
+        !loaded.isChanged(TestEntityWithMixin.LASTNAME)
+        when: "the loaded value is restored"
+        loaded.setFirstname("Homer")
+        then:
+        !loaded.isAnyMappingChanged()
+        when:
+        loaded.as(TestMixin.class).setMiddleName("JayJay")
+        then:
+        loaded.isChanged(TestMixin.MIDDLE_NAME.inMixin(TestMixin.class))
+        !loaded.isChanged(TestEntityWithMixin.FIRSTNAME)
+        when:
+        oma.update(loaded)
+        then:
+        !loaded.isAnyMappingChanged()
+        !oma.refreshOrFail(loaded).isAnyMappingChanged()
+        oma.refreshOrFail(loaded).as(TestMixin.class).getMiddleName() == "JayJay"
+    }
+
     def "optimistic locking works"() {
         when:
         SQLLockedTestEntity entity = new SQLLockedTestEntity()
@@ -206,6 +254,242 @@ class OMASpec extends BaseSpecification {
         notFound == null
     }
 
+    def "a session reports optimistic lock failures per entity"() {
+        given:
+        SQLLockedTestEntity modified = new SQLLockedTestEntity()
+        modified.setValue("Test")
+        oma.update(modified)
+        SQLLockedTestEntity deleted = new SQLLockedTestEntity()
+        deleted.setValue("Test")
+        oma.update(deleted)
+        SQLLockedTestEntity unmodified = new SQLLockedTestEntity()
+        unmodified.setValue("Test")
+        oma.update(unmodified)
+        and:
+        SQLLockedTestEntity staleModified = oma.refreshOrFail(modified)
+        SQLLockedTestEntity staleDeleted = oma.refreshOrFail(deleted)
+        modified.setValue("Test2")
+        oma.update(modified)
+        deleted.setValue("Test2")
+        oma.update(deleted)
+        and:
+        List<BaseEntity<?>> lockedEntities = []
+        when:
+        mixing.session().onFailure({ entity, error ->
+            if (error instanceof OptimisticLockException) {
+                lockedEntities.add(entity)
+            }
+        }).withCloseable { session ->
+            staleModified.setValue("Test3")
+            session.update(staleModified)
+            session.delete(staleDeleted)
+            unmodified.setValue("Test3")
+            session.update(unmodified)
+        }
+        then:
+        lockedEntities.size() == 2
+        and:
+        oma.refreshOrFail(modified).getValue() == "Test2"
+        and:
+        oma.find(SQLLockedTestEntity.class, deleted.getId()).isPresent()
+        and:
+        oma.refreshOrFail(unmodified).getValue() == "Test3"
+    }
+
+    def "cached entities are served from the entity cache until they are modified"() {
+        given:
+        SQLCachedTestEntity entity = new SQLCachedTestEntity()
+        entity.setValue("Test")
+        oma.update(entity)
+        oma.findOrFail(SQLCachedTestEntity.class, entity.getId())
+        when: "the entity is modified without notifying the cache"
+        oma.updateStatement(SQLCachedTestEntity.class)
+           .set(SQLCachedTestEntity.VALUE, "Modified")
+           .where(SQLEntity.ID, entity.getId())
+           .executeUpdate()
+        then:
+        oma.findOrFail(SQLCachedTestEntity.class, entity.getId()).getValue() == "Test"
+        when:
+        entity.setValue("Updated")
+        oma.update(entity)
+        then:
+        oma.findOrFail(SQLCachedTestEntity.class, entity.getId()).getValue() == "Updated"
+        when:
+        oma.delete(entity)
+        then:
+        !oma.find(SQLCachedTestEntity.class, entity.getId()).isPresent()
+    }
+
+    def "cascades of cached entities are never set-based"() {
+        expect:
+        !mixing.getDescriptor(SQLCachedTestEntity.class).isSetBasedDeletePossible()
+        and:
+        !mixing.getDescriptor(SQLCachedTestEntity.class).isSetBasedUpdatePossible()
+    }
+
+    def "a session creates entities as a batch and invokes the after save handlers once per entity"() {
+        given:
+        List<SQLLockedTestEntity> lockedEntities = (1..3).collect {
+            SQLLockedTestEntity entity = new SQLLockedTestEntity()
+            entity.setValue("Batch " + it)
+            return entity
+        }
+        List<SQLWasCreatedTestEntity> trackedEntities = (1..3).collect {
+            SQLWasCreatedTestEntity entity = new SQLWasCreatedTestEntity()
+            entity.setValue("Batch " + it)
+            return entity
+        }
+        when:
+        mixing.session().withCloseable { session ->
+            lockedEntities.each { session.update(it) }
+            trackedEntities.each { session.update(it) }
+        }
+        then: "each entity received its generated id"
+        lockedEntities.every { !it.isNew() }
+        lockedEntities.collect { it.getId() }.unique().size() == 3
+        trackedEntities.collect { it.getId() }.unique().size() == 3
+        and: "the version is initialized like for a single insert"
+        lockedEntities.every { it.getVersion() == 1 && oma.refreshOrFail(it).getVersion() == 1 }
+        lockedEntities.every { oma.refreshOrFail(it).getValue() == it.getValue() }
+        and:
+        trackedEntities.every { it.hasJustBeenCreated() && it.getAfterSaveInvocations() == 1 }
+    }
+
+    private OMA mockedOMA(Database database) {
+        OMA result = new OMA()
+        result.mixing = oma.mixing
+        result.dbs = oma.dbs
+        result.queryCache = oma.queryCache
+        result.entityCache = oma.entityCache
+        result.schema = Mock(Schema)
+        result.schema.getDatabase(Mixing.DEFAULT_REALM) >> database
+        return result
+    }
+
+    def "a session writes the remaining entities one by one if a batch is aborted"() {
+        given:
+        List<SQLWasCreatedTestEntity> entities = (1..3).collect {
+            SQLWasCreatedTestEntity entity = new SQLWasCreatedTestEntity()
+            entity.setValue("Aborted " + it)
+            return entity
+        }
+        and: "a database which aborts the batch at the first statement"
+        PreparedStatement stmt = Mock(PreparedStatement)
+        stmt.executeBatch() >> { throw new BatchUpdateException("aborted", new int[0]) }
+        Connection connection = Mock(Connection)
+        connection.prepareStatement(_) >> stmt
+        Database database = Mock(Database)
+        database.getConnection() >> connection
+        database.insertRow(_, _) >> { String table, Context data ->
+            oma.getDatabase(Mixing.DEFAULT_REALM).insertRow(table, data)
+        }
+        and:
+        OMA abortingOMA = mockedOMA(database)
+        and:
+        List<SessionOperation<SQLEntity>> operations =
+                entities.collect { new SessionOperation<SQLEntity>(SessionOperation.Type.CREATE, it) }
+        when:
+        abortingOMA.flushSessionOperations(operations)
+        then: "the failed statement is reported"
+        operations.get(0).isFailed()
+        operations.get(0).getFailure() instanceof BatchUpdateException
+        entities.get(0).isNew()
+        entities.get(0).getAfterSaveInvocations() == 0
+        and: "all others are written separately"
+        operations.subList(1, 3).every { !it.isFailed() }
+        entities.subList(1, 3).every { !it.isNew() && it.getAfterSaveInvocations() == 1 }
+        entities.subList(1, 3).every { oma.find(SQLWasCreatedTestEntity.class, it.getId()).isPresent() }
+    }
+
+    def "a session writes created entities one by one if the keys of an aborted batch are unavailable"() {
+        given:
+        List<SQLWasCreatedTestEntity> entities = (1..3).collect {
+            SQLWasCreatedTestEntity entity = new SQLWasCreatedTestEntity()
+            entity.setValue("Without keys " + it)
+            return entity
+        }
+        and: "a database which aborts the batch at the second statement and doesn't report any keys"
+        PreparedStatement stmt = Mock(PreparedStatement)
+        stmt.executeBatch() >> { throw new BatchUpdateException("aborted", [1] as int[]) }
+        stmt.getGeneratedKeys() >> { throw new SQLException("Keys are not available") }
+        Connection connection = Mock(Connection)
+        connection.prepareStatement(_, _) >> stmt
+        Database database = Mock(Database)
+        database.getConnection() >> connection
+        database.hasCapability(Capability.GENERATED_KEYS) >> true
+        database.insertRow(_, _) >> { String table, Context data ->
+            oma.getDatabase(Mixing.DEFAULT_REALM).insertRow(table, data)
+        }
+        and:
+        List<SessionOperation<SQLEntity>> operations =
+                entities.collect { new SessionOperation<SQLEntity>(SessionOperation.Type.CREATE, it) }
+        when:
+        mockedOMA(database).flushSessionOperations(operations)
+        then: "the failed statement is reported"
+        operations.get(1).isFailed()
+        entities.get(1).getAfterSaveInvocations() == 0
+        and: "all others are written separately and receive their ids"
+        [operations.get(0), operations.get(2)].every { !it.isFailed() && it.isWritten() }
+        [entities.get(0), entities.get(2)].every { !it.isNew() && it.getAfterSaveInvocations() == 1 }
+    }
+
+    def "operations which have been written aren't reported as failed if the flush fails afterwards"() {
+        given:
+        SQLWasCreatedTestEntity written = new SQLWasCreatedTestEntity()
+        written.setValue("Written")
+        SQLWasCreatedTestEntity pending = new SQLWasCreatedTestEntity()
+        pending.setValue("Pending")
+        List<SessionOperation<SQLEntity>> operations =
+                [written, pending].collect { new SessionOperation<SQLEntity>(SessionOperation.Type.CREATE, it) }
+        and: "a mapper which fails after having written the first entity"
+        OMA failingOMA = new OMA() {
+            @Override
+            protected void executeWrites(List<SessionOperation<SQLEntity>> operationsToWrite) throws Exception {
+                createEntity(operationsToWrite.get(0).getEntity(), operationsToWrite.get(0).getEntity().getDescriptor())
+                operationsToWrite.get(0).markWritten()
+                throw new SQLException("Expected")
+            }
+        }
+        failingOMA.mixing = oma.mixing
+        failingOMA.schema = oma.schema
+        failingOMA.queryCache = oma.queryCache
+        failingOMA.entityCache = oma.entityCache
+        when:
+        failingOMA.flushSessionOperations(operations)
+        then:
+        !operations.get(0).isFailed()
+        !written.isNew()
+        written.getAfterSaveInvocations() == 1
+        and:
+        operations.get(1).isFailed()
+        pending.getAfterSaveInvocations() == 0
+    }
+
+    def "a session performs the writes in the order in which they were queued"() {
+        given:
+        String suffix = String.valueOf(System.nanoTime())
+        SQLUniqueTestEntity existing = new SQLUniqueTestEntity()
+        existing.setValue("Freed " + suffix)
+        oma.update(existing)
+        and:
+        SQLUniqueTestEntity first = new SQLUniqueTestEntity()
+        first.setValue("First " + suffix)
+        SQLUniqueTestEntity second = new SQLUniqueTestEntity()
+        second.setValue("Freed " + suffix)
+        when: "both creates are interleaved with the update which frees the unique value used by the second one"
+        mixing.session().withCloseable { session ->
+            session.update(first)
+            existing.setValue("Changed " + suffix)
+            session.update(existing)
+            session.update(second)
+        }
+        then:
+        notThrown(HandledException)
+        oma.refreshOrFail(existing).getValue() == "Changed " + suffix
+        oma.refreshOrFail(first).getValue() == "First " + suffix
+        oma.refreshOrFail(second).getValue() == "Freed " + suffix
+    }
+
     def "unique constraint violations are properly thrown"() {
         setup:
         oma.select(SQLUniqueTestEntity.class).eq(SQLUniqueTestEntity.VALUE, "Test").delete()
@@ -236,4 +520,36 @@ class OMASpec extends BaseSpecification {
         !e.hasJustBeenCreated()
     }
 
+
+    def "entities loaded by a read-only query cannot be updated"() {
+        given:
+        TestEntity e = new TestEntity()
+        e.setFirstname("ReadOnly")
+        e.setLastname("Entity")
+        oma.update(e)
+        and:
+        TestEntity readOnly = oma.select(TestEntity.class).eq(SQLEntity.ID, e.getId()).readOnly().queryFirst()
+        when:
+        readOnly.setLastname("Changed")
+        oma.update(readOnly)
+        then:
+        readOnly.isReadOnly()
+        thrown(HandledException)
+        and:
+        oma.findOrFail(TestEntity.class, e.getId()).getLastname() == "Entity"
+    }
+
+    def "entities loaded by a read-only query cannot be updated within a session"() {
+        given:
+        TestEntity e = new TestEntity()
+        e.setFirstname("ReadOnly")
+        e.setLastname("Session")
+        oma.update(e)
+        and:
+        TestEntity readOnly = oma.select(TestEntity.class).eq(SQLEntity.ID, e.getId()).readOnly().queryFirst()
+        when:
+        mixing.session().withCloseable { session -> session.update(readOnly) }
+        then:
+        thrown(HandledException)
+    }
 }
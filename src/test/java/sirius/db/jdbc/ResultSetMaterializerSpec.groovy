@@ -0,0 +1,72 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.jdbc
+
+import sirius.db.mixing.EntityDescriptor
+import sirius.db.mixing.Mixing
+import sirius.kernel.BaseSpecification
+import sirius.kernel.di.std.Part
+
+import java.sql.ResultSet
+import java.sql.ResultSetMetaData
+import java.time.Duration
+
+class ResultSetMaterializerSpec extends BaseSpecification {
+
+    @Part
+    private static OMA oma
+
+    @Part
+    private static Mixing mixing
+
+    def setupSpec() {
+        oma.getReadyFuture().await(Duration.ofSeconds(60))
+    }
+
+    private ResultSet mockResultSet(List<String> columns, List<Object> values) {
+        ResultSetMetaData metaData = Mock(ResultSetMetaData)
+        metaData.getColumnCount() >> columns.size()
+        metaData.getColumnLabel(_) >> { int index -> columns.get(index - 1) }
+        ResultSet resultSet = Mock(ResultSet)
+        resultSet.getMetaData() >> metaData
+        resultSet.getObject(_) >> { int index -> values.get(index - 1) }
+        return resultSet
+    }
+
+    def "entities are materialized by the index of their aliased columns"() {
+        given: "a join fetch result whose columns are in an arbitrary order"
+        EntityDescriptor child = mixing.getDescriptor(SmartQueryTestChildEntity.class)
+        EntityDescriptor parent = mixing.getDescriptor(SmartQueryTestParentEntity.class)
+        ResultSet resultSet = mockResultSet(["parent_name", "name", "parent_id", "id"],
+                                            ["Parent", "Child", 2L, 1L])
+        when:
+        ResultSetMaterializer materializer = new ResultSetMaterializer(resultSet)
+        SmartQueryTestChildEntity childEntity = materializer.make(child, null)
+        SmartQueryTestParentEntity parentEntity = materializer.make(parent, "parent")
+        then:
+        childEntity.getId() == 1L
+        childEntity.getName() == "Child"
+        and:
+        parentEntity.getId() == 2L
+        parentEntity.getName() == "Parent"
+    }
+
+    def "properties without a column are neither filled nor marked as fetched"() {
+        given:
+        EntityDescriptor parent = mixing.getDescriptor(SmartQueryTestParentEntity.class)
+        ResultSet resultSet = mockResultSet(["NAME"], ["Parent"])
+        when:
+        SmartQueryTestParentEntity entity = new ResultSetMaterializer(resultSet).make(parent, null)
+        then:
+        entity.getName() == "Parent"
+        parent.isFetched(entity, parent.getProperty(SmartQueryTestParentEntity.NAME))
+        !parent.isFetched(entity, parent.getProperty(SQLEntity.ID))
+        !entity.isChanged(SmartQueryTestParentEntity.NAME)
+    }
+}
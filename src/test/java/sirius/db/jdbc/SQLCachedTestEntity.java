@@ -0,0 +1,29 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.jdbc;
+
+import sirius.db.mixing.Mapping;
+import sirius.db.mixing.annotations.Cached;
+import sirius.db.mixing.annotations.Length;
+
+@Cached(ttl = 3600)
+public class SQLCachedTestEntity extends SQLEntity {
+
+    public static final Mapping VALUE = Mapping.named("value");
+    @Length(50)
+    private String value;
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+}
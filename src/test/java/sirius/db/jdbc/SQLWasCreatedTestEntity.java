@@ -21,9 +21,13 @@ public class SQLWasCreatedTestEntity extends SQLEntity {
     @Transient
     private boolean wasCreatedIndicator;
 
+    @Transient
+    private int afterSaveInvocations;
+
     @AfterSave
     protected void checkIfCreated() {
         wasCreatedIndicator = wasCreated();
+        afterSaveInvocations++;
     }
 
     public String getValue() {
@@ -37,4 +41,8 @@ public class SQLWasCreatedTestEntity extends SQLEntity {
     public boolean hasJustBeenCreated() {
         return wasCreatedIndicator;
     }
+
+    public int getAfterSaveInvocations() {
+        return afterSaveInvocations;
+    }
 }
@@ -15,6 +15,7 @@ import sirius.kernel.BaseSpecification
 import sirius.kernel.commons.Strings
 import sirius.kernel.di.std.Part
 
+import java.time.Duration
 import java.util.function.Function
 import java.util.stream.Collectors
 
@@ -482,4 +483,78 @@ class SmartQuerySpec extends BaseSpecification {
         and:
         items.get(1).testNumber == 3
     }
+
+    def "cached queries are served from the query cache until an entity of the type is written"() {
+        given:
+        oma.select(TestEntity.class).eq(TestEntity.FIRSTNAME, "QueryCache").delete()
+        TestEntity entity = new TestEntity()
+        entity.setFirstname("QueryCache")
+        entity.setLastname("Test")
+        oma.update(entity)
+        and:
+        def query = { oma.select(TestEntity.class).eq(TestEntity.FIRSTNAME, "QueryCache").cached(Duration.ofHours(1)) }
+        query().count()
+        query().queryList()
+        when: "the entity is deleted without notifying the cache"
+        oma.deleteStatement(TestEntity.class).where(TestEntity.ID, entity.getId()).executeUpdate()
+        then:
+        query().count() == 1
+        and:
+        query().queryList().size() == 1
+        when: "another entity of the same type is written"
+        TestEntity otherEntity = new TestEntity()
+        otherEntity.setFirstname("Other")
+        otherEntity.setLastname("Test")
+        oma.update(otherEntity)
+        then:
+        query().count() == 0
+        and:
+        query().queryList().isEmpty()
+    }
+
+    def "projections only yield distinct rows if distinct fields are requested"() {
+        given:
+        oma.select(TestEntity.class).eq(TestEntity.LASTNAME, "DistinctProjection").delete()
+        and:
+        ["Peter", "Paul", "Mary"].each { firstname ->
+            TestEntity e = new TestEntity()
+            e.setFirstname(firstname)
+            e.setLastname("DistinctProjection")
+            oma.update(e)
+        }
+        when:
+        def allNames = oma.select(TestEntity.class)
+                          .eq(TestEntity.LASTNAME, "DistinctProjection")
+                          .project({ row -> row.at(0).asString() }, TestEntity.LASTNAME)
+                          .queryList()
+        def distinctNames = oma.select(TestEntity.class)
+                               .eq(TestEntity.LASTNAME, "DistinctProjection")
+                               .distinctFields(TestEntity.LASTNAME)
+                               .project({ row -> row.at(0).asString() }, TestEntity.LASTNAME)
+                               .queryList()
+        then:
+        allNames.size() == 3
+        and:
+        distinctNames == ["DistinctProjection"]
+    }
+
+    def "first of a projection doesn't modify the underlying query"() {
+        given:
+        oma.select(TestEntity.class).eq(TestEntity.LASTNAME, "ProjectionFirst").delete()
+        and:
+        ["Peter", "Paul", "Mary"].each { firstname ->
+            TestEntity e = new TestEntity()
+            e.setFirstname(firstname)
+            e.setLastname("ProjectionFirst")
+            oma.update(e)
+        }
+        SmartQuery<TestEntity> query = oma.select(TestEntity.class)
+                                          .eq(TestEntity.LASTNAME, "ProjectionFirst")
+                                          .orderAsc(TestEntity.FIRSTNAME)
+        when:
+        def first = query.project({ row -> row.at(0).asString() }, TestEntity.FIRSTNAME).first()
+        then:
+        first.get() == "Mary"
+        query.queryList().size() == 3
+    }
 }
@@ -0,0 +1,86 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing
+
+import sirius.db.jdbc.TestEntity
+import sirius.db.jdbc.TestEntityWithComposite
+import sirius.db.jdbc.TestEntityWithMixin
+import sirius.db.jdbc.TestMixin
+import sirius.db.jdbc.TestMixinMixin
+import sirius.kernel.BaseSpecification
+import sirius.kernel.di.std.Part
+
+import java.util.function.UnaryOperator
+
+class AccessPathSpec extends BaseSpecification {
+
+    @Part
+    private static Mixing mixing
+
+    private static Property findProperty(Class<?> type, String pathPrefix, String field) {
+        return mixing.getDescriptor(type).getProperties().find {
+            it.getName().startsWith(pathPrefix) && it.getName().endsWith(Mapping.SUBFIELD_SEPARATOR + field)
+        }
+    }
+
+    def "appended steps are folded into a single path"() {
+        given:
+        Map<String, Object> inner = [value: "inner"]
+        Map<String, Object> outer = [child: inner]
+        Map<String, Object> root = [child: outer]
+        UnaryOperator<Object> child = { Object target -> ((Map<String, Object>) target).get("child") }
+        when:
+        AccessPath path = AccessPath.IDENTITY.append("outer", child).append("inner", child)
+        then:
+        path.prefix() == "outer_inner"
+        path.qualify("value") == "outer_inner_value"
+        path.apply(root).is(inner)
+        and:
+        AccessPath.IDENTITY.apply(root).is(root)
+        AccessPath.IDENTITY.qualify("value") == "value"
+    }
+
+    def "properties within a composite of a composite are read and written via their access path"() {
+        given:
+        Property property = findProperty(TestEntityWithComposite.class, "compositeWithComposite", "street")
+        TestEntityWithComposite entity = new TestEntityWithComposite()
+        entity.getComposite().setStreet("outer")
+        when:
+        property.setValue(entity, "inner")
+        then:
+        entity.getCompositeWithComposite().getComposite().getStreet() == "inner"
+        entity.getComposite().getStreet() == "outer"
+        property.getValue(entity) == "inner"
+    }
+
+    def "properties within a mixin of a mixin are read and written via their access path"() {
+        given:
+        Property middleName = mixing.getDescriptor(TestEntityWithMixin.class)
+                                    .getProperty(TestMixin.MIDDLE_NAME.inMixin(TestMixin.class))
+        Property initial = findProperty(TestEntityWithMixin.class, "TestMixin", "initial")
+        TestEntityWithMixin entity = new TestEntityWithMixin()
+        when:
+        middleName.setValue(entity, "Jay")
+        initial.setValue(entity, "J")
+        then:
+        entity.as(TestMixin.class).getMiddleName() == "Jay"
+        entity.as(TestMixin.class).as(TestMixinMixin.class).getInitial() == "J"
+        middleName.getValue(entity) == "Jay"
+        initial.getValue(entity) == "J"
+    }
+
+    def "runtime exceptions raised when accessing a field are passed on unchanged"() {
+        given:
+        Property age = mixing.getDescriptor(TestEntity.class).getProperty(TestEntity.AGE)
+        when:
+        age.setValue(new TestEntity(), "not a number")
+        then:
+        thrown(ClassCastException)
+    }
+}
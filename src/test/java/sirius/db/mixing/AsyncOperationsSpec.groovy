@@ -0,0 +1,123 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing
+
+import sirius.db.jdbc.OMA
+import sirius.db.jdbc.SQLEntity
+import sirius.db.jdbc.TestEntity
+import sirius.kernel.BaseSpecification
+import sirius.kernel.async.Tasks
+import sirius.kernel.di.std.Part
+import sirius.kernel.health.HandledException
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+
+class AsyncOperationsSpec extends BaseSpecification {
+
+    @Part
+    private static OMA oma
+
+    @Part
+    private static Mixing mixing
+
+    def setupSpec() {
+        oma.getReadyFuture().await(Duration.ofSeconds(60))
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        return future.get(10, TimeUnit.SECONDS)
+    }
+
+    def "updateAsync writes the entity and completes with it"() {
+        given:
+        TestEntity entity = new TestEntity()
+        entity.setFirstname("Async")
+        entity.setLastname("Update")
+        when:
+        TestEntity result = await(oma.updateAsync(entity))
+        then:
+        result.is(entity)
+        !entity.isNew()
+        oma.findOrFail(TestEntity.class, entity.getId()).getLastname() == "Update"
+    }
+
+    def "findAsync completes with the entity or an empty optional"() {
+        given:
+        TestEntity entity = new TestEntity()
+        entity.setFirstname("Async")
+        entity.setLastname("Find")
+        oma.update(entity)
+        expect:
+        await(oma.findAsync(TestEntity.class, entity.getId())).get().getLastname() == "Find"
+        !await(oma.findAsync(TestEntity.class, -1L)).isPresent()
+    }
+
+    def "queryListAsync completes with the result of the query"() {
+        given:
+        oma.select(TestEntity.class).eq(TestEntity.LASTNAME, "QueryList").delete()
+        (1..3).each {
+            TestEntity entity = new TestEntity()
+            entity.setFirstname("Async " + it)
+            entity.setLastname("QueryList")
+            oma.update(entity)
+        }
+        when:
+        List<TestEntity> result = await(oma.select(TestEntity.class)
+                                           .eq(TestEntity.LASTNAME, "QueryList")
+                                           .orderAsc(TestEntity.FIRSTNAME)
+                                           .queryListAsync())
+        then:
+        result.collect { it.getFirstname() } == ["Async 1", "Async 2", "Async 3"]
+    }
+
+    def "a failing operation completes the future exceptionally"() {
+        given:
+        TestEntity entity = new TestEntity()
+        entity.setFirstname("Async")
+        entity.setLastname("ReadOnly")
+        oma.update(entity)
+        TestEntity readOnly = oma.select(TestEntity.class).eq(SQLEntity.ID, entity.getId()).readOnly().queryFirst()
+        when:
+        await(oma.updateAsync(readOnly))
+        then:
+        ExecutionException e = thrown(ExecutionException)
+        e.getCause() instanceof HandledException
+    }
+
+    def "an error thrown by an operation completes the future exceptionally"() {
+        when:
+        await(mixing.executeAsync({ throw new AssertionError("Expected") }))
+        then:
+        ExecutionException e = thrown(ExecutionException)
+        e.getCause() instanceof AssertionError
+    }
+
+    def "a rejected operation completes the future exceptionally"() {
+        given:
+        Tasks originalTasks = mixing.tasks
+        Tasks rejectingTasks = Mock(Tasks)
+        rejectingTasks.executor(_) >> { throw new RejectedExecutionException("Expected") }
+        mixing.tasks = rejectingTasks
+        when:
+        CompletableFuture<Optional<TestEntity>> future = oma.findAsync(TestEntity.class, -1L)
+        then:
+        future.isCompletedExceptionally()
+        when:
+        await(future)
+        then:
+        ExecutionException e = thrown(ExecutionException)
+        e.getCause() instanceof RejectedExecutionException
+        cleanup:
+        mixing.tasks = originalTasks
+    }
+}
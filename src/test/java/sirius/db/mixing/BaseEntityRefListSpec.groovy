@@ -60,4 +60,73 @@ class BaseEntityRefListSpec extends BaseSpecification {
         !resolved.getRef().contains(refElasticEntity.getId())
     }
 
+    def "removing a deleted id from all lists invalidates cached query results"() {
+        given:
+        RefListElasticEntity refElasticEntity = new RefListElasticEntity()
+        elastic.update(refElasticEntity)
+        elastic.refresh(RefListElasticEntity.class)
+        RefListMongoEntity refMongoEntity = new RefListMongoEntity()
+        refMongoEntity.getRef().add(refElasticEntity.getId())
+        mango.update(refMongoEntity)
+        and:
+        def query = {
+            mango.select(RefListMongoEntity.class)
+                 .eq(Mapping.named("ref"), refElasticEntity.getId())
+                 .cached(Duration.ofHours(1))
+        }
+        query().count()
+        when:
+        elastic.delete(refElasticEntity)
+        then:
+        query().count() == 0
+    }
+
+    def "fetchAll resolves MongoRefLists in a batch and keeps order and stale ids"() {
+        given:
+        List<RefListMongoEntity> mongoEntities = (1..3).collect {
+            RefListMongoEntity refMongoEntity = new RefListMongoEntity()
+            mango.update(refMongoEntity)
+            return refMongoEntity
+        }
+        RefListElasticEntity refElasticEntity = new RefListElasticEntity()
+        refElasticEntity.getRef().add(mongoEntities.get(2).getId())
+        refElasticEntity.getRef().add("stale")
+        refElasticEntity.getRef().add(mongoEntities.get(0).getId())
+        refElasticEntity.getRef().add(mongoEntities.get(1).getId())
+        when:
+        List<Optional<RefListMongoEntity>> all = refElasticEntity.getRef().fetchAll().toList()
+        List<RefListMongoEntity> available = refElasticEntity.getRef().fetchAllAvailable().toList()
+        then:
+        all.collect { it.map({ entity -> entity.getId() }).orElse(null) } ==
+                [mongoEntities.get(2).getId(), null, mongoEntities.get(0).getId(), mongoEntities.get(1).getId()]
+        available*.getId() == [mongoEntities.get(2).getId(), mongoEntities.get(0).getId(), mongoEntities.get(1).getId()]
+    }
+
+    def "fetchAll resolves ElasticRefLists in a batch and keeps order and stale ids"() {
+        given:
+        List<RefListElasticEntity> elasticEntities = (1..3).collect {
+            RefListElasticEntity refElasticEntity = new RefListElasticEntity()
+            elastic.update(refElasticEntity)
+            return refElasticEntity
+        }
+        RefListMongoEntity refMongoEntity = new RefListMongoEntity()
+        refMongoEntity.getRef().add(elasticEntities.get(1).getId())
+        refMongoEntity.getRef().add(elasticEntities.get(0).getId())
+        refMongoEntity.getRef().add("stale")
+        refMongoEntity.getRef().add(elasticEntities.get(2).getId())
+        when:
+        List<Optional<RefListElasticEntity>> all = refMongoEntity.getRef().fetchAll().toList()
+        List<RefListElasticEntity> available = refMongoEntity.getRef().fetchAllAvailable().toList()
+        then:
+        all.collect { it.map({ entity -> entity.getId() }).orElse(null) } ==
+                [elasticEntities.get(1).getId(), elasticEntities.get(0).getId(), null, elasticEntities.get(2).getId()]
+        available*.getId() ==
+                [elasticEntities.get(1).getId(), elasticEntities.get(0).getId(), elasticEntities.get(2).getId()]
+    }
+
+    def "fetchAll of an empty ref list yields an empty stream"() {
+        expect:
+        new RefListMongoEntity().getRef().fetchAll().count() == 0
+    }
+
 }
@@ -10,13 +10,17 @@ package sirius.db.mixing
 
 import sirius.db.es.Elastic
 import sirius.db.jdbc.OMA
+import sirius.db.jdbc.SQLEntity
 import sirius.db.mongo.Mango
+import sirius.db.mongo.MongoEntity
+import sirius.db.mongo.QueryBuilder
 import sirius.kernel.BaseSpecification
 import sirius.kernel.commons.Wait
 import sirius.kernel.di.std.Part
 import sirius.kernel.health.HandledException
 
 import java.time.Duration
+import java.util.stream.Collectors
 
 class BaseEntityRefSpec extends BaseSpecification {
 
@@ -29,6 +33,9 @@ class BaseEntityRefSpec extends BaseSpecification {
     @Part
     private static Mango mango
 
+    @Part
+    private static Mixing mixing
+
     def setupSpec() {
         elastic.getReadyFuture().await(Duration.ofSeconds(60))
         oma.getReadyFuture().await(Duration.ofSeconds(60))
@@ -82,6 +89,35 @@ class BaseEntityRefSpec extends BaseSpecification {
         !oma.find(RefEntity.class, refEntity.getId()).isPresent()
     }
 
+    def "set-based cascades are only used if no delete handler would be skipped"() {
+        expect:
+        mixing.getDescriptor(RefMongoEntity.class).isSetBasedDeletePossible()
+        and:
+        !mixing.getDescriptor(HandledRefMongoEntity.class).isSetBasedDeletePossible()
+    }
+
+    def "an entity-wise cascade invokes the delete handlers of the referencing entities"() {
+        given:
+        RefEntity refEntity = new RefEntity()
+        oma.update(refEntity)
+        HandledRefMongoEntity handledRefMongoEntity = new HandledRefMongoEntity()
+        handledRefMongoEntity.getRef().setValue(refEntity)
+        mango.update(handledRefMongoEntity)
+        RefMongoEntity refMongoEntity = new RefMongoEntity()
+        refMongoEntity.getRef().setValue(refEntity)
+        mango.update(refMongoEntity)
+        and:
+        int deletedEntities = HandledRefMongoEntity.DELETED_ENTITIES.get()
+        when:
+        oma.delete(refEntity)
+        then: "both referencing entities are deleted, either set-based or entity-wise"
+        !mango.find(HandledRefMongoEntity.class, handledRefMongoEntity.getId()).isPresent()
+        and:
+        !mango.find(RefMongoEntity.class, refMongoEntity.getId()).isPresent()
+        and: "the after delete handler has been invoked as the entity was deleted entity-wise"
+        HandledRefMongoEntity.DELETED_ENTITIES.get() == deletedEntities + 1
+    }
+
     def "writeOnce semantics are enforced"() {
         when:
         WriteOnceParentEntity parent = new WriteOnceParentEntity()
@@ -115,4 +151,124 @@ class BaseEntityRefSpec extends BaseSpecification {
         notThrown(HandledException)
     }
 
+    def "prefetch loads SQLEntityRefs per block and for the first entity"() {
+        given:
+        List<RefEntity> refEntities = (1..3).collect {
+            RefEntity refEntity = new RefEntity()
+            oma.update(refEntity)
+            return refEntity
+        }
+        List<RefMongoEntity> mongoEntities = refEntities.collect { RefEntity refEntity ->
+            RefMongoEntity refMongoEntity = new RefMongoEntity()
+            refMongoEntity.getRef().setValue(refEntity)
+            mango.update(refMongoEntity)
+            return refMongoEntity
+        }
+        def mongoIds = mongoEntities*.getId()
+        when:
+        List<RefMongoEntity> list = mango.select(RefMongoEntity.class)
+                                         .where(QueryBuilder.FILTERS.oneInField(MongoEntity.ID, mongoIds).build())
+                                         .prefetch(Mapping.named("ref"))
+                                         .queryList()
+        List<RefMongoEntity> streamed = mango.select(RefMongoEntity.class)
+                                             .where(QueryBuilder.FILTERS.oneInField(MongoEntity.ID, mongoIds).build())
+                                             .prefetch(Mapping.named("ref"))
+                                             .streamBlockwise()
+                                             .collect(Collectors.toList())
+        RefMongoEntity first = mango.select(RefMongoEntity.class)
+                                    .eq(MongoEntity.ID, mongoIds.get(0))
+                                    .prefetch(Mapping.named("ref"))
+                                    .queryFirst()
+        then:
+        list.size() == 3
+        list.every { it.getRef().isValueLoaded() }
+        list.collect { it.getRef().getValueIfPresent().get().getId() } as Set == refEntities*.getId() as Set
+        and:
+        streamed.size() == 3
+        streamed.every { it.getRef().isValueLoaded() }
+        and:
+        first.getRef().isValueLoaded()
+        first.getRef().getValueIfPresent().get().getId() == refEntities.get(0).getId()
+    }
+
+    def "prefetch loads MongoRefs and ElasticRefs per block"() {
+        given:
+        List<RefEntity> refEntities = (1..3).collect {
+            RefMongoEntity refMongoEntity = new RefMongoEntity()
+            mango.update(refMongoEntity)
+            RefElasticEntity refElasticEntity = new RefElasticEntity()
+            elastic.update(refElasticEntity)
+            RefEntity refEntity = new RefEntity()
+            refEntity.getMongo().setValue(refMongoEntity)
+            refEntity.getElastic().setValue(refElasticEntity)
+            oma.update(refEntity)
+            return refEntity
+        }
+        and:
+        RefEntity entityWithoutRefs = new RefEntity()
+        oma.update(entityWithoutRefs)
+        def ids = refEntities*.getId() + [entityWithoutRefs.getId()]
+        when:
+        List<RefEntity> list = oma.select(RefEntity.class)
+                                  .where(OMA.FILTERS.oneInField(SQLEntity.ID, ids).build())
+                                  .prefetch(Mapping.named("mongo"), Mapping.named("elastic"))
+                                  .queryList()
+        List<RefEntity> streamed = oma.select(RefEntity.class)
+                                      .where(OMA.FILTERS.oneInField(SQLEntity.ID, ids).build())
+                                      .prefetch(Mapping.named("mongo"), Mapping.named("elastic"))
+                                      .streamBlockwise()
+                                      .collect(Collectors.toList())
+        then:
+        list.size() == 4
+        list.every { it.getMongo().isValueLoaded() && it.getElastic().isValueLoaded() }
+        list.find { it.getId() == refEntities.get(1).getId() }.getMongo().getValueIfPresent().get().getId() ==
+                refEntities.get(1).getMongo().getId()
+        list.find { it.getId() == refEntities.get(1).getId() }.getElastic().getValueIfPresent().get().getId() ==
+                refEntities.get(1).getElastic().getId()
+        list.find { it.getId() == entityWithoutRefs.getId() }.getMongo().isEmpty()
+        and:
+        streamed.size() == 4
+        streamed.every { it.getMongo().isValueLoaded() && it.getElastic().isValueLoaded() }
+    }
+
+    def "prefetch loads SQLEntityRefs of Elastic entities per scroll block"() {
+        given:
+        RefEntity refEntity = new RefEntity()
+        oma.update(refEntity)
+        (1..3).each {
+            RefElasticEntity refElasticEntity = new RefElasticEntity()
+            refElasticEntity.getRef().setValue(refEntity)
+            elastic.update(refElasticEntity)
+        }
+        elastic.refresh(RefElasticEntity.class)
+        when:
+        List<RefElasticEntity> streamed = elastic.select(RefElasticEntity.class)
+                                                 .eq(Mapping.named("ref"), refEntity.getId())
+                                                 .prefetch(Mapping.named("ref"))
+                                                 .streamBlockwise()
+                                                 .collect(Collectors.toList())
+        then:
+        streamed.size() == 3
+        streamed.every { it.getRef().isValueLoaded() && it.getRef().getValueIfPresent().get() == refEntity }
+    }
+
+    def "iterating over a query which prefetches references hands out the entities without loading them"() {
+        given:
+        RefMongoEntity refMongoEntity = new RefMongoEntity()
+        mango.update(refMongoEntity)
+        RefEntity refEntity = new RefEntity()
+        refEntity.getMongo().setValue(refMongoEntity)
+        oma.update(refEntity)
+        when:
+        List<RefEntity> iterated = []
+        oma.select(RefEntity.class)
+           .eq(SQLEntity.ID, refEntity.getId())
+           .prefetch(Mapping.named("mongo"))
+           .iterateAll({ iterated.add(it) })
+        then:
+        iterated.size() == 1
+        !iterated.get(0).getMongo().isValueLoaded()
+        iterated.get(0).getMongo().getId() == refMongoEntity.getId()
+    }
+
 }
@@ -0,0 +1,142 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing
+
+import sirius.db.es.Elastic
+import sirius.db.es.ElasticTestEntity
+import sirius.db.jdbc.Database
+import sirius.db.jdbc.OMA
+import sirius.db.jdbc.TestEntity
+import sirius.db.jdbc.schema.Schema
+import sirius.db.mongo.Mango
+import sirius.db.mongo.MangoTestEntity
+import sirius.kernel.BaseSpecification
+import sirius.kernel.di.std.Part
+import sirius.kernel.health.HandledException
+
+import java.time.Duration
+
+class FindAllSpec extends BaseSpecification {
+
+    @Part
+    private static OMA oma
+
+    @Part
+    private static Mango mango
+
+    @Part
+    private static Elastic elastic
+
+    def setupSpec() {
+        oma.getReadyFuture().await(Duration.ofSeconds(60))
+        elastic.getReadyFuture().await(Duration.ofSeconds(60))
+    }
+
+    private static TestEntity sqlEntity(String firstname) {
+        TestEntity entity = new TestEntity()
+        entity.setFirstname(firstname)
+        entity.setLastname("FindAll")
+        oma.update(entity)
+        return entity
+    }
+
+    private static MangoTestEntity mongoEntity(String firstname) {
+        MangoTestEntity entity = new MangoTestEntity()
+        entity.setFirstname(firstname)
+        entity.setLastname("FindAll")
+        mango.update(entity)
+        return entity
+    }
+
+    private static ElasticTestEntity elasticEntity(String firstname) {
+        ElasticTestEntity entity = new ElasticTestEntity()
+        entity.setFirstname(firstname)
+        entity.setLastname("FindAll")
+        elastic.update(entity)
+        return entity
+    }
+
+    def "OMA.findAll returns the entities in the order of the given ids"() {
+        given:
+        TestEntity a = sqlEntity("A")
+        TestEntity b = sqlEntity("B")
+        TestEntity c = sqlEntity("C")
+        when:
+        List<Optional<TestEntity>> result = oma.findAll(TestEntity.class,
+                                                        [c.getId(), -1L, a.getId(), "", b.getId(), a.getId()])
+        then:
+        result.collect { it.map({ entity -> entity.getFirstname() }).orElse(null) } == ["C", null, "A", null, "B", "A"]
+    }
+
+    def "OMA.findAll performs one lookup per 500 distinct ids"() {
+        given:
+        List<Long> ids = (1..501).collect { sqlEntity("Entity " + it).getId() }
+        and:
+        Database database = Mock(Database)
+        OMA countingOMA = new OMA()
+        countingOMA.mixing = oma.mixing
+        countingOMA.schema = Mock(Schema)
+        countingOMA.schema.getDatabase(Mixing.DEFAULT_REALM) >> database
+        when: "each id is requested twice and a stale id is mixed in"
+        List<Optional<TestEntity>> result = countingOMA.findAll(TestEntity.class, ids + [-1L] + ids)
+        then:
+        2 * database.getConnection() >> { oma.getDatabase(Mixing.DEFAULT_REALM).getConnection() }
+        and:
+        result.size() == 1003
+        result.get(501) == Optional.empty()
+        result.findAll { it.isPresent() }.size() == 1002
+        result.subList(0, 501).collect { it.get().getId() } == ids
+        result.subList(502, 1003).collect { it.get().getId() } == ids
+    }
+
+    def "OMA.findAll of an empty collection yields an empty list"() {
+        expect:
+        oma.findAll(TestEntity.class, []).isEmpty()
+    }
+
+    def "Mango.findAll returns the entities in the order of the given ids"() {
+        given:
+        MangoTestEntity a = mongoEntity("A")
+        MangoTestEntity b = mongoEntity("B")
+        MangoTestEntity c = mongoEntity("C")
+        when:
+        List<Optional<MangoTestEntity>> result = mango.findAll(MangoTestEntity.class,
+                                                               [b.getId(), "unknown", c.getId(), null, a.getId()])
+        then:
+        result.collect { it.map({ entity -> entity.getFirstname() }).orElse(null) } == ["B", null, "C", null, "A"]
+    }
+
+    def "Mango.findAll resolves more than 500 ids"() {
+        given:
+        List<String> ids = (1..501).collect { mongoEntity("Entity " + it).getId() }
+        when:
+        List<Optional<MangoTestEntity>> result = mango.findAll(MangoTestEntity.class, ids.reverse())
+        then:
+        result.collect { it.get().getId() } == ids.reverse()
+    }
+
+    def "Elastic.findAll uses mget and returns the entities in the order of the given ids"() {
+        given:
+        ElasticTestEntity a = elasticEntity("A")
+        ElasticTestEntity b = elasticEntity("B")
+        ElasticTestEntity c = elasticEntity("C")
+        when: "no refresh is required as mget is realtime"
+        List<Optional<ElasticTestEntity>> result = elastic.findAll(ElasticTestEntity.class,
+                                                                   [a.getId(), c.getId(), "unknown", b.getId()])
+        then:
+        result.collect { it.map({ entity -> entity.getFirstname() }).orElse(null) } == ["A", "C", null, "B"]
+    }
+
+    def "findAll rejects objects which are not ids"() {
+        when:
+        mango.findAll(MangoTestEntity.class, [new Object()])
+        then:
+        thrown(HandledException)
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing;
+
+import sirius.db.jdbc.SQLEntityRef;
+import sirius.db.mixing.annotations.AfterDelete;
+import sirius.db.mixing.annotations.ComplexDelete;
+import sirius.db.mixing.annotations.NullAllowed;
+import sirius.db.mixing.types.BaseEntityRef;
+import sirius.db.mongo.MongoEntity;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@ComplexDelete(false)
+public class HandledRefMongoEntity extends MongoEntity {
+
+    public static final AtomicInteger DELETED_ENTITIES = new AtomicInteger();
+
+    @NullAllowed
+    private final SQLEntityRef<RefEntity> ref = SQLEntityRef.on(RefEntity.class, BaseEntityRef.OnDelete.CASCADE);
+
+    @AfterDelete
+    protected void onDelete() {
+        DELETED_ENTITIES.incrementAndGet();
+    }
+
+    public SQLEntityRef<RefEntity> getRef() {
+        return ref;
+    }
+}
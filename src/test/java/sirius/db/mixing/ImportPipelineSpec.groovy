@@ -0,0 +1,142 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing
+
+import sirius.db.jdbc.OMA
+import sirius.db.mongo.Mango
+import sirius.kernel.BaseSpecification
+import sirius.kernel.async.CallContext
+import sirius.kernel.async.TaskContext
+import sirius.kernel.di.std.Part
+import sirius.kernel.health.HandledException
+
+class ImportPipelineSpec extends BaseSpecification {
+
+    @Part
+    private static Mixing mixing
+
+    @Part
+    private static OMA oma
+
+    @Part
+    private static Mango mango
+
+    private static List<Map<String, Object>> rows() {
+        return [[name: "Row 1", age: "1"],
+                [name: "Row 2", age: "not a number"],
+                [name: "Row 3", age: "-1"],
+                [name: "invalid", age: "4"],
+                [name: "Row 5", age: "5"]]
+    }
+
+    def "rows are imported via OMA and failed rows are reported with their number"() {
+        given:
+        oma.select(SQLImportTestEntity.class).delete()
+        Map<Long, HandledException> errors = [:]
+        Map<Long, HandledException> warnings = [:]
+        when:
+        ImportPipeline.Result result = mixing.importPipeline(SQLImportTestEntity.class)
+                                             .withChunkSize(2)
+                                             .onError({ row, error -> errors.put(row, error) })
+                                             .onWarning({ row, warning -> warnings.put(row, warning) })
+                                             .execute(rows().iterator())
+        then:
+        result.getRowsRead() == 5
+        result.getRowsImported() == 3
+        result.getRowsWithWarnings() == 1
+        result.getRowsFailed() == 2
+        result.getRowsSkipped() == 0
+        and:
+        errors.keySet() == [2L, 4L] as Set
+        errors.get(4L).getMessage().contains("Invalid name")
+        warnings.keySet() == [3L] as Set
+        warnings.get(3L).getMessage() == "Negative age"
+        and:
+        oma.select(SQLImportTestEntity.class).count() == 3
+        oma.select(SQLImportTestEntity.class).eq(SQLImportTestEntity.NAME, "Row 3").queryFirst().getAge() == -1
+    }
+
+    def "rows with warnings are rejected as errors via Mango if requested"() {
+        given:
+        mango.select(MongoImportTestEntity.class).delete()
+        when:
+        ImportPipeline.Result result = mixing.importPipeline(MongoImportTestEntity.class)
+                                             .skipRowsWithWarnings()
+                                             .execute(rows().iterator())
+        then:
+        result.getRowsRead() == 5
+        result.getRowsImported() == 2
+        result.getRowsWithWarnings() == 0
+        result.getRowsFailed() == 3
+        and:
+        result.getErrors().collect { it.getRowNumber() } == [2L, 3L, 4L]
+        result.getErrors().get(1).getError().getMessage() == "Negative age"
+        result.getWarnings().isEmpty()
+        and:
+        mango.select(MongoImportTestEntity.class).count() == 2
+        mango.select(MongoImportTestEntity.class).eq(MongoImportTestEntity.NAME, "Row 3").count() == 0
+    }
+
+    def "rows for which the parser yields null are skipped"() {
+        given:
+        mango.select(MongoImportTestEntity.class).delete()
+        when:
+        ImportPipeline.Result result = mixing.importPipeline(MongoImportTestEntity.class, { Integer row ->
+            if (row % 3 == 0) {
+                return null
+            }
+            MongoImportTestEntity entity = new MongoImportTestEntity()
+            entity.setName("Row " + row)
+            entity.setAge(row)
+            return entity
+        }).withChunkSize(4).withBatchSize(3).execute((1..10).iterator())
+        then:
+        result.getRowsRead() == 10
+        result.getRowsImported() == 7
+        result.getRowsSkipped() == 3
+        result.getRowsFailed() == 0
+        result.getErrors().isEmpty()
+        and:
+        mango.select(MongoImportTestEntity.class).count() == 7
+    }
+
+    def "an import is stopped once its task is cancelled"() {
+        given:
+        oma.select(SQLImportTestEntity.class).delete()
+        CallContext originalContext = CallContext.getCurrent()
+        CallContext.initialize()
+        and:
+        int rowsProvided = 0
+        Iterator<Map<String, Object>> source = new Iterator<Map<String, Object>>() {
+            @Override
+            boolean hasNext() {
+                return rowsProvided < 1000
+            }
+
+            @Override
+            Map<String, Object> next() {
+                if (++rowsProvided == 250) {
+                    TaskContext.get().cancel()
+                }
+                return [name: "Row " + rowsProvided, age: rowsProvided]
+            }
+        }
+        when:
+        ImportPipeline.Result result = mixing.importPipeline(SQLImportTestEntity.class)
+                                             .withChunkSize(100)
+                                             .execute(source)
+        then: "the chunk being read is completed but no further rows are read"
+        result.getRowsRead() == 300
+        result.getRowsImported() == 300
+        and:
+        oma.select(SQLImportTestEntity.class).count() == 300
+        cleanup:
+        CallContext.setCurrent(originalContext)
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing
+
+import sirius.kernel.BaseSpecification
+
+class LatencyHistogramSpec extends BaseSpecification {
+
+    def "an empty histogram reports zero for all values"() {
+        given:
+        LatencyHistogram histogram = new LatencyHistogram()
+        expect:
+        histogram.getCount() == 0
+        histogram.getAverage() == 0
+        histogram.getMax() == 0
+        histogram.getPercentile(50) == 0
+    }
+
+    def "bucketIndex and upperBound agree on the bucket bounds"() {
+        expect:
+        LatencyHistogram.bucketIndex(value) == index
+        LatencyHistogram.upperBound(index) == upperBound
+        where:
+        value | index | upperBound
+        0     | 0     | 0
+        3     | 3     | 3
+        4     | 4     | 4
+        7     | 7     | 7
+        8     | 8     | 9
+        9     | 8     | 9
+        10    | 9     | 11
+        15    | 11    | 15
+        16    | 12    | 19
+        1000  | 35    | 1023
+        1023  | 35    | 1023
+        1024  | 36    | 1279
+    }
+
+    def "each value lies within the bounds of its bucket"() {
+        expect:
+        (1L..5000L).every { value ->
+            int index = LatencyHistogram.bucketIndex(value)
+            value <= LatencyHistogram.upperBound(index) && value > LatencyHistogram.upperBound(index - 1)
+        }
+    }
+
+    def "percentiles are reported as upper bound of the bucket but never exceed the maximum"() {
+        given:
+        LatencyHistogram histogram = new LatencyHistogram()
+        when:
+        (1..100).each { histogram.addValue(it) }
+        then:
+        histogram.getCount() == 100
+        histogram.getAverage() == 50
+        histogram.getMax() == 100
+        histogram.getPercentile(1) == 1
+        histogram.getPercentile(50) == 55
+        histogram.getPercentile(99) == 100
+        histogram.getPercentile(100) == 100
+    }
+
+    def "negative values are recorded as zero"() {
+        given:
+        LatencyHistogram histogram = new LatencyHistogram()
+        when:
+        histogram.addValue(-10)
+        then:
+        histogram.getCount() == 1
+        histogram.getMax() == 0
+        histogram.getPercentile(99) == 0
+    }
+
+    def "reset discards all recorded values"() {
+        given:
+        LatencyHistogram histogram = new LatencyHistogram()
+        histogram.addValue(1000)
+        when:
+        histogram.reset()
+        then:
+        histogram.getCount() == 0
+        histogram.getMax() == 0
+        histogram.getPercentile(50) == 0
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing;
+
+import sirius.db.mongo.MongoEntity;
+import sirius.db.mixing.annotations.BeforeSave;
+import sirius.db.mixing.annotations.OnValidate;
+import sirius.kernel.health.Exceptions;
+
+import java.util.function.Consumer;
+
+public class MongoImportTestEntity extends MongoEntity {
+
+    public static final Mapping NAME = Mapping.named("name");
+    private String name;
+
+    public static final Mapping AGE = Mapping.named("age");
+    private int age;
+
+    @OnValidate
+    protected void validateAge(Consumer<String> validationConsumer) {
+        if (age < 0) {
+            validationConsumer.accept("Negative age");
+        }
+    }
+
+    @BeforeSave
+    protected void rejectInvalidNames() {
+        if ("invalid".equals(name)) {
+            throw Exceptions.createHandled().withDirectMessage("Invalid name").handle();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public void setAge(int age) {
+        this.age = age;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing;
+
+import sirius.db.mixing.annotations.Index;
+import sirius.db.mixing.annotations.Unique;
+import sirius.db.mongo.Mango;
+import sirius.db.mongo.MongoEntity;
+
+@Index(name = "external_id", columns = "externalId", columnSettings = Mango.INDEX_ASCENDING, unique = true)
+public class MongoMultiUniqueTestEntity extends MongoEntity {
+
+    public static final Mapping CODE = Mapping.named("code");
+    @Unique
+    private String code;
+
+    public static final Mapping TENANT = Mapping.named("tenant");
+    private String tenant;
+
+    public static final Mapping NAME = Mapping.named("name");
+    @Unique(within = "tenant")
+    private String name;
+
+    public static final Mapping EXTERNAL_ID = Mapping.named("externalId");
+    @Unique(enforcedByIndex = true)
+    private String externalId;
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getExternalId() {
+        return externalId;
+    }
+
+    public void setExternalId(String externalId) {
+        this.externalId = externalId;
+    }
+}
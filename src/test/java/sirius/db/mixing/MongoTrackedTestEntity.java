@@ -0,0 +1,69 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing;
+
+import sirius.db.mixing.annotations.NullAllowed;
+import sirius.db.mixing.annotations.TrackChanges;
+import sirius.db.mixing.types.BaseEntityRef;
+import sirius.db.mixing.types.StringList;
+import sirius.db.mixing.types.StringMap;
+import sirius.db.mongo.MangoTestEntity;
+import sirius.db.mongo.MongoEntity;
+import sirius.db.mongo.types.MongoRef;
+
+@TrackChanges
+public class MongoTrackedTestEntity extends MongoEntity {
+
+    public static final Mapping NAME = Mapping.named("name");
+    @NullAllowed
+    private String name;
+
+    public static final Mapping COUNTER = Mapping.named("counter");
+    private int counter;
+
+    public static final Mapping TAGS = Mapping.named("tags");
+    private final StringList tags = new StringList();
+
+    public static final Mapping ATTRIBUTES = Mapping.named("attributes");
+    private final StringMap attributes = new StringMap();
+
+    public static final Mapping BUDDY = Mapping.named("buddy");
+    @NullAllowed
+    private final MongoRef<MangoTestEntity> buddy = MongoRef.on(MangoTestEntity.class, BaseEntityRef.OnDelete.IGNORE);
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+        markChanged(NAME);
+    }
+
+    public int getCounter() {
+        return counter;
+    }
+
+    public void setCounter(int counter) {
+        this.counter = counter;
+        markChanged(COUNTER);
+    }
+
+    public StringList getTags() {
+        return tags;
+    }
+
+    public StringMap getAttributes() {
+        return attributes;
+    }
+
+    public MongoRef<MangoTestEntity> getBuddy() {
+        return buddy;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing;
+
+import sirius.db.jdbc.SQLEntity;
+import sirius.db.mixing.annotations.Index;
+import sirius.db.mixing.annotations.Length;
+import sirius.db.mixing.annotations.Unique;
+
+@Index(name = "external_id", columns = "externalId", unique = true)
+public class SQLMultiUniqueTestEntity extends SQLEntity {
+
+    public static final Mapping CODE = Mapping.named("code");
+    @Length(50)
+    @Unique
+    private String code;
+
+    public static final Mapping TENANT = Mapping.named("tenant");
+    @Length(50)
+    private String tenant;
+
+    public static final Mapping NAME = Mapping.named("name");
+    @Length(50)
+    @Unique(within = "tenant")
+    private String name;
+
+    public static final Mapping EXTERNAL_ID = Mapping.named("externalId");
+    @Length(50)
+    @Unique(enforcedByIndex = true)
+    private String externalId;
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getExternalId() {
+        return externalId;
+    }
+
+    public void setExternalId(String externalId) {
+        this.externalId = externalId;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing;
+
+import sirius.db.jdbc.SQLEntity;
+import sirius.db.jdbc.SQLEntityRef;
+import sirius.db.jdbc.TestEntity;
+import sirius.db.mixing.annotations.Length;
+import sirius.db.mixing.annotations.NullAllowed;
+import sirius.db.mixing.annotations.TrackChanges;
+import sirius.db.mixing.types.BaseEntityRef;
+import sirius.db.mixing.types.StringList;
+
+@TrackChanges
+public class SQLTrackedTestEntity extends SQLEntity {
+
+    public static final Mapping NAME = Mapping.named("name");
+    @Length(50)
+    @NullAllowed
+    private String name;
+
+    public static final Mapping COUNTER = Mapping.named("counter");
+    private int counter;
+
+    public static final Mapping TAGS = Mapping.named("tags");
+    @Length(255)
+    private final StringList tags = new StringList();
+
+    public static final Mapping BUDDY = Mapping.named("buddy");
+    @NullAllowed
+    private final SQLEntityRef<TestEntity> buddy = SQLEntityRef.on(TestEntity.class, BaseEntityRef.OnDelete.IGNORE);
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+        markChanged(NAME);
+    }
+
+    public int getCounter() {
+        return counter;
+    }
+
+    public void setCounter(int counter) {
+        this.counter = counter;
+        markChanged(COUNTER);
+    }
+
+    public StringList getTags() {
+        return tags;
+    }
+
+    public SQLEntityRef<TestEntity> getBuddy() {
+        return buddy;
+    }
+}
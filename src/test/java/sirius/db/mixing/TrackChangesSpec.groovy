@@ -0,0 +1,153 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing
+
+import sirius.db.jdbc.OMA
+import sirius.db.jdbc.TestEntity
+import sirius.db.mongo.Mango
+import sirius.db.mongo.MangoTestEntity
+import sirius.kernel.BaseSpecification
+import sirius.kernel.di.std.Part
+
+import java.time.Duration
+
+class TrackChangesSpec extends BaseSpecification {
+
+    @Part
+    private static OMA oma
+
+    @Part
+    private static Mango mango
+
+    def setupSpec() {
+        oma.getReadyFuture().await(Duration.ofSeconds(60))
+    }
+
+    def "loading a tracked entity doesn't mark any property as changed"() {
+        given:
+        SQLTrackedTestEntity sqlEntity = new SQLTrackedTestEntity()
+        sqlEntity.setName("Loaded")
+        sqlEntity.setCounter(1)
+        sqlEntity.getTags().add("a")
+        oma.update(sqlEntity)
+        and:
+        MongoTrackedTestEntity mongoEntity = new MongoTrackedTestEntity()
+        mongoEntity.setName("Loaded")
+        mongoEntity.setCounter(1)
+        mongoEntity.getAttributes().put("a", "b")
+        mango.update(mongoEntity)
+        when:
+        SQLTrackedTestEntity loadedSQLEntity = oma.refreshOrFail(sqlEntity)
+        MongoTrackedTestEntity loadedMongoEntity = mango.refreshOrFail(mongoEntity)
+        then:
+        loadedSQLEntity.getChangeMarkers() == null
+        loadedSQLEntity.getDescriptor().getChangedProperties(loadedSQLEntity).isEmpty()
+        and:
+        loadedMongoEntity.getChangeMarkers() == null
+        loadedMongoEntity.getDescriptor().getChangedProperties(loadedMongoEntity).isEmpty()
+        and: "saving an entity discards its markers"
+        sqlEntity.getChangeMarkers() == null
+        mongoEntity.getChangeMarkers() == null
+    }
+
+    def "changes made via setters of a tracked entity are persisted"() {
+        given:
+        SQLTrackedTestEntity sqlEntity = new SQLTrackedTestEntity()
+        sqlEntity.setName("Before")
+        oma.update(sqlEntity)
+        MongoTrackedTestEntity mongoEntity = new MongoTrackedTestEntity()
+        mongoEntity.setName("Before")
+        mango.update(mongoEntity)
+        when:
+        sqlEntity = oma.refreshOrFail(sqlEntity)
+        sqlEntity.setName("After")
+        sqlEntity.setCounter(42)
+        mongoEntity = mango.refreshOrFail(mongoEntity)
+        mongoEntity.setName("After")
+        mongoEntity.setCounter(42)
+        then:
+        sqlEntity.getDescriptor().getChangedProperties(sqlEntity)*.getName() as Set == ["name", "counter"] as Set
+        mongoEntity.getDescriptor().getChangedProperties(mongoEntity)*.getName() as Set == ["name", "counter"] as Set
+        when:
+        oma.update(sqlEntity)
+        mango.update(mongoEntity)
+        then:
+        oma.refreshOrFail(sqlEntity).getName() == "After"
+        oma.refreshOrFail(sqlEntity).getCounter() == 42
+        mango.refreshOrFail(mongoEntity).getName() == "After"
+        mango.refreshOrFail(mongoEntity).getCounter() == 42
+    }
+
+    def "properties written via Property.setValue are marked as changed"() {
+        given:
+        MongoTrackedTestEntity entity = new MongoTrackedTestEntity()
+        mango.update(entity)
+        entity = mango.refreshOrFail(entity)
+        when:
+        entity.getDescriptor().getProperty(MongoTrackedTestEntity.NAME).setValue(entity, "Via Property")
+        then:
+        entity.getDescriptor().getChangedProperties(entity)*.getName() == ["name"]
+        when:
+        mango.update(entity)
+        then:
+        mango.refreshOrFail(entity).getName() == "Via Property"
+    }
+
+    def "in place changes of lists and maps of a tracked entity are persisted"() {
+        given:
+        SQLTrackedTestEntity sqlEntity = new SQLTrackedTestEntity()
+        sqlEntity.getTags().add("a")
+        oma.update(sqlEntity)
+        MongoTrackedTestEntity mongoEntity = new MongoTrackedTestEntity()
+        mongoEntity.getTags().add("a")
+        mongoEntity.getAttributes().put("color", "red")
+        mango.update(mongoEntity)
+        when:
+        sqlEntity = oma.refreshOrFail(sqlEntity)
+        sqlEntity.getTags().add("b")
+        oma.update(sqlEntity)
+        and:
+        mongoEntity = mango.refreshOrFail(mongoEntity)
+        mongoEntity.getTags().modify().add("b")
+        mongoEntity.getAttributes().modify().put("color", "blue")
+        mango.update(mongoEntity)
+        then:
+        oma.refreshOrFail(sqlEntity).getTags().data() == ["a", "b"]
+        mango.refreshOrFail(mongoEntity).getTags().data() == ["a", "b"]
+        mango.refreshOrFail(mongoEntity).getAttributes().get("color").orElse(null) == "blue"
+    }
+
+    def "changed references of a tracked entity are persisted"() {
+        given:
+        TestEntity sqlBuddy = new TestEntity()
+        sqlBuddy.setFirstname("Buddy")
+        sqlBuddy.setLastname("Tracked")
+        oma.update(sqlBuddy)
+        MangoTestEntity mongoBuddy = new MangoTestEntity()
+        mongoBuddy.setFirstname("Buddy")
+        mongoBuddy.setLastname("Tracked")
+        mango.update(mongoBuddy)
+        and:
+        SQLTrackedTestEntity sqlEntity = new SQLTrackedTestEntity()
+        oma.update(sqlEntity)
+        MongoTrackedTestEntity mongoEntity = new MongoTrackedTestEntity()
+        mango.update(mongoEntity)
+        when:
+        sqlEntity = oma.refreshOrFail(sqlEntity)
+        sqlEntity.getBuddy().setValue(sqlBuddy)
+        oma.update(sqlEntity)
+        and:
+        mongoEntity = mango.refreshOrFail(mongoEntity)
+        mongoEntity.getBuddy().setValue(mongoBuddy)
+        mango.update(mongoEntity)
+        then:
+        oma.refreshOrFail(sqlEntity).getBuddy().getId() == sqlBuddy.getId()
+        mango.refreshOrFail(mongoEntity).getBuddy().getId() == mongoBuddy.getId()
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing
+
+import sirius.db.jdbc.OMA
+import sirius.db.mongo.Mango
+import sirius.kernel.BaseSpecification
+import sirius.kernel.di.std.Part
+import sirius.kernel.health.HandledException
+
+import java.time.Duration
+
+class UniquenessSpec extends BaseSpecification {
+
+    @Part
+    private static OMA oma
+
+    @Part
+    private static Mango mango
+
+    @Part
+    private static Mixing mixing
+
+    def setupSpec() {
+        oma.getReadyFuture().await(Duration.ofSeconds(60))
+    }
+
+    def setup() {
+        oma.select(SQLMultiUniqueTestEntity.class).delete()
+        mango.select(MongoMultiUniqueTestEntity.class).delete()
+    }
+
+    private static SQLMultiUniqueTestEntity sqlEntity(String code, String tenant, String name, String externalId) {
+        SQLMultiUniqueTestEntity entity = new SQLMultiUniqueTestEntity()
+        entity.setCode(code)
+        entity.setTenant(tenant)
+        entity.setName(name)
+        entity.setExternalId(externalId)
+        return entity
+    }
+
+    private static MongoMultiUniqueTestEntity mongoEntity(String code, String tenant, String name, String externalId) {
+        MongoMultiUniqueTestEntity entity = new MongoMultiUniqueTestEntity()
+        entity.setCode(code)
+        entity.setTenant(tenant)
+        entity.setName(name)
+        entity.setExternalId(externalId)
+        return entity
+    }
+
+    private static String invalidField(HandledException error) {
+        return ((InvalidFieldException) error.getCause()).getField()
+    }
+
+    def "OMA checks all unique fields of an entity and reports the colliding one"() {
+        given:
+        oma.update(sqlEntity("A", "T1", "Alpha", "X1"))
+        expect: "the combined check finds collisions in any of the fields"
+        !sqlEntity("A", "T1", "Beta", "X2").isUnique(uniqueProperties(SQLMultiUniqueTestEntity.class))
+        !sqlEntity("B", "T1", "Alpha", "X2").isUnique(uniqueProperties(SQLMultiUniqueTestEntity.class))
+        sqlEntity("B", "T1", "Beta", "X2").isUnique(uniqueProperties(SQLMultiUniqueTestEntity.class))
+        when:
+        oma.update(sqlEntity("B", "T1", "Alpha", "X2"))
+        then:
+        HandledException error = thrown(HandledException)
+        invalidField(error) == "name"
+        when:
+        oma.update(sqlEntity("A", "T2", "Beta", "X2"))
+        then:
+        error = thrown(HandledException)
+        invalidField(error) == "code"
+    }
+
+    def "OMA checks unique fields within their side constraints"() {
+        given:
+        SQLMultiUniqueTestEntity entity = sqlEntity("A", "T1", "Alpha", "X1")
+        oma.update(entity)
+        when: "the same name may be used by another tenant"
+        SQLMultiUniqueTestEntity otherTenant = sqlEntity("B", "T2", "Alpha", "X2")
+        oma.update(otherTenant)
+        and: "an unchanged entity doesn't collide with itself"
+        oma.update(oma.refreshOrFail(entity))
+        then:
+        oma.select(SQLMultiUniqueTestEntity.class).count() == 2
+        when: "moving the entity into a tenant which already uses its name"
+        otherTenant.setTenant("T1")
+        oma.update(otherTenant)
+        then:
+        HandledException error = thrown(HandledException)
+        invalidField(error) == "name"
+    }
+
+    def "OMA reports violations of a unique index as field error"() {
+        given:
+        oma.update(sqlEntity("A", "T1", "Alpha", "X1"))
+        when:
+        oma.tryUpdate(sqlEntity("B", "T1", "Beta", "X1"))
+        then:
+        thrown(IntegrityConstraintFailedException)
+        when:
+        oma.update(sqlEntity("B", "T1", "Beta", "X1"))
+        then:
+        HandledException error = thrown(HandledException)
+        invalidField(error) == "externalId"
+    }
+
+    def "Mango checks all unique fields of an entity and reports the colliding one"() {
+        given:
+        mango.update(mongoEntity("A", "T1", "Alpha", "X1"))
+        expect: "the combined check finds collisions in any of the fields"
+        !mongoEntity("A", "T1", "Beta", "X2").isUnique(uniqueProperties(MongoMultiUniqueTestEntity.class))
+        !mongoEntity("B", "T1", "Alpha", "X2").isUnique(uniqueProperties(MongoMultiUniqueTestEntity.class))
+        mongoEntity("B", "T1", "Beta", "X2").isUnique(uniqueProperties(MongoMultiUniqueTestEntity.class))
+        when:
+        mango.update(mongoEntity("B", "T1", "Alpha", "X2"))
+        then:
+        HandledException error = thrown(HandledException)
+        invalidField(error) == "name"
+        when:
+        mango.update(mongoEntity("A", "T2", "Beta", "X2"))
+        then:
+        error = thrown(HandledException)
+        invalidField(error) == "code"
+    }
+
+    def "Mango checks unique fields within their side constraints"() {
+        given:
+        MongoMultiUniqueTestEntity entity = mongoEntity("A", "T1", "Alpha", "X1")
+        mango.update(entity)
+        when: "the same name may be used by another tenant"
+        MongoMultiUniqueTestEntity otherTenant = mongoEntity("B", "T2", "Alpha", "X2")
+        mango.update(otherTenant)
+        and: "an unchanged entity doesn't collide with itself"
+        mango.update(mango.refreshOrFail(entity))
+        then:
+        mango.select(MongoMultiUniqueTestEntity.class).count() == 2
+        when: "moving the entity into a tenant which already uses its name"
+        otherTenant.setTenant("T1")
+        mango.update(otherTenant)
+        then:
+        HandledException error = thrown(HandledException)
+        invalidField(error) == "name"
+    }
+
+    def "Mango reports violations of a unique index as field error"() {
+        given:
+        mango.update(mongoEntity("A", "T1", "Alpha", "X1"))
+        when:
+        mango.tryUpdate(mongoEntity("B", "T1", "Beta", "X1"))
+        then:
+        thrown(IntegrityConstraintFailedException)
+        when:
+        mango.update(mongoEntity("B", "T1", "Beta", "X1"))
+        then:
+        HandledException error = thrown(HandledException)
+        invalidField(error) == "externalId"
+    }
+
+    private static List<Property> uniqueProperties(Class<? extends BaseEntity<?>> type) {
+        return [type.CODE, type.NAME].collect { Mapping field -> mixing.getDescriptor(type).getProperty(field) }
+    }
+}
@@ -8,6 +8,8 @@
 
 package sirius.db.mixing.fieldlookup
 
+import sirius.db.es.Elastic
+import sirius.db.es.ElasticTestEntity
 import sirius.db.jdbc.OMA
 import sirius.db.mixing.FieldLookupCache
 import sirius.db.mixing.Mapping
@@ -15,6 +17,8 @@ import sirius.db.mongo.Mango
 import sirius.kernel.BaseSpecification
 import sirius.kernel.di.std.Part
 
+import java.time.Duration
+
 class FieldLookupCacheSpec extends BaseSpecification {
 
     @Part
@@ -23,6 +27,9 @@ class FieldLookupCacheSpec extends BaseSpecification {
     @Part
     private static Mango mango
 
+    @Part
+    private static Elastic elastic
+
     @Part
     private static FieldLookupCache lookupCache
 
@@ -122,4 +129,136 @@ class FieldLookupCacheSpec extends BaseSpecification {
         heroFirstName.asString() == "Iron"
         heroLastName.asString() == "Man"
     }
+
+    def "jdbc bulk lookup loads all entities and skips missing ones"() {
+        given:
+        SQLFieldLookUpTestEntity gwen = new SQLFieldLookUpTestEntity()
+        gwen.getNames().setFirstname("Gwen")
+        gwen.getNames().setLastname("Stacy")
+        gwen.setAge(17)
+        oma.update(gwen)
+        and:
+        SQLFieldLookUpTestEntity harry = new SQLFieldLookUpTestEntity()
+        harry.getNames().setFirstname("Harry")
+        harry.getNames().setLastname("Osborn")
+        harry.setAge(18)
+        oma.update(harry)
+        and:
+        def firstname = SQLFieldLookUpTestEntity.NAMES.inner(NameFieldsTestComposite.FIRSTNAME)
+        when:
+        def values = lookupCache.lookupAll(SQLFieldLookUpTestEntity.class,
+                                           Arrays.asList(harry.getId(), "", -1L, gwen.getId(), harry.getId()),
+                                           firstname,
+                                           SQLFieldLookUpTestEntity.AGE)
+        then:
+        values.keySet() as List == [harry.getIdAsString(), "-1", gwen.getIdAsString()]
+        values.get(gwen.getIdAsString()).get(firstname).asString() == "Gwen"
+        values.get(gwen.getIdAsString()).get(SQLFieldLookUpTestEntity.AGE).asInt(0) == 17
+        values.get(harry.getIdAsString()).get(firstname).asString() == "Harry"
+        values.get(harry.getIdAsString()).get(SQLFieldLookUpTestEntity.AGE).asInt(0) == 18
+        values.get("-1").get(firstname).isEmptyString()
+        and:
+        lookupCache.cache.get(lookupCache.getCacheKey(SQLFieldLookUpTestEntity.class, gwen.getId(), firstname)).
+                asString() == "Gwen"
+    }
+
+    def "jdbc lookups of missing entities are remembered"() {
+        given:
+        SQLFieldLookUpTestEntity mary = new SQLFieldLookUpTestEntity()
+        mary.getNames().setFirstname("Mary")
+        mary.getNames().setLastname("Jane")
+        mary.setAge(17)
+        oma.update(mary)
+        when:
+        def missing = lookupCache.lookup(SQLFieldLookUpTestEntity.class, -2L, SQLFieldLookUpTestEntity.AGE)
+        def existing = lookupCache.lookup(SQLFieldLookUpTestEntity.class, mary.getId(), SQLFieldLookUpTestEntity.AGE)
+        then:
+        missing.isEmptyString()
+        existing.asInt(0) == 17
+        and:
+        lookupCache.missingEntities.get(lookupCache.getCacheKey(SQLFieldLookUpTestEntity.class, -2L, null)) == true
+        lookupCache.missingEntities.get(lookupCache.getCacheKey(SQLFieldLookUpTestEntity.class,
+                                                                mary.getId(),
+                                                                null)) == null
+        lookupCache.cache.get(lookupCache.getCacheKey(SQLFieldLookUpTestEntity.class,
+                                                      -2L,
+                                                      SQLFieldLookUpTestEntity.AGE)) == null
+    }
+
+    def "mongo bulk lookup loads all entities and skips missing ones"() {
+        given:
+        MongoFieldLookUpTestEntity pepper = new MongoFieldLookUpTestEntity()
+        pepper.getNames().setFirstname("Pepper")
+        pepper.getNames().setLastname("Potts")
+        pepper.setAge(40)
+        mango.update(pepper)
+        and:
+        MongoFieldLookUpTestEntity happy = new MongoFieldLookUpTestEntity()
+        happy.getNames().setFirstname("Happy")
+        happy.getNames().setLastname("Hogan")
+        happy.setAge(45)
+        mango.update(happy)
+        and:
+        def firstname = MongoFieldLookUpTestEntity.NAMES.inner(NameFieldsTestComposite.FIRSTNAME)
+        when:
+        def values = lookupCache.lookupAll(MongoFieldLookUpTestEntity.class,
+                                           Arrays.asList(happy.getId(), null, "missing-mongo-entity", pepper.getId()),
+                                           firstname,
+                                           MongoFieldLookUpTestEntity.AGE)
+        then:
+        values.keySet() as List == [happy.getId(), "missing-mongo-entity", pepper.getId()]
+        values.get(pepper.getId()).get(firstname).asString() == "Pepper"
+        values.get(pepper.getId()).get(MongoFieldLookUpTestEntity.AGE).asInt(0) == 40
+        values.get(happy.getId()).get(firstname).asString() == "Happy"
+        values.get(happy.getId()).get(MongoFieldLookUpTestEntity.AGE).asInt(0) == 45
+        values.get("missing-mongo-entity").get(firstname).isEmptyString()
+        and:
+        lookupCache.cache.get(lookupCache.getCacheKey(MongoFieldLookUpTestEntity.class, happy.getId(), firstname)).
+                asString() == "Happy"
+    }
+
+    def "mongo lookups of missing entities are remembered"() {
+        given:
+        MongoFieldLookUpTestEntity rhodey = new MongoFieldLookUpTestEntity()
+        rhodey.getNames().setFirstname("James")
+        rhodey.getNames().setLastname("Rhodes")
+        rhodey.setAge(48)
+        mango.update(rhodey)
+        when:
+        def missing = lookupCache.lookup(MongoFieldLookUpTestEntity.class,
+                                         "unknown-mongo-entity",
+                                         MongoFieldLookUpTestEntity.AGE)
+        def existing = lookupCache.lookup(MongoFieldLookUpTestEntity.class,
+                                          rhodey.getId(),
+                                          MongoFieldLookUpTestEntity.AGE)
+        then:
+        missing.isEmptyString()
+        existing.asInt(0) == 48
+        and:
+        lookupCache.missingEntities.get(lookupCache.getCacheKey(MongoFieldLookUpTestEntity.class,
+                                                                "unknown-mongo-entity",
+                                                                null)) == true
+        lookupCache.missingEntities.get(lookupCache.getCacheKey(MongoFieldLookUpTestEntity.class,
+                                                                rhodey.getId(),
+                                                                null)) == null
+    }
+
+    def "elastic field lookup works and skips missing entities"() {
+        given:
+        elastic.getReadyFuture().await(Duration.ofSeconds(60))
+        ElasticTestEntity peter = new ElasticTestEntity()
+        peter.setFirstname("Peter")
+        peter.setLastname("Parker")
+        peter.setAge(17)
+        elastic.update(peter)
+        when:
+        def values = lookupCache.lookupAll(ElasticTestEntity.class,
+                                           Arrays.asList(peter.getId(), "missing-elastic-entity"),
+                                           ElasticTestEntity.FIRSTNAME,
+                                           ElasticTestEntity.AGE)
+        then:
+        values.get(peter.getId()).get(ElasticTestEntity.FIRSTNAME).asString() == "Peter"
+        values.get(peter.getId()).get(ElasticTestEntity.AGE).asInt(0) == 17
+        values.get("missing-elastic-entity").get(ElasticTestEntity.FIRSTNAME).isEmptyString()
+    }
 }
@@ -0,0 +1,115 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing.query
+
+import sirius.db.jdbc.OMA
+import sirius.db.mixing.EntityDescriptor
+import sirius.db.mixing.Mixing
+import sirius.db.mixing.query.constraints.FilterFactory
+import sirius.db.mongo.Mango
+import sirius.db.mongo.MangoTestEntity
+import sirius.db.mongo.QueryBuilder
+import sirius.db.mongo.constraints.MongoConstraint
+import sirius.kernel.BaseSpecification
+import sirius.kernel.async.CallContext
+import sirius.kernel.di.std.Part
+
+class CompiledQueryCacheSpec extends BaseSpecification {
+
+    @Part
+    private static Mixing mixing
+
+    @Part
+    private static Mango mango
+
+    private static EntityDescriptor mongoDescriptor() {
+        return mixing.getDescriptor(MangoTestEntity.class)
+    }
+
+    private static boolean isCached(FilterFactory<?> factory, EntityDescriptor descriptor, String query) {
+        return FilterFactory.COMPILED_QUERIES.get(factory.computeCompiledQueryKey(descriptor, query, [])) != null
+    }
+
+    def "plain queries are compiled once and served from the cache"() {
+        given:
+        String query = "firstname:cached lastname:query"
+        when:
+        MongoConstraint first = QueryBuilder.FILTERS.queryString(mongoDescriptor(), query)
+        MongoConstraint second = QueryBuilder.FILTERS.queryString(mongoDescriptor(), query)
+        then:
+        isCached(QueryBuilder.FILTERS, mongoDescriptor(), query)
+        first.is(second)
+    }
+
+    def "queries using relative dates are compiled anew for each call"() {
+        given:
+        String query = "birthday>-5d firstname:relative"
+        when:
+        MongoConstraint first = QueryBuilder.FILTERS.queryString(mongoDescriptor(), query)
+        MongoConstraint second = QueryBuilder.FILTERS.queryString(mongoDescriptor(), query)
+        then:
+        !isCached(QueryBuilder.FILTERS, mongoDescriptor(), query)
+        !first.is(second)
+    }
+
+    def "queries using tags are never cached"() {
+        given:
+        String query = "||unknown-tag|red|value|Label|| firstname:tagged"
+        when:
+        QueryBuilder.FILTERS.queryString(mongoDescriptor(), query)
+        then:
+        !isCached(QueryBuilder.FILTERS, mongoDescriptor(), query)
+    }
+
+    def "cache keys depend on the current language"() {
+        given:
+        String originalLanguage = CallContext.getCurrent().getLanguage()
+        String query = "firstname:language"
+        when:
+        CallContext.getCurrent().setLanguage("de")
+        String germanKey = QueryBuilder.FILTERS.computeCompiledQueryKey(mongoDescriptor(), query, [])
+        QueryBuilder.FILTERS.queryString(mongoDescriptor(), query)
+        CallContext.getCurrent().setLanguage("en")
+        String englishKey = QueryBuilder.FILTERS.computeCompiledQueryKey(mongoDescriptor(), query, [])
+        boolean cachedForEnglish = isCached(QueryBuilder.FILTERS, mongoDescriptor(), query)
+        then:
+        germanKey != englishKey
+        FilterFactory.COMPILED_QUERIES.get(germanKey) != null
+        !cachedForEnglish
+        cleanup:
+        CallContext.getCurrent().setLanguage(originalLanguage)
+    }
+
+    def "cache keys of different factories and default fields differ"() {
+        expect:
+        QueryBuilder.FILTERS.computeCompiledQueryKey(mongoDescriptor(), "test", []) !=
+                OMA.FILTERS.computeCompiledQueryKey(mongoDescriptor(), "test", [])
+        QueryBuilder.FILTERS.computeCompiledQueryKey(mongoDescriptor(), "test", []) !=
+                QueryBuilder.FILTERS.computeCompiledQueryKey(mongoDescriptor(),
+                                                             "test",
+                                                             [QueryField.eq(MangoTestEntity.FIRSTNAME)])
+    }
+
+    def "a cached Mongo \$and constraint isn't modified when being combined with other constraints"() {
+        given:
+        String query = "firstname:shared lastname:constraint"
+        MongoConstraint cached = QueryBuilder.FILTERS.queryString(mongoDescriptor(), query)
+        List<Object> clauses = new ArrayList<>((List<Object>) cached.getObject())
+        MongoConstraint other = QueryBuilder.FILTERS.and(QueryBuilder.FILTERS.eq(MangoTestEntity.AGE, 1),
+                                                         QueryBuilder.FILTERS.eq(MangoTestEntity.COOL, true))
+        when: "the cached constraint is applied first and extended by another \$and"
+        mango.select(MangoTestEntity.class).where(cached).where(other).count()
+        and: "the cached constraint is applied to a query which already contains an \$and"
+        mango.select(MangoTestEntity.class).where(other).where(cached).count()
+        then:
+        cached.getKey() == '$and'
+        cached.getObject() == clauses
+        QueryBuilder.FILTERS.queryString(mongoDescriptor(), query).is(cached)
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing.query
+
+import sirius.kernel.BaseSpecification
+import sirius.kernel.health.HandledException
+import spock.lang.Timeout
+
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Supplier
+import java.util.stream.Collectors
+
+class PrefetchingSpliteratorSpec extends BaseSpecification {
+
+    def "all blocks are streamed and the close handler is invoked"() {
+        given:
+        AtomicInteger fetchedBlocks = new AtomicInteger()
+        AtomicBoolean closed = new AtomicBoolean()
+        when:
+        long count = PrefetchingSpliterator.stream({
+            fetchedBlocks.incrementAndGet() <= 5 ? [1, 2, 3].iterator() : null
+        } as Supplier<Iterator<Integer>>, 2, { closed.set(true) }).count()
+        then:
+        count == 15
+        and:
+        closed.get()
+    }
+
+    @Timeout(10)
+    def "closing a partially consumed stream stops fetching blocks"() {
+        given:
+        AtomicInteger fetchedBlocks = new AtomicInteger()
+        when:
+        List<Integer> items = PrefetchingSpliterator.stream({
+            fetchedBlocks.incrementAndGet()
+            [1, 2, 3].iterator()
+        } as Supplier<Iterator<Integer>>, 2, null).limit(4).collect(Collectors.toList())
+        then:
+        items.size() == 4
+        and: "at most the consumed blocks, the queued ones and the one in flight were fetched"
+        fetchedBlocks.get() <= 5
+    }
+
+    @Timeout(10)
+    def "an error while fetching a block is reported instead of blocking the consumer"() {
+        when:
+        PrefetchingSpliterator.stream({
+            throw new AssertionError("broken block")
+        } as Supplier<Iterator<Integer>>, 2, null).count()
+        then:
+        HandledException error = thrown(HandledException)
+        and:
+        error.getMessage().contains("broken block")
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mixing.query
+
+import com.alibaba.fastjson.JSON
+import com.alibaba.fastjson.JSONObject
+import sirius.db.jdbc.OMA
+import sirius.db.jdbc.SmartQuery
+import sirius.db.jdbc.TestEntity
+import sirius.db.mixing.fieldlookup.NameFieldsTestComposite
+import sirius.db.mixing.fieldlookup.SQLFieldLookUpTestEntity
+import sirius.db.mongo.Mango
+import sirius.db.mongo.MangoTestEntity
+import sirius.db.mongo.MongoQuery
+import sirius.kernel.BaseSpecification
+import sirius.kernel.di.std.Part
+import sirius.kernel.nls.NLS
+
+import java.nio.charset.StandardCharsets
+import java.time.Duration
+
+class QueryExportSpec extends BaseSpecification {
+
+    @Part
+    private static OMA oma
+
+    @Part
+    private static Mango mango
+
+    def setupSpec() {
+        oma.getReadyFuture().await(Duration.ofSeconds(60))
+        oma.select(TestEntity.class).eq(TestEntity.LASTNAME, "QueryExport").delete()
+        ["a;b", "say \"hi\"", "two\nlines"].eachWithIndex { String firstname, int index ->
+            TestEntity entity = new TestEntity()
+            entity.setFirstname(firstname)
+            entity.setLastname("QueryExport")
+            entity.setAge(index + 1)
+            oma.update(entity)
+        }
+
+        mango.select(MangoTestEntity.class).eq(MangoTestEntity.LASTNAME, "QueryExport").delete()
+        ["x,y", "a;b"].eachWithIndex { String firstname, int index ->
+            MangoTestEntity entity = new MangoTestEntity()
+            entity.setFirstname(firstname)
+            entity.setLastname("QueryExport")
+            entity.setAge(index + 1)
+            entity.setCool(index == 0)
+            mango.update(entity)
+        }
+    }
+
+    private static SmartQuery<TestEntity> sqlQuery() {
+        return oma.select(TestEntity.class).eq(TestEntity.LASTNAME, "QueryExport").orderAsc(TestEntity.AGE)
+    }
+
+    private static MongoQuery<MangoTestEntity> mongoQuery() {
+        return mango.select(MangoTestEntity.class)
+                    .eq(MangoTestEntity.LASTNAME, "QueryExport")
+                    .orderAsc(MangoTestEntity.AGE)
+    }
+
+    private static String csv(QueryExport export) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream()
+        export.toCSV(output)
+        return new String(output.toByteArray(), StandardCharsets.UTF_8)
+    }
+
+    private static List<JSONObject> ndjson(QueryExport export) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream()
+        export.toNDJSON(output)
+        return new String(output.toByteArray(), StandardCharsets.UTF_8).readLines().collect { JSON.parseObject(it) }
+    }
+
+    def "CSV exports of SQL queries quote separators, quotes and line breaks"() {
+        when:
+        String result = csv(sqlQuery().export(TestEntity.FIRSTNAME, TestEntity.LASTNAME, TestEntity.AGE))
+        then:
+        result == "firstname;lastname;age\n" +
+                "\"a;b\";QueryExport;1\n" +
+                "\"say \"\"hi\"\"\";QueryExport;2\n" +
+                "\"two\nlines\";QueryExport;3\n"
+    }
+
+    def "CSV exports of Mongo queries quote the custom separator only"() {
+        when:
+        String result = csv(mongoQuery().export(MangoTestEntity.FIRSTNAME, MangoTestEntity.AGE).withSeparator(','))
+        then:
+        result == "firstname,age\n" + "\"x,y\",1\n" + "a;b,2\n"
+    }
+
+    def "exports can omit the header or use the labels of the properties"() {
+        when:
+        String withoutHeader = csv(sqlQuery().export(TestEntity.AGE).withoutHeader())
+        String withLabels = csv(mongoQuery().export(MangoTestEntity.FIRSTNAME).withLabels())
+        then:
+        withoutHeader == "1\n2\n3\n"
+        withLabels.readLines().first() == NLS.get("Model.firstname")
+    }
+
+    def "toRows only counts the rows accepted by the handler"() {
+        given:
+        List<List<String>> rows = []
+        when:
+        long exported = sqlQuery().export(TestEntity.AGE).toRows({ row ->
+            rows.add(row)
+            return rows.size() < 3
+        })
+        then:
+        rows == [["age"], ["1"], ["2"]]
+        exported == 1
+        and:
+        sqlQuery().export(TestEntity.AGE).withoutHeader().toRows({ true }) == 3
+    }
+
+    def "NDJSON exports of SQL queries keep numbers and booleans"() {
+        given:
+        def lastname = SQLFieldLookUpTestEntity.NAMES.inner(NameFieldsTestComposite.LASTNAME)
+        oma.select(SQLFieldLookUpTestEntity.class).eq(lastname, "QueryExport").delete()
+        SQLFieldLookUpTestEntity entity = new SQLFieldLookUpTestEntity()
+        entity.getNames().setFirstname("Export")
+        entity.getNames().setLastname("QueryExport")
+        entity.setAge(42)
+        entity.setCool(true)
+        oma.update(entity)
+        when:
+        List<JSONObject> result = ndjson(oma.select(SQLFieldLookUpTestEntity.class)
+                                            .eq(lastname, "QueryExport")
+                                            .export(lastname,
+                                                    SQLFieldLookUpTestEntity.AGE,
+                                                    SQLFieldLookUpTestEntity.COOL))
+        then:
+        result.size() == 1
+        result.get(0).get("names_lastname") == "QueryExport"
+        result.get(0).get("age") instanceof Number
+        result.get(0).getIntValue("age") == 42
+        result.get(0).get("cool") == Boolean.TRUE
+    }
+
+    def "NDJSON exports of Mongo queries keep numbers and booleans"() {
+        when:
+        List<JSONObject> result = ndjson(mongoQuery().export(MangoTestEntity.FIRSTNAME,
+                                                             MangoTestEntity.AGE,
+                                                             MangoTestEntity.COOL))
+        then:
+        result.size() == 2
+        result.get(0).get("firstname") == "x,y"
+        result.get(0).get("age") instanceof Number
+        result.get(0).getIntValue("age") == 1
+        result.get(0).get("cool") == Boolean.TRUE
+        result.get(1).get("cool") == Boolean.FALSE
+    }
+}
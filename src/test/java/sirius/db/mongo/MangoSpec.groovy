@@ -8,17 +8,25 @@
 
 package sirius.db.mongo
 
+import sirius.db.mixing.BaseEntity
 import sirius.db.mixing.IntegrityConstraintFailedException
+import sirius.db.mixing.Mixing
 import sirius.db.mixing.OptimisticLockException
+import sirius.db.mixing.query.ValueRow
 import sirius.kernel.BaseSpecification
 import sirius.kernel.di.std.Part
 import sirius.kernel.health.HandledException
 
+import java.util.function.Function
+
 class MangoSpec extends BaseSpecification {
 
     @Part
     private static Mango mango
 
+    @Part
+    private static Mixing mixing
+
     @Part
     private static Mongo mongo
 
@@ -121,6 +129,126 @@ class MangoSpec extends BaseSpecification {
         notFound == null
     }
 
+    def "a session reports optimistic lock failures per entity"() {
+        given:
+        MongoLockedTestEntity modified = new MongoLockedTestEntity()
+        modified.setValue("Test")
+        mango.update(modified)
+        MongoLockedTestEntity deleted = new MongoLockedTestEntity()
+        deleted.setValue("Test")
+        mango.update(deleted)
+        MongoLockedTestEntity unmodified = new MongoLockedTestEntity()
+        unmodified.setValue("Test")
+        mango.update(unmodified)
+        and:
+        MongoLockedTestEntity staleModified = mango.refreshOrFail(modified)
+        MongoLockedTestEntity staleDeleted = mango.refreshOrFail(deleted)
+        modified.setValue("Test2")
+        mango.update(modified)
+        deleted.setValue("Test2")
+        mango.update(deleted)
+        and:
+        List<BaseEntity<?>> lockedEntities = []
+        when:
+        mixing.session().onFailure({ entity, error ->
+            if (error instanceof OptimisticLockException) {
+                lockedEntities.add(entity)
+            }
+        }).withCloseable { session ->
+            staleModified.setValue("Test3")
+            session.update(staleModified)
+            session.delete(staleDeleted)
+            unmodified.setValue("Test3")
+            session.update(unmodified)
+        }
+        then:
+        lockedEntities.size() == 2
+        and:
+        mango.refreshOrFail(modified).getValue() == "Test2"
+        and:
+        mango.find(MongoLockedTestEntity.class, deleted.getId()).isPresent()
+        and:
+        mango.refreshOrFail(unmodified).getValue() == "Test3"
+    }
+
+    def "a session creates entities as a bulk write and invokes the after save handlers once per entity"() {
+        given:
+        List<MongoLockedTestEntity> lockedEntities = (1..3).collect {
+            MongoLockedTestEntity entity = new MongoLockedTestEntity()
+            entity.setValue("Bulk " + it)
+            return entity
+        }
+        List<MangoWasCreatedTestEntity> trackedEntities = (1..3).collect {
+            MangoWasCreatedTestEntity entity = new MangoWasCreatedTestEntity()
+            entity.setValue("Bulk " + it)
+            return entity
+        }
+        when:
+        mixing.session().withCloseable { session ->
+            lockedEntities.each { session.update(it) }
+            trackedEntities.each { session.update(it) }
+        }
+        then: "each entity received its generated id"
+        lockedEntities.every { !it.isNew() }
+        lockedEntities.collect { it.getId() }.unique().size() == 3
+        trackedEntities.collect { it.getId() }.unique().size() == 3
+        and: "the version is initialized like for a single insert"
+        lockedEntities.every { it.getVersion() == 1 && mango.refreshOrFail(it).getVersion() == 1 }
+        lockedEntities.every { mango.refreshOrFail(it).getValue() == it.getValue() }
+        and:
+        trackedEntities.every { it.hasJustBeenCreated() && it.getAfterSaveInvocations() == 1 }
+    }
+
+    def "a failing insert doesn't prevent the other entities of a bulk write from being created"() {
+        given:
+        mango.select(MongoUniqueTestEntity.class).eq(MongoUniqueTestEntity.VALUE, "Bulk").delete()
+        MongoUniqueTestEntity existing = new MongoUniqueTestEntity()
+        existing.setValue("Bulk")
+        mango.update(existing)
+        and:
+        MongoUniqueTestEntity conflicting = new MongoUniqueTestEntity()
+        conflicting.setValue("Bulk")
+        MongoUniqueTestEntity valid = new MongoUniqueTestEntity()
+        valid.setValue("Bulk " + System.nanoTime())
+        and:
+        List<BaseEntity<?>> failedEntities = []
+        when:
+        mixing.session().onFailure({ entity, error -> failedEntities.add(entity) }).withCloseable { session ->
+            session.update(conflicting)
+            session.update(valid)
+        }
+        then:
+        failedEntities == [conflicting]
+        and:
+        !valid.isNew()
+        mango.find(MongoUniqueTestEntity.class, valid.getId()).isPresent()
+    }
+
+    def "a session performs the writes in the order in which they were queued"() {
+        given:
+        String suffix = String.valueOf(System.nanoTime())
+        MongoUniqueTestEntity existing = new MongoUniqueTestEntity()
+        existing.setValue("Freed " + suffix)
+        mango.update(existing)
+        and:
+        MongoUniqueTestEntity first = new MongoUniqueTestEntity()
+        first.setValue("First " + suffix)
+        MongoUniqueTestEntity second = new MongoUniqueTestEntity()
+        second.setValue("Freed " + suffix)
+        when: "both creates are interleaved with the update which frees the unique value used by the second one"
+        mixing.session().withCloseable { session ->
+            session.update(first)
+            existing.setValue("Changed " + suffix)
+            session.update(existing)
+            session.update(second)
+        }
+        then:
+        notThrown(HandledException)
+        mango.refreshOrFail(existing).getValue() == "Changed " + suffix
+        mango.refreshOrFail(first).getValue() == "First " + suffix
+        mango.refreshOrFail(second).getValue() == "Freed " + suffix
+    }
+
     def "unique constraint violations are properly thrown"() {
         setup:
         mango.select(MongoUniqueTestEntity.class).eq(MongoUniqueTestEntity.VALUE, "Test").delete()
@@ -245,4 +373,77 @@ class MangoSpec extends BaseSpecification {
                 aggregateMax(MangoAggregationsTestEntity.TEST_INT).
                 asInt(0) == 30
     }
+
+    def "entities loaded by a read-only query cannot be updated"() {
+        given:
+        MangoTestEntity e = new MangoTestEntity()
+        e.setFirstname("ReadOnly")
+        e.setLastname("Entity")
+        mango.update(e)
+        and:
+        MangoTestEntity readOnly = mango.select(MangoTestEntity.class)
+                                        .eq(MongoEntity.ID, e.getId())
+                                        .readOnly()
+                                        .queryFirst()
+        when:
+        readOnly.setLastname("Changed")
+        mango.update(readOnly)
+        then:
+        readOnly.isReadOnly()
+        thrown(HandledException)
+        and:
+        mango.refreshOrFail(e).getLastname() == "Entity"
+    }
+
+    def "projections read the selected fields including the id"() {
+        given:
+        mango.select(MangoTestEntity.class).eq(MangoTestEntity.LASTNAME, "Projection").delete()
+        List<MangoTestEntity> entities = (1..2).collect { age ->
+            MangoTestEntity e = new MangoTestEntity()
+            e.setFirstname("Projection " + age)
+            e.setLastname("Projection")
+            e.setAge(age)
+            e.setCool(age == 1)
+            mango.update(e)
+            return e
+        }
+        when:
+        List<ValueRow> rows = mango.select(MangoTestEntity.class)
+                                   .eq(MangoTestEntity.LASTNAME, "Projection")
+                                   .orderAsc(MangoTestEntity.AGE)
+                                   .project(Function.identity(),
+                                            MongoEntity.ID,
+                                            MangoTestEntity.FIRSTNAME,
+                                            MangoTestEntity.AGE,
+                                            MangoTestEntity.COOL)
+                                   .queryList()
+        then:
+        rows.size() == 2
+        rows.collect { it.at(0).asString() } == entities*.getId()
+        rows.collect { it.at(1).asString() } == ["Projection 1", "Projection 2"]
+        rows.get(1).at(2).get() == 2
+        rows.get(0).at(3).get() == Boolean.TRUE
+        rows.get(1).at(3).get() == Boolean.FALSE
+    }
+
+    def "first of a projection doesn't modify the underlying query"() {
+        given:
+        mango.select(MangoTestEntity.class).eq(MangoTestEntity.LASTNAME, "ProjectionFirst").delete()
+        (1..3).each { age ->
+            MangoTestEntity e = new MangoTestEntity()
+            e.setFirstname("First " + age)
+            e.setLastname("ProjectionFirst")
+            e.setAge(age)
+            mango.update(e)
+        }
+        MongoQuery<MangoTestEntity> query = mango.select(MangoTestEntity.class)
+                                                 .eq(MangoTestEntity.LASTNAME, "ProjectionFirst")
+                                                 .orderDesc(MangoTestEntity.AGE)
+        when:
+        Optional<String> first = query.project({ row -> row.at(0).asString() }, MangoTestEntity.FIRSTNAME).first()
+        then:
+        first.get() == "First 3"
+        query.queryList().size() == 3
+        query.count() == 3
+    }
 }
@@ -0,0 +1,58 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mongo;
+
+import sirius.kernel.di.std.Register;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Register(classes = MangoTestEntityCache.class)
+public class MangoTestEntityCache extends MongoEntityCache<MangoTestEntity> {
+
+    private final AtomicInteger lookups = new AtomicInteger();
+    private Duration refreshAheadInterval;
+
+    @Override
+    protected String getCacheName() {
+        return "test-mango-entities";
+    }
+
+    @Override
+    protected Class<MangoTestEntity> getEntityClass() {
+        return MangoTestEntity.class;
+    }
+
+    @Override
+    protected MangoTestEntity fetchFromDb(String id) {
+        lookups.incrementAndGet();
+        return super.fetchFromDb(id);
+    }
+
+    @Override
+    protected Map<String, MangoTestEntity> fetchAllFromDb(Collection<String> ids) {
+        lookups.incrementAndGet();
+        return super.fetchAllFromDb(ids);
+    }
+
+    @Override
+    protected Duration getRefreshAheadInterval() {
+        return refreshAheadInterval;
+    }
+
+    public void setRefreshAheadInterval(Duration refreshAheadInterval) {
+        this.refreshAheadInterval = refreshAheadInterval;
+    }
+
+    public int getLookups() {
+        return lookups.get();
+    }
+}
@@ -20,9 +20,13 @@ public class MangoWasCreatedTestEntity extends MongoEntity {
     @Transient
     private boolean wasCreatedIndicator;
 
+    @Transient
+    private int afterSaveInvocations;
+
     @AfterSave
     protected void checkIfCreated() {
         wasCreatedIndicator = wasCreated();
+        afterSaveInvocations++;
     }
 
     public String getValue() {
@@ -36,4 +40,8 @@ public class MangoWasCreatedTestEntity extends MongoEntity {
     public boolean hasJustBeenCreated() {
         return wasCreatedIndicator;
     }
+
+    public int getAfterSaveInvocations() {
+        return afterSaveInvocations;
+    }
 }
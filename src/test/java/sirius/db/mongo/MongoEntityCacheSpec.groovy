@@ -0,0 +1,107 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.db.mongo
+
+import sirius.kernel.BaseSpecification
+import sirius.kernel.commons.Wait
+import sirius.kernel.di.std.Part
+
+import java.time.Duration
+
+class MongoEntityCacheSpec extends BaseSpecification {
+
+    @Part
+    private static Mango mango
+
+    @Part
+    private static MangoTestEntityCache cache
+
+    def cleanup() {
+        cache.setRefreshAheadInterval(null)
+    }
+
+    private static MangoTestEntity entity(String firstname) {
+        MangoTestEntity entity = new MangoTestEntity()
+        entity.setFirstname(firstname)
+        entity.setLastname("EntityCache")
+        mango.update(entity)
+        return entity
+    }
+
+    def "fetchByIds loads all uncached entities with a single lookup"() {
+        given:
+        MangoTestEntity a = entity("A")
+        MangoTestEntity b = entity("B")
+        MangoTestEntity c = entity("C")
+        and:
+        cache.fetchById(a.getId())
+        int lookupsBefore = cache.getLookups()
+        when:
+        Map<String, MangoTestEntity> result =
+                cache.fetchByIds([c.getId(), "unknown", a.getId(), "", b.getId(), c.getId()])
+        then: "only the uncached ids are loaded and the result keeps the order of the given ids"
+        cache.getLookups() == lookupsBefore + 1
+        result.keySet() as List == [c.getId(), a.getId(), b.getId()]
+        result.values()*.getFirstname() == ["C", "A", "B"]
+        when:
+        Map<String, MangoTestEntity> cachedResult = cache.fetchByIds([a.getId(), b.getId(), c.getId()])
+        then: "all entities are now served from the cache"
+        cache.getLookups() == lookupsBefore + 1
+        cachedResult.values()*.getFirstname() == ["A", "B", "C"]
+    }
+
+    def "entries are refreshed in the background once the refresh ahead interval elapsed"() {
+        given:
+        cache.setRefreshAheadInterval(Duration.ofMillis(200))
+        MangoTestEntity entity = entity("Before")
+        cache.removeById(entity.getId())
+        and:
+        cache.fetchById(entity.getId())
+        int lookupsBefore = cache.getLookups()
+        when: "the entity is changed in the database"
+        MangoTestEntity changed = mango.refreshOrFail(entity)
+        changed.setFirstname("After")
+        mango.update(changed)
+        then: "the cached entity is served as long as the interval hasn't elapsed"
+        cache.fetchById(entity.getId()).get().getFirstname() == "Before"
+        cache.getLookups() == lookupsBefore
+        when:
+        Wait.millis(300)
+        then: "the first access after the interval still yields the cached entity but triggers a refresh"
+        cache.fetchById(entity.getId()).get().getFirstname() == "Before"
+        when:
+        String firstname = null
+        for (int i = 0; i < 50 && firstname != "After"; i++) {
+            Wait.millis(100)
+            firstname = cache.fetchById(entity.getId()).get().getFirstname()
+        }
+        then: "the refreshed entity is served without a reader having to load it"
+        firstname == "After"
+        cache.getLookups() >= lookupsBefore + 1
+    }
+
+    def "entries without a refresh ahead interval are never refreshed"() {
+        given:
+        MangoTestEntity entity = entity("Before")
+        cache.removeById(entity.getId())
+        cache.fetchById(entity.getId())
+        int lookupsBefore = cache.getLookups()
+        and:
+        MangoTestEntity changed = mango.refreshOrFail(entity)
+        changed.setFirstname("After")
+        mango.update(changed)
+        when:
+        Wait.millis(100)
+        cache.fetchById(entity.getId())
+        Wait.millis(100)
+        then:
+        cache.fetchById(entity.getId()).get().getFirstname() == "Before"
+        cache.getLookups() == lookupsBefore
+    }
+}
@@ -8,6 +8,7 @@
 
 package sirius.db.mongo.properties
 
+import sirius.db.mixing.Property
 import sirius.db.mongo.Mango
 import sirius.db.mongo.Mongo
 import sirius.kernel.BaseSpecification
@@ -70,4 +71,44 @@ class MongoStringListPropertySpec extends BaseSpecification {
         resolved.getList().contains("b")
         resolved.getList().contains("c")
     }
+
+    def "modifying a loaded list is detected as change and leaves the snapshot intact"() {
+        given:
+        MongoStringListEntity test = new MongoStringListEntity()
+        test.getList().add("a").add("b")
+        mango.update(test)
+        MongoStringListEntity resolved = mango.refreshOrFail(test)
+        Property property = resolved.getDescriptor().getProperty(MongoStringListEntity.LIST)
+        expect:
+        !resolved.isChanged(MongoStringListEntity.LIST)
+        when:
+        resolved.getList().add("c")
+        then:
+        resolved.isChanged(MongoStringListEntity.LIST)
+        resolved.getPersistedValue(property) == ["a", "b"]
+        when:
+        resolved.getList().clear()
+        then:
+        resolved.isChanged(MongoStringListEntity.LIST)
+        resolved.getPersistedValue(property) == ["a", "b"]
+        when:
+        mango.update(resolved)
+        then:
+        !resolved.isChanged(MongoStringListEntity.LIST)
+        mango.refreshOrFail(test).getList().isEmpty()
+    }
+
+    def "the original list of a loaded entity cannot be modified as it is shared with the snapshot"() {
+        given:
+        MongoStringListEntity test = new MongoStringListEntity()
+        test.getList().add("a")
+        mango.update(test)
+        MongoStringListEntity resolved = mango.refreshOrFail(test)
+        when:
+        resolved.getList().original().add("b")
+        then:
+        thrown(UnsupportedOperationException)
+        !resolved.isChanged(MongoStringListEntity.LIST)
+        resolved.getList().data() == ["a"]
+    }
 }
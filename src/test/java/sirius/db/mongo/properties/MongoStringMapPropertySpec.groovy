@@ -8,6 +8,7 @@
 
 package sirius.db.mongo.properties
 
+import sirius.db.mixing.Property
 import sirius.db.mongo.Mango
 import sirius.db.mongo.Mongo
 import sirius.kernel.BaseSpecification
@@ -46,4 +47,38 @@ class MongoStringMapPropertySpec extends BaseSpecification {
         resolved.getMap().get("Foo").get() == "2"
     }
 
+    def "modifying a loaded map is detected as change and leaves the snapshot intact"() {
+        given:
+        MongoStringMapEntity test = new MongoStringMapEntity()
+        test.getMap().put("a", "1")
+        mango.update(test)
+        MongoStringMapEntity resolved = mango.refreshOrFail(test)
+        Property property = resolved.getDescriptor().getProperty(MongoStringMapEntity.MAP)
+        expect:
+        !resolved.isChanged(MongoStringMapEntity.MAP)
+        when:
+        resolved.getMap().put("a", "2")
+        then:
+        resolved.isChanged(MongoStringMapEntity.MAP)
+        resolved.getPersistedValue(property) == ["a": "1"]
+        when:
+        mango.update(resolved)
+        then:
+        !resolved.isChanged(MongoStringMapEntity.MAP)
+        mango.refreshOrFail(test).getMap().get("a").get() == "2"
+    }
+
+    def "the original map of a loaded entity cannot be modified as it is shared with the snapshot"() {
+        given:
+        MongoStringMapEntity test = new MongoStringMapEntity()
+        test.getMap().put("a", "1")
+        mango.update(test)
+        MongoStringMapEntity resolved = mango.refreshOrFail(test)
+        when:
+        resolved.getMap().original().put("a", "2")
+        then:
+        thrown(UnsupportedOperationException)
+        !resolved.isChanged(MongoStringMapEntity.MAP)
+        resolved.getMap().get("a").get() == "1"
+    }
 }